@@ -41,11 +41,30 @@
  */
 package com.itextpdf.text.io;
 
+import com.itextpdf.text.pdf.ByteBuffer;
 import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfObjectCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * An append-only file that stores {@link PdfObject}s out of memory.
+ * <p>
+ * Objects are written with the compact {@link PdfObjectCodec} encoding.
+ * Written objects are collected in memory and appended to the file in
+ * batches; the file is read back through memory-mapped segments.
+ */
+public class TempFileCache {
 
-import java.io.*;
+    /** Size of the write batch; pending objects are appended to the file once it is full. */
+    private static final int BATCH_SIZE = 64 * 1024;
 
-public class TempFileCache {
+    /** Size of the memory-mapped segments used for reading. */
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
 
     public class ObjectPosition {
         ObjectPosition(long offset, int length) {
@@ -59,7 +78,13 @@ public class TempFileCache {
 
     private String filename;
     private RandomAccessFile cache;
-    private ByteArrayOutputStream baos;
+    private FileChannel channel;
+    private final PdfObjectCodec codec = new PdfObjectCodec();
+
+    /** Objects not yet written to the file. They start at file offset {@link #flushed}. */
+    private final ByteBuffer pending = new ByteBuffer(BATCH_SIZE + 1024);
+    private long flushed;
+    private final ArrayList<ByteBufferRandomAccessSource> segments = new ArrayList<ByteBufferRandomAccessSource>();
 
     private byte[] buf;
 
@@ -73,43 +98,76 @@ public class TempFileCache {
         }
 
         cache = new RandomAccessFile(filename, "rw");
-
-        baos = new ByteArrayOutputStream();
+        cache.setLength(0);
+        channel = cache.getChannel();
     }
 
     public ObjectPosition put(PdfObject obj) throws IOException {
-        baos.reset();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-
-        long offset, size;
-        offset = cache.length();
-
-        oos.writeObject(obj);
-        cache.seek(offset);
-        cache.write(baos.toByteArray());
-
-        size = cache.length() - offset;
-
-        return new ObjectPosition(offset, (int)size);
+        int start = pending.size();
+        codec.encode(obj, pending);
+        ObjectPosition pos = new ObjectPosition(flushed + start, pending.size() - start);
+        if (pending.size() >= BATCH_SIZE) {
+            flush();
+        }
+        return pos;
     }
 
     public PdfObject get(ObjectPosition pos) throws IOException, ClassNotFoundException {
         PdfObject obj = null;
         if (pos != null) {
-            cache.seek(pos.offset);
-            cache.read(getBuffer(pos.length), 0, pos.length);
-
-            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(getBuffer(pos.length)));
-            try {
-                obj = (PdfObject) ois.readObject();
-            } finally {
-                ois.close();
+            if (pos.offset >= flushed) {
+                return codec.decode(pending.getBuffer(), (int) (pos.offset - flushed), pos.length);
             }
+            byte[] b = getBuffer(pos.length);
+            read(pos.offset, b, pos.length);
+            obj = codec.decode(b, 0, pos.length);
         }
 
         return obj;
     }
 
+    /**
+     * Appends the pending objects to the file.
+     * @throws IOException on error
+     */
+    private void flush() throws IOException {
+        java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap(pending.getBuffer(), 0, pending.size());
+        long position = flushed;
+        while (bb.hasRemaining()) {
+            position += channel.write(bb, position);
+        }
+        flushed = position;
+        pending.reset();
+    }
+
+    private void read(long offset, byte[] b, int length) throws IOException {
+        int segment = (int) (offset / SEGMENT_SIZE);
+        long segmentStart = (long) segment * SEGMENT_SIZE;
+        long segmentEnd = segmentStart + SEGMENT_SIZE;
+        if (offset + length <= segmentEnd && segmentEnd <= flushed) {
+            // the segment is complete and will never change again, map it
+            while (segments.size() <= segment) {
+                segments.add(null);
+            }
+            ByteBufferRandomAccessSource source = segments.get(segment);
+            if (source == null) {
+                source = new ByteBufferRandomAccessSource(channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, SEGMENT_SIZE));
+                segments.set(segment, source);
+            }
+            source.get(offset - segmentStart, b, 0, length);
+        } else {
+            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap(b, 0, length);
+            long position = offset;
+            while (bb.hasRemaining()) {
+                int n = channel.read(bb, position);
+                if (n < 0) {
+                    throw new IOException("Unexpected end of cache file.");
+                }
+                position += n;
+            }
+        }
+    }
+
     private byte[] getBuffer(int size) {
         if (buf == null || buf.length < size) {
             buf = new byte[size];
@@ -119,8 +177,15 @@ public class TempFileCache {
     }
 
     public void close() throws IOException {
+        for (ByteBufferRandomAccessSource source : segments) {
+            if (source != null) {
+                source.close();
+            }
+        }
+        segments.clear();
         cache.close();
         cache = null;
+        channel = null;
 
         new File(filename).delete();
     }
@@ -0,0 +1,241 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf;
+
+import com.itextpdf.text.error_messages.MessageLocalization;
+import com.itextpdf.text.io.RandomAccessSource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+
+/**
+ * Writes a document to a <CODE>FileChannel</CODE>, starting at position 0, while
+ * computing the digest of the bytes written. Used to sign a document without
+ * keeping it in memory or copying it: the bytes before the signature dictionary are
+ * hashed as they are written, the reserved spaces are patched in place afterwards.
+ */
+class DigestChannelOutputStream extends OutputStream {
+
+    private final FileChannel channel;
+    /** The digest of the bytes written before {@link #hashLimit}; can be null. */
+    private final MessageDigest digest;
+    private final ByteBuffer buffer = ByteBuffer.allocate(0x10000);
+    /** The number of bytes already in the channel. */
+    private long flushed;
+    /** The bytes from this position on are not hashed while writing. */
+    private long hashLimit = Long.MAX_VALUE;
+
+    /**
+     * @param channel the channel to write to
+     * @param digest the digest updated with the bytes written, or <CODE>null</CODE>
+     */
+    DigestChannelOutputStream(final FileChannel channel, final MessageDigest digest) {
+        this.channel = channel;
+        this.digest = digest;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (!buffer.hasRemaining())
+            flushBuffer();
+        buffer.put((byte)b);
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining())
+                flushBuffer();
+            int n = Math.min(len, buffer.remaining());
+            buffer.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    /**
+     * Flushes the buffered bytes; the channel stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        int n = buffer.remaining();
+        if (digest != null && flushed < hashLimit)
+            digest.update(buffer.array(), 0, (int)Math.min(n, hashLimit - flushed));
+        while (buffer.hasRemaining())
+            flushed += channel.write(buffer, flushed);
+        buffer.clear();
+    }
+
+    /**
+     * Gets the algorithm of the digest computed while writing.
+     * @return the algorithm name, or <CODE>null</CODE> if no digest is computed
+     */
+    String getDigestAlgorithm() {
+        return digest == null ? null : digest.getAlgorithm();
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     * @return the position in the channel
+     */
+    long getPosition() {
+        return flushed + buffer.position();
+    }
+
+    /**
+     * Stops hashing at a position. Bytes before <CODE>limit</CODE> that are still
+     * buffered by the writer are hashed when they arrive.
+     * @param limit the position of the first byte that isn't hashed
+     */
+    void setHashLimit(final long limit) {
+        hashLimit = limit;
+    }
+
+    /**
+     * Writes bytes at a position that was already written, typically a reserved space.
+     * @param position the position in the channel
+     * @param b the bytes
+     * @param off the offset in <CODE>b</CODE>
+     * @param len the number of bytes to write
+     * @throws IOException on error
+     */
+    void patch(long position, final byte[] b, final int off, final int len) throws IOException {
+        flushBuffer();
+        ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+        while (bb.hasRemaining())
+            position += channel.write(bb, position);
+    }
+
+    /**
+     * Flushes the buffered bytes and cuts the channel at the current position,
+     * in case it had previous content.
+     * @throws IOException on error
+     */
+    void finish() throws IOException {
+        flushBuffer();
+        channel.truncate(flushed);
+    }
+
+    /**
+     * Completes the digest of the byte ranges, reading from the channel only the
+     * bytes that were not hashed while writing.
+     * @param range the byte ranges as pairs of position and length
+     * @return the digest, or <CODE>null</CODE> if no digest was computed while writing
+     * or if the ranges don't start with all the bytes hashed while writing
+     * @throws IOException on error
+     */
+    byte[] digestRanges(final long[] range) throws IOException {
+        if (digest == null || range.length < 2 || range[0] != 0 || range[1] < hashLimit)
+            return null;
+        flushBuffer();
+        ByteBuffer bb = ByteBuffer.allocate(8192);
+        for (int k = 0; k < range.length; k += 2) {
+            long position = Math.max(range[k], hashLimit);
+            long end = range[k] + range[k + 1];
+            while (position < end) {
+                bb.clear();
+                bb.limit((int)Math.min(bb.capacity(), end - position));
+                int n = channel.read(bb, position);
+                if (n <= 0)
+                    throw new EOFException(MessageLocalization.getComposedMessage("unexpected.eof"));
+                digest.update(bb.array(), 0, n);
+                position += n;
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Gets a source reading the bytes written to the channel.
+     * The source doesn't close the channel.
+     * @return a source on the written bytes
+     * @throws IOException on error
+     */
+    RandomAccessSource createSource() throws IOException {
+        flushBuffer();
+        final long length = flushed;
+        return new RandomAccessSource() {
+            public int get(final long position) throws IOException {
+                byte[] b = new byte[1];
+                return get(position, b, 0, 1) <= 0 ? -1 : b[0] & 0xff;
+            }
+
+            public int get(final long position, final byte[] bytes, final int off, int len) throws IOException {
+                if (position >= length)
+                    return -1;
+                len = (int)Math.min(len, length - position);
+                ByteBuffer bb = ByteBuffer.wrap(bytes, off, len);
+                int total = 0;
+                while (bb.hasRemaining()) {
+                    int n = channel.read(bb, position + total);
+                    if (n <= 0)
+                        break;
+                    total += n;
+                }
+                return total == 0 ? -1 : total;
+            }
+
+            public long length() {
+                return length;
+            }
+
+            public void close() throws IOException {
+            }
+        };
+    }
+}
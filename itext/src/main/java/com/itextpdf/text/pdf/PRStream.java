@@ -54,6 +54,9 @@ import com.itextpdf.text.ExceptionConverter;
 
 public class PRStream extends PdfStream {
     
+    /** The size of the buffer used to pass unchanged streams through. */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     protected PdfReader reader;
     protected long offset;
     protected int length;
@@ -226,11 +229,22 @@ public class PRStream extends PdfStream {
     }
     
     public void toPdf(PdfWriter writer, OutputStream os) throws IOException {
-        byte[] b = PdfReader.getStreamBytesRaw(this);
         PdfEncryption crypto = null;
         if (writer != null)
             crypto = writer.getEncryption();
         PdfObject objLen = get(PdfName.LENGTH);
+        if (offset >= 0 && crypto == null && reader.getDecrypt() == null) {
+            // unchanged and in the clear on both sides: pass the raw bytes through
+            put(PdfName.LENGTH, new PdfNumber(length));
+            superToPdf(writer, os);
+            put(PdfName.LENGTH, objLen);
+            os.write(STARTSTREAM);
+            if (length > 0)
+                copyRawBytes(os);
+            os.write(ENDSTREAM);
+            return;
+        }
+        byte[] b = PdfReader.getStreamBytesRaw(this);
         int nn = b.length;
         if (crypto != null)
             nn = crypto.calculateStreamSize(nn);
@@ -245,4 +259,29 @@ public class PRStream extends PdfStream {
         }
         os.write(ENDSTREAM);
     }
+
+    /**
+     * Copies the raw stream bytes from the file of the reader, a buffer
+     * at a time, instead of reading the whole stream into memory first.
+     * @param os the destination
+     * @throws IOException on error
+     */
+    private void copyRawBytes(OutputStream os) throws IOException {
+        RandomAccessFileOrArray rf = reader.getSafeFile();
+        try {
+            rf.reOpen();
+            rf.seek(offset);
+            byte buf[] = new byte[Math.min(length, COPY_BUFFER_SIZE)];
+            int left = length;
+            while (left > 0) {
+                int n = Math.min(left, buf.length);
+                rf.readFully(buf, 0, n);
+                os.write(buf, 0, n);
+                left -= n;
+            }
+        }
+        finally {
+            try{rf.close();}catch(Exception e){}
+        }
+    }
 }
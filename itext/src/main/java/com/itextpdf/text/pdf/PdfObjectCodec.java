@@ -0,0 +1,429 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A compact binary encoding for trees of {@link PdfObject}s, used by
+ * {@link com.itextpdf.text.io.TempFileCache}.
+ * <p>
+ * Names are written as ids into a name table kept by the codec, numbers and
+ * lengths as variable length integers and indirect references as their object
+ * and generation numbers. Only the plain PDF object classes are encoded this
+ * way. Subclasses (e.g. {@link PdfStructureElement}) and everything else fall
+ * back to Java serialization, so they come back exactly as they were put in.
+ * <p>
+ * Encoded objects can only be decoded by the codec instance that encoded them.
+ * The codec is not thread safe.
+ */
+public class PdfObjectCodec {
+
+    private static final int TAG_JAVA_NULL = 0;
+    private static final int TAG_NULL = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_FALSE = 3;
+    private static final int TAG_INTEGER = 4;
+    private static final int TAG_REAL = 5;
+    private static final int TAG_STRING = 6;
+    private static final int TAG_NAME = 7;
+    private static final int TAG_ARRAY = 8;
+    private static final int TAG_DICTIONARY = 9;
+    private static final int TAG_STREAM = 10;
+    private static final int TAG_REFERENCE = 11;
+    private static final int TAG_SERIALIZED = 12;
+
+    private final HashMap<PdfName, Integer> nameIds = new HashMap<PdfName, Integer>();
+    private final ArrayList<PdfName> names = new ArrayList<PdfName>();
+    private final IdentityHashMap<PdfObject, Object> inProgress = new IdentityHashMap<PdfObject, Object>();
+
+    /**
+     * Thrown internally when a container holds itself; the object is then
+     * written with Java serialization, which preserves the cycle.
+     */
+    private static class CycleException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Appends the encoded form of an object to a buffer.
+     * @param obj the object to encode, may be null
+     * @param out the buffer to append to
+     * @throws IOException if the object has to be serialized and can't be
+     */
+    public void encode(PdfObject obj, ByteBuffer out) throws IOException {
+        int start = out.size();
+        try {
+            write(obj, out);
+        } catch (CycleException e) {
+            out.setSize(start);
+            writeSerialized(obj, out);
+        } finally {
+            inProgress.clear();
+        }
+    }
+
+    /**
+     * Decodes an object previously written by {@link #encode(PdfObject, ByteBuffer)}.
+     * @param buf the buffer holding the encoded object
+     * @param off the offset of the encoded object
+     * @param len the length of the encoded object
+     * @return the decoded object
+     * @throws IOException if the data is corrupt
+     * @throws ClassNotFoundException if a serialized object can't be loaded
+     */
+    public PdfObject decode(byte[] buf, int off, int len) throws IOException, ClassNotFoundException {
+        Input in = new Input(buf, off, off + len);
+        PdfObject obj = read(in);
+        if (in.pos != in.end)
+            throw new IOException("Trailing data after encoded object.");
+        return obj;
+    }
+
+    private void write(PdfObject obj, ByteBuffer out) throws IOException {
+        if (obj == null) {
+            out.append_i(TAG_JAVA_NULL);
+            return;
+        }
+        Class<?> cls = obj.getClass();
+        if (cls == PdfName.class) {
+            out.append_i(TAG_NAME);
+            writeVarInt(nameId((PdfName) obj), out);
+        } else if (cls == PdfNumber.class) {
+            writeNumber((PdfNumber) obj, out);
+        } else if (cls == PdfIndirectReference.class) {
+            PdfIndirectReference ref = (PdfIndirectReference) obj;
+            out.append_i(TAG_REFERENCE);
+            writeVarInt(ref.number, out);
+            writeVarInt(ref.generation, out);
+        } else if (cls == PdfDictionary.class) {
+            out.append_i(TAG_DICTIONARY);
+            writeEntries((PdfDictionary) obj, out);
+        } else if (cls == PdfArray.class) {
+            PdfArray array = (PdfArray) obj;
+            enter(array);
+            out.append_i(TAG_ARRAY);
+            writeVarInt(array.arrayList.size(), out);
+            for (PdfObject item : array.arrayList)
+                write(item, out);
+            inProgress.remove(array);
+        } else if (cls == PdfString.class) {
+            writeString((PdfString) obj, out);
+        } else if (cls == PdfBoolean.class) {
+            out.append_i(((PdfBoolean) obj).booleanValue() ? TAG_TRUE : TAG_FALSE);
+        } else if (cls == PdfNull.class) {
+            out.append_i(TAG_NULL);
+        } else if (cls == PdfStream.class && isPlainStream((PdfStream) obj)) {
+            PdfStream stream = (PdfStream) obj;
+            out.append_i(TAG_STREAM);
+            writeVarInt(stream.compressed ? 1 : 0, out);
+            writeVarInt(stream.compressionLevel, out);
+            writeVarInt(stream.rawLength, out);
+            if (stream.bytes == null) {
+                writeVarInt(0, out);
+            } else {
+                writeVarInt(stream.bytes.length + 1, out);
+                out.append(stream.bytes);
+            }
+            writeEntries(stream, out);
+        } else {
+            writeSerialized(obj, out);
+        }
+    }
+
+    private void writeEntries(PdfDictionary dict, ByteBuffer out) throws IOException {
+        enter(dict);
+        writeVarInt(dict.hashMap.size(), out);
+        for (Map.Entry<PdfName, PdfObject> entry : dict.hashMap.entrySet()) {
+            writeVarInt(nameId(entry.getKey()), out);
+            write(entry.getValue(), out);
+        }
+        inProgress.remove(dict);
+    }
+
+    private void enter(PdfObject container) {
+        if (inProgress.put(container, container) != null)
+            throw new CycleException();
+    }
+
+    private static boolean isPlainStream(PdfStream stream) {
+        return stream.streamBytes == null && stream.inputStream == null && stream.ref == null
+                && stream.writer == null && stream.indRef == null;
+    }
+
+    private static void writeNumber(PdfNumber number, ByteBuffer out) {
+        double value = number.doubleValue();
+        long l = (long) value;
+        String content = number.toString();
+        if (l == value && content.equals(String.valueOf(l))) {
+            out.append_i(TAG_INTEGER);
+            writeVarLong((l << 1) ^ (l >> 63), out);
+        } else {
+            out.append_i(TAG_REAL);
+            writeVarLong(Double.doubleToLongBits(value), out);
+            writeChars(content, out);
+        }
+    }
+
+    private static void writeString(PdfString string, ByteBuffer out) {
+        out.append_i(TAG_STRING);
+        int flags = (string.hexWriting ? 1 : 0) | (string.originalValue != null ? 2 : 0)
+                | (string.bytes != null ? 4 : 0) | (string.encoding != null ? 8 : 0);
+        writeVarInt(flags, out);
+        writeChars(string.value, out);
+        // a null encoding is legal and stands for PDFDocEncoding
+        if (string.encoding != null)
+            writeChars(string.encoding, out);
+        if (string.originalValue != null)
+            writeChars(string.originalValue, out);
+        if (string.bytes != null) {
+            writeVarInt(string.bytes.length, out);
+            out.append(string.bytes);
+        }
+        writeVarInt(string.objNum, out);
+        writeVarInt(string.objGen, out);
+    }
+
+    private static void writeSerialized(PdfObject obj, ByteBuffer out) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(obj);
+        oos.close();
+        out.append_i(TAG_SERIALIZED);
+        writeVarInt(baos.size(), out);
+        out.append(baos.toByteArray());
+    }
+
+    private int nameId(PdfName name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = Integer.valueOf(names.size());
+            names.add(name);
+            nameIds.put(name, id);
+        }
+        return id.intValue();
+    }
+
+    private static void writeChars(String s, ByteBuffer out) {
+        int len = s.length();
+        writeVarInt(len, out);
+        for (int k = 0; k < len; ++k)
+            writeVarInt(s.charAt(k), out);
+    }
+
+    private static void writeVarInt(int value, ByteBuffer out) {
+        writeVarLong(value & 0xffffffffL, out);
+    }
+
+    private static void writeVarLong(long value, ByteBuffer out) {
+        while ((value & ~0x7fL) != 0) {
+            out.append_i((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.append_i((int) value);
+    }
+
+    private PdfObject read(Input in) throws IOException, ClassNotFoundException {
+        int tag = in.readByte();
+        switch (tag) {
+            case TAG_JAVA_NULL:
+                return null;
+            case TAG_NULL:
+                return PdfNull.PDFNULL;
+            case TAG_TRUE:
+                return PdfBoolean.PDFTRUE;
+            case TAG_FALSE:
+                return PdfBoolean.PDFFALSE;
+            case TAG_INTEGER: {
+                long zz = in.readVarLong();
+                return new PdfNumber((zz >>> 1) ^ -(zz & 1));
+            }
+            case TAG_REAL: {
+                // the content may be rounded, keep both
+                PdfNumber number = new PdfNumber(Double.longBitsToDouble(in.readVarLong()));
+                number.setContent(in.readChars());
+                return number;
+            }
+            case TAG_STRING:
+                return readString(in);
+            case TAG_NAME:
+                return name(in.readVarInt());
+            case TAG_ARRAY: {
+                int size = in.readVarInt();
+                PdfArray array = new PdfArray();
+                array.arrayList.ensureCapacity(size);
+                for (int k = 0; k < size; ++k)
+                    array.arrayList.add(read(in));
+                return array;
+            }
+            case TAG_DICTIONARY: {
+                PdfDictionary dict = new PdfDictionary();
+                readEntries(dict, in);
+                return dict;
+            }
+            case TAG_STREAM: {
+                boolean compressed = in.readVarInt() != 0;
+                int compressionLevel = in.readVarInt();
+                int rawLength = in.readVarInt();
+                int bytesLength = in.readVarInt();
+                PdfStream stream = new PdfStream();
+                if (bytesLength > 0)
+                    stream.bytes = in.readBytes(bytesLength - 1);
+                stream.compressed = compressed;
+                stream.compressionLevel = compressionLevel;
+                stream.rawLength = rawLength;
+                readEntries(stream, in);
+                return stream;
+            }
+            case TAG_REFERENCE: {
+                int number = in.readVarInt();
+                int generation = in.readVarInt();
+                return new PdfIndirectReference(PdfObject.INDIRECT, number, generation);
+            }
+            case TAG_SERIALIZED: {
+                int len = in.readVarInt();
+                in.require(len);
+                ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(in.buf, in.pos, len));
+                try {
+                    in.pos += len;
+                    return (PdfObject) ois.readObject();
+                } finally {
+                    ois.close();
+                }
+            }
+            default:
+                throw new IOException("Unknown tag " + tag + " in encoded object.");
+        }
+    }
+
+    private void readEntries(PdfDictionary dict, Input in) throws IOException, ClassNotFoundException {
+        int size = in.readVarInt();
+        for (int k = 0; k < size; ++k) {
+            PdfName key = name(in.readVarInt());
+            dict.hashMap.put(key, read(in));
+        }
+    }
+
+    private static PdfString readString(Input in) throws IOException {
+        int flags = in.readVarInt();
+        String value = in.readChars();
+        PdfString string = new PdfString(value, (flags & 8) != 0 ? in.readChars() : null);
+        string.hexWriting = (flags & 1) != 0;
+        if ((flags & 2) != 0)
+            string.originalValue = in.readChars();
+        if ((flags & 4) != 0)
+            string.bytes = in.readBytes(in.readVarInt());
+        string.objNum = in.readVarInt();
+        string.objGen = in.readVarInt();
+        return string;
+    }
+
+    private PdfName name(int id) throws IOException {
+        if (id < 0 || id >= names.size())
+            throw new IOException("Unknown name id " + id + " in encoded object.");
+        return names.get(id);
+    }
+
+    private static class Input {
+        final byte[] buf;
+        int pos;
+        final int end;
+
+        Input(byte[] buf, int pos, int end) {
+            this.buf = buf;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        void require(int len) throws IOException {
+            if (len < 0 || end - pos < len)
+                throw new IOException("Unexpected end of encoded object.");
+        }
+
+        int readByte() throws IOException {
+            require(1);
+            return buf[pos++] & 0xff;
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new IOException("Malformed variable length integer in encoded object.");
+        }
+
+        byte[] readBytes(int len) throws IOException {
+            require(len);
+            byte[] b = new byte[len];
+            System.arraycopy(buf, pos, b, 0, len);
+            pos += len;
+            return b;
+        }
+
+        String readChars() throws IOException {
+            int len = readVarInt();
+            require(len);
+            char[] c = new char[len];
+            for (int k = 0; k < len; ++k)
+                c[k] = (char) readVarInt();
+            return new String(c);
+        }
+    }
+}
@@ -80,6 +80,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -105,6 +106,17 @@ public class PdfReader implements PdfViewerPreferences {
 	public static boolean unethicalreading = false;
 	
 	public static boolean debugmode = false;
+
+    /**
+     * The number of threads scanning the file when the cross-reference table has to be
+     * rebuilt. With 0, one thread per available processor is used for files larger than
+     * a single scan chunk; with 1, the file is scanned line by line on the calling thread.
+     */
+    public static int rebuildXrefThreads = 0;
+
+    /** The size of the chunks scanned concurrently when rebuilding the cross-reference table. */
+    static int rebuildXrefChunkSize = 4 * 1024 * 1024;
+
 	private static final Logger LOGGER = LoggerFactory.getLogger(PdfReader.class);
 	
     static final PdfName pageInhCandidates[] = {
@@ -155,6 +167,10 @@ public class PdfReader implements PdfViewerPreferences {
     private boolean hybridXref;
     private int lastXrefPartial = -1;
     private boolean partial;
+    private int objStmCacheSize = 16;
+    private LinkedHashMap<Integer, DecodedObjStm> objStmCache;
+    private boolean nonZeroGenerations;
+    private long objectBoundaries[];
 
     private PRIndirectReference cryptoRef;
 	private final PdfViewerPreferencesImp viewerPreferences = new PdfViewerPreferencesImp();
@@ -496,6 +512,7 @@ public class PdfReader implements PdfViewerPreferences {
         this.fileLength = reader.fileLength;
         this.partial = reader.partial;
         this.hybridXref = reader.hybridXref;
+        this.nonZeroGenerations = reader.nonZeroGenerations;
         this.objStmToOffset = reader.objStmToOffset;
         this.xref = reader.xref;
         this.cryptoRef = (PRIndirectReference)duplicatePdfObject(reader.cryptoRef, this);
@@ -1324,8 +1341,15 @@ public class PdfReader implements PdfViewerPreferences {
         long pos = xref[k2];
         if (pos < 0)
             return null;
-        if (xref[k2 + 1] > 0)
+        if (xref[k2 + 1] > 0) {
+            DecodedObjStm objStm = getCachedObjStm((int)xref[k2 + 1]);
+            if (objStm != null) {
+                PdfObject obj = readOneObjStm(objStm, (int)xref[k2]);
+                xrefObj.set(k, obj);
+                return obj;
+            }
             pos = objStmToOffset.get(xref[k2 + 1]);
+        }
         if (pos == 0)
             return null;
         tokens.seek(pos);
@@ -1361,40 +1385,104 @@ public class PdfReader implements PdfViewerPreferences {
         		throw e;
         }
         if (xref[k2 + 1] > 0) {
-            obj = readOneObjStm((PRStream)obj, (int)xref[k2]);
+            DecodedObjStm objStm = decodeObjStm((PRStream)obj);
+            cacheObjStm((int)xref[k2 + 1], objStm);
+            obj = readOneObjStm(objStm, (int)xref[k2]);
         }
         xrefObj.set(k, obj);
         return obj;
     }
 
     protected PdfObject readOneObjStm(final PRStream stream, int idx) throws IOException {
+        return readOneObjStm(decodeObjStm(stream), idx);
+    }
+
+    /**
+     * Checks if the document was opened in partial mode, in which objects are
+     * only read from the file when they're needed. Reading an object then moves
+     * the shared tokeniser, so a partial reader can't be read from several threads.
+     * @return true if the reader is partial
+     * @since 5.5.11
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Sets the number of decoded object streams kept in memory in partial mode,
+     * so that reading several objects of the same object stream inflates it only once.
+     * The default is 16; 0 disables the cache.
+     * @param objStmCacheSize the maximum number of cached object streams
+     */
+    public void setObjStmCacheSize(final int objStmCacheSize) {
+        this.objStmCacheSize = objStmCacheSize;
+        if (objStmCache != null) {
+            Iterator<Integer> it = objStmCache.keySet().iterator();
+            while (objStmCache.size() > objStmCacheSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private DecodedObjStm getCachedObjStm(final int objStmNumber) {
+        return objStmCache == null ? null : objStmCache.get(objStmNumber);
+    }
+
+    private void cacheObjStm(final int objStmNumber, final DecodedObjStm objStm) {
+        if (objStmCacheSize <= 0)
+            return;
+        if (objStmCache == null) {
+            objStmCache = new LinkedHashMap<Integer, DecodedObjStm>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Integer, DecodedObjStm> eldest) {
+                    return size() > objStmCacheSize;
+                }
+            };
+        }
+        objStmCache.put(objStmNumber, objStm);
+    }
+
+    /**
+     * Inflates an object stream and reads the offsets of the objects it contains.
+     */
+    private DecodedObjStm decodeObjStm(final PRStream stream) throws IOException {
         int first = stream.getAsNumber(PdfName.FIRST).intValue();
+        PdfNumber n = stream.getAsNumber(PdfName.N);
+        int count = n == null ? Integer.MAX_VALUE : n.intValue();
         byte b[] = getStreamBytes(stream, tokens.getFile());
+        PRTokeniser header = new PRTokeniser(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(b)));
+        int offsets[] = new int[Math.max(0, Math.min(count, 1024))];
+        int size = 0;
+        while (size < count && header.getFilePointer() < first) {
+            if (!header.nextToken() || header.getTokenType() != TokenType.NUMBER)
+                break;
+            if (!header.nextToken() || header.getTokenType() != TokenType.NUMBER)
+                break;
+            if (size == offsets.length) {
+                int grown[] = new int[Math.max(16, size * 2)];
+                System.arraycopy(offsets, 0, grown, 0, size);
+                offsets = grown;
+            }
+            offsets[size++] = header.intValue() + first;
+        }
+        if (size < offsets.length) {
+            int trimmed[] = new int[size];
+            System.arraycopy(offsets, 0, trimmed, 0, size);
+            offsets = trimmed;
+        }
+        return new DecodedObjStm(b, offsets);
+    }
+
+    private PdfObject readOneObjStm(final DecodedObjStm objStm, final int idx) throws IOException {
+        if (idx < 0 || idx >= objStm.offsets.length)
+            throw new InvalidPdfException(MessageLocalization.getComposedMessage("error.reading.objstm"));
         PRTokeniser saveTokens = tokens;
-        tokens = new PRTokeniser(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(b)));
+        tokens = new PRTokeniser(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(objStm.data)));
         try {
-            int address = 0;
-            boolean ok = true;
-            ++idx;
-            for (int k = 0; k < idx; ++k) {
-                ok = tokens.nextToken();
-                if (!ok)
-                    break;
-                if (tokens.getTokenType() != TokenType.NUMBER) {
-                    ok = false;
-                    break;
-                }
-                ok = tokens.nextToken();
-                if (!ok)
-                    break;
-                if (tokens.getTokenType() != TokenType.NUMBER) {
-                    ok = false;
-                    break;
-                }
-                address = tokens.intValue() + first;
-            }
-            if (!ok)
-                throw new InvalidPdfException(MessageLocalization.getComposedMessage("error.reading.objstm"));
+            int address = objStm.offsets[idx];
             tokens.seek(address);
             tokens.nextToken();
             PdfObject obj;
@@ -1704,6 +1792,8 @@ public class PdfReader implements PdfViewerPreferences {
 //                        if (pos == 0)
 //                            tokens.throwError(MessageLocalization.getComposedMessage("file.position.0.cross.reference.entry.in.this.xref.subsection"));
                         xref[p] = pos;
+                        if (gen != 0)
+                            nonZeroGenerations = true;
                     }
                 }
                 else if (tokens.getStringValue().equals("f")) {
@@ -1812,6 +1902,8 @@ public class PdfReader implements PdfViewerPreferences {
                             break;
                         case 1:
                             xref[base] = field2;
+                            if (field3 != 0)
+                                nonZeroGenerations = true;
                             break;
                         case 2:
                             xref[base] = field3;
@@ -1848,10 +1940,34 @@ public class PdfReader implements PdfViewerPreferences {
     protected void rebuildXref() throws IOException {
         hybridXref = false;
         newXrefType = false;
+        trailer = null;
+        long startTime = System.currentTimeMillis();
+        int threads = rebuildXrefThreads > 0 ? rebuildXrefThreads : Runtime.getRuntime().availableProcessors();
+        long xr[][];
+        if (threads > 1 && (rebuildXrefThreads > 1 || tokens.length() > rebuildXrefChunkSize))
+            xr = scanObjectsParallel(threads);
+        else
+            xr = scanObjects();
+        if (trailer == null)
+            throw new InvalidPdfException(MessageLocalization.getComposedMessage("trailer.not.found"));
+        xref = new long[xr.length * 2];
+        for (int k = 0; k < xr.length; ++k) {
+            long obj[] = xr[k];
+            if (obj != null)
+                xref[k * 2] = obj[0];
+        }
+        if (LOGGER.isLogging(Level.INFO))
+            LOGGER.info(String.format("Rebuilt cross-reference table with %d entries in %d ms", xr.length, System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Scans the file line by line for object headers and trailers.
+     * @return the position and generation of the objects found, indexed by object number
+     */
+    private long[][] scanObjects() throws IOException {
         tokens.seek(0);
         long xr[][] = new long[1024][];
         long top = 0;
-        trailer = null;
         byte line[] = new byte[64];
         for (;;) {
             long pos = tokens.getFilePointer();
@@ -1894,14 +2010,58 @@ public class PdfReader implements PdfViewerPreferences {
                 }
             }
         }
-        if (trailer == null)
-            throw new InvalidPdfException(MessageLocalization.getComposedMessage("trailer.not.found"));
-        xref = new long[(int)(top * 2)];
-        for (int k = 0; k < top; ++k) {
-            long obj[] = xr[k];
-            if (obj != null)
-                xref[k * 2] = obj[0];
+        long result[][] = new long[(int)top][];
+        System.arraycopy(xr, 0, result, 0, (int)top);
+        return result;
+    }
+
+    /**
+     * Scans the file in chunks on several threads, then resolves the findings in file
+     * order with the same rules as {@link #scanObjects()}: the last trailer with a /Root
+     * wins, and so does the last header of an object with the highest generation.
+     * @param threads the number of scanning threads
+     * @return the position and generation of the objects found, indexed by object number
+     */
+    private long[][] scanObjectsParallel(final int threads) throws IOException {
+        long found[] = new PdfXrefScanner(tokens.getFile(), threads, rebuildXrefChunkSize).scan();
+        long xr[][] = new long[1024][];
+        int top = 0;
+        long skipTo = 0;
+        for (int k = 0; k < found.length; k += 3) {
+            long pos = found[k];
+            if (pos < skipTo)
+                continue;
+            if (found[k + 1] == PdfXrefScanner.TRAILER) {
+                tokens.seek(pos);
+                tokens.nextToken();
+                try {
+                    PdfDictionary dic = (PdfDictionary)readPRObject();
+                    if (dic.get(PdfName.ROOT) != null) {
+                        trailer = dic;
+                        // the line scan resumes after the trailer dictionary
+                        skipTo = tokens.getFilePointer();
+                    }
+                }
+                catch (Exception e) {
+                    // not a trailer, the line scan ignores it too
+                }
+                continue;
+            }
+            int num = (int)found[k + 1];
+            long gen = found[k + 2];
+            if (num >= xr.length) {
+                long xr2[][] = new long[num * 2][];
+                System.arraycopy(xr, 0, xr2, 0, top);
+                xr = xr2;
+            }
+            if (num >= top)
+                top = num + 1;
+            if (xr[num] == null || gen >= xr[num][1])
+                xr[num] = new long[]{pos, gen};
         }
+        long result[][] = new long[top][];
+        System.arraycopy(xr, 0, result, 0, top);
+        return result;
     }
 
     protected PdfDictionary readDictionary() throws IOException {
@@ -2120,7 +2280,7 @@ public class PdfReader implements PdfViewerPreferences {
                     break;
                 case 3: //PNG_FILTER_AVERAGE
                     for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += prior[i] / 2;
+                        curr[i] += (prior[i] & 0xff) / 2;
                     }
                     for (int i = bytesPerPixel; i < bytesPerRow; i++) {
                         curr[i] += ((curr[i - bytesPerPixel] & 0xff) + (prior[i] & 0xff))/2;
@@ -2303,6 +2463,110 @@ public class PdfReader implements PdfViewerPreferences {
         return this.rebuilt;
     }
 
+    /**
+     * Checks if the objects that aren't in memory can be copied from the file
+     * byte for byte, keeping their object numbers. This needs a partial reader
+     * on a file that isn't encrypted or rebuilt, and in which every object has
+     * generation 0, so that the references in the copied bytes stay valid.
+     * @return true if {@link #getUnloadedObjectBytes(int)} can be used
+     */
+    boolean canCopyUnloadedObjects() {
+        return partial && xref != null && !rebuilt && !encrypted && !nonZeroGenerations;
+    }
+
+    /**
+     * Gets an object exactly as it is in the file, from its <CODE>n 0 obj</CODE>
+     * header up to <CODE>endobj</CODE>. Objects that are in memory are never
+     * returned; neither are objects in object streams, nor objects whose end
+     * can't be found unambiguously.
+     * @param k the object number
+     * @return the bytes of the object or <CODE>null</CODE> if it has to be serialized
+     * @throws IOException on error
+     */
+    byte[] getUnloadedObjectBytes(final int k) throws IOException {
+        int k2 = k * 2;
+        if (k < 1 || k2 >= xref.length || k >= xrefObj.size() || xrefObj.get(k) != null)
+            return null;
+        long start = xref[k2];
+        if (start <= 0 || xref[k2 + 1] > 0)
+            return null;
+        long end = getObjectBoundary(start);
+        if (end <= start || end - start > Integer.MAX_VALUE)
+            return null;
+        byte buf[] = new byte[(int)(end - start)];
+        RandomAccessFileOrArray file = tokens.getFile();
+        file.seek(start);
+        file.readFully(buf);
+        // the header has to be "k 0 obj"
+        int p = 0;
+        int num = 0;
+        while (p < buf.length && buf[p] >= '0' && buf[p] <= '9')
+            num = num * 10 + buf[p++] - '0';
+        if (p == 0 || num != k)
+            return null;
+        int q = p;
+        while (p < buf.length && PRTokeniser.isWhitespace(buf[p]))
+            ++p;
+        if (p == q || p + 1 >= buf.length || buf[p++] != '0')
+            return null;
+        q = p;
+        while (p < buf.length && PRTokeniser.isWhitespace(buf[p]))
+            ++p;
+        if (p == q || p + 3 > buf.length || buf[p] != 'o' || buf[p + 1] != 'b' || buf[p + 2] != 'j')
+            return null;
+        // the object ends at "endobj", which must occur only once before the next object
+        int found = -1;
+        for (int i = p + 3; i <= buf.length - endobj.length; ++i) {
+            int j = 0;
+            while (j < endobj.length && buf[i + j] == endobj[j])
+                ++j;
+            if (j == endobj.length) {
+                if (found >= 0)
+                    return null;
+                found = i;
+            }
+        }
+        if (found < 0)
+            return null;
+        int length = found + endobj.length;
+        if (length == buf.length)
+            return buf;
+        byte obj[] = new byte[length];
+        System.arraycopy(buf, 0, obj, 0, length);
+        return obj;
+    }
+
+    /**
+     * Gets the position of the first object, object stream or cross-reference
+     * section that starts after a given position.
+     * @param start the start of an object
+     * @return the position where the next structure starts, or the file length
+     */
+    private long getObjectBoundary(final long start) {
+        if (objectBoundaries == null) {
+            long objStms[] = objStmToOffset == null ? new long[0] : objStmToOffset.getKeys();
+            long b[] = new long[xref.length / 2 + objStms.length + 2];
+            int n = 0;
+            for (int k = 2; k < xref.length; k += 2) {
+                if (xref[k] > 0 && xref[k + 1] == 0)
+                    b[n++] = xref[k];
+            }
+            for (int k = 0; k < objStms.length; ++k)
+                b[n++] = objStmToOffset.get(objStms[k]);
+            b[n++] = lastXref;
+            b[n++] = getFileLength();
+            Arrays.sort(b, 0, n);
+            objectBoundaries = new long[n];
+            System.arraycopy(b, 0, objectBoundaries, 0, n);
+        }
+        int idx = Arrays.binarySearch(objectBoundaries, start);
+        if (idx < 0)
+            idx = -idx - 1;
+        while (idx < objectBoundaries.length && objectBoundaries[idx] <= start)
+            ++idx;
+        return idx < objectBoundaries.length ? objectBoundaries[idx] : getFileLength();
+    }
+
     /** Gets the dictionary that represents a page.
      * @param pageNum the page number. 1 is the first
      * @return the page dictionary
@@ -3382,6 +3646,7 @@ public class PdfReader implements PdfViewerPreferences {
      * Closes the reader, and any underlying stream or data source used to create the reader
      */
     public void close() {
+        objStmCache = null;
         try {
             tokens.close();
         }
@@ -3680,6 +3945,112 @@ public class PdfReader implements PdfViewerPreferences {
         return hybridXref;
     }
 
+    /**
+     * An inflated object stream together with the absolute offsets of its objects.
+     */
+    private static class DecodedObjStm {
+        final byte data[];
+        final int offsets[];
+
+        DecodedObjStm(final byte data[], final int offsets[]) {
+            this.data = data;
+            this.offsets = offsets;
+        }
+    }
+
+    /**
+     * An intermediate node of the page tree, as indexed by {@link PageRefs} in partial reading.
+     * The kids are only read as far as needed to find the pages that were asked for.
+     */
+    private static class PageTreeNode {
+        private final PdfReader reader;
+        /** The references to the kids of the node. */
+        final PRIndirectReference kids[];
+        /** Whether the kid is a page rather than another node; only valid for the resolved kids. */
+        final boolean leaf[];
+        /** The number of pages before each kid; only valid up to index {@link #resolved}. */
+        final int pagesBefore[];
+        /** The number of kids of which the number of pages is known. */
+        private int resolved = 0;
+        /** The attributes the pages of this node inherit. */
+        final PdfDictionary inherited;
+
+        PageTreeNode(final PdfReader reader, final PdfDictionary node, final PageTreeNode parent) {
+            this.reader = reader;
+            inherited = new PdfDictionary();
+            if (parent != null)
+                inherited.putAll(parent.inherited);
+            for (int k = 0; k < pageInhCandidates.length; ++k) {
+                PdfObject obj = node.get(pageInhCandidates[k]);
+                if (obj != null)
+                    inherited.put(pageInhCandidates[k], obj);
+            }
+            int last = reader.lastXrefPartial;
+            PdfArray kidsArray = (PdfArray)getPdfObjectRelease(node.get(PdfName.KIDS));
+            reader.lastXrefPartial = last;
+            int size = 0;
+            if (kidsArray != null) {
+                while (size < kidsArray.size() && kidsArray.getPdfObject(size) instanceof PRIndirectReference)
+                    ++size;
+            }
+            kids = new PRIndirectReference[size];
+            leaf = new boolean[size];
+            pagesBefore = new int[size + 1];
+            for (int k = 0; k < size; ++k)
+                kids[k] = (PRIndirectReference)kidsArray.getPdfObject(k);
+        }
+
+        /**
+         * Reads the next kid to find out how many pages it holds.
+         */
+        private void resolveNext() {
+            int k = resolved;
+            PdfDictionary dic = (PdfDictionary)getPdfObject(kids[k]);
+            int acn = 1;
+            if (dic != null) {
+                int last = reader.lastXrefPartial;
+                PdfObject count = getPdfObjectRelease(dic.get(PdfName.COUNT));
+                reader.lastXrefPartial = last;
+                leaf[k] = count == null;
+                if (count != null && count.type() == PdfObject.NUMBER)
+                    acn = Math.max(0, ((PdfNumber)count).intValue());
+            }
+            else {
+                leaf[k] = true;
+            }
+            reader.releaseLastXrefPartial();
+            pagesBefore[k + 1] = pagesBefore[k] + acn;
+            ++resolved;
+        }
+
+        /**
+         * @param n the page index relative to this node
+         * @return the index of the kid holding the page, or -1 if the node has fewer pages
+         */
+        int findKid(final int n) {
+            if (n < 0)
+                return -1;
+            if (n >= pagesBefore[resolved]) {
+                while (resolved < kids.length) {
+                    resolveNext();
+                    if (pagesBefore[resolved] > n)
+                        return resolved - 1;
+                }
+                return -1;
+            }
+            int lo = 0;
+            int hi = resolved - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (pagesBefore[mid + 1] > n)
+                    hi = mid;
+                else
+                    lo = mid + 1;
+            }
+            return lo;
+        }
+    }
+
     static class PageRefs {
         private final PdfReader reader;
         /** ArrayList with the indirect references to every page. Element 0 = page 1; 1 = page 2;... Not used for partial reading. */
@@ -3697,6 +4068,10 @@ public class PdfReader implements PdfViewerPreferences {
          * Keeps track of all pages nodes to avoid circular references.
          */
         private Set<PdfObject> pagesNodes = new HashSet<PdfObject>();
+        /** The root of the page tree index (partial reading only). */
+        private PageTreeNode rootNode;
+        /** The page tree nodes below the root that were visited, by object number (partial reading only). */
+        private HashMap<Integer, PageTreeNode> pageTreeIndex;
 
         private PageRefs(final PdfReader reader) throws IOException {
             this.reader = reader;
@@ -3859,6 +4234,9 @@ public class PdfReader implements PdfViewerPreferences {
             else {
                 ++sizep;
                 lastPageRead = -1;
+                // the page tree was changed, the /Count values may be stale
+                rootNode = null;
+                pageTreeIndex = null;
                 if (pageNum >= size()) {
                     refsp.put(size(), ref.getNumber());
                 }
@@ -3939,39 +4317,42 @@ public class PdfReader implements PdfViewerPreferences {
             }
         }
 
+        /**
+         * Finds a page in partial reading. The intermediate nodes met on the way are
+         * indexed with the number of pages below each of their kids, so that later
+         * lookups descend straight to the page without reading the sibling nodes again.
+         * The inherited attributes are merged into the page when it is found.
+         * @param n the page index, 0 is the first page
+         * @return the page reference
+         */
         protected PRIndirectReference getSinglePage(final int n) {
-            PdfDictionary acc = new PdfDictionary();
-            PdfDictionary top = reader.rootPages;
+            if (rootNode == null) {
+                rootNode = new PageTreeNode(reader, reader.rootPages, null);
+                pageTreeIndex = new HashMap<Integer, PageTreeNode>();
+            }
+            PageTreeNode node = rootNode;
             int base = 0;
-            while (true) {
-                for (int k = 0; k < pageInhCandidates.length; ++k) {
-                    PdfObject obj = top.get(pageInhCandidates[k]);
-                    if (obj != null)
-                        acc.put(pageInhCandidates[k], obj);
+            for (int depth = 0; depth <= pageTreeIndex.size(); ++depth) {
+                int k = node.findKid(n - base);
+                if (k < 0)
+                    break;
+                PRIndirectReference ref = node.kids[k];
+                base += node.pagesBefore[k];
+                if (node.leaf[k]) {
+                    PdfDictionary dic = (PdfDictionary)getPdfObject(ref);
+                    dic.mergeDifferent(node.inherited);
+                    return ref;
                 }
-                PdfArray kids = (PdfArray)PdfReader.getPdfObjectRelease(top.get(PdfName.KIDS));
-                for (Iterator<PdfObject> it = kids.listIterator(); it.hasNext();) {
-                    PRIndirectReference ref = (PRIndirectReference)it.next();
+                PageTreeNode kid = pageTreeIndex.get(ref.getNumber());
+                if (kid == null) {
                     PdfDictionary dic = (PdfDictionary)getPdfObject(ref);
-                    int last = reader.lastXrefPartial;
-                    PdfObject count = getPdfObjectRelease(dic.get(PdfName.COUNT));
-                    reader.lastXrefPartial = last;
-                    int acn = 1;
-                    if (count != null && count.type() == PdfObject.NUMBER)
-                        acn = ((PdfNumber)count).intValue();
-                    if (n < base + acn) {
-                        if (count == null) {
-                            dic.mergeDifferent(acc);
-                            return ref;
-                        }
-                        reader.releaseLastXrefPartial();
-                        top = dic;
-                        break;
-                    }
+                    kid = new PageTreeNode(reader, dic, node);
                     reader.releaseLastXrefPartial();
-                    base += acn;
+                    pageTreeIndex.put(ref.getNumber(), kid);
                 }
+                node = kid;
             }
+            throw new ExceptionConverter(new InvalidPdfException(MessageLocalization.getComposedMessage("illegal.pages.tree")));
         }
 
         private void selectPages(final List<Integer> pagesToKeep) {
@@ -44,6 +44,7 @@
 package com.itextpdf.text.pdf;
 
 import com.itextpdf.text.Chunk;
+import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Element;
 import com.itextpdf.text.Font;
@@ -60,13 +61,16 @@ import com.itextpdf.text.pdf.AcroFields.Item;
 import com.itextpdf.text.pdf.interfaces.PdfVersion;
 import com.itextpdf.text.pdf.security.CertificateInfo;
 import com.itextpdf.text.pdf.security.CertificateInfo.X500Name;
+import com.itextpdf.text.pdf.security.DigestAlgorithms;
 
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.text.SimpleDateFormat;
@@ -256,6 +260,12 @@ public class PdfSignatureAppearance {
     private RandomAccessFile raf;
     /** The bytes of the file right before the signature is added (if raf is null) */
     private byte[] bout;
+    /** The output writing the file to a channel (can be null). */
+    private DigestChannelOutputStream channelOut;
+    /** The channel <CODE>channelOut</CODE> writes to. */
+    private FileChannel channel;
+    /** The digest of the byte ranges, once it was completed. */
+    private byte[] rangeDigest;
     /** Array containing the byte positions of the bytes that need to be hashed. */
     private long[] range;
 
@@ -270,12 +280,38 @@ public class PdfSignatureAppearance {
         return new RASInputStream(fac.createRanged(getUnderlyingSource(), range));
     }
 
+    /**
+     * Gets the digest of the document bytes that are hashable, when the document was written to a
+     * <CODE>FileChannel</CODE> with a digest computed while writing (see
+     * {@link PdfStamper#createSignature(PdfReader, FileChannel, char, boolean, java.security.MessageDigest)}).
+     * Only the bytes written from the signature dictionary on are read back. Call it after preClose().
+     * @param hashAlgorithm the hash algorithm the signature uses
+     * @return the digest, or <CODE>null</CODE> if it wasn't computed while writing or uses
+     * another algorithm; {@link #getRangeStream()} must then be hashed instead
+     * @throws IOException on error
+     */
+    public byte[] getRangeDigest(String hashAlgorithm) throws IOException {
+        if (channelOut == null || range == null)
+            return null;
+        String algorithm = channelOut.getDigestAlgorithm();
+        if (algorithm == null)
+            return null;
+        String oid = DigestAlgorithms.getAllowedDigests(algorithm);
+        if (oid == null ? !algorithm.equalsIgnoreCase(hashAlgorithm) : !oid.equals(DigestAlgorithms.getAllowedDigests(hashAlgorithm)))
+            return null;
+        if (rangeDigest == null)
+            rangeDigest = channelOut.digestRanges(range);
+        return rangeDigest;
+    }
+
     /**
      * @return the underlying source
      * @throws IOException
      */
     private RandomAccessSource getUnderlyingSource() throws IOException {
     	//TODO: get rid of separate byte[] and RandomAccessFile objects and just store a RandomAccessSource
+    	if (channelOut != null)
+    	    return channelOut.createSource();
     	RandomAccessSourceFactory fac = new RandomAccessSourceFactory();
     	return raf == null ? fac.createSource(bout) : fac.createSource(raf);
     }
@@ -649,6 +685,47 @@ public class PdfSignatureAppearance {
     	this.reuseAppearance = reuseAppearance;
     }
 
+    /** A layer 2 that was rendered before, or <code>null</code>. */
+    private PdfSignatureAppearanceTemplate appearanceTemplate;
+
+    /**
+     * Uses a layer 2 that was rendered before instead of laying out the
+     * text, image and signature graphic again. The template is scaled to
+     * the signature rectangle.
+     * @param appearanceTemplate a template created with {@link #createAppearanceTemplate()}
+     */
+    public void setAppearanceTemplate(PdfSignatureAppearanceTemplate appearanceTemplate) {
+        this.appearanceTemplate = appearanceTemplate;
+    }
+
+    /**
+     * Renders layer 2 of this appearance, with the current text, fonts, image
+     * and signature graphic, so that it can be reused for other signatures
+     * with {@link #setAppearanceTemplate(PdfSignatureAppearanceTemplate)}.
+     * This is worth it when many documents get the same visible signature.
+     * The text must be set with {@link #setLayer2Text(String)}: the default
+     * text holds the signer, date, reason and location of a single signature.
+     * With {@link RenderingMode#NAME_AND_DESCRIPTION} the name of the signer
+     * of this appearance is rendered into the template as well.
+     * @return the rendered layer
+     * @throws IOException on error
+     * @throws DocumentException on error
+     */
+    public PdfSignatureAppearanceTemplate createAppearanceTemplate() throws IOException, DocumentException {
+        if (isInvisible())
+            throw new IllegalStateException(MessageLocalization.getComposedMessage("an.appearance.template.requires.a.visible.signature"));
+        if (layer2Text == null)
+            throw new IllegalStateException(MessageLocalization.getComposedMessage("an.appearance.template.requires.a.layer.2.text"));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document(new Rectangle(rect.getWidth(), rect.getHeight()));
+        PdfWriter templateWriter = PdfWriter.getInstance(document, baos);
+        document.open();
+        renderLayer2(templateWriter.getDirectContent());
+        templateWriter.setPageEmpty(false);
+        document.close();
+        return new PdfSignatureAppearanceTemplate(new PdfReader(baos.toByteArray()));
+    }
+
     // layer 1
 
     /** An appearance that can be used for layer 1 (if acro6Layers is false). */
@@ -874,172 +951,13 @@ public class PdfSignatureAppearance {
             t.setLiteral(questionMark);
         }
         if (app[2] == null) {
-            String text;
-            if (layer2Text == null) {
-                StringBuilder buf = new StringBuilder();
-                buf.append("Digitally signed by ");
-                String name = null;
-                X500Name x500name = CertificateInfo.getSubjectFields((X509Certificate)signCertificate);
-                if (x500name != null) {
-                	name = x500name.getField("CN");
-                	if (name == null)
-                		name = x500name.getField("E");
-                }
-                if (name == null)
-                    name = "";
-                buf.append(name).append('\n');
-                SimpleDateFormat sd = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss z");
-                buf.append("Date: ").append(sd.format(signDate.getTime()));
-                if (reason != null)
-                    buf.append('\n').append(reasonCaption).append(reason);
-                if (location != null)
-                    buf.append('\n').append(locationCaption).append(location);
-                text = buf.toString();
-            }
-            else
-                text = layer2Text;
             PdfTemplate t = app[2] = new PdfTemplate(writer);
             t.setBoundingBox(rect);
             writer.addDirectTemplateSimple(t, new PdfName("n2"));
-            if (image != null) {
-                if (imageScale == 0) {
-                    t.addImage(image, rect.getWidth(), 0, 0, rect.getHeight(), 0, 0);
-                }
-                else {
-                    float usableScale = imageScale;
-                    if (imageScale < 0)
-                        usableScale = Math.min(rect.getWidth() / image.getWidth(), rect.getHeight() / image.getHeight());
-                    float w = image.getWidth() * usableScale;
-                    float h = image.getHeight() * usableScale;
-                    float x = (rect.getWidth() - w) / 2;
-                    float y = (rect.getHeight() - h) / 2;
-                    t.addImage(image, w, 0, 0, h, x, y);
-                }
-            }
-            Font font;
-            if (layer2Font == null)
-                font = new Font();
+            if (appearanceTemplate != null)
+                appearanceTemplate.addTo(t, rect);
             else
-                font = new Font(layer2Font);
-            float size = font.getSize();
-
-            Rectangle dataRect = null;
-            Rectangle signatureRect = null;
-
-            if (renderingMode == RenderingMode.NAME_AND_DESCRIPTION ||
-                renderingMode == RenderingMode.GRAPHIC_AND_DESCRIPTION && this.signatureGraphic != null) {
-                // origin is the bottom-left
-                signatureRect = new Rectangle(
-                    MARGIN,
-                    MARGIN,
-                    rect.getWidth() / 2 - MARGIN,
-                    rect.getHeight() - MARGIN);
-                dataRect = new Rectangle(
-                    rect.getWidth() / 2 +  MARGIN / 2,
-                    MARGIN,
-                    rect.getWidth() - MARGIN / 2,
-                    rect.getHeight() - MARGIN);
-
-                if (rect.getHeight() > rect.getWidth()) {
-                    signatureRect = new Rectangle(
-                        MARGIN,
-                        rect.getHeight() / 2,
-                        rect.getWidth() - MARGIN,
-                        rect.getHeight());
-                    dataRect = new Rectangle(
-                        MARGIN,
-                        MARGIN,
-                        rect.getWidth() - MARGIN,
-                        rect.getHeight() / 2 - MARGIN);
-                }
-            }
-            else if (renderingMode == RenderingMode.GRAPHIC) {
-                if (signatureGraphic == null) {
-                    throw new IllegalStateException(MessageLocalization.getComposedMessage("a.signature.image.should.be.present.when.rendering.mode.is.graphic.only"));
-                }
-                signatureRect = new Rectangle(
-                        MARGIN,
-                        MARGIN,
-                        rect.getWidth() - MARGIN, // take all space available
-                        rect.getHeight() - MARGIN);
-            }
-            else {
-                dataRect = new Rectangle(
-                        MARGIN,
-                        MARGIN,
-                        rect.getWidth() - MARGIN,
-                        rect.getHeight() * (1 - TOP_SECTION) - MARGIN);
-            }
-
-            switch (renderingMode) {
-            case NAME_AND_DESCRIPTION:
-                String signedBy = CertificateInfo.getSubjectFields((X509Certificate)signCertificate).getField("CN");
-                if (signedBy == null)
-                    signedBy = CertificateInfo.getSubjectFields((X509Certificate)signCertificate).getField("E");
-                if (signedBy == null)
-                    signedBy = "";
-                Rectangle sr2 = new Rectangle(signatureRect.getWidth() - MARGIN, signatureRect.getHeight() - MARGIN );
-                float signedSize = ColumnText.fitText(font, signedBy, sr2, -1, runDirection);
-
-                ColumnText ct2 = new ColumnText(t);
-                ct2.setRunDirection(runDirection);
-                ct2.setSimpleColumn(new Phrase(signedBy, font), signatureRect.getLeft(), signatureRect.getBottom(), signatureRect.getRight(), signatureRect.getTop(), signedSize, Element.ALIGN_LEFT);
-
-                ct2.go();
-                break;
-            case GRAPHIC_AND_DESCRIPTION:
-                if (signatureGraphic == null) {
-                    throw new IllegalStateException(MessageLocalization.getComposedMessage("a.signature.image.should.be.present.when.rendering.mode.is.graphic.and.description"));
-                }
-                ct2 = new ColumnText(t);
-                ct2.setRunDirection(runDirection);
-                ct2.setSimpleColumn(signatureRect.getLeft(), signatureRect.getBottom(), signatureRect.getRight(), signatureRect.getTop(), 0, Element.ALIGN_RIGHT);
-
-                Image im = Image.getInstance(signatureGraphic);
-                im.scaleToFit(signatureRect.getWidth(), signatureRect.getHeight());
-
-                Paragraph p = new Paragraph();
-                // must calculate the point to draw from to make image appear in middle of column
-                float x = 0;
-                // experimentation found this magic number to counteract Adobe's signature graphic, which
-                // offsets the y co-ordinate by 15 units
-                float y = -im.getScaledHeight() + 15;
-
-                x = x + (signatureRect.getWidth() - im.getScaledWidth()) / 2;
-                y = y - (signatureRect.getHeight() - im.getScaledHeight()) / 2;
-                p.add(new Chunk(im, x + (signatureRect.getWidth() - im.getScaledWidth()) / 2, y, false));
-                ct2.addElement(p);
-                ct2.go();
-                break;
-            case GRAPHIC:
-                ct2 = new ColumnText(t);
-                ct2.setRunDirection(runDirection);
-                ct2.setSimpleColumn(signatureRect.getLeft(), signatureRect.getBottom(), signatureRect.getRight(), signatureRect.getTop(), 0, Element.ALIGN_RIGHT);
-
-                im = Image.getInstance(signatureGraphic);
-                im.scaleToFit(signatureRect.getWidth(), signatureRect.getHeight());
-
-                p = new Paragraph(signatureRect.getHeight());
-                // must calculate the point to draw from to make image appear in middle of column
-                x = (signatureRect.getWidth() - im.getScaledWidth()) / 2;
-                y = (signatureRect.getHeight() - im.getScaledHeight()) / 2;
-                p.add(new Chunk(im, x, y, false));
-                ct2.addElement(p);
-                ct2.go();
-                break;
-            default:
-            }
-
-            if(renderingMode != RenderingMode.GRAPHIC) {
-            	if (size <= 0) {
-                    Rectangle sr = new Rectangle(dataRect.getWidth(), dataRect.getHeight());
-                    size = ColumnText.fitText(font, text, sr, 12, runDirection);
-                }
-                ColumnText ct = new ColumnText(t);
-                ct.setRunDirection(runDirection);
-                ct.setSimpleColumn(new Phrase(text, font), dataRect.getLeft(), dataRect.getBottom(), dataRect.getRight(), dataRect.getTop(), size, Element.ALIGN_LEFT);
-                ct.go();
-            }
+                renderLayer2(t);
         }
         if (app[3] == null && !acro6Layers) {
             PdfTemplate t = app[3] = new PdfTemplate(writer);
@@ -1119,6 +1037,177 @@ public class PdfSignatureAppearance {
         return napp;
     }
 
+    /**
+     * Draws the text, the image and the signature graphic of layer 2.
+     * @param t the canvas of layer 2, with the size of the signature rectangle
+     * @throws DocumentException on error
+     */
+    private void renderLayer2(PdfContentByte t) throws DocumentException {
+        String text;
+        if (layer2Text == null) {
+            StringBuilder buf = new StringBuilder();
+            buf.append("Digitally signed by ");
+            String name = null;
+            X500Name x500name = CertificateInfo.getSubjectFields((X509Certificate)signCertificate);
+            if (x500name != null) {
+            	name = x500name.getField("CN");
+            	if (name == null)
+            		name = x500name.getField("E");
+            }
+            if (name == null)
+                name = "";
+            buf.append(name).append('\n');
+            SimpleDateFormat sd = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss z");
+            buf.append("Date: ").append(sd.format(signDate.getTime()));
+            if (reason != null)
+                buf.append('\n').append(reasonCaption).append(reason);
+            if (location != null)
+                buf.append('\n').append(locationCaption).append(location);
+            text = buf.toString();
+        }
+        else
+            text = layer2Text;
+        if (image != null) {
+            if (imageScale == 0) {
+                t.addImage(image, rect.getWidth(), 0, 0, rect.getHeight(), 0, 0);
+            }
+            else {
+                float usableScale = imageScale;
+                if (imageScale < 0)
+                    usableScale = Math.min(rect.getWidth() / image.getWidth(), rect.getHeight() / image.getHeight());
+                float w = image.getWidth() * usableScale;
+                float h = image.getHeight() * usableScale;
+                float x = (rect.getWidth() - w) / 2;
+                float y = (rect.getHeight() - h) / 2;
+                t.addImage(image, w, 0, 0, h, x, y);
+            }
+        }
+        Font font;
+        if (layer2Font == null)
+            font = new Font();
+        else
+            font = new Font(layer2Font);
+        float size = font.getSize();
+
+        Rectangle dataRect = null;
+        Rectangle signatureRect = null;
+
+        if (renderingMode == RenderingMode.NAME_AND_DESCRIPTION ||
+            renderingMode == RenderingMode.GRAPHIC_AND_DESCRIPTION && this.signatureGraphic != null) {
+            // origin is the bottom-left
+            signatureRect = new Rectangle(
+                MARGIN,
+                MARGIN,
+                rect.getWidth() / 2 - MARGIN,
+                rect.getHeight() - MARGIN);
+            dataRect = new Rectangle(
+                rect.getWidth() / 2 +  MARGIN / 2,
+                MARGIN,
+                rect.getWidth() - MARGIN / 2,
+                rect.getHeight() - MARGIN);
+
+            if (rect.getHeight() > rect.getWidth()) {
+                signatureRect = new Rectangle(
+                    MARGIN,
+                    rect.getHeight() / 2,
+                    rect.getWidth() - MARGIN,
+                    rect.getHeight());
+                dataRect = new Rectangle(
+                    MARGIN,
+                    MARGIN,
+                    rect.getWidth() - MARGIN,
+                    rect.getHeight() / 2 - MARGIN);
+            }
+        }
+        else if (renderingMode == RenderingMode.GRAPHIC) {
+            if (signatureGraphic == null) {
+                throw new IllegalStateException(MessageLocalization.getComposedMessage("a.signature.image.should.be.present.when.rendering.mode.is.graphic.only"));
+            }
+            signatureRect = new Rectangle(
+                    MARGIN,
+                    MARGIN,
+                    rect.getWidth() - MARGIN, // take all space available
+                    rect.getHeight() - MARGIN);
+        }
+        else {
+            dataRect = new Rectangle(
+                    MARGIN,
+                    MARGIN,
+                    rect.getWidth() - MARGIN,
+                    rect.getHeight() * (1 - TOP_SECTION) - MARGIN);
+        }
+
+        switch (renderingMode) {
+        case NAME_AND_DESCRIPTION:
+            String signedBy = CertificateInfo.getSubjectFields((X509Certificate)signCertificate).getField("CN");
+            if (signedBy == null)
+                signedBy = CertificateInfo.getSubjectFields((X509Certificate)signCertificate).getField("E");
+            if (signedBy == null)
+                signedBy = "";
+            Rectangle sr2 = new Rectangle(signatureRect.getWidth() - MARGIN, signatureRect.getHeight() - MARGIN );
+            float signedSize = ColumnText.fitText(font, signedBy, sr2, -1, runDirection);
+
+            ColumnText ct2 = new ColumnText(t);
+            ct2.setRunDirection(runDirection);
+            ct2.setSimpleColumn(new Phrase(signedBy, font), signatureRect.getLeft(), signatureRect.getBottom(), signatureRect.getRight(), signatureRect.getTop(), signedSize, Element.ALIGN_LEFT);
+
+            ct2.go();
+            break;
+        case GRAPHIC_AND_DESCRIPTION:
+            if (signatureGraphic == null) {
+                throw new IllegalStateException(MessageLocalization.getComposedMessage("a.signature.image.should.be.present.when.rendering.mode.is.graphic.and.description"));
+            }
+            ct2 = new ColumnText(t);
+            ct2.setRunDirection(runDirection);
+            ct2.setSimpleColumn(signatureRect.getLeft(), signatureRect.getBottom(), signatureRect.getRight(), signatureRect.getTop(), 0, Element.ALIGN_RIGHT);
+
+            Image im = Image.getInstance(signatureGraphic);
+            im.scaleToFit(signatureRect.getWidth(), signatureRect.getHeight());
+
+            Paragraph p = new Paragraph();
+            // must calculate the point to draw from to make image appear in middle of column
+            float x = 0;
+            // experimentation found this magic number to counteract Adobe's signature graphic, which
+            // offsets the y co-ordinate by 15 units
+            float y = -im.getScaledHeight() + 15;
+
+            x = x + (signatureRect.getWidth() - im.getScaledWidth()) / 2;
+            y = y - (signatureRect.getHeight() - im.getScaledHeight()) / 2;
+            p.add(new Chunk(im, x + (signatureRect.getWidth() - im.getScaledWidth()) / 2, y, false));
+            ct2.addElement(p);
+            ct2.go();
+            break;
+        case GRAPHIC:
+            ct2 = new ColumnText(t);
+            ct2.setRunDirection(runDirection);
+            ct2.setSimpleColumn(signatureRect.getLeft(), signatureRect.getBottom(), signatureRect.getRight(), signatureRect.getTop(), 0, Element.ALIGN_RIGHT);
+
+            im = Image.getInstance(signatureGraphic);
+            im.scaleToFit(signatureRect.getWidth(), signatureRect.getHeight());
+
+            p = new Paragraph(signatureRect.getHeight());
+            // must calculate the point to draw from to make image appear in middle of column
+            x = (signatureRect.getWidth() - im.getScaledWidth()) / 2;
+            y = (signatureRect.getHeight() - im.getScaledHeight()) / 2;
+            p.add(new Chunk(im, x, y, false));
+            ct2.addElement(p);
+            ct2.go();
+            break;
+        default:
+        }
+
+        if(renderingMode != RenderingMode.GRAPHIC) {
+        	if (size <= 0) {
+                Rectangle sr = new Rectangle(dataRect.getWidth(), dataRect.getHeight());
+                size = ColumnText.fitText(font, text, sr, 12, runDirection);
+            }
+            ColumnText ct = new ColumnText(t);
+            ct.setRunDirection(runDirection);
+            ct.setSimpleColumn(new Phrase(text, font), dataRect.getLeft(), dataRect.getBottom(), dataRect.getRight(), dataRect.getTop(), size, Element.ALIGN_LEFT);
+            ct.go();
+        }
+    }
+
     private void createBlankN0() {
         PdfTemplate t = app[0] = new PdfTemplate(writer);
         t.setBoundingBox(new Rectangle(100, 100));
@@ -1205,6 +1294,16 @@ public class PdfSignatureAppearance {
         this.tempFile = tempFile;
     }
 
+    /**
+     * Sets the output writing the document to a channel, instead of a byte buffer or a temporary file.
+     * @param channelOut the output
+     * @param channel the channel written to; closed by {@link #close(PdfDictionary)}
+     */
+    void setChannelOut(DigestChannelOutputStream channelOut, FileChannel channel) {
+        this.channelOut = channelOut;
+        this.channel = channel;
+    }
+
     /** Name and content of keys that can only be added in the close() method. */
     private HashMap<PdfName, PdfLiteral> exclusionLocations;
 
@@ -1336,6 +1435,9 @@ public class PdfSignatureAppearance {
             	addFieldMDP(cryptoDictionary, fieldLock);
             if (signatureEvent != null)
                 signatureEvent.getSignatureDictionary(cryptoDictionary);
+            // everything written so far is hashed, the rest is read back once the ranges are known
+            if (channelOut != null)
+                channelOut.setHashLimit(writer.getOs().getCounter());
             writer.addToBody(cryptoDictionary, refSig, false);
         }
         if (certificationLevel > 0) {
@@ -1359,7 +1461,18 @@ public class PdfSignatureAppearance {
         for (int k = 3; k < range.length - 2; k += 2)
             range[k] -= range[k - 1];
 
-        if (tempFile == null) {
+        if (channelOut != null) {
+            long len = channelOut.getPosition();
+            range[range.length - 1] = len - range[range.length - 2];
+            ByteBuffer bf = new ByteBuffer();
+            bf.append('[');
+            for (int k = 0; k < range.length; ++k)
+                bf.append(range[k]).append(' ');
+            bf.append(']');
+            channelOut.finish();
+            channelOut.patch(byteRangePosition, bf.getBuffer(), 0, bf.size());
+        }
+        else if (tempFile == null) {
             bout = sigout.getBuffer();
             boutLen = sigout.size();
             range[range.length - 1] = boutLen - range[range.length - 2];
@@ -1474,7 +1587,9 @@ public class PdfSignatureAppearance {
                 obj.toPdf(null, bf);
                 if (bf.size() > lit.getPosLength())
                     throw new IllegalArgumentException(MessageLocalization.getComposedMessage("the.key.1.is.too.big.is.2.reserved.3", key.toString(), String.valueOf(bf.size()), String.valueOf(lit.getPosLength())));
-                if (tempFile == null)
+                if (channelOut != null)
+                    channelOut.patch(lit.getPosition(), bf.getBuffer(), 0, bf.size());
+                else if (tempFile == null)
                     System.arraycopy(bf.getBuffer(), 0, bout, (int)lit.getPosition(), bf.size());
                 else {
                     raf.seek(lit.getPosition());
@@ -1483,10 +1598,11 @@ public class PdfSignatureAppearance {
             }
             if (update.size() != exclusionLocations.size())
                 throw new IllegalArgumentException(MessageLocalization.getComposedMessage("the.update.dictionary.has.less.keys.than.required"));
-            if (tempFile == null) {
+            // with a channel, the signed document is already in place
+            if (channelOut == null && tempFile == null) {
                 originalout.write(bout, 0, boutLen);
             }
-            else {
+            else if (tempFile != null) {
                 if (originalout != null) {
                     raf.seek(0);
                     long length = raf.length();
@@ -1502,14 +1618,32 @@ public class PdfSignatureAppearance {
             }
         }
         finally {
-        	writer.reader.close();
-            if (tempFile != null) {
-                try{raf.close();}catch(Exception ee){}
-                if (originalout != null)
-                    try{tempFile.delete();}catch(Exception ee){}
-            }
+            releaseResources();
+        }
+    }
+
+    /**
+     * Gives up a signature after {@link #preClose(HashMap)}, for instance when
+     * the signature couldn't be computed. The reader, the temporary file and the
+     * streams are closed as by {@link #close(PdfDictionary)}, but nothing more is
+     * written, so the output doesn't hold a valid signed document.
+     * @since 5.5.11
+     */
+    public void abort() {
+        if (preClosed)
+            releaseResources();
+    }
+
+    private void releaseResources() {
+    	writer.reader.close();
+        if (tempFile != null) {
+            try{raf.close();}catch(Exception ee){}
             if (originalout != null)
-                try{originalout.close();}catch(Exception e){}
+                try{tempFile.delete();}catch(Exception ee){}
         }
+        if (originalout != null)
+            try{originalout.close();}catch(Exception e){}
+        if (channel != null)
+            try{channel.close();}catch(Exception e){}
     }
 }
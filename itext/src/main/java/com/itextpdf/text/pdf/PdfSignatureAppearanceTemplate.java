@@ -0,0 +1,109 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf;
+
+import com.itextpdf.text.Rectangle;
+
+/**
+ * The text, image and signature graphic of a visible signature (layer n2),
+ * rendered once and reused for any number of signatures. Laying out the
+ * text and embedding the fonts and images is done when the template is
+ * created with {@link PdfSignatureAppearance#createAppearanceTemplate()};
+ * every signature that uses it only copies the resulting form XObject
+ * into its own document.
+ * <p>
+ * A template can only be created for a text set with
+ * {@link PdfSignatureAppearance#setLayer2Text(String)}, because the default
+ * text is different for every signature.
+ * <p>
+ * A template reads from a single <CODE>PdfReader</CODE>, which isn't thread-safe.
+ * The documents that use a template read from it when they're pre-closed, so
+ * documents sharing a template must be signed one after the other; create a
+ * template per thread to sign in parallel. A template must stay open until
+ * the documents that use it are closed.
+ */
+public class PdfSignatureAppearanceTemplate {
+
+    /** The rendered layer, as the first page of a document. */
+    private final PdfReader reader;
+
+    /** The size of the rendered layer. */
+    private final Rectangle size;
+
+    /**
+     * Creates a template.
+     * @param reader a document with the rendered layer as its first page
+     */
+    PdfSignatureAppearanceTemplate(PdfReader reader) {
+        this.reader = reader;
+        this.size = reader.getPageSize(1);
+    }
+
+    /**
+     * Gets the size the layer was rendered at.
+     * @return the size of the signature rectangle used to create the template
+     */
+    public Rectangle getSize() {
+        return size;
+    }
+
+    /**
+     * Draws the rendered layer on a layer of a signature, scaled to the signature rectangle.
+     * This imports a page of the shared reader: it must not run for several
+     * signatures at the same time.
+     * @param layer the layer to draw on
+     * @param rect the signature rectangle
+     */
+    void addTo(PdfTemplate layer, Rectangle rect) {
+        PdfImportedPage page = layer.getPdfWriter().getImportedPage(reader, 1);
+        layer.addTemplate(page, rect.getWidth() / size.getWidth(), 0, 0, rect.getHeight() / size.getHeight(), 0, 0);
+    }
+
+    /**
+     * Releases the rendered layer.
+     */
+    public void close() {
+        reader.close();
+    }
+}
@@ -59,6 +59,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
 import java.security.cert.Certificate;
 import java.util.HashMap;
 import java.util.List;
@@ -718,6 +720,45 @@ public class PdfStamper
         return stp;
     }
 
+    /**
+     * Applies a digital signature to a document, writing it straight to a <CODE>FileChannel</CODE>.
+     * The document is neither kept in memory nor copied from a temporary file: when
+     * <CODE>rangeDigest</CODE> is given, the bytes written before the signature dictionary are
+     * hashed while they are written, and only the bytes from the signature dictionary on are read
+     * back to complete the digest. The reserved /ByteRange and /Contents are then patched in place.
+     * In append mode that is only the new revision.
+     * <p>
+     * The channel is written from position 0 and truncated to the length of the document;
+     * it is closed by {@link PdfSignatureAppearance#close(PdfDictionary)}.
+     * @param reader the original document
+     * @param channel the channel the signed document is written to
+     * @param pdfVersion the new pdf version or '\0' to keep the same version as the original
+     * document
+     * @param append if <CODE>true</CODE> the signature and all the other content will be added as a
+     * new revision thus not invalidating existing signatures
+     * @param rangeDigest the digest to compute while writing, with the algorithm that will be used
+     * to sign, or <CODE>null</CODE> to read the whole byte range back from the channel
+     * @return a <CODE>PdfStamper</CODE>
+     * @throws DocumentException on error
+     * @throws IOException on error
+     * @see PdfSignatureAppearance#getRangeDigest(String)
+     */
+    public static PdfStamper createSignature(final PdfReader reader, final FileChannel channel, final char pdfVersion, final boolean append, final MessageDigest rangeDigest) throws DocumentException, IOException {
+        DigestChannelOutputStream out = new DigestChannelOutputStream(channel, rangeDigest);
+        PdfStamper stp = new PdfStamper(reader, out, pdfVersion, append);
+        stp.sigApp = new PdfSignatureAppearance(stp.stamper);
+        stp.sigApp.setChannelOut(out, channel);
+        stp.sigApp.setStamper(stp);
+        stp.hasSignature = true;
+        PdfDictionary catalog = reader.getCatalog();
+        PdfDictionary acroForm = (PdfDictionary)PdfReader.getPdfObject(catalog.get(PdfName.ACROFORM), catalog);
+        if (acroForm != null) {
+            acroForm.remove(PdfName.NEEDAPPEARANCES);
+            stp.stamper.markUsed(acroForm);
+        }
+        return stp;
+    }
+
     /**
      * Applies a digital signature to a document. The returned PdfStamper
      * can be used normally as the signature is only applied when closing.
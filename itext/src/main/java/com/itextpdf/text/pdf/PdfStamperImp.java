@@ -107,6 +107,8 @@ class PdfStamperImp extends PdfWriter {
     protected int sigFlags = 0;
     protected boolean append;
     protected IntHashtable marked;
+    /** Keep the object numbers of the reader and copy the objects that weren't loaded as they are. */
+    protected boolean copyUnloaded;
     protected int initialXrefSize;
     protected PdfAction openAction;
     protected HashMap<Object, PdfObject> namedDestinations = new HashMap<Object, PdfObject>();
@@ -183,11 +185,26 @@ class PdfStamperImp extends PdfWriter {
                 fullCompression = true;
             if (reader.isHybridXref())
                 fullCompression = false;
+        } else if (canCopyUnloadedObjects()) {
+            body.setRefnum(reader.getXrefSize());
+            copyUnloaded = true;
         }
         initialXrefSize = reader.getXrefSize();
         readColorProfile();
     }
 
+    /**
+     * Checks if the objects of a partial reader that aren't loaded can be copied
+     * to the output byte for byte instead of being read and serialized again.
+     * This doesn't track changes: the objects that are in memory are always
+     * serialized, and an object that is released is written as it is in the file,
+     * exactly as {@link PdfReader#getPdfObjectRelease(int)} would read it back.
+     * @return true if the objects that aren't loaded are copied
+     */
+    protected boolean canCopyUnloadedObjects() {
+        return reader.canCopyUnloadedObjects();
+    }
+
     protected void readColorProfile() {
         PdfObject outputIntents = reader.getCatalog().getAsArray(PdfName.OUTPUTINTENTS);
         if (outputIntents != null && ((PdfArray) outputIntents).size() > 0) {
@@ -428,7 +445,15 @@ class PdfStamperImp extends PdfWriter {
                 }
             }
         } else {
+            boolean raw = copyUnloaded && crypto == null;
             for (int k = 1; k < reader.getXrefSize(); ++k) {
+                if (raw && skipInfo != k && k < initialXrefSize) {
+                    byte bytes[] = reader.getUnloadedObjectBytes(k);
+                    if (bytes != null) {
+                        body.addRawObject(bytes, k);
+                        continue;
+                    }
+                }
                 PdfObject obj = reader.getPdfObjectRelease(k);
                 if (obj != null && skipInfo != k) {
                     addToBody(obj, getNewObjectNumber(reader, k, 0), k != rootN);
@@ -572,7 +597,7 @@ class PdfStamperImp extends PdfWriter {
             return n;
         }
         if (currentPdfReaderInstance == null) {
-            if (append && number < initialXrefSize)
+            if ((append || copyUnloaded) && number < initialXrefSize)
                 return number;
             int n = myXref.get(number);
             if (n == 0) {
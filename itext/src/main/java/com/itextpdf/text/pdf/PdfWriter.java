@@ -383,6 +383,24 @@ public class PdfWriter extends DocWriter implements
             }
         }
 
+        /**
+         * Writes an indirect object that was copied as is from another file.
+         * @param indirectObject the object, from its header up to <CODE>endobj</CODE>
+         * @param refNumber the object number used in the header
+         * @throws IOException
+         */
+        void addRawObject(final byte indirectObject[], final int refNumber) throws IOException {
+            PdfCrossReference pxref = new PdfCrossReference(refNumber, position);
+            if (!xrefs.add(pxref)) {
+                xrefs.remove(pxref);
+                xrefs.add(pxref);
+            }
+            OutputStream os = writer.getOs();
+            os.write(indirectObject);
+            os.write('\n');
+            position = writer.getOs().getCounter();
+        }
+
         protected void write(final PdfIndirectObject indirect, final int refNumber) throws IOException {
             PdfCrossReference pxref = new PdfCrossReference(refNumber, position);
             if (!xrefs.add(pxref)) {
@@ -0,0 +1,260 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Alexander Chingarev, Bruno Lowagie, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf;
+
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.log.Level;
+import com.itextpdf.text.log.Logger;
+import com.itextpdf.text.log.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Scans a PDF file for object headers ("n g obj") and trailer keywords on several
+ * threads. Used by {@link PdfReader} when the cross-reference table has to be rebuilt.
+ * <p>
+ * The file is read sequentially in chunks, each extended with the first bytes of the
+ * next chunk so that a line starting near the end of a chunk can be examined completely.
+ * The chunks are then scanned concurrently. Lines are recognized the way
+ * {@link PRTokeniser#readLineSegment(byte[], boolean)} reads them: leading whitespace is
+ * skipped and at most {@link #LINE_LENGTH} bytes of a line are looked at.
+ */
+final class PdfXrefScanner {
+
+    /** The object number reported for a <code>trailer</code> keyword. */
+    static final long TRAILER = -1;
+
+    /** The number of bytes of a line that are examined, as in {@link PdfReader#rebuildXref()}. */
+    static final int LINE_LENGTH = 64;
+
+    private static final byte[] TRAILER_BYTES = PdfEncodings.convertToBytes("trailer", null);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PdfXrefScanner.class);
+
+    private final RandomAccessFileOrArray file;
+    private final int threads;
+    private final int chunkSize;
+
+    /**
+     * @param file the file to scan; it is only read from the calling thread
+     * @param threads the number of threads scanning chunks
+     * @param chunkSize the number of bytes in a chunk
+     */
+    PdfXrefScanner(final RandomAccessFileOrArray file, final int threads, final int chunkSize) {
+        this.file = file;
+        this.threads = Math.max(1, threads);
+        this.chunkSize = Math.max(LINE_LENGTH, chunkSize);
+    }
+
+    /**
+     * Scans the whole file.
+     * @return the findings in file order, as triples of position, object number
+     * and generation; a trailer keyword has the object number {@link #TRAILER}
+     * @throws IOException on error
+     */
+    long[] scan() throws IOException {
+        long length = file.length();
+        int chunks = (int)((length + chunkSize - 1) / chunkSize);
+        if (chunks == 0)
+            return new long[0];
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks));
+        // bounds the number of chunks held in memory
+        final Semaphore inFlight = new Semaphore(threads * 2);
+        try {
+            List<Future<long[]>> futures = new ArrayList<Future<long[]>>(chunks);
+            boolean lineStart = true;
+            for (int k = 0; k < chunks; ++k) {
+                final long begin = (long)k * chunkSize;
+                final int own = (int)Math.min(chunkSize, length - begin);
+                inFlight.acquire();
+                final byte[] buf = new byte[(int)Math.min(own + LINE_LENGTH, length - begin)];
+                file.seek(begin);
+                file.readFully(buf);
+                final boolean startsLine = lineStart;
+                lineStart = endsLine(buf, own, lineStart);
+                futures.add(executor.submit(new Callable<long[]>() {
+                    public long[] call() throws Exception {
+                        try {
+                            return scanChunk(buf, own, begin, startsLine);
+                        }
+                        finally {
+                            inFlight.release();
+                        }
+                    }
+                }));
+            }
+            long[][] found = new long[chunks][];
+            int total = 0;
+            int reported = 0;
+            for (int k = 0; k < chunks; ++k) {
+                found[k] = futures.get(k).get();
+                total += found[k].length;
+                int percent = (int)((k + 1) * 100L / chunks);
+                if (percent / 10 > reported / 10 && LOGGER.isLogging(Level.INFO)) {
+                    LOGGER.info(String.format("Rebuilding cross-reference table: %d%% of %d bytes scanned", percent, length));
+                }
+                reported = percent;
+            }
+            long[] result = new long[total];
+            int ptr = 0;
+            for (long[] f : found) {
+                System.arraycopy(f, 0, result, ptr, f.length);
+                ptr += f.length;
+            }
+            return result;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            throw new ExceptionConverter(e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tells whether the byte following the first <code>own</code> bytes of a chunk
+     * begins a new line.
+     */
+    private static boolean endsLine(final byte[] buf, final int own, final boolean startsLine) {
+        for (int i = own - 1; i >= 0; --i) {
+            int b = buf[i] & 0xff;
+            if (b == '\n' || b == '\r')
+                return true;
+            if (!PRTokeniser.isWhitespace(b))
+                return false;
+        }
+        return startsLine;
+    }
+
+    private static long[] scanChunk(final byte[] buf, final int own, final long begin, boolean lineStart) {
+        long[] found = new long[48];
+        int size = 0;
+        byte[] line = new byte[LINE_LENGTH];
+        for (int i = 0; i < own; ++i) {
+            int b = buf[i] & 0xff;
+            if (b == '\n' || b == '\r') {
+                lineStart = true;
+                continue;
+            }
+            if (PRTokeniser.isWhitespace(b) || !lineStart)
+                continue;
+            lineStart = false;
+            long num;
+            long gen = 0;
+            if (b == 't') {
+                if (!startsWith(buf, i, TRAILER_BYTES))
+                    continue;
+                num = TRAILER;
+            }
+            else if (b >= '0' && b <= '9') {
+                readLine(buf, i, line);
+                long obj[] = PRTokeniser.checkObjectStart(line);
+                if (obj == null)
+                    continue;
+                num = obj[0];
+                gen = obj[1];
+            }
+            else {
+                continue;
+            }
+            if (size + 3 > found.length) {
+                long[] grown = new long[found.length * 2];
+                System.arraycopy(found, 0, grown, 0, size);
+                found = grown;
+            }
+            found[size++] = begin + i;
+            found[size++] = num;
+            found[size++] = gen;
+        }
+        long[] result = new long[size];
+        System.arraycopy(found, 0, result, 0, size);
+        return result;
+    }
+
+    private static boolean startsWith(final byte[] buf, final int off, final byte[] prefix) {
+        if (off + prefix.length > buf.length)
+            return false;
+        for (int k = 0; k < prefix.length; ++k) {
+            if (buf[off + k] != prefix[k])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies a line into <code>line</code> the way {@link PRTokeniser#readLineSegment(byte[], boolean)}
+     * fills its buffer.
+     */
+    private static void readLine(final byte[] buf, final int off, final byte[] line) {
+        int ptr = 0;
+        for (int i = off; i < buf.length && ptr < line.length; ++i) {
+            byte b = buf[i];
+            if (b == '\n' || b == '\r')
+                break;
+            line[ptr++] = b;
+        }
+        if (ptr + 2 <= line.length) {
+            line[ptr++] = (byte)' ';
+            line[ptr++] = (byte)'X';
+        }
+        while (ptr < line.length)
+            line[ptr++] = 0;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A text extraction strategy that produces the same text as
+ * {@link LocationTextExtractionStrategy} with the default chunk locations,
+ * but that doesn't sort all the chunks of a page at the end.
+ * <br>
+ * Every chunk is put in a line as soon as it is rendered. A line is identified
+ * by the orientation and the rounded perpendicular distance of the chunk, exactly
+ * the values {@link LocationTextExtractionStrategy} uses to decide if two chunks
+ * are on the same line. Within a line, the chunks are kept ordered by their
+ * parallel distance while they arrive; as text is usually drawn from left to
+ * right, this is an append in almost all cases. When the text is requested, only
+ * the lines need to be sorted. The positions are computed with plain float
+ * arithmetic instead of {@link Vector} objects, so that pages with tens of
+ * thousands of chunks cost far less CPU and memory.
+ * <br>
+ * Subclasses can't customize the chunk locations or the word boundaries, and
+ * chunk filters aren't supported; use {@link LocationTextExtractionStrategy}
+ * for that.
+ *
+ * @since 5.5.11
+ */
+public class BucketedLocationTextExtractionStrategy implements TextExtractionStrategy {
+
+    /** The lines found so far, by orientation and perpendicular distance. */
+    private final Map<Long, Line> lines = new HashMap<Long, Line>();
+    /** The line of the last chunk, which is likely to receive the next chunk as well. */
+    private Line lastLine;
+
+    /**
+     * @see com.itextpdf.text.pdf.parser.RenderListener#beginTextBlock()
+     */
+    public void beginTextBlock() {
+    }
+
+    /**
+     * @see com.itextpdf.text.pdf.parser.RenderListener#endTextBlock()
+     */
+    public void endTextBlock() {
+    }
+
+    /**
+     * Puts the text in its line.
+     * @see com.itextpdf.text.pdf.parser.RenderListener#renderText(com.itextpdf.text.pdf.parser.TextRenderInfo)
+     */
+    public void renderText(TextRenderInfo renderInfo) {
+        LineSegment segment = renderInfo.getBaseline();
+        if (renderInfo.getRise() != 0) {
+            // the same correction as in LocationTextExtractionStrategy
+            segment = segment.transformBy(new Matrix(0, -renderInfo.getRise()));
+        }
+        Vector start = segment.getStartPoint();
+        Vector end = segment.getEndPoint();
+        float sx = start.get(Vector.I1), sy = start.get(Vector.I2), sz = start.get(Vector.I3);
+        float ex = end.get(Vector.I1), ey = end.get(Vector.I2), ez = end.get(Vector.I3);
+
+        // the same operations, in the same order, as TextChunkLocationDefaultImp,
+        // so that the results are identical
+        float ox = ex - sx, oy = ey - sy, oz = ez - sz;
+        float length = (float)Math.sqrt(ox * ox + oy * oy + oz * oz);
+        if (length == 0) {
+            ox = 1; oy = 0; oz = 0;
+            length = 1;
+        }
+        ox = ox / length;
+        oy = oy / length;
+        oz = oz / length;
+        int orientationMagnitude = (int)(Math.atan2(oy, ox) * 1000);
+        int distPerpendicular = (int)(sx * oy - sy * ox);
+        float distParallelStart = ox * sx + oy * sy + oz * sz;
+        float distParallelEnd = ox * ex + oy * ey + oz * ez;
+
+        Line line = lastLine;
+        if (line == null || line.orientationMagnitude != orientationMagnitude || line.distPerpendicular != distPerpendicular) {
+            Long key = Long.valueOf(((long)orientationMagnitude << 32) | (distPerpendicular & 0xffffffffL));
+            line = lines.get(key);
+            if (line == null) {
+                line = new Line(orientationMagnitude, distPerpendicular);
+                lines.put(key, line);
+            }
+            lastLine = line;
+        }
+        line.add(renderInfo.getText(), distParallelStart, distParallelEnd, renderInfo.getSingleSpaceWidth());
+    }
+
+    /**
+     * no-op method - this renderer isn't interested in image events
+     * @see com.itextpdf.text.pdf.parser.RenderListener#renderImage(com.itextpdf.text.pdf.parser.ImageRenderInfo)
+     */
+    public void renderImage(ImageRenderInfo renderInfo) {
+    }
+
+    /**
+     * Returns the result so far.
+     * @return a String with the resulting text.
+     */
+    public String getResultantText() {
+        Line[] ordered = lines.values().toArray(new Line[lines.size()]);
+        Arrays.sort(ordered, LINE_ORDER);
+
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (Line line : ordered) {
+            for (int k = 0; k < line.size; ++k) {
+                String text = line.texts[k];
+                if (first) {
+                    first = false;
+                }
+                else if (k == 0) {
+                    sb.append('\n');
+                }
+                else if (isAtWordBoundary(line, k) && !startsWithSpace(text) && !endsWithSpace(line.texts[k - 1])) {
+                    sb.append(' ');
+                }
+                sb.append(text);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The same test as TextChunkLocationDefaultImp.isAtWordBoundary.
+     * @param line a line
+     * @param k the index of a chunk in the line, at least 1
+     * @return true if there's a word boundary between the chunk and the previous one
+     */
+    private static boolean isAtWordBoundary(Line line, int k) {
+        float charSpaceWidth = line.spaceWidths[k];
+        if (charSpaceWidth < 0.1f)
+            return false;
+        float dist = line.starts[k] - line.ends[k - 1];
+        return dist < -charSpaceWidth || dist > charSpaceWidth / 2.0f;
+    }
+
+    private static boolean startsWithSpace(String str) {
+        return str.length() > 0 && str.charAt(0) == ' ';
+    }
+
+    private static boolean endsWithSpace(String str) {
+        return str.length() > 0 && str.charAt(str.length() - 1) == ' ';
+    }
+
+    /** Orders lines by orientation, then by perpendicular distance. */
+    private static final Comparator<Line> LINE_ORDER = new Comparator<Line>() {
+        public int compare(Line l1, Line l2) {
+            if (l1.orientationMagnitude != l2.orientationMagnitude)
+                return l1.orientationMagnitude < l2.orientationMagnitude ? -1 : 1;
+            if (l1.distPerpendicular != l2.distPerpendicular)
+                return l1.distPerpendicular < l2.distPerpendicular ? -1 : 1;
+            return 0;
+        }
+    };
+
+    /**
+     * The chunks on one line, ordered by their parallel distance; chunks with
+     * the same distance keep the order in which they were rendered.
+     */
+    private static class Line {
+        final int orientationMagnitude;
+        final int distPerpendicular;
+        String[] texts = new String[16];
+        float[] starts = new float[16];
+        float[] ends = new float[16];
+        float[] spaceWidths = new float[16];
+        int size;
+
+        Line(int orientationMagnitude, int distPerpendicular) {
+            this.orientationMagnitude = orientationMagnitude;
+            this.distPerpendicular = distPerpendicular;
+        }
+
+        void add(String text, float start, float end, float spaceWidth) {
+            if (size == texts.length)
+                grow();
+            int pos = size;
+            if (size > 0 && Float.compare(starts[size - 1], start) > 0) {
+                // out of order: find the first chunk that starts after this one
+                int low = 0, high = size - 1;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (Float.compare(starts[mid], start) > 0)
+                        high = mid;
+                    else
+                        low = mid + 1;
+                }
+                pos = low;
+                System.arraycopy(texts, pos, texts, pos + 1, size - pos);
+                System.arraycopy(starts, pos, starts, pos + 1, size - pos);
+                System.arraycopy(ends, pos, ends, pos + 1, size - pos);
+                System.arraycopy(spaceWidths, pos, spaceWidths, pos + 1, size - pos);
+            }
+            texts[pos] = text;
+            starts[pos] = start;
+            ends[pos] = end;
+            spaceWidths[pos] = spaceWidth;
+            ++size;
+        }
+
+        private void grow() {
+            int n = texts.length * 2;
+            String[] t = new String[n];
+            System.arraycopy(texts, 0, t, 0, size);
+            texts = t;
+            float[] f = new float[n];
+            System.arraycopy(starts, 0, f, 0, size);
+            starts = f;
+            f = new float[n];
+            System.arraycopy(ends, 0, f, 0, size);
+            ends = f;
+            f = new float[n];
+            System.arraycopy(spaceWidths, 0, f, 0, size);
+            spaceWidths = f;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.itextpdf.text.pdf.CMapAwareDocumentFont;
+import com.itextpdf.text.pdf.PRIndirectReference;
+import com.itextpdf.text.pdf.PdfReader;
+
+/**
+ * A cache of parsed fonts, keyed by the document and the number of the font
+ * object. Parsing a font dictionary, its ToUnicode CMap and its widths is
+ * done once per document instead of once per page or form XObject, as long
+ * as the content stream processors share the cache.
+ * To extract the text of a document page by page, pass the same
+ * {@link PdfReaderContentParser} to
+ * {@link PdfTextExtractor#getTextFromPage(PdfReaderContentParser, int, TextExtractionStrategy)}.
+ * <p>
+ * A cache can be shared by several documents, but it keeps their fonts, and
+ * with them the readers, until it's cleared.
+ * <p>
+ * The cache is thread-safe: lookups don't block, and a font that is needed
+ * by several threads at the same time is parsed only once.
+ * @since 5.5.11
+ */
+public class DocumentFontCache {
+
+    /** The parsed fonts. */
+    private final ConcurrentHashMap<ObjectKey, CMapAwareDocumentFont> fonts = new ConcurrentHashMap<ObjectKey, CMapAwareDocumentFont>();
+    /** The number of fonts that were found in the cache. */
+    private final AtomicLong hits = new AtomicLong();
+    /** The number of fonts that were parsed. */
+    private final AtomicLong misses = new AtomicLong();
+    /** The time spent parsing fonts, in nanoseconds. */
+    private final AtomicLong parseTime = new AtomicLong();
+
+    /**
+     * Gets the font pointed to by an indirect reference, parsing it if it isn't cached yet.
+     * @param ind the indirect reference pointing to the font
+     * @return the font
+     */
+    public CMapAwareDocumentFont getFont(PRIndirectReference ind) {
+        ObjectKey n = new ObjectKey(ind.getReader(), ind.getNumber());
+        CMapAwareDocumentFont font = fonts.get(n);
+        if (font != null) {
+            hits.incrementAndGet();
+            return font;
+        }
+        synchronized (this) {
+            font = fonts.get(n);
+            if (font != null) {
+                hits.incrementAndGet();
+                return font;
+            }
+            long start = System.nanoTime();
+            font = new CMapAwareDocumentFont(ind);
+            parseTime.addAndGet(System.nanoTime() - start);
+            misses.incrementAndGet();
+            fonts.put(n, font);
+            return font;
+        }
+    }
+
+    /**
+     * Gets the number of font lookups that were served from the cache.
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of fonts that were parsed.
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the time spent parsing fonts.
+     * @return the time in nanoseconds
+     */
+    public long getParseTime() {
+        return parseTime.get();
+    }
+
+    /**
+     * Gets the number of cached fonts.
+     * @return the number of fonts in the cache
+     */
+    public int size() {
+        return fonts.size();
+    }
+
+    /**
+     * Removes all the fonts from the cache. The counters are kept.
+     */
+    public void clear() {
+        fonts.clear();
+    }
+
+    /**
+     * An object of a document: the reader, compared by identity, and the object number.
+     */
+    static final class ObjectKey {
+        private final PdfReader reader;
+        private final int number;
+
+        ObjectKey(PdfReader reader, int number) {
+            this.reader = reader;
+            this.number = number;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(reader) * 31 + number;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ObjectKey))
+                return false;
+            ObjectKey other = (ObjectKey)o;
+            return reader == other.reader && number == other.number;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PRIndirectReference;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PRTokeniser;
+import com.itextpdf.text.pdf.PdfContentParser;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfIndirectReference;
+import com.itextpdf.text.pdf.PdfLiteral;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfStream;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+
+/**
+ * A cache of the parsed content streams of form XObjects, keyed by the
+ * document and the number of the form object. A form that is placed many times,
+ * such as a symbol on a map, is decoded and tokenized once; every following
+ * Do replays the operators under the graphics state of that moment.
+ * Forms that don't come from a reader aren't cached. A form whose stream
+ * was replaced, or whose data was changed with <CODE>setData</CODE> or
+ * <CODE>setDataRaw</CODE>, is parsed again.
+ * <p>
+ * The cache is bounded by the total length of the decoded content streams it
+ * holds; the least recently used forms are dropped first. A form that is larger
+ * than the bound is never cached. The cache is thread-safe. A cache can be
+ * shared by several documents, but it keeps the readers of the forms it holds.
+ * @since 5.5.11
+ */
+public class FormXObjectCache {
+
+    /** The default bound: 8 MB of decoded content. */
+    public static final int DEFAULT_MAX_SIZE = 8 * 1024 * 1024;
+
+    /** The parsed forms, least recently used first. */
+    private final LinkedHashMap<DocumentFontCache.ObjectKey, ParsedForm> forms = new LinkedHashMap<DocumentFontCache.ObjectKey, ParsedForm>(16, 0.75f, true);
+    /** The maximum total length of the cached content streams. */
+    private final int maxSize;
+    /** The total length of the cached content streams. */
+    private int size = 0;
+    /** The number of forms that were found in the cache. */
+    private long hits = 0;
+    /** The number of forms that were parsed. */
+    private long misses = 0;
+
+    /**
+     * Creates a cache that holds up to {@link #DEFAULT_MAX_SIZE} bytes of content.
+     */
+    public FormXObjectCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache with a given bound.
+     * @param maxSize the maximum total length of the decoded content streams
+     * that are kept; 0 disables the cache
+     */
+    public FormXObjectCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the parsed content of a form XObject, parsing the form if it isn't
+     * cached yet.
+     * @param stream the form XObject
+     * @param ref the reference to the form XObject
+     * @return the operations of the form, or <CODE>null</CODE> if the form can't be cached
+     * @throws IOException if the content stream can't be read
+     */
+    List<Operation> getOperations(PdfStream stream, PdfIndirectReference ref) throws IOException {
+        if (!(ref instanceof PRIndirectReference) || !(stream instanceof PRStream) || maxSize <= 0)
+            return null;
+        PRStream prStream = (PRStream)stream;
+        DocumentFontCache.ObjectKey n = new DocumentFontCache.ObjectKey(((PRIndirectReference)ref).getReader(), ref.getNumber());
+        synchronized (this) {
+            ParsedForm form = forms.get(n);
+            if (form != null && form.isParsedFrom(prStream)) {
+                ++hits;
+                return form.operations;
+            }
+        }
+        byte[] contentBytes = ContentByteUtils.getContentBytesFromContentObject(stream);
+        if (contentBytes.length > maxSize)
+            return null;
+        ParsedForm form = new ParsedForm(prStream, parse(contentBytes, stream.getAsDict(PdfName.RESOURCES)), contentBytes.length);
+        synchronized (this) {
+            ++misses;
+            ParsedForm old = forms.put(n, form);
+            if (old != null)
+                size -= old.size;
+            size += form.size;
+            Iterator<ParsedForm> it = forms.values().iterator();
+            while (size > maxSize && it.hasNext()) {
+                size -= it.next().size;
+                it.remove();
+            }
+        }
+        return form.operations;
+    }
+
+    /**
+     * Tokenizes a content stream.
+     * @param contentBytes the bytes of the content stream
+     * @param resources the resources that come with the content stream
+     * @return the operations of the content stream
+     * @throws IOException
+     */
+    private static List<Operation> parse(byte[] contentBytes, PdfDictionary resources) throws IOException {
+        List<Operation> operations = new ArrayList<Operation>();
+        PRTokeniser tokeniser = new PRTokeniser(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(contentBytes)));
+        PdfContentParser ps = new PdfContentParser(tokeniser);
+        ArrayList<PdfObject> operands = new ArrayList<PdfObject>();
+        while (ps.parse(operands).size() > 0) {
+            PdfLiteral operator = (PdfLiteral)operands.get(operands.size() - 1);
+            if ("BI".equals(operator.toString())) {
+                PdfDictionary colorSpaceDic = resources != null ? resources.getAsDict(PdfName.COLORSPACE) : null;
+                operations.add(new Operation(operator, null, InlineImageUtils.parseInlineImage(ps, colorSpaceDic), colorSpaceDic));
+            } else {
+                operations.add(new Operation(operator, new ArrayList<PdfObject>(operands), null, null));
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Gets the number of form lookups that were served from the cache.
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of forms that were parsed and cached.
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the total length of the cached content streams.
+     * @return the size of the cache in bytes
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of cached forms.
+     * @return the number of forms in the cache
+     */
+    public synchronized int size() {
+        return forms.size();
+    }
+
+    /**
+     * Removes all the forms from the cache. The counters are kept.
+     */
+    public synchronized void clear() {
+        forms.clear();
+        size = 0;
+    }
+
+    /**
+     * An operator with its operands, or an inline image, as found in a content stream.
+     */
+    static class Operation {
+        /** The operator. */
+        final PdfLiteral operator;
+        /** The operands, followed by the operator. */
+        final ArrayList<PdfObject> operands;
+        /** The inline image, if the operator is BI. */
+        final InlineImageInfo inlineImage;
+        /** The color spaces available to the inline image. */
+        final PdfDictionary colorSpaceDic;
+
+        Operation(PdfLiteral operator, ArrayList<PdfObject> operands, InlineImageInfo inlineImage, PdfDictionary colorSpaceDic) {
+            this.operator = operator;
+            this.operands = operands;
+            this.inlineImage = inlineImage;
+            this.colorSpaceDic = colorSpaceDic;
+        }
+    }
+
+    /**
+     * The parsed content of a form and the length of its content stream,
+     * with the stream and the data it was parsed from.
+     */
+    private static class ParsedForm {
+        final PRStream stream;
+        final byte[] data;
+        final long offset;
+        final List<Operation> operations;
+        final int size;
+
+        ParsedForm(PRStream stream, List<Operation> operations, int size) {
+            this.stream = stream;
+            this.data = stream.getBytes();
+            this.offset = stream.getOffset();
+            this.operations = operations;
+            this.size = size;
+        }
+
+        /**
+         * Checks if the operations were parsed from the current data of a stream.
+         * setData and setDataRaw replace the bytes of the stream and reset its offset.
+         * @param stream the form XObject
+         * @return false if the stream is a different object or its data was changed
+         */
+        boolean isParsedFrom(PRStream stream) {
+            return this.stream == stream && data == stream.getBytes() && offset == stream.getOffset();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import com.itextpdf.text.pdf.PdfString;
+
+/**
+ * The glyphs of a {@link TextRenderInfo}, decoded once. The code, the Unicode
+ * text, the advance and the offset of every glyph are kept in arrays; the
+ * geometry of a glyph, as a {@link TextRenderInfo} of its own, is only created
+ * when it is asked for.
+ * <br>
+ * Advances and offsets are in unscaled text space units, i.e. before the text
+ * matrix and the current transformation matrix are applied, and include the
+ * character and word spacing and the horizontal scaling.
+ * @since 5.5.11
+ */
+public class GlyphRun {
+
+    /** The text render info this run belongs to. */
+    private final TextRenderInfo parent;
+    /** The number of glyphs. */
+    private final int size;
+    /** The glyphs as PDF strings of one or two bytes. */
+    private final PdfString[] glyphs;
+    /** The Unicode text of every glyph. */
+    private final String[] texts;
+    /** The code of every glyph in the font's encoding. */
+    private final int[] codes;
+    /** The distance from the start of the run to the start of every glyph. */
+    private final float[] offsets;
+    /** The advance of every glyph. */
+    private final float[] advances;
+    /** The total advance of the run. */
+    private final float width;
+    /** The render infos of the glyphs that were asked for. */
+    private TextRenderInfo[] glyphInfos;
+
+    GlyphRun(TextRenderInfo parent, int size, PdfString[] glyphs, String[] texts, int[] codes, float[] offsets, float[] advances, float width) {
+        this.parent = parent;
+        this.size = size;
+        this.glyphs = glyphs;
+        this.texts = texts;
+        this.codes = codes;
+        this.offsets = offsets;
+        this.advances = advances;
+        this.width = width;
+    }
+
+    /**
+     * @return the number of glyphs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of a glyph
+     * @return the code of the glyph in the font's encoding (one or two bytes)
+     */
+    public int getCode(int index) {
+        checkIndex(index);
+        return codes[index];
+    }
+
+    /**
+     * @param index the index of a glyph
+     * @return the Unicode text of the glyph; may be empty or longer than one character
+     */
+    public String getText(int index) {
+        checkIndex(index);
+        return texts[index];
+    }
+
+    /**
+     * @param index the index of a glyph
+     * @return the bytes of the glyph as a PDF string
+     */
+    public PdfString getPdfString(int index) {
+        checkIndex(index);
+        return glyphs[index];
+    }
+
+    /**
+     * @param index the index of a glyph
+     * @return the advance of the glyph, in unscaled text space units
+     */
+    public float getAdvance(int index) {
+        checkIndex(index);
+        return advances[index];
+    }
+
+    /**
+     * @param index the index of a glyph
+     * @return the distance from the start of the run to the start of the glyph, in unscaled text space units
+     */
+    public float getOffset(int index) {
+        checkIndex(index);
+        return offsets[index];
+    }
+
+    /**
+     * @return the total advance of the run, in unscaled text space units
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the render info of a single glyph, as if the glyph was drawn by a
+     * text operator of its own. It is created the first time it's asked for.
+     * @param index the index of a glyph
+     * @return the render info of the glyph
+     */
+    public TextRenderInfo getGlyphRenderInfo(int index) {
+        checkIndex(index);
+        if (glyphInfos == null)
+            glyphInfos = new TextRenderInfo[size];
+        if (glyphInfos[index] == null)
+            glyphInfos[index] = new TextRenderInfo(parent, glyphs[index], offsets[index], texts[index], advances[index]);
+        return glyphInfos[index];
+    }
+
+    /**
+     * Gets the baseline of a single glyph in user space.
+     * @param index the index of a glyph
+     * @return the baseline of the glyph
+     */
+    public LineSegment getBaseline(int index) {
+        return getGlyphRenderInfo(index).getBaseline();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+    }
+}
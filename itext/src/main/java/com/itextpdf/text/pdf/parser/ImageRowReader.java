@@ -0,0 +1,408 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import com.itextpdf.text.error_messages.MessageLocalization;
+import com.itextpdf.text.exceptions.UnsupportedPdfException;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfBoolean;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNumber;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfReader;
+
+/**
+ * Delivers the decoded samples of an image one row at a time. Images that are
+ * only compressed with FlateDecode are inflated while the rows are read, so
+ * only the compressed bytes and one row are held in memory. Images with other
+ * filters are decoded completely first, which still avoids the conversion to a
+ * png or a tiff and the raster of a <CODE>BufferedImage</CODE>.
+ * <br>
+ * The rows contain the samples as they are stored in the PDF, after the filters
+ * are applied; the Decode array of the image is not applied.
+ * @since 5.5.11
+ */
+public class ImageRowReader {
+
+    private final int width;
+    private final int height;
+    private final int bitsPerComponent;
+    private final int components;
+    private final int rowLength;
+    /** The decoded samples. */
+    private InputStream in;
+    /** The number of rows that were read. */
+    private int rows = 0;
+
+    /**
+     * Creates a reader for the rows of an image.
+     * @param image the image
+     * @throws IOException if the image can't be decoded
+     */
+    ImageRowReader(PdfImageObject image) throws IOException {
+        PdfImageObject.ImageBytesType type = image.getImageBytesType();
+        if (type != PdfImageObject.ImageBytesType.PNG && type != PdfImageObject.ImageBytesType.CCITT)
+            throw new UnsupportedPdfException(MessageLocalization.getComposedMessage("the.filter.1.is.not.supported", type));
+        PdfDictionary dictionary = image.getDictionary();
+        width = image.getWidth();
+        height = image.getHeight();
+        PdfBoolean mask = dictionary.getAsBoolean(PdfName.IMAGEMASK);
+        if (mask != null && mask.booleanValue()) {
+            bitsPerComponent = 1;
+            components = 1;
+        }
+        else {
+            bitsPerComponent = image.getBitsPerComponent();
+            components = getComponents(image.getColorSpace());
+        }
+        rowLength = (width * components * bitsPerComponent + 7) / 8;
+
+        byte[] raw = image.getRawBytes();
+        List<PdfName> filters = PdfImageObject.getFilters(dictionary);
+        if (filters.size() == 1 && (PdfName.FLATEDECODE.equals(filters.get(0)) || PdfName.FL.equals(filters.get(0)))) {
+            in = new InflaterInputStream(new ByteArrayInputStream(raw));
+            PdfObject decodeParams = getDecodeParams(dictionary);
+            if (decodeParams instanceof PdfDictionary) {
+                PdfObject predictor = PdfReader.getPdfObject(((PdfDictionary)decodeParams).get(PdfName.PREDICTOR));
+                if (predictor != null && predictor.isNumber() && (((PdfNumber)predictor).intValue() >= 10 || ((PdfNumber)predictor).intValue() == 2))
+                    in = new PredictorInputStream(in, (PdfDictionary)decodeParams);
+            }
+        }
+        else {
+            in = new ByteArrayInputStream(PdfReader.decodeBytes(raw, dictionary));
+        }
+    }
+
+    /**
+     * @return the width of the image in samples
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of the image in samples
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the number of bits per color component
+     */
+    public int getBitsPerComponent() {
+        return bitsPerComponent;
+    }
+
+    /**
+     * @return the number of color components of every sample
+     */
+    public int getComponents() {
+        return components;
+    }
+
+    /**
+     * @return the number of bytes in a row
+     */
+    public int getRowLength() {
+        return rowLength;
+    }
+
+    /**
+     * Reads the next row.
+     * @param row an array of at least {@link #getRowLength()} bytes that receives the row
+     * @return <CODE>false</CODE> if there are no rows left
+     * @throws IOException if the image can't be decoded
+     */
+    public boolean readRow(byte[] row) throws IOException {
+        if (in == null || rows >= height)
+            return false;
+        int n = 0;
+        try {
+            while (n < rowLength) {
+                int count = in.read(row, n, rowLength - n);
+                if (count < 0)
+                    break;
+                n += count;
+            }
+        }
+        catch (ZipException e) {
+            // like PdfReader.FlateDecode, keep what could be read from a corrupted stream
+        }
+        if (n < rowLength) {
+            close();
+            return false;
+        }
+        ++rows;
+        return true;
+    }
+
+    /**
+     * Releases the decoded data.
+     */
+    public void close() {
+        if (in != null) {
+            try {
+                in.close();
+            }
+            catch (IOException e) {
+                // nothing to release
+            }
+            in = null;
+        }
+    }
+
+    /**
+     * Gets the number of color components of a color space.
+     * @param colorspace the color space, or <CODE>null</CODE>
+     * @return the number of components
+     * @throws IOException if the color space is not supported
+     */
+    private static int getComponents(PdfObject colorspace) throws IOException {
+        if (colorspace == null || PdfName.DEVICEGRAY.equals(colorspace))
+            return 1;
+        if (PdfName.DEVICERGB.equals(colorspace))
+            return 3;
+        if (PdfName.DEVICECMYK.equals(colorspace))
+            return 4;
+        if (colorspace instanceof PdfArray) {
+            PdfArray ca = (PdfArray)colorspace;
+            PdfObject tyca = ca.getDirectObject(0);
+            if (PdfName.CALGRAY.equals(tyca) || PdfName.INDEXED.equals(tyca) || PdfName.SEPARATION.equals(tyca))
+                return 1;
+            if (PdfName.CALRGB.equals(tyca) || PdfName.LAB.equals(tyca))
+                return 3;
+            if (PdfName.ICCBASED.equals(tyca))
+                return ((PRStream)ca.getDirectObject(1)).getAsNumber(PdfName.N).intValue();
+            if (PdfName.DEVICEN.equals(tyca))
+                return ca.getAsArray(1).size();
+        }
+        throw new UnsupportedPdfException(MessageLocalization.getComposedMessage("the.color.space.1.is.not.supported", colorspace));
+    }
+
+    /**
+     * Gets the decode parameters of a stream with a single filter.
+     * @param dictionary the stream dictionary
+     * @return the decode parameters, or <CODE>null</CODE>
+     */
+    private static PdfObject getDecodeParams(PdfDictionary dictionary) {
+        PdfObject dp = PdfReader.getPdfObjectRelease(dictionary.get(PdfName.DECODEPARMS));
+        if (dp == null || !dp.isDictionary() && !dp.isArray())
+            dp = PdfReader.getPdfObjectRelease(dictionary.get(PdfName.DP));
+        if (dp != null && dp.isArray())
+            dp = ((PdfArray)dp).size() > 0 ? PdfReader.getPdfObjectRelease(((PdfArray)dp).getPdfObject(0)) : null;
+        return dp;
+    }
+
+    /**
+     * Undoes the PNG or TIFF predictor of a FlateDecode stream one row at a time,
+     * the same way as {@link PdfReader#decodePredictor(byte[], PdfObject)}.
+     */
+    private static class PredictorInputStream extends FilterInputStream {
+        private final int predictor;
+        private final int bytesPerPixel;
+        private final int bitsPerComponent;
+        private byte[] curr;
+        private byte[] prior;
+        /** The position of the next byte to return from {@link #curr}. */
+        private int pos;
+        private boolean eof = false;
+
+        PredictorInputStream(InputStream in, PdfDictionary decodeParams) {
+            super(in);
+            predictor = getInt(decodeParams, PdfName.PREDICTOR, 1);
+            int colors = getInt(decodeParams, PdfName.COLORS, 1);
+            bitsPerComponent = getInt(decodeParams, PdfName.BITSPERCOMPONENT, 8);
+            int columns = getInt(decodeParams, PdfName.COLUMNS, 1);
+            bytesPerPixel = colors * bitsPerComponent / 8;
+            int bytesPerRow = (colors * columns * bitsPerComponent + 7) / 8;
+            curr = new byte[bytesPerRow];
+            prior = new byte[bytesPerRow];
+            pos = bytesPerRow;
+        }
+
+        private static int getInt(PdfDictionary dic, PdfName key, int defaultValue) {
+            PdfObject obj = PdfReader.getPdfObject(dic.get(key));
+            return obj != null && obj.isNumber() ? ((PdfNumber)obj).intValue() : defaultValue;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos == curr.length && !nextRow())
+                return -1;
+            return curr[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (pos == curr.length && !nextRow())
+                return -1;
+            int n = Math.min(len, curr.length - pos);
+            System.arraycopy(curr, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && read() >= 0)
+                ++skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return curr.length - pos;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private boolean nextRow() throws IOException {
+            if (eof)
+                return false;
+            if (predictor != 2) {
+                // the row that was returned last is the prior row of the next one
+                byte[] tmp = prior;
+                prior = curr;
+                curr = tmp;
+            }
+            int filter = predictor == 2 ? 0 : in.read();
+            if (filter < 0 || !readFully(curr)) {
+                eof = true;
+                return false;
+            }
+            if (predictor == 2) {
+                if (bitsPerComponent == 8) {
+                    for (int i = bytesPerPixel; i < curr.length; i++)
+                        curr[i] += curr[i - bytesPerPixel];
+                }
+            }
+            else {
+                unfilter(filter);
+            }
+            pos = 0;
+            return true;
+        }
+
+        private boolean readFully(byte[] b) throws IOException {
+            int n = 0;
+            while (n < b.length) {
+                int count = in.read(b, n, b.length - n);
+                if (count < 0)
+                    return false;
+                n += count;
+            }
+            return true;
+        }
+
+        private void unfilter(int filter) {
+            switch (filter) {
+                case 0: //PNG_FILTER_NONE
+                    break;
+                case 1: //PNG_FILTER_SUB
+                    for (int i = bytesPerPixel; i < curr.length; i++) {
+                        curr[i] += curr[i - bytesPerPixel];
+                    }
+                    break;
+                case 2: //PNG_FILTER_UP
+                    for (int i = 0; i < curr.length; i++) {
+                        curr[i] += prior[i];
+                    }
+                    break;
+                case 3: //PNG_FILTER_AVERAGE
+                    for (int i = 0; i < bytesPerPixel; i++) {
+                        curr[i] += (prior[i] & 0xff) / 2;
+                    }
+                    for (int i = bytesPerPixel; i < curr.length; i++) {
+                        curr[i] += ((curr[i - bytesPerPixel] & 0xff) + (prior[i] & 0xff))/2;
+                    }
+                    break;
+                case 4: //PNG_FILTER_PAETH
+                    for (int i = 0; i < bytesPerPixel; i++) {
+                        curr[i] += prior[i];
+                    }
+                    for (int i = bytesPerPixel; i < curr.length; i++) {
+                        int a = curr[i - bytesPerPixel] & 0xff;
+                        int b = prior[i] & 0xff;
+                        int c = prior[i - bytesPerPixel] & 0xff;
+
+                        int p = a + b - c;
+                        int pa = Math.abs(p - a);
+                        int pb = Math.abs(p - b);
+                        int pc = Math.abs(p - c);
+
+                        int ret;
+                        if (pa <= pb && pa <= pc) {
+                            ret = a;
+                        } else if (pb <= pc) {
+                            ret = b;
+                        } else {
+                            ret = c;
+                        }
+                        curr[i] += (byte)ret;
+                    }
+                    break;
+                default:
+                    // Error -- unknown filter type
+                    throw new RuntimeException(MessageLocalization.getComposedMessage("png.filter.unknown"));
+            }
+        }
+    }
+}
@@ -0,0 +1,516 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.itextpdf.awt.geom.Rectangle2D;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.parser.LocationTextExtractionStrategy.TextChunk;
+import com.itextpdf.text.pdf.parser.LocationTextExtractionStrategy.TextChunkLocationDefaultImp;
+
+/**
+ * A render listener that collects the text, images and paths of a page with
+ * their bounding boxes, so that many rectangular regions can be queried after
+ * parsing the page only once. For instance, to read the fields of a form:
+ * <pre>
+ * PageContentIndex index = parser.processContent(1, new PageContentIndex());
+ * String name = index.getText(nameRectangle);
+ * String date = index.getText(dateRectangle);
+ * </pre>
+ * The items are kept in a uniform grid that is built the first time the index
+ * is queried, so a query only looks at the items near the region instead of
+ * at all the items of the page.
+ * <br>
+ * An index is not thread-safe.
+ * @since 5.5.11
+ */
+public class PageContentIndex implements ExtRenderListener {
+
+    /** The items in the order in which they were drawn. */
+    private final List<Item> items = new ArrayList<Item>();
+
+    /** The bounding box of the current path. */
+    private float pathLlx, pathLly, pathUrx, pathUry;
+    /** True if the current path has at least one point. */
+    private boolean pathStarted = false;
+
+    /** The grid, or <CODE>null</CODE> if it has to be (re)built. */
+    private Grid grid;
+
+    /**
+     * Something that was drawn on the page: text, an image or a path.
+     */
+    public static class Item {
+        /** Type of an item: a text render operation. */
+        public static final int TEXT = 1;
+        /** Type of an item: an image. */
+        public static final int IMAGE = 2;
+        /** Type of an item: a painted path. */
+        public static final int PATH = 3;
+
+        private final int type;
+        private final float llx, lly, urx, ury;
+        private final String text;
+        private final LineSegment baseline;
+        private final TextChunk chunk;
+        private final ImageRenderInfo image;
+        private final Matrix imageCtm;
+        private final int pathOperation;
+
+        private Item(int type, float llx, float lly, float urx, float ury, String text, LineSegment baseline, TextChunk chunk,
+                ImageRenderInfo image, Matrix imageCtm, int pathOperation) {
+            this.type = type;
+            this.llx = llx;
+            this.lly = lly;
+            this.urx = urx;
+            this.ury = ury;
+            this.text = text;
+            this.baseline = baseline;
+            this.chunk = chunk;
+            this.image = image;
+            this.imageCtm = imageCtm;
+            this.pathOperation = pathOperation;
+        }
+
+        /**
+         * @return {@link #TEXT}, {@link #IMAGE} or {@link #PATH}
+         */
+        public int getType() {
+            return type;
+        }
+
+        /**
+         * @return the bounding box of the item in user space
+         */
+        public Rectangle2D getBounds() {
+            return new Rectangle2D.Float(llx, lly, urx - llx, ury - lly);
+        }
+
+        /**
+         * @return the text of a text item, or <CODE>null</CODE>
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return the baseline of a text item, including the rise, or <CODE>null</CODE>
+         */
+        public LineSegment getBaseline() {
+            return baseline;
+        }
+
+        /**
+         * @return the render info of an image item, or <CODE>null</CODE>
+         */
+        public ImageRenderInfo getImageRenderInfo() {
+            return image;
+        }
+
+        /**
+         * @return the transformation matrix with which an image was drawn, or <CODE>null</CODE>
+         */
+        public Matrix getImageCtm() {
+            return imageCtm;
+        }
+
+        /**
+         * @return the painting operation of a path item, see {@link PathPaintingRenderInfo#getOperation()}
+         */
+        public int getPathOperation() {
+            return pathOperation;
+        }
+
+        private boolean overlaps(float minX, float minY, float maxX, float maxY) {
+            return llx <= maxX && urx >= minX && lly <= maxY && ury >= minY;
+        }
+    }
+
+    /**
+     * @see com.itextpdf.text.pdf.parser.RenderListener#beginTextBlock()
+     */
+    public void beginTextBlock() {
+    }
+
+    /**
+     * @see com.itextpdf.text.pdf.parser.RenderListener#endTextBlock()
+     */
+    public void endTextBlock() {
+    }
+
+    /**
+     * Adds a text item. Everything is computed right away, because the
+     * graphics state of the render info changes afterwards.
+     * @see com.itextpdf.text.pdf.parser.RenderListener#renderText(com.itextpdf.text.pdf.parser.TextRenderInfo)
+     */
+    public void renderText(TextRenderInfo renderInfo) {
+        String text = renderInfo.getText();
+        LineSegment baseline = renderInfo.getBaseline();
+        LineSegment ascent = renderInfo.getAscentLine();
+        LineSegment descent = renderInfo.getDescentLine();
+        // the same chunk as LocationTextExtractionStrategy creates
+        LineSegment segment = baseline;
+        if (renderInfo.getRise() != 0)
+            segment = segment.transformBy(new Matrix(0, -renderInfo.getRise()));
+        TextChunk chunk = new TextChunk(text, new TextChunkLocationDefaultImp(segment.getStartPoint(), segment.getEndPoint(), renderInfo.getSingleSpaceWidth()));
+
+        Vector[] points = {baseline.getStartPoint(), baseline.getEndPoint(), ascent.getStartPoint(), ascent.getEndPoint(),
+                descent.getStartPoint(), descent.getEndPoint()};
+        float llx = Float.MAX_VALUE, lly = Float.MAX_VALUE, urx = -Float.MAX_VALUE, ury = -Float.MAX_VALUE;
+        for (Vector p : points) {
+            llx = Math.min(llx, p.get(Vector.I1));
+            lly = Math.min(lly, p.get(Vector.I2));
+            urx = Math.max(urx, p.get(Vector.I1));
+            ury = Math.max(ury, p.get(Vector.I2));
+        }
+        add(new Item(Item.TEXT, llx, lly, urx, ury, text, baseline, chunk, null, null, 0));
+    }
+
+    /**
+     * Adds an image item, covering the unit square transformed by the current transformation matrix.
+     * @see com.itextpdf.text.pdf.parser.RenderListener#renderImage(com.itextpdf.text.pdf.parser.ImageRenderInfo)
+     */
+    public void renderImage(ImageRenderInfo renderInfo) {
+        Matrix ctm = renderInfo.getImageCTM();
+        float[] xs = new float[4];
+        float[] ys = new float[4];
+        for (int k = 0; k < 4; ++k) {
+            float x = k & 1;
+            float y = k >> 1;
+            xs[k] = x * ctm.get(Matrix.I11) + y * ctm.get(Matrix.I21) + ctm.get(Matrix.I31);
+            ys[k] = x * ctm.get(Matrix.I12) + y * ctm.get(Matrix.I22) + ctm.get(Matrix.I32);
+        }
+        add(new Item(Item.IMAGE, min(xs), min(ys), max(xs), max(ys), null, null, null, renderInfo, ctm, 0));
+    }
+
+    /**
+     * Extends the bounding box of the current path.
+     * @see com.itextpdf.text.pdf.parser.ExtRenderListener#modifyPath(com.itextpdf.text.pdf.parser.PathConstructionRenderInfo)
+     */
+    public void modifyPath(PathConstructionRenderInfo renderInfo) {
+        List<Float> data = renderInfo.getSegmentData();
+        if (data == null)
+            return;
+        Matrix ctm = renderInfo.getCtm();
+        if (renderInfo.getOperation() == PathConstructionRenderInfo.RECT) {
+            float x = data.get(0), y = data.get(1), w = data.get(2), h = data.get(3);
+            addPathPoint(x, y, ctm);
+            addPathPoint(x + w, y, ctm);
+            addPathPoint(x, y + h, ctm);
+            addPathPoint(x + w, y + h, ctm);
+        }
+        else {
+            for (int k = 0; k + 1 < data.size(); k += 2)
+                addPathPoint(data.get(k), data.get(k + 1), ctm);
+        }
+    }
+
+    /**
+     * Adds a path item if the path is painted, and starts a new path.
+     * @see com.itextpdf.text.pdf.parser.ExtRenderListener#renderPath(com.itextpdf.text.pdf.parser.PathPaintingRenderInfo)
+     */
+    public Path renderPath(PathPaintingRenderInfo renderInfo) {
+        if (pathStarted && renderInfo.getOperation() != PathPaintingRenderInfo.NO_OP)
+            add(new Item(Item.PATH, pathLlx, pathLly, pathUrx, pathUry, null, null, null, null, null, renderInfo.getOperation()));
+        pathStarted = false;
+        return null;
+    }
+
+    /**
+     * @see com.itextpdf.text.pdf.parser.ExtRenderListener#clipPath(int)
+     */
+    public void clipPath(int rule) {
+    }
+
+    /**
+     * @return all the items, in the order in which they were drawn
+     */
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Gets the items whose bounding box overlaps a region.
+     * @param region a rectangle in user space
+     * @return the items in the order in which they were drawn
+     */
+    public List<Item> query(Rectangle2D region) {
+        List<Item> result = new ArrayList<Item>();
+        float minX = (float)region.getMinX(), minY = (float)region.getMinY();
+        float maxX = (float)region.getMaxX(), maxY = (float)region.getMaxY();
+        for (int i : getGrid().candidates(minX, minY, maxX, maxY)) {
+            Item item = items.get(i);
+            if (item.overlaps(minX, minY, maxX, maxY))
+                result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the items of a type whose bounding box overlaps a region.
+     * @param region a rectangle in user space
+     * @param type {@link Item#TEXT}, {@link Item#IMAGE} or {@link Item#PATH}
+     * @return the items in the order in which they were drawn
+     */
+    public List<Item> query(Rectangle2D region, int type) {
+        List<Item> result = new ArrayList<Item>();
+        for (Item item : query(region)) {
+            if (item.type == type)
+                result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the text in a region. The result is the same as extracting the page with a
+     * {@link LocationTextExtractionStrategy} filtered by a {@link RegionTextRenderFilter}
+     * for the same region.
+     * @param region a rectangle in user space
+     * @return the text of which the baseline intersects the region
+     */
+    public String getText(Rectangle2D region) {
+        List<TextChunk> chunks = new ArrayList<TextChunk>();
+        for (Item item : query(region, Item.TEXT)) {
+            Vector start = item.baseline.getStartPoint();
+            Vector end = item.baseline.getEndPoint();
+            if (region.intersectsLine(start.get(Vector.I1), start.get(Vector.I2), end.get(Vector.I1), end.get(Vector.I2)))
+                chunks.add(item.chunk);
+        }
+        Collections.sort(chunks);
+
+        // the same assembly as LocationTextExtractionStrategy.getResultantText
+        StringBuilder sb = new StringBuilder();
+        TextChunk lastChunk = null;
+        for (TextChunk chunk : chunks) {
+            String text = chunk.getText();
+            if (lastChunk == null) {
+                sb.append(text);
+            }
+            else if (chunk.getLocation().sameLine(lastChunk.getLocation())) {
+                if (chunk.getLocation().isAtWordBoundary(lastChunk.getLocation()) && !startsWithSpace(text) && !endsWithSpace(lastChunk.getText()))
+                    sb.append(' ');
+                sb.append(text);
+            }
+            else {
+                sb.append('\n');
+                sb.append(text);
+            }
+            lastChunk = chunk;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the text in a region.
+     * @param region a rectangle in user space
+     * @return the text of which the baseline intersects the region
+     * @see #getText(Rectangle2D)
+     */
+    public String getText(Rectangle region) {
+        return getText(new com.itextpdf.awt.geom.Rectangle(region));
+    }
+
+    /**
+     * Gets the rectangle that contains all the text, as {@link TextMarginFinder} computes it.
+     * @return the bounding box of the text, or <CODE>null</CODE> if there is no text
+     */
+    public Rectangle2D getTextBounds() {
+        Rectangle2D.Float bounds = null;
+        for (Item item : items) {
+            if (item.type != Item.TEXT)
+                continue;
+            if (bounds == null)
+                bounds = (Rectangle2D.Float)item.getBounds();
+            else
+                bounds.add(item.getBounds());
+        }
+        return bounds;
+    }
+
+    private void add(Item item) {
+        items.add(item);
+        grid = null;
+    }
+
+    private void addPathPoint(float x, float y, Matrix ctm) {
+        float tx = x * ctm.get(Matrix.I11) + y * ctm.get(Matrix.I21) + ctm.get(Matrix.I31);
+        float ty = x * ctm.get(Matrix.I12) + y * ctm.get(Matrix.I22) + ctm.get(Matrix.I32);
+        if (!pathStarted) {
+            pathLlx = pathUrx = tx;
+            pathLly = pathUry = ty;
+            pathStarted = true;
+        }
+        else {
+            pathLlx = Math.min(pathLlx, tx);
+            pathLly = Math.min(pathLly, ty);
+            pathUrx = Math.max(pathUrx, tx);
+            pathUry = Math.max(pathUry, ty);
+        }
+    }
+
+    private Grid getGrid() {
+        if (grid == null)
+            grid = new Grid(items);
+        return grid;
+    }
+
+    private static boolean startsWithSpace(String str) {
+        return str.length() > 0 && str.charAt(0) == ' ';
+    }
+
+    private static boolean endsWithSpace(String str) {
+        return str.length() > 0 && str.charAt(str.length() - 1) == ' ';
+    }
+
+    private static float min(float[] values) {
+        float m = values[0];
+        for (float v : values)
+            m = Math.min(m, v);
+        return m;
+    }
+
+    private static float max(float[] values) {
+        float m = values[0];
+        for (float v : values)
+            m = Math.max(m, v);
+        return m;
+    }
+
+    /**
+     * A uniform grid over the bounding box of all the items; every cell lists
+     * the items that overlap it.
+     */
+    private static class Grid {
+        /** The maximum number of cells in each direction. */
+        private static final int MAX_CELLS = 256;
+
+        private final float minX, minY, cellWidth, cellHeight;
+        private final int columns, rows;
+        /** The start of the items of every cell in {@link #cellItems}. */
+        private final int[] cellStart;
+        /** The item indices of all the cells, cell after cell. */
+        private final int[] cellItems;
+        /** The last query that found an item, to report every item only once. */
+        private final int[] marks;
+        private int query = 0;
+
+        Grid(List<Item> items) {
+            int n = items.size();
+            float x0 = Float.MAX_VALUE, y0 = Float.MAX_VALUE, x1 = -Float.MAX_VALUE, y1 = -Float.MAX_VALUE;
+            for (Item item : items) {
+                x0 = Math.min(x0, item.llx);
+                y0 = Math.min(y0, item.lly);
+                x1 = Math.max(x1, item.urx);
+                y1 = Math.max(y1, item.ury);
+            }
+            int cells = Math.max(1, Math.min(MAX_CELLS, (int)Math.sqrt(n)));
+            minX = n == 0 ? 0 : x0;
+            minY = n == 0 ? 0 : y0;
+            columns = cells;
+            rows = cells;
+            cellWidth = n == 0 || x1 <= x0 ? 1 : (x1 - x0) / columns;
+            cellHeight = n == 0 || y1 <= y0 ? 1 : (y1 - y0) / rows;
+            marks = new int[n];
+
+            int[] counts = new int[columns * rows + 1];
+            for (Item item : items) {
+                for (int r = row(item.lly); r <= row(item.ury); ++r)
+                    for (int c = column(item.llx); c <= column(item.urx); ++c)
+                        ++counts[r * columns + c + 1];
+            }
+            for (int k = 1; k < counts.length; ++k)
+                counts[k] += counts[k - 1];
+            cellStart = counts.clone();
+            cellItems = new int[counts[counts.length - 1]];
+            for (int i = 0; i < n; ++i) {
+                Item item = items.get(i);
+                for (int r = row(item.lly); r <= row(item.ury); ++r)
+                    for (int c = column(item.llx); c <= column(item.urx); ++c)
+                        cellItems[counts[r * columns + c]++] = i;
+            }
+        }
+
+        private int column(float x) {
+            return Math.max(0, Math.min(columns - 1, (int)((x - minX) / cellWidth)));
+        }
+
+        private int row(float y) {
+            return Math.max(0, Math.min(rows - 1, (int)((y - minY) / cellHeight)));
+        }
+
+        /**
+         * @return the indices of the items in the cells that overlap a region, in ascending order
+         */
+        int[] candidates(float x0, float y0, float x1, float y1) {
+            ++query;
+            int[] found = new int[16];
+            int count = 0;
+            for (int r = row(y0); r <= row(y1); ++r) {
+                for (int c = column(x0); c <= column(x1); ++c) {
+                    int cell = r * columns + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; ++k) {
+                        int i = cellItems[k];
+                        if (marks[i] == query)
+                            continue;
+                        marks[i] = query;
+                        if (count == found.length) {
+                            int[] grown = new int[count * 2];
+                            System.arraycopy(found, 0, grown, 0, count);
+                            found = grown;
+                        }
+                        found[count++] = i;
+                    }
+                }
+            }
+            int[] result = new int[count];
+            System.arraycopy(found, 0, result, 0, count);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.itextpdf.text.DocWriter;
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PRTokeniser;
+import com.itextpdf.text.pdf.PdfContentParser;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfIndirectReference;
+import com.itextpdf.text.pdf.PdfLiteral;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import com.itextpdf.text.pdf.RefKey;
+
+/**
+ * Writes a listing of the pages of a document: the page dictionary, a summary
+ * of the XObjects and the operators of the content stream. Unlike
+ * {@link PdfContentReaderTool}, the listing is written to the output while
+ * the page is read instead of being built as a string, nested dictionaries are
+ * only shown up to a maximum depth, and pages can be listed on several threads
+ * into separate outputs.
+ * @since 5.5.11
+ */
+public class PdfContentInspector {
+
+    /**
+     * Supplies the outputs when pages are listed in parallel.
+     */
+    public interface OutputFactory {
+        /**
+         * Opens the output for a page. It is closed when the page is listed.
+         * @param pageNum the page number
+         * @return the output
+         * @throws IOException on error
+         */
+        OutputStream getOutputStream(int pageNum) throws IOException;
+    }
+
+    private static final byte[] NEWLINE = {'\n'};
+    private static final byte[] SPACE = {' '};
+
+    /** The depth up to which nested dictionaries are shown. */
+    private int maxDepth = 3;
+
+    /**
+     * Sets the depth up to which nested dictionaries are shown; deeper
+     * dictionaries and the objects that were already shown for the page are
+     * only written as a reference. The entries of the page dictionary are at depth 1.
+     * @param maxDepth the maximum depth, 3 by default
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @return the depth up to which nested dictionaries are shown
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Writes the listing of a range of pages.
+     * @param reader the document
+     * @param firstPage the first page
+     * @param lastPage the last page
+     * @param out the output; it is flushed, but not closed
+     * @throws IOException on error
+     */
+    public void inspect(PdfReader reader, int firstPage, int lastPage, OutputStream out) throws IOException {
+        OutputStream os = new BufferedOutputStream(out);
+        lastPage = Math.min(lastPage, reader.getNumberOfPages());
+        for (int pageNum = Math.max(1, firstPage); pageNum <= lastPage; ++pageNum)
+            writePage(reader, pageNum, os);
+        os.flush();
+    }
+
+    /**
+     * Writes the listing of a page.
+     * @param reader the document
+     * @param pageNum the page number
+     * @param out the output; it is flushed, but not closed
+     * @throws IOException on error
+     */
+    public void inspectPage(PdfReader reader, int pageNum, OutputStream out) throws IOException {
+        inspect(reader, pageNum, pageNum, out);
+    }
+
+    /**
+     * Writes the listing of a range of pages on several threads, every page to its own output.
+     * Every thread reads the file with its own {@link PdfReader}, opened in partial mode
+     * so that only the objects of the pages it lists are kept in memory.
+     * @param filename the document
+     * @param firstPage the first page
+     * @param lastPage the last page
+     * @param threads the number of threads
+     * @param outputs supplies an output for every page
+     * @throws IOException on error
+     */
+    public void inspect(final String filename, int firstPage, int lastPage, int threads, final OutputFactory outputs) throws IOException {
+        PdfReader first = new PdfReader(filename, null, true);
+        final int last = Math.min(lastPage, first.getNumberOfPages());
+        first.close();
+        final AtomicInteger next = new AtomicInteger(Math.max(1, firstPage));
+        threads = Math.max(1, Math.min(threads, last - next.get() + 1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int k = 0; k < threads; ++k) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws IOException {
+                        PdfReader reader = new PdfReader(filename, null, true);
+                        try {
+                            for (int pageNum = next.getAndIncrement(); pageNum <= last; pageNum = next.getAndIncrement()) {
+                                OutputStream os = new BufferedOutputStream(outputs.getOutputStream(pageNum));
+                                try {
+                                    writePage(reader, pageNum, os);
+                                }
+                                finally {
+                                    os.close();
+                                }
+                                reader.releasePage(pageNum);
+                            }
+                        }
+                        finally {
+                            reader.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> future : futures)
+                future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            throw new ExceptionConverter(e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writePage(PdfReader reader, int pageNum, OutputStream os) throws IOException {
+        write(os, "==============Page " + pageNum + "====================\n");
+        write(os, "- - - - - Dictionary - - - - - -\n");
+        PdfDictionary pageDictionary = reader.getPageN(pageNum);
+        writeDictionary(pageDictionary, 1, new HashSet<RefKey>(), os);
+
+        write(os, "- - - - - XObject Summary - - - - - -\n");
+        PdfDictionary resources = reader.getPageResources(pageDictionary);
+        writeXObjects(resources, os);
+
+        write(os, "- - - - - Content Stream - - - - - -\n");
+        byte[] contentBytes = reader.getPageContent(pageNum);
+        if (contentBytes != null)
+            writeOperators(contentBytes, resources == null ? null : resources.getAsDict(PdfName.COLORSPACE), os);
+        os.write(NEWLINE);
+    }
+
+    /**
+     * Writes the entries of a dictionary, one per line.
+     * @param dic the dictionary
+     * @param depth the depth of the entries
+     * @param visited the objects that were already shown
+     * @param os the output
+     */
+    private void writeDictionary(PdfDictionary dic, int depth, Set<RefKey> visited, OutputStream os) throws IOException {
+        for (PdfName key : dic.getKeys()) {
+            indent(depth, os);
+            key.toPdf(null, os);
+            os.write(SPACE);
+            PdfObject value = dic.get(key);
+            PdfObject direct = PdfReader.getPdfObject(value);
+            boolean nested = direct != null && (direct.isDictionary() || direct.isStream());
+            if (value.isIndirect()) {
+                value.toPdf(null, os);
+                if (!nested || depth >= maxDepth || !visited.add(new RefKey((PdfIndirectReference)value))) {
+                    os.write(NEWLINE);
+                    continue;
+                }
+                os.write(SPACE);
+            }
+            else if (!nested) {
+                value.toPdf(null, os);
+                os.write(NEWLINE);
+                continue;
+            }
+            else if (depth >= maxDepth) {
+                write(os, "<< " + ((PdfDictionary)direct).size() + " entries >>\n");
+                continue;
+            }
+            write(os, direct.isStream() ? "stream <<\n" : "<<\n");
+            writeDictionary((PdfDictionary)direct, depth + 1, visited, os);
+            indent(depth, os);
+            write(os, ">>\n");
+        }
+    }
+
+    /**
+     * Writes a line for every XObject of a resource dictionary.
+     * @param resources the resources
+     * @param os the output
+     */
+    private static void writeXObjects(PdfDictionary resources, OutputStream os) throws IOException {
+        PdfDictionary xobjects = resources == null ? null : resources.getAsDict(PdfName.XOBJECT);
+        if (xobjects == null) {
+            write(os, "No XObjects\n");
+            return;
+        }
+        for (PdfName name : xobjects.getKeys()) {
+            name.toPdf(null, os);
+            PdfObject obj = xobjects.getDirectObject(name);
+            if (!(obj instanceof PRStream)) {
+                write(os, " not a stream\n");
+                continue;
+            }
+            PRStream stream = (PRStream)obj;
+            write(os, " subtype = " + stream.get(PdfName.SUBTYPE));
+            if (PdfName.IMAGE.equals(stream.get(PdfName.SUBTYPE)))
+                write(os, " " + stream.getAsNumber(PdfName.WIDTH) + "x" + stream.getAsNumber(PdfName.HEIGHT));
+            write(os, " = " + stream.getLength() + " bytes\n");
+        }
+    }
+
+    /**
+     * Writes the operations of a content stream, one per line.
+     * @param contentBytes the content stream
+     * @param colorSpaceDic the color spaces, to find the length of inline images
+     * @param os the output
+     */
+    private static void writeOperators(byte[] contentBytes, PdfDictionary colorSpaceDic, OutputStream os) throws IOException {
+        PRTokeniser tokeniser = new PRTokeniser(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(contentBytes)));
+        PdfContentParser ps = new PdfContentParser(tokeniser);
+        ArrayList<PdfObject> operands = new ArrayList<PdfObject>();
+        while (ps.parse(operands).size() > 0) {
+            PdfLiteral operator = (PdfLiteral)operands.get(operands.size() - 1);
+            for (int k = 0; k < operands.size() - 1; ++k) {
+                operands.get(k).toPdf(null, os);
+                os.write(SPACE);
+            }
+            operator.toPdf(null, os);
+            if ("BI".equals(operator.toString())) {
+                InlineImageInfo image = InlineImageUtils.parseInlineImage(ps, colorSpaceDic);
+                os.write(SPACE);
+                image.getImageDictionary().toPdf(null, os);
+                write(os, " ID (" + image.getSamples().length + " bytes) EI");
+            }
+            os.write(NEWLINE);
+        }
+    }
+
+    private static void indent(int depth, OutputStream os) throws IOException {
+        for (int k = 1; k < depth; ++k)
+            os.write('\t');
+    }
+
+    private static void write(OutputStream os, String s) throws IOException {
+        os.write(DocWriter.getISOBytes(s));
+    }
+
+    /**
+     * Writes the listing of the pages of a PDF file, every page to its own file.
+     * @param args the PDF file, the output directory, and optionally the first page,
+     * the last page and the number of threads
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length < 2 || args.length > 5) {
+                System.out.println("Usage:  PdfContentInspector <pdf file> <output directory> [<first page> [<last page> [<threads>]]]");
+                return;
+            }
+            final File dir = new File(args[1]);
+            dir.mkdirs();
+            int firstPage = args.length >= 3 ? Integer.parseInt(args[2]) : 1;
+            int lastPage = args.length >= 4 ? Integer.parseInt(args[3]) : Integer.MAX_VALUE;
+            int threads = args.length >= 5 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+            new PdfContentInspector().inspect(args[0], firstPage, lastPage, threads, new OutputFactory() {
+                public OutputStream getOutputStream(int pageNum) throws IOException {
+                    return new FileOutputStream(new File(dir, "page-" + pageNum + ".txt"));
+                }
+            });
+        } catch (Exception e) {
+            e.printStackTrace(System.err);
+        }
+    }
+}
@@ -0,0 +1,676 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.CMapAwareDocumentFont;
+import com.itextpdf.text.pdf.PRIndirectReference;
+import com.itextpdf.text.pdf.PRTokeniser;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfContentParser;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNumber;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfString;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+
+/**
+ * A pull-based alternative to {@link PdfContentStreamProcessor}. Instead of
+ * calling a {@link RenderListener} with a new {@link TextRenderInfo} for every
+ * string, the cursor steps through a content stream one operator at a time and
+ * exposes the operator, its operands and the current graphics and text state
+ * through accessors. The operand list, the state and the matrices are reused
+ * from one operator to the next, so walking over a page creates hardly any
+ * objects besides the ones the tokenizer produces.
+ * <p>
+ * Only the state needed to place text is tracked: the current transformation
+ * matrix, the text matrices, the text state parameters and the marked content
+ * sequences. Form XObjects are reported as {@link #DO_XOBJECT} and are not
+ * entered. A typical loop looks like this:
+ * <pre>
+ * PdfContentStreamCursor cursor = parser.openCursor(page);
+ * float[] m = new float[6];
+ * while (cursor.next()) {
+ *     if (cursor.isShowingText()) {
+ *         cursor.getTextRenderingMatrix(m);
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * A cursor is not thread-safe; use one cursor per thread.
+ * @since 5.5.11
+ */
+public class PdfContentStreamCursor {
+
+    /** An operator the cursor doesn't track. */
+    public static final int OTHER = 0;
+    /** BT */
+    public static final int BEGIN_TEXT = 1;
+    /** ET */
+    public static final int END_TEXT = 2;
+    /** Tj */
+    public static final int SHOW_TEXT = 3;
+    /** TJ */
+    public static final int SHOW_TEXT_ARRAY = 4;
+    /** ' */
+    public static final int MOVE_NEXT_LINE_AND_SHOW_TEXT = 5;
+    /** " */
+    public static final int MOVE_NEXT_LINE_AND_SHOW_TEXT_WITH_SPACING = 6;
+    /** Tf */
+    public static final int SET_TEXT_FONT = 7;
+    /** Tm */
+    public static final int SET_TEXT_MATRIX = 8;
+    /** Td */
+    public static final int MOVE_TEXT = 9;
+    /** TD */
+    public static final int MOVE_TEXT_SET_LEADING = 10;
+    /** T* */
+    public static final int MOVE_NEXT_LINE = 11;
+    /** Tc */
+    public static final int SET_CHARACTER_SPACING = 12;
+    /** Tw */
+    public static final int SET_WORD_SPACING = 13;
+    /** Tz */
+    public static final int SET_HORIZONTAL_SCALING = 14;
+    /** TL */
+    public static final int SET_LEADING = 15;
+    /** Ts */
+    public static final int SET_TEXT_RISE = 16;
+    /** Tr */
+    public static final int SET_TEXT_RENDER_MODE = 17;
+    /** q */
+    public static final int SAVE_STATE = 18;
+    /** Q */
+    public static final int RESTORE_STATE = 19;
+    /** cm */
+    public static final int CONCAT_MATRIX = 20;
+    /** gs */
+    public static final int SET_GRAPHICS_STATE = 21;
+    /** Do */
+    public static final int DO_XOBJECT = 22;
+    /** BMC */
+    public static final int BEGIN_MARKED_CONTENT = 23;
+    /** BDC */
+    public static final int BEGIN_MARKED_CONTENT_DICTIONARY = 24;
+    /** EMC */
+    public static final int END_MARKED_CONTENT = 25;
+    /** BI ... ID ... EI */
+    public static final int INLINE_IMAGE = 26;
+
+    /** The number of floats saved per graphics state: the CTM and the text state. */
+    private static final int STATE_SIZE = 13;
+
+    /** The parser of the content stream. */
+    private final PdfContentParser parser;
+    /** The resources of the content stream. */
+    private final PdfDictionary resources;
+    /** The fonts of the document. */
+    private final DocumentFontCache fontCache;
+    /** The operands of the current operator, followed by the operator. */
+    private final ArrayList<PdfObject> operands = new ArrayList<PdfObject>();
+
+    /** The id of the current operator. */
+    private int operatorId = OTHER;
+    /** The inline image, if the current operator is {@link #INLINE_IMAGE}. */
+    private InlineImageInfo inlineImage;
+    /** True if the text matrix still has to be moved past the text of the current operator. */
+    private boolean advancePending;
+
+    /** The current transformation matrix. */
+    private final float[] ctm = {1, 0, 0, 1, 0, 0};
+    /** The text matrix. */
+    private final float[] textMatrix = {1, 0, 0, 1, 0, 0};
+    /** The text line matrix. */
+    private final float[] textLineMatrix = {1, 0, 0, 1, 0, 0};
+    /** The matrix operand of cm. */
+    private final float[] operandMatrix = new float[6];
+    /** The current font. */
+    private CMapAwareDocumentFont font;
+    /** The horizontal scale of the glyph space of the current font. */
+    private float fontMatrixScale = 0.001f;
+    private float fontSize;
+    private float characterSpacing;
+    private float wordSpacing;
+    private float horizontalScaling = 1;
+    private float leading;
+    private float rise;
+    private int renderMode;
+
+    /** The saved graphics states, {@link #STATE_SIZE} floats each. */
+    private float[] stateStack = new float[STATE_SIZE * 8];
+    /** The fonts of the saved graphics states. */
+    private CMapAwareDocumentFont[] fontStack = new CMapAwareDocumentFont[8];
+    /** The number of saved graphics states. */
+    private int stateDepth;
+
+    /** The MCID of every open marked content sequence, or -1. */
+    private int[] mcidStack = new int[8];
+    /** The number of open marked content sequences. */
+    private int mcidDepth;
+
+    /**
+     * Creates a cursor over a content stream.
+     * @param contentBytes the bytes of the content stream
+     * @param resources the resources that come with the content stream
+     * @param fontCache the fonts of the document
+     */
+    public PdfContentStreamCursor(byte[] contentBytes, PdfDictionary resources, DocumentFontCache fontCache) {
+        PRTokeniser tokeniser = new PRTokeniser(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(contentBytes)));
+        this.parser = new PdfContentParser(tokeniser);
+        this.resources = resources;
+        this.fontCache = fontCache;
+    }
+
+    /**
+     * Moves to the next operator and applies it to the state.
+     * For the operators that show text, the state is the one in which the first
+     * glyph is drawn; the text matrix moves past the text on the next call.
+     * @return false if the end of the content stream is reached
+     * @throws IOException if the content stream can't be parsed
+     */
+    public boolean next() throws IOException {
+        if (advancePending) {
+            advanceText();
+            advancePending = false;
+        }
+        inlineImage = null;
+        if (parser.parse(operands).size() == 0) {
+            operatorId = OTHER;
+            return false;
+        }
+        operatorId = getOperatorId(operands.get(operands.size() - 1).getBytes());
+        apply();
+        return true;
+    }
+
+    /**
+     * Gets the id of the current operator, one of the constants of this class.
+     * @return the operator id, or {@link #OTHER}
+     */
+    public int getOperatorId() {
+        return operatorId;
+    }
+
+    /**
+     * Gets the current operator as it appears in the content stream.
+     * @return the operator
+     */
+    public String getOperator() {
+        return operands.isEmpty() ? null : operands.get(operands.size() - 1).toString();
+    }
+
+    /**
+     * Gets the number of operands of the current operator.
+     * @return the number of operands
+     */
+    public int getOperandCount() {
+        return operands.isEmpty() ? 0 : operands.size() - 1;
+    }
+
+    /**
+     * Gets an operand of the current operator. The object is only valid until
+     * the next call to {@link #next()}.
+     * @param index the index of the operand
+     * @return the operand
+     */
+    public PdfObject getOperand(int index) {
+        return operands.get(index);
+    }
+
+    /**
+     * Gets a numeric operand of the current operator.
+     * @param index the index of the operand
+     * @return the value of the operand
+     */
+    public float getOperandAsFloat(int index) {
+        return ((PdfNumber)operands.get(index)).floatValue();
+    }
+
+    /**
+     * Gets the inline image, if the current operator is {@link #INLINE_IMAGE}.
+     * @return the inline image or <CODE>null</CODE>
+     */
+    public InlineImageInfo getInlineImage() {
+        return inlineImage;
+    }
+
+    /**
+     * Checks if the current operator shows text (Tj, TJ, ' or ").
+     * @return true if text is shown
+     */
+    public boolean isShowingText() {
+        return operatorId >= SHOW_TEXT && operatorId <= MOVE_NEXT_LINE_AND_SHOW_TEXT_WITH_SPACING;
+    }
+
+    /**
+     * Copies the current transformation matrix into an array.
+     * @param m an array of at least 6 floats that receives a, b, c, d, e and f
+     */
+    public void getCtm(float[] m) {
+        System.arraycopy(ctm, 0, m, 0, 6);
+    }
+
+    /**
+     * Copies the text matrix into an array.
+     * @param m an array of at least 6 floats that receives a, b, c, d, e and f
+     */
+    public void getTextMatrix(float[] m) {
+        System.arraycopy(textMatrix, 0, m, 0, 6);
+    }
+
+    /**
+     * Copies the matrix from text space to user space, i.e. the text matrix
+     * multiplied with the current transformation matrix, into an array. The
+     * origin of the first glyph of the current operator is (m[4], m[5]),
+     * without the text rise.
+     * @param m an array of at least 6 floats that receives a, b, c, d, e and f
+     */
+    public void getTextRenderingMatrix(float[] m) {
+        multiply(textMatrix, ctm, m);
+    }
+
+    /**
+     * Gets the current font.
+     * @return the font, or <CODE>null</CODE> if no font was selected yet
+     */
+    public CMapAwareDocumentFont getFont() {
+        return font;
+    }
+
+    public float getFontSize() {
+        return fontSize;
+    }
+
+    public float getCharacterSpacing() {
+        return characterSpacing;
+    }
+
+    public float getWordSpacing() {
+        return wordSpacing;
+    }
+
+    /**
+     * @return the horizontal scaling, where 1 means 100%
+     */
+    public float getHorizontalScaling() {
+        return horizontalScaling;
+    }
+
+    public float getLeading() {
+        return leading;
+    }
+
+    public float getRise() {
+        return rise;
+    }
+
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Gets the MCID of the innermost marked content sequence that has one.
+     * @return the MCID, or -1 if the content isn't marked with an MCID
+     */
+    public int getMcid() {
+        for (int k = mcidDepth - 1; k >= 0; --k) {
+            if (mcidStack[k] >= 0)
+                return mcidStack[k];
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the width of a string in text space units, using the current
+     * text state, the way {@link TextRenderInfo} measures it.
+     * @param string a string operand
+     * @return the width of the string
+     */
+    public float getStringWidth(PdfString string) {
+        if (font == null)
+            return 0;
+        byte[] bytes = string.getBytes();
+        float width = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            int len = 1;
+            String decoded = font.decode(bytes, i, 1);
+            if (decoded.length() == 0 && i < bytes.length - 1) {
+                len = 2;
+                decoded = font.decode(bytes, i, 2);
+            }
+            int code = 0;
+            for (int k = 0; k < decoded.length(); ++k)
+                code = (code << 16) + decoded.charAt(k);
+            float spacing = decoded.length() == 1 && decoded.charAt(0) == ' ' ? wordSpacing : 0;
+            width += (font.getWidth(code) * fontMatrixScale * fontSize + characterSpacing + spacing) * horizontalScaling;
+            i += len - 1;
+        }
+        return width;
+    }
+
+    /**
+     * Applies the current operator to the state.
+     */
+    private void apply() throws IOException {
+        switch (operatorId) {
+            case BEGIN_TEXT:
+                setIdentity(textMatrix);
+                setIdentity(textLineMatrix);
+                break;
+            case SHOW_TEXT:
+            case SHOW_TEXT_ARRAY:
+                advancePending = true;
+                break;
+            case MOVE_NEXT_LINE_AND_SHOW_TEXT:
+                moveText(0, -leading);
+                advancePending = true;
+                break;
+            case MOVE_NEXT_LINE_AND_SHOW_TEXT_WITH_SPACING:
+                wordSpacing = getOperandAsFloat(0);
+                characterSpacing = getOperandAsFloat(1);
+                moveText(0, -leading);
+                advancePending = true;
+                break;
+            case SET_TEXT_FONT:
+                PdfDictionary fonts = resources == null ? null : resources.getAsDict(PdfName.FONT);
+                PdfObject fontObject = fonts == null ? null : fonts.get((PdfName)operands.get(0));
+                setFont(fontObject, getOperandAsFloat(1));
+                break;
+            case SET_TEXT_MATRIX:
+                for (int k = 0; k < 6; ++k)
+                    textLineMatrix[k] = getOperandAsFloat(k);
+                System.arraycopy(textLineMatrix, 0, textMatrix, 0, 6);
+                break;
+            case MOVE_TEXT:
+                moveText(getOperandAsFloat(0), getOperandAsFloat(1));
+                break;
+            case MOVE_TEXT_SET_LEADING:
+                leading = -getOperandAsFloat(1);
+                moveText(getOperandAsFloat(0), getOperandAsFloat(1));
+                break;
+            case MOVE_NEXT_LINE:
+                moveText(0, -leading);
+                break;
+            case SET_CHARACTER_SPACING:
+                characterSpacing = getOperandAsFloat(0);
+                break;
+            case SET_WORD_SPACING:
+                wordSpacing = getOperandAsFloat(0);
+                break;
+            case SET_HORIZONTAL_SCALING:
+                horizontalScaling = getOperandAsFloat(0) / 100f;
+                break;
+            case SET_LEADING:
+                leading = getOperandAsFloat(0);
+                break;
+            case SET_TEXT_RISE:
+                rise = getOperandAsFloat(0);
+                break;
+            case SET_TEXT_RENDER_MODE:
+                renderMode = ((PdfNumber)operands.get(0)).intValue();
+                break;
+            case SAVE_STATE:
+                saveState();
+                break;
+            case RESTORE_STATE:
+                restoreState();
+                break;
+            case CONCAT_MATRIX:
+                for (int k = 0; k < 6; ++k)
+                    operandMatrix[k] = getOperandAsFloat(k);
+                multiply(operandMatrix, ctm, ctm);
+                break;
+            case SET_GRAPHICS_STATE:
+                PdfDictionary extGState = resources == null ? null : resources.getAsDict(PdfName.EXTGSTATE);
+                PdfDictionary gsDic = extGState == null ? null : extGState.getAsDict((PdfName)operands.get(0));
+                PdfArray fontParameter = gsDic == null ? null : gsDic.getAsArray(PdfName.FONT);
+                if (fontParameter != null)
+                    setFont(fontParameter.getPdfObject(0), fontParameter.getAsNumber(1).floatValue());
+                break;
+            case BEGIN_MARKED_CONTENT:
+                pushMcid(-1);
+                break;
+            case BEGIN_MARKED_CONTENT_DICTIONARY:
+                pushMcid(getMcid(operands.get(1)));
+                break;
+            case END_MARKED_CONTENT:
+                if (mcidDepth > 0)
+                    --mcidDepth;
+                break;
+            case INLINE_IMAGE:
+                PdfDictionary colorSpaceDic = resources != null ? resources.getAsDict(PdfName.COLORSPACE) : null;
+                inlineImage = InlineImageUtils.parseInlineImage(parser, colorSpaceDic);
+                break;
+        }
+    }
+
+    /**
+     * Moves the text matrix past the text shown by the current operator.
+     */
+    private void advanceText() {
+        float tx = 0;
+        if (operatorId == SHOW_TEXT_ARRAY) {
+            PdfArray array = (PdfArray)operands.get(0);
+            for (int k = 0; k < array.size(); ++k) {
+                PdfObject entry = array.getPdfObject(k);
+                if (entry instanceof PdfString)
+                    tx += getStringWidth((PdfString)entry);
+                else if (entry instanceof PdfNumber)
+                    tx -= ((PdfNumber)entry).floatValue() / 1000f * fontSize * horizontalScaling;
+            }
+        }
+        else {
+            tx = getStringWidth((PdfString)operands.get(operands.size() - 2));
+        }
+        textMatrix[4] += tx * textMatrix[0];
+        textMatrix[5] += tx * textMatrix[1];
+    }
+
+    /**
+     * Moves to the start of the next line, offset from the start of the current line.
+     */
+    private void moveText(float tx, float ty) {
+        textLineMatrix[4] += tx * textLineMatrix[0] + ty * textLineMatrix[2];
+        textLineMatrix[5] += tx * textLineMatrix[1] + ty * textLineMatrix[3];
+        System.arraycopy(textLineMatrix, 0, textMatrix, 0, 6);
+    }
+
+    private void setFont(PdfObject fontObject, float size) {
+        if (fontObject instanceof PRIndirectReference)
+            font = fontCache.getFont((PRIndirectReference)fontObject);
+        else if (fontObject instanceof PdfDictionary)
+            font = new CMapAwareDocumentFont((PdfDictionary)fontObject);
+        else
+            font = null;
+        fontMatrixScale = font == null ? 0.001f : (float)font.getFontMatrix()[0];
+        fontSize = size;
+    }
+
+    private void saveState() {
+        if ((stateDepth + 1) * STATE_SIZE > stateStack.length) {
+            float[] states = new float[stateStack.length * 2];
+            System.arraycopy(stateStack, 0, states, 0, stateStack.length);
+            stateStack = states;
+            CMapAwareDocumentFont[] fonts = new CMapAwareDocumentFont[fontStack.length * 2];
+            System.arraycopy(fontStack, 0, fonts, 0, fontStack.length);
+            fontStack = fonts;
+        }
+        int p = stateDepth * STATE_SIZE;
+        System.arraycopy(ctm, 0, stateStack, p, 6);
+        stateStack[p + 6] = fontSize;
+        stateStack[p + 7] = characterSpacing;
+        stateStack[p + 8] = wordSpacing;
+        stateStack[p + 9] = horizontalScaling;
+        stateStack[p + 10] = leading;
+        stateStack[p + 11] = rise;
+        stateStack[p + 12] = renderMode;
+        fontStack[stateDepth] = font;
+        ++stateDepth;
+    }
+
+    private void restoreState() {
+        if (stateDepth == 0)
+            return;
+        --stateDepth;
+        int p = stateDepth * STATE_SIZE;
+        System.arraycopy(stateStack, p, ctm, 0, 6);
+        fontSize = stateStack[p + 6];
+        characterSpacing = stateStack[p + 7];
+        wordSpacing = stateStack[p + 8];
+        horizontalScaling = stateStack[p + 9];
+        leading = stateStack[p + 10];
+        rise = stateStack[p + 11];
+        renderMode = (int)stateStack[p + 12];
+        font = fontStack[stateDepth];
+        fontStack[stateDepth] = null;
+        fontMatrixScale = font == null ? 0.001f : (float)font.getFontMatrix()[0];
+    }
+
+    private void pushMcid(int mcid) {
+        if (mcidDepth == mcidStack.length) {
+            int[] mcids = new int[mcidStack.length * 2];
+            System.arraycopy(mcidStack, 0, mcids, 0, mcidStack.length);
+            mcidStack = mcids;
+        }
+        mcidStack[mcidDepth++] = mcid;
+    }
+
+    /**
+     * Gets the MCID from the properties of a BDC operator.
+     */
+    private int getMcid(PdfObject properties) {
+        PdfDictionary dict = null;
+        if (properties.isDictionary()) {
+            dict = (PdfDictionary)properties;
+        }
+        else if (properties.isName() && resources != null) {
+            PdfDictionary props = resources.getAsDict(PdfName.PROPERTIES);
+            if (props != null)
+                dict = props.getAsDict((PdfName)properties);
+        }
+        PdfNumber mcid = dict == null ? null : dict.getAsNumber(PdfName.MCID);
+        return mcid == null ? -1 : mcid.intValue();
+    }
+
+    private static void setIdentity(float[] m) {
+        m[0] = 1; m[1] = 0; m[2] = 0; m[3] = 1; m[4] = 0; m[5] = 0;
+    }
+
+    /**
+     * Multiplies two matrices the way {@link Matrix#multiply(Matrix)} does;
+     * the result may be one of the operands.
+     */
+    private static void multiply(float[] m1, float[] m2, float[] result) {
+        float a = m1[0] * m2[0] + m1[1] * m2[2];
+        float b = m1[0] * m2[1] + m1[1] * m2[3];
+        float c = m1[2] * m2[0] + m1[3] * m2[2];
+        float d = m1[2] * m2[1] + m1[3] * m2[3];
+        float e = m1[4] * m2[0] + m1[5] * m2[2] + m2[4];
+        float f = m1[4] * m2[1] + m1[5] * m2[3] + m2[5];
+        result[0] = a; result[1] = b; result[2] = c;
+        result[3] = d; result[4] = e; result[5] = f;
+    }
+
+    /**
+     * Maps the bytes of an operator to its id without creating a String.
+     */
+    private static int getOperatorId(byte[] op) {
+        switch (op.length) {
+            case 1:
+                switch (op[0]) {
+                    case 'q': return SAVE_STATE;
+                    case 'Q': return RESTORE_STATE;
+                    case '\'': return MOVE_NEXT_LINE_AND_SHOW_TEXT;
+                    case '"': return MOVE_NEXT_LINE_AND_SHOW_TEXT_WITH_SPACING;
+                }
+                break;
+            case 2:
+                if (op[0] == 'T') {
+                    switch (op[1]) {
+                        case 'j': return SHOW_TEXT;
+                        case 'J': return SHOW_TEXT_ARRAY;
+                        case 'f': return SET_TEXT_FONT;
+                        case 'm': return SET_TEXT_MATRIX;
+                        case 'd': return MOVE_TEXT;
+                        case 'D': return MOVE_TEXT_SET_LEADING;
+                        case '*': return MOVE_NEXT_LINE;
+                        case 'c': return SET_CHARACTER_SPACING;
+                        case 'w': return SET_WORD_SPACING;
+                        case 'z': return SET_HORIZONTAL_SCALING;
+                        case 'L': return SET_LEADING;
+                        case 's': return SET_TEXT_RISE;
+                        case 'r': return SET_TEXT_RENDER_MODE;
+                    }
+                }
+                else if (op[0] == 'B' && op[1] == 'T')
+                    return BEGIN_TEXT;
+                else if (op[0] == 'E' && op[1] == 'T')
+                    return END_TEXT;
+                else if (op[0] == 'c' && op[1] == 'm')
+                    return CONCAT_MATRIX;
+                else if (op[0] == 'g' && op[1] == 's')
+                    return SET_GRAPHICS_STATE;
+                else if (op[0] == 'D' && op[1] == 'o')
+                    return DO_XOBJECT;
+                else if (op[0] == 'B' && op[1] == 'I')
+                    return INLINE_IMAGE;
+                break;
+            case 3:
+                if (op[1] == 'M' && op[2] == 'C') {
+                    if (op[0] == 'B')
+                        return BEGIN_MARKED_CONTENT;
+                    if (op[0] == 'E')
+                        return END_MARKED_CONTENT;
+                }
+                else if (op[0] == 'B' && op[1] == 'D' && op[2] == 'C')
+                    return BEGIN_MARKED_CONTENT_DICTIONARY;
+                break;
+        }
+        return OTHER;
+    }
+}
@@ -81,8 +81,12 @@ public class PdfContentStreamProcessor {
      * The font cache.
      * @since 5.0.6
      */
-    /**  */
-    final private Map<Integer,CMapAwareDocumentFont> cachedFonts = new HashMap<Integer, CMapAwareDocumentFont>();
+    final private DocumentFontCache fontCache;
+    /**
+     * The parsed form XObjects.
+     * @since 5.5.11
+     */
+    final private FormXObjectCache formCache;
     /**
      * A stack containing marked content info.
      * @since 5.0.2
@@ -96,7 +100,36 @@ public class PdfContentStreamProcessor {
      * @param renderListener the {@link RenderListener} that will receive rendering notifications
      */
     public PdfContentStreamProcessor(RenderListener renderListener) {
+        this(renderListener, new DocumentFontCache());
+    }
+
+    /**
+     * Creates a new PDF Content Stream Processor that will send it's output to the
+     * designated render listener, and that looks up fonts in a cache that can be
+     * shared with other processors for the same document.
+     *
+     * @param renderListener the {@link RenderListener} that will receive rendering notifications
+     * @param fontCache the fonts that were parsed before
+     * @since 5.5.11
+     */
+    public PdfContentStreamProcessor(RenderListener renderListener, DocumentFontCache fontCache) {
+        this(renderListener, fontCache, new FormXObjectCache());
+    }
+
+    /**
+     * Creates a new PDF Content Stream Processor that will send it's output to the
+     * designated render listener, and that looks up fonts and form XObjects in caches
+     * that can be shared with other processors for the same document.
+     *
+     * @param renderListener the {@link RenderListener} that will receive rendering notifications
+     * @param fontCache the fonts that were parsed before
+     * @param formCache the form XObjects that were parsed before
+     * @since 5.5.11
+     */
+    public PdfContentStreamProcessor(RenderListener renderListener, DocumentFontCache fontCache, FormXObjectCache formCache) {
         this.renderListener = renderListener;
+        this.fontCache = fontCache;
+        this.formCache = formCache;
         operators = new HashMap<String, ContentOperator>();
         populateOperators();
         xobjectDoHandlers = new HashMap<PdfName, XObjectDoHandler>();
@@ -131,13 +164,7 @@ public class PdfContentStreamProcessor {
      * @since 5.0.6
      */
     private CMapAwareDocumentFont getFont(PRIndirectReference ind) {
-        Integer n = Integer.valueOf(ind.getNumber());
-        CMapAwareDocumentFont font = cachedFonts.get(n);
-        if (font == null) {
-            font = new CMapAwareDocumentFont(ind);
-            cachedFonts.put(n, font);
-        }
-        return font;
+        return fontCache.getFont(ind);
     }
 
     private CMapAwareDocumentFont getFont(PdfDictionary fontResource) {
@@ -433,6 +460,28 @@ public class PdfContentStreamProcessor {
 
     }
 
+    /**
+     * Replays content that was parsed before.
+     * @param operations the operations of a content stream
+     * @param resources the resources that come with the content stream
+     * @since 5.5.11
+     */
+    private void processOperations(List<FormXObjectCache.Operation> operations, PdfDictionary resources){
+        this.resources.push(resources);
+        try {
+            for (FormXObjectCache.Operation operation : operations) {
+                if (operation.inlineImage != null)
+                    handleInlineImage(operation.inlineImage, operation.colorSpaceDic);
+                else
+                    invokeOperator(operation.operator, new ArrayList<PdfObject>(operation.operands));
+            }
+        }
+        catch (Exception e) {
+            throw new ExceptionConverter(e);
+        }
+        this.resources.pop();
+    }
+
     /**
      * Callback when an inline image is found.  This requires special handling because inline images don't follow the standard operator syntax
      * @param info the inline image
@@ -1238,9 +1287,13 @@ public class PdfContentStreamProcessor {
             // we read the content bytes up here so if it fails we don't leave the graphics state stack corrupted
             // this is probably not necessary (if we fail on this, probably the entire content stream processing
             // operation should be rejected
-            byte[] contentBytes;
+            // forms that are placed more than once are only parsed the first time
+            byte[] contentBytes = null;
+            List<FormXObjectCache.Operation> operations;
             try {
-                contentBytes = ContentByteUtils.getContentBytesFromContentObject(stream);
+                operations = processor.formCache.getOperations(stream, ref);
+                if (operations == null)
+                    contentBytes = ContentByteUtils.getContentBytesFromContentObject(stream);
             } catch (IOException e1) {
                 throw new ExceptionConverter(e1);
             }
@@ -1260,7 +1313,10 @@ public class PdfContentStreamProcessor {
                 processor.gs().ctm = formMatrix.multiply(processor.gs().ctm);
             }
 
-            processor.processContent(contentBytes, resources);
+            if (operations != null)
+                processor.processOperations(operations, resources);
+            else
+                processor.processContent(contentBytes, resources);
 
             new PopGraphicsState().invoke(processor, null, null);
 
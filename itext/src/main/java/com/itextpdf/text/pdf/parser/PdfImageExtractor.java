@@ -0,0 +1,405 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Kevin Day, Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.parser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfIndirectReference;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RefKey;
+
+/**
+ * Extracts the images of a document. Every image XObject is decoded once,
+ * however many times and on however many pages it is placed, and the images
+ * are decoded on several threads. Where the images are placed is reported
+ * separately by {@link #getPlacements(int)}, which doesn't decode anything.
+ * <pre>
+ * PdfImageExtractor extractor = new PdfImageExtractor(reader, 4);
+ * extractor.extract(new PdfImageExtractor.ImageHandler() {
+ *     public void handleImage(PdfIndirectReference ref, PdfImageObject image) throws IOException {
+ *         store(ref.getNumber(), image.getFileType(), image.getImageAsBytes());
+ *     }
+ *     public void handleError(PdfIndirectReference ref, IOException e) {
+ *         log(ref, e);
+ *     }
+ * });
+ * </pre>
+ * The image streams are read from the calling thread; only the decoding
+ * runs on the worker threads. An image is only read when a worker is about
+ * to be free, so no more than twice as many raw images as there are threads
+ * are held in memory.
+ * @since 5.5.11
+ */
+public class PdfImageExtractor {
+
+    /**
+     * Receives the decoded images. The methods are called from the worker
+     * threads, so an implementation has to be thread-safe.
+     */
+    public interface ImageHandler {
+        /**
+         * Called once for every image XObject of the document.
+         * @param ref the reference of the image
+         * @param image the image, already decoded; its dictionary is a copy of the image dictionary
+         * @throws IOException aborts the extraction
+         */
+        void handleImage(PdfIndirectReference ref, PdfImageObject image) throws IOException;
+
+        /**
+         * Called instead of {@link #handleImage(PdfIndirectReference, PdfImageObject)}
+         * for an image that can't be decoded.
+         * @param ref the reference of the image
+         * @param e the reason
+         * @throws IOException aborts the extraction
+         */
+        void handleError(PdfIndirectReference ref, IOException e) throws IOException;
+    }
+
+    /**
+     * A place where an image is drawn.
+     */
+    public static class ImagePlacement {
+        private final int pageNumber;
+        private final Matrix ctm;
+        private final ImageRenderInfo renderInfo;
+
+        private ImagePlacement(int pageNumber, ImageRenderInfo renderInfo) {
+            this.pageNumber = pageNumber;
+            this.ctm = renderInfo.getImageCTM();
+            this.renderInfo = renderInfo;
+        }
+
+        /**
+         * @return the page on which the image is drawn
+         */
+        public int getPageNumber() {
+            return pageNumber;
+        }
+
+        /**
+         * @return the reference of the image XObject, or <CODE>null</CODE> for an inline image
+         */
+        public PdfIndirectReference getRef() {
+            return renderInfo.getRef();
+        }
+
+        /**
+         * @return the transformation matrix with which the image is drawn
+         */
+        public Matrix getImageCTM() {
+            return ctm;
+        }
+
+        /**
+         * @return the render info of the image; use it to get an inline image
+         */
+        public ImageRenderInfo getRenderInfo() {
+            return renderInfo;
+        }
+    }
+
+    /**
+     * An image XObject found in the resources, with the color spaces of those resources.
+     */
+    private static class FoundImage {
+        final PdfIndirectReference ref;
+        final PRStream stream;
+        final PdfDictionary colorSpaceDic;
+
+        FoundImage(PdfIndirectReference ref, PRStream stream, PdfDictionary colorSpaceDic) {
+            this.ref = ref;
+            this.stream = stream;
+            this.colorSpaceDic = colorSpaceDic;
+        }
+    }
+
+    /** The entries of an image dictionary that are read when the image is decoded. */
+    private static final PdfName[] DECODING_KEYS = {PdfName.FILTER, PdfName.DECODEPARMS, PdfName.DP, PdfName.DECODE,
+        PdfName.WIDTH, PdfName.HEIGHT, PdfName.BITSPERCOMPONENT, PdfName.IMAGEMASK};
+
+    private final PdfReader reader;
+    private final int threads;
+
+    /**
+     * Creates an extractor that decodes the images on the calling thread.
+     * @param reader the document
+     */
+    public PdfImageExtractor(PdfReader reader) {
+        this(reader, 1);
+    }
+
+    /**
+     * Creates an extractor.
+     * @param reader the document
+     * @param threads the number of threads that decode images
+     */
+    public PdfImageExtractor(PdfReader reader, int threads) {
+        this.reader = reader;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Finds the image XObjects in the resources of all the pages, and of the
+     * form XObjects they use, and decodes every one of them once.
+     * Inline images aren't part of the resources, see {@link #getPlacements(int)}.
+     * @param handler receives the images
+     * @return the number of images
+     * @throws IOException if the document can't be read, or if the handler throws it
+     */
+    public int extract(final ImageHandler handler) throws IOException {
+        Set<RefKey> visited = new HashSet<RefKey>();
+        List<FoundImage> found = new ArrayList<FoundImage>();
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        // bounds the number of raw images held in memory
+        final Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        int images = 0;
+        try {
+            for (int i = 1; i <= reader.getNumberOfPages(); ++i) {
+                found.clear();
+                findImages(reader.getPageResources(i), visited, found);
+                for (FoundImage image : found) {
+                    ++images;
+                    if (executor == null) {
+                        createTask(image, handler).call();
+                        continue;
+                    }
+                    inFlight.acquire();
+                    final Callable<Object> task = createTask(image, handler);
+                    futures.add(executor.submit(new Callable<Object>() {
+                        public Object call() throws Exception {
+                            try {
+                                return task.call();
+                            }
+                            finally {
+                                inFlight.release();
+                            }
+                        }
+                    }));
+                }
+            }
+            for (Future<Object> future : futures)
+                future.get();
+            return images;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            throw new ExceptionConverter(e);
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new ExceptionConverter(e);
+        }
+        finally {
+            if (executor != null)
+                executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the images drawn on a page, in the order in which they are drawn.
+     * The images aren't decoded.
+     * @param pageNumber the page
+     * @return the placements
+     * @throws IOException if the page can't be parsed
+     */
+    public List<ImagePlacement> getPlacements(final int pageNumber) throws IOException {
+        final List<ImagePlacement> placements = new ArrayList<ImagePlacement>();
+        new PdfReaderContentParser(reader).processContent(pageNumber, new RenderListener() {
+            public void beginTextBlock() {
+            }
+            public void renderText(TextRenderInfo renderInfo) {
+            }
+            public void endTextBlock() {
+            }
+            public void renderImage(ImageRenderInfo renderInfo) {
+                placements.add(new ImagePlacement(pageNumber, renderInfo));
+            }
+        });
+        return placements;
+    }
+
+    /**
+     * Collects every image in a resource dictionary that wasn't seen before,
+     * and looks into the form XObjects. The images aren't read yet.
+     * @param resources the resources
+     * @param visited the images and forms that were seen
+     * @param found receives the images
+     */
+    private void findImages(PdfDictionary resources, Set<RefKey> visited, List<FoundImage> found) {
+        if (resources == null)
+            return;
+        PdfDictionary xobjects = resources.getAsDict(PdfName.XOBJECT);
+        if (xobjects == null)
+            return;
+        PdfDictionary colorSpaceDic = resources.getAsDict(PdfName.COLORSPACE);
+        for (PdfName name : xobjects.getKeys()) {
+            PdfIndirectReference ref = xobjects.getAsIndirectObject(name);
+            if (ref == null || !visited.add(new RefKey(ref)))
+                continue;
+            PdfObject obj = PdfReader.getPdfObject(ref);
+            if (!(obj instanceof PRStream))
+                continue;
+            PRStream stream = (PRStream)obj;
+            PdfName subtype = stream.getAsName(PdfName.SUBTYPE);
+            if (PdfName.FORM.equals(subtype))
+                findImages(stream.getAsDict(PdfName.RESOURCES), visited, found);
+            else if (PdfName.IMAGE.equals(subtype))
+                found.add(new FoundImage(ref, stream, colorSpaceDic));
+        }
+    }
+
+    /**
+     * Reads an image from the document and creates the task that decodes it.
+     * The task doesn't read from the document.
+     * @param found the image
+     * @param handler receives the image
+     * @return the task
+     */
+    private static Callable<Object> createTask(final FoundImage found, final ImageHandler handler) {
+        PdfImageObject image = null;
+        IOException error = null;
+        try {
+            image = new PdfImageObject(getDecodingDictionary(found.stream), PdfReader.getStreamBytesRaw(found.stream), found.colorSpaceDic, true);
+        }
+        catch (IOException e) {
+            error = e;
+        }
+        final PdfImageObject decoded = image;
+        final IOException failed = error;
+        return new Callable<Object>() {
+            public Object call() throws IOException {
+                decode(found.ref, decoded, failed, handler);
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Decodes an image and hands it to the handler.
+     */
+    private static void decode(PdfIndirectReference ref, PdfImageObject image, IOException error, ImageHandler handler) throws IOException {
+        if (error == null) {
+            try {
+                image.getDecodedImageBytes();
+            }
+            catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error == null)
+            handler.handleImage(ref, image);
+        else
+            handler.handleError(ref, error);
+    }
+
+    /**
+     * Copies an image dictionary, with the entries that are needed to decode the
+     * image replaced by direct objects, so that decoding doesn't read from the document.
+     * @param stream the image
+     * @return the copy
+     */
+    private static PdfDictionary getDecodingDictionary(PRStream stream) {
+        PdfDictionary dic = new PdfDictionary();
+        dic.putAll(stream);
+        for (PdfName key : DECODING_KEYS)
+            dic.put(key, resolve(stream.get(key)));
+        return dic;
+    }
+
+    /**
+     * Makes a copy in which the indirect objects are replaced by the objects
+     * they refer to. Streams aren't copied.
+     * @param obj an object
+     * @return the direct object
+     */
+    private static PdfObject resolve(PdfObject obj) {
+        obj = PdfReader.getPdfObject(obj);
+        if (obj == null)
+            return null;
+        if (obj.isDictionary()) {
+            PdfDictionary dic = (PdfDictionary)obj;
+            PdfDictionary copy = new PdfDictionary();
+            for (PdfName key : dic.getKeys())
+                copy.put(key, resolve(dic.get(key)));
+            return copy;
+        }
+        if (obj.isArray()) {
+            PdfArray array = (PdfArray)obj;
+            PdfArray copy = new PdfArray();
+            for (int k = 0; k < array.size(); ++k)
+                copy.add(resolve(array.getPdfObject(k)));
+            return copy;
+        }
+        return obj;
+    }
+}
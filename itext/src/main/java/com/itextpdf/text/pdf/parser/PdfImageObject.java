@@ -46,11 +46,14 @@ package com.itextpdf.text.pdf.parser;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.imageio.ImageIO;
 
+import com.itextpdf.text.ExceptionConverter;
 import com.itextpdf.text.Version;
 import com.itextpdf.text.error_messages.MessageLocalization;
 import com.itextpdf.text.exceptions.UnsupportedPdfException;
@@ -59,6 +62,7 @@ import com.itextpdf.text.pdf.PRStream;
 import com.itextpdf.text.pdf.PdfArray;
 import com.itextpdf.text.pdf.PdfDictionary;
 import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNumber;
 import com.itextpdf.text.pdf.PdfObject;
 import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfString;
@@ -120,7 +124,11 @@ public class PdfImageObject {
     
 	/** The image dictionary. */
 	private PdfDictionary dictionary;
-	/** The decoded image bytes (after applying filters), or the raw image bytes if unable to decode */
+	/** The stream of the image, unless the image bytes were provided explicitly. */
+	private PRStream stream;
+	/** The raw image bytes, if they were provided explicitly. */
+	private byte[] samples;
+	/** The decoded image bytes (after applying filters), or the raw image bytes if unable to decode; <CODE>null</CODE> until they are needed */
 	private byte[] imageBytes;
 	private PdfDictionary colorSpaceDic;
 	
@@ -155,7 +163,7 @@ public class PdfImageObject {
 	 * @throws IOException
 	 */
 	public PdfImageObject(PRStream stream) throws IOException {
-		this(stream, PdfReader.getStreamBytesRaw(stream), null);
+		this(stream, null);
 	}
     
 	/**
@@ -165,10 +173,28 @@ public class PdfImageObject {
 	 * @throws IOException
 	 */
 	public PdfImageObject(PRStream stream, PdfDictionary colorSpaceDic) throws IOException {
-		this(stream, PdfReader.getStreamBytesRaw(stream), colorSpaceDic);
+		this(stream, colorSpaceDic, false);
 	}
-	
 
+	/**
+	 * Creates a PdfImage object that can postpone reading and decoding the image.
+	 * In lazy mode the constructor only checks the filters and the color space,
+	 * which is enough for {@link #getWidth()}, {@link #getRawBytes()} or
+	 * {@link #openRowReader()}. The stream is read and decoded the first time the
+	 * image bytes are needed, so the reader has to stay open until then, and
+	 * {@link #getImageAsBytes()} reports a decoding error as an <CODE>ExceptionConverter</CODE>.
+	 * @param stream a PRStream
+	 * @param colorSpaceDic	a color space dictionary
+	 * @param lazy true to read and decode the image only when it's needed
+	 * @throws IOException
+	 * @since 5.5.11
+	 */
+	public PdfImageObject(PRStream stream, PdfDictionary colorSpaceDic, boolean lazy) throws IOException {
+		this.stream = stream;
+		init(stream, colorSpaceDic);
+		if (!lazy)
+		    decodeImageBytes();
+	}
 	
 	/**
 	 * Creats a PdfImage object using an explicitly provided dictionary and image bytes
@@ -178,26 +204,66 @@ public class PdfImageObject {
 	 * @since 5.0.3
 	 */
 	protected PdfImageObject(PdfDictionary dictionary, byte[] samples, PdfDictionary colorSpaceDic) throws IOException {
+	    this(dictionary, samples, colorSpaceDic, false);
+	}
+
+	/**
+	 * Creates a PdfImage object using an explicitly provided dictionary and image bytes,
+	 * that can postpone decoding the image.
+	 * @param dictionary the dictionary for the image
+	 * @param samples the samples
+	 * @param colorSpaceDic	a color space dictionary
+	 * @param lazy true to decode the image only when it's needed
+	 * @see #PdfImageObject(PRStream, PdfDictionary, boolean)
+	 * @since 5.5.11
+	 */
+	protected PdfImageObject(PdfDictionary dictionary, byte[] samples, PdfDictionary colorSpaceDic, boolean lazy) throws IOException {
+	    this.samples = samples;
+	    init(dictionary, colorSpaceDic);
+	    if (!lazy)
+	        decodeImageBytes();
+	}
+
+	/**
+	 * Finds out what kind of image bytes this object will hold, without decoding anything.
+	 * @param dictionary the dictionary for the image
+	 * @param colorSpaceDic a color space dictionary
+	 * @throws IOException if a filter or the color space of the image is not supported
+	 */
+	private void init(PdfDictionary dictionary, PdfDictionary colorSpaceDic) throws IOException {
 	    this.dictionary = dictionary;
 	    this.colorSpaceDic = colorSpaceDic;
-        TrackingFilter trackingFilter = new TrackingFilter();
-        Map<PdfName, FilterHandlers.FilterHandler> handlers = new HashMap<PdfName, FilterHandlers.FilterHandler>(FilterHandlers.getDefaultFilterHandlers());
-        handlers.put(PdfName.JBIG2DECODE, trackingFilter);
-        handlers.put(PdfName.DCTDECODE, trackingFilter);
-        handlers.put(PdfName.JPXDECODE, trackingFilter);
-
-        imageBytes = PdfReader.decodeBytes(samples, dictionary, handlers);
-        
-        if (trackingFilter.lastFilterName != null){
-	        if (PdfName.JBIG2DECODE.equals(trackingFilter.lastFilterName))
+	    Map<PdfName, FilterHandlers.FilterHandler> handlers = FilterHandlers.getDefaultFilterHandlers();
+	    // the last of the filters that are kept is the format of the image bytes
+	    for (PdfName filter : getFilters(dictionary)) {
+	        if (PdfName.JBIG2DECODE.equals(filter))
 	            streamContentType = ImageBytesType.JBIG2;
-	        else if (PdfName.DCTDECODE.equals(trackingFilter.lastFilterName))
+	        else if (PdfName.DCTDECODE.equals(filter))
 	            streamContentType = ImageBytesType.JPG;
-            else if (PdfName.JPXDECODE.equals(trackingFilter.lastFilterName))
-                streamContentType = ImageBytesType.JP2;
-        } else {
-            decodeImageBytes();
-        }
+	        else if (PdfName.JPXDECODE.equals(filter))
+	            streamContentType = ImageBytesType.JP2;
+	        else if (!handlers.containsKey(filter))
+	            throw new UnsupportedPdfException(MessageLocalization.getComposedMessage("the.filter.1.is.not.supported", filter));
+	    }
+	    if (streamContentType == null)
+	        readImageInfo();
+	}
+
+	/**
+	 * Gets the names of the filters of a stream, in the order in which they have to be applied.
+	 * @param dictionary the stream dictionary
+	 * @return the filter names
+	 */
+	static List<PdfName> getFilters(PdfDictionary dictionary) {
+	    List<PdfName> names = new ArrayList<PdfName>();
+	    PdfObject filter = PdfReader.getPdfObjectRelease(dictionary.get(PdfName.FILTER));
+	    if (filter != null && filter.isName())
+	        names.add((PdfName)filter);
+	    else if (filter != null && filter.isArray()) {
+	        for (PdfObject name : ((PdfArray)filter).getArrayList())
+	            names.add((PdfName)PdfReader.getPdfObjectRelease(name));
+	    }
+	    return names;
 	}
 	
 	/**
@@ -217,6 +283,75 @@ public class PdfImageObject {
 		return dictionary;
 	}
 
+	/**
+	 * Returns the width of the image in samples, read from the dictionary.
+	 * @return the width
+	 * @since 5.5.11
+	 */
+	public int getWidth() {
+	    PdfNumber n = dictionary.getAsNumber(PdfName.WIDTH);
+	    return n == null ? 0 : n.intValue();
+	}
+
+	/**
+	 * Returns the height of the image in samples, read from the dictionary.
+	 * @return the height
+	 * @since 5.5.11
+	 */
+	public int getHeight() {
+	    PdfNumber n = dictionary.getAsNumber(PdfName.HEIGHT);
+	    return n == null ? 0 : n.intValue();
+	}
+
+	/**
+	 * Returns the number of bits per color component, read from the dictionary.
+	 * @return the bits per component, or 0 if the dictionary doesn't specify it
+	 * @since 5.5.11
+	 */
+	public int getBitsPerComponent() {
+	    PdfNumber n = dictionary.getAsNumber(PdfName.BITSPERCOMPONENT);
+	    return n == null ? 0 : n.intValue();
+	}
+
+	/**
+	 * Returns the image bytes as they are stored in the PDF, without applying any filter.
+	 * If the only filter is DCTDecode, these are the bytes of a JPEG file.
+	 * @return the raw bytes
+	 * @throws IOException if the stream can't be read
+	 * @since 5.5.11
+	 */
+	public byte[] getRawBytes() throws IOException {
+	    if (samples != null)
+	        return samples;
+	    return PdfReader.getStreamBytesRaw(stream);
+	}
+
+	/**
+	 * Opens a reader that delivers the decoded samples one row at a time.
+	 * For an object created in lazy mode, the whole decoded image is never
+	 * held in memory when the image is only compressed with FlateDecode.
+	 * @return a row reader
+	 * @throws IOException if the image can't be decoded
+	 * @since 5.5.11
+	 */
+	public ImageRowReader openRowReader() throws IOException {
+	    return new ImageRowReader(this);
+	}
+
+	/**
+	 * Gets the color space of the image, looked up in the color space dictionary if it is a name.
+	 * @return the color space, or <CODE>null</CODE> for an image mask
+	 */
+	PdfObject getColorSpace() {
+        PdfObject colorspace = dictionary.getDirectObject(PdfName.COLORSPACE);
+        if (colorspace instanceof PdfName && colorSpaceDic != null){
+            PdfObject csLookup = colorSpaceDic.getDirectObject((PdfName)colorspace);
+            if (csLookup != null)
+                colorspace = csLookup;
+        }
+        return colorspace;
+	}
+
 	/**
 	 * Sets state of this object according to the color space 
 	 * @param colorspace the colorspace to use
@@ -283,32 +418,22 @@ public class PdfImageObject {
     }
 
     /**
-     * decodes the bytes currently captured in the streamBytes and replaces it with an image representation of the bytes
-     * (this will either be a png or a tiff, depending on the color depth of the image)
-     * @throws IOException
+     * Reads the dimensions and the color space of an image that is converted to a png or a tiff,
+     * without decoding the image bytes.
+     * @throws IOException if the color space is not supported
      */
-    private void decodeImageBytes() throws IOException{
-        if (streamContentType != null)
-            throw new IllegalStateException(MessageLocalization.getComposedMessage("Decoding.can't.happen.on.this.type.of.stream.(.1.)", streamContentType));
-        
+    private void readImageInfo() throws IOException {
         pngColorType = -1;
-        PdfArray decode = dictionary.getAsArray(PdfName.DECODE);
         width = dictionary.getAsNumber(PdfName.WIDTH).intValue();
         height = dictionary.getAsNumber(PdfName.HEIGHT).intValue();
         bpc = dictionary.getAsNumber(PdfName.BITSPERCOMPONENT).intValue();
         pngBitDepth = bpc;
-        PdfObject colorspace = dictionary.getDirectObject(PdfName.COLORSPACE);
-        if (colorspace instanceof PdfName && colorSpaceDic != null){
-            PdfObject csLookup = colorSpaceDic.getDirectObject((PdfName)colorspace);
-            if (csLookup != null)
-                colorspace = csLookup;
-        }
+        PdfObject colorspace = getColorSpace();
 
         palette = null;
         icc = null;
         stride = 0;
         findColorspace(colorspace, true);
-        ByteArrayOutputStream ms = new ByteArrayOutputStream();
         if (pngColorType < 0) {
             if (bpc != 8)
                 throw new UnsupportedPdfException(MessageLocalization.getComposedMessage("the.color.depth.1.is.not.supported", bpc));
@@ -330,6 +455,35 @@ public class PdfImageObject {
             else
                 throw new UnsupportedPdfException(MessageLocalization.getComposedMessage("the.color.space.1.is.not.supported", colorspace));
             stride = 4 * width;
+            streamContentType = ImageBytesType.CCITT;
+        }
+        else {
+            streamContentType = ImageBytesType.PNG;
+        }
+    }
+
+    /**
+     * Applies the filters to the raw bytes and, for the images that aren't kept in their own format,
+     * replaces them with an image representation of the bytes
+     * (this will either be a png or a tiff, depending on the color depth of the image)
+     * @throws IOException
+     */
+    private void decodeImageBytes() throws IOException{
+        TrackingFilter trackingFilter = new TrackingFilter();
+        Map<PdfName, FilterHandlers.FilterHandler> handlers = new HashMap<PdfName, FilterHandlers.FilterHandler>(FilterHandlers.getDefaultFilterHandlers());
+        handlers.put(PdfName.JBIG2DECODE, trackingFilter);
+        handlers.put(PdfName.DCTDECODE, trackingFilter);
+        handlers.put(PdfName.JPXDECODE, trackingFilter);
+
+        byte[] raw = getRawBytes();
+        byte[] bytes = PdfReader.decodeBytes(raw, dictionary, handlers);
+        if (trackingFilter.lastFilterName != null) {
+            imageBytes = bytes;
+            return;
+        }
+
+        ByteArrayOutputStream ms = new ByteArrayOutputStream();
+        if (streamContentType == ImageBytesType.CCITT) {
             TiffWriter wr = new TiffWriter();
             wr.addField(new TiffWriter.FieldShort(TIFFConstants.TIFFTAG_SAMPLESPERPIXEL, 4));
             wr.addField(new TiffWriter.FieldShort(TIFFConstants.TIFFTAG_BITSPERSAMPLE, new int[]{8,8,8,8}));
@@ -344,25 +498,27 @@ public class PdfImageObject {
             wr.addField(new TiffWriter.FieldShort(TIFFConstants.TIFFTAG_RESOLUTIONUNIT, TIFFConstants.RESUNIT_INCH));
             wr.addField(new TiffWriter.FieldAscii(TIFFConstants.TIFFTAG_SOFTWARE, Version.getInstance().getVersion()));
             ByteArrayOutputStream comp = new ByteArrayOutputStream();
-            TiffWriter.compressLZW(comp, 2, imageBytes, height, 4, stride);
+            TiffWriter.compressLZW(comp, 2, bytes, height, 4, stride);
             byte[] buf = comp.toByteArray();
             wr.addField(new TiffWriter.FieldImage(buf));
             wr.addField(new TiffWriter.FieldLong(TIFFConstants.TIFFTAG_STRIPBYTECOUNTS, buf.length));
             if (icc != null)
                 wr.addField(new TiffWriter.FieldUndefined(TIFFConstants.TIFFTAG_ICCPROFILE, icc));
             wr.writeFile(ms);
-            streamContentType = ImageBytesType.CCITT;
             imageBytes = ms.toByteArray();
-            return;
         } else {
             PngWriter png = new PngWriter(ms);
+            PdfArray decode = dictionary.getAsArray(PdfName.DECODE);
             if (decode != null){
                 if (pngBitDepth == 1){
                     // if the decode array is 1,0, then we need to invert the image
                     if(decode.getAsNumber(0).intValue() == 1 && decode.getAsNumber(1).intValue() == 0){
-                        int len = imageBytes.length;
+                        // without filters, the bytes are still the raw bytes that may be read again
+                        if (bytes == raw)
+                            bytes = bytes.clone();
+                        int len = bytes.length;
                         for (int t = 0; t < len; ++t) {
-                            imageBytes[t] ^= 0xff;
+                            bytes[t] ^= 0xff;
                         }
                     } else {
                         // if the decode array is 0,1, do nothing.  It's possible that the array could be 0,0 or 1,1 - but that would be silly, so we'll just ignore that case
@@ -376,20 +532,36 @@ public class PdfImageObject {
                 png.writeIccProfile(icc);
             if (palette != null)
                 png.writePalette(palette);
-            png.writeData(imageBytes, stride);
+            png.writeData(bytes, stride);
             png.writeEnd();
-            streamContentType = ImageBytesType.PNG;
             imageBytes = ms.toByteArray();
         }
     }
     
     /**
+     * Gets the bytes of the image, decoding them first if the object was created in lazy mode.
      * @return the bytes of the image (the format will be as specified in {@link PdfImageObject#getImageBytesType()}
-     * @throws IOException
+     * @throws ExceptionConverter if an image created in lazy mode can't be read or decoded
      * @since 5.0.4
      */
     public byte[] getImageAsBytes() {
-        return imageBytes; 
+        try {
+            return getDecodedImageBytes();
+        }
+        catch (IOException e) {
+            throw new ExceptionConverter(e);
+        }
+    }
+
+    /**
+     * Gets the bytes of the image, decoding them first if the object was created in lazy mode.
+     * @return the bytes of the image
+     * @throws IOException if the image can't be read or decoded
+     */
+    byte[] getDecodedImageBytes() throws IOException {
+        if (imageBytes == null)
+            decodeImageBytes();
+        return imageBytes;
     }
 
     // AWT related methods (remove this if you port to Android / GAE)
@@ -398,7 +570,7 @@ public class PdfImageObject {
      * @since 5.0.3 renamed from getAwtImage()
      */
     public java.awt.image.BufferedImage getBufferedImage() throws IOException {
-        byte[] img = getImageAsBytes();
+        byte[] img = getDecodedImageBytes();
         if (img == null)
             return null;
         return ImageIO.read(new ByteArrayInputStream(img));
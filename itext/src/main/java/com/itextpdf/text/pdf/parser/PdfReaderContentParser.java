@@ -60,9 +60,55 @@ import java.util.Map;
 public class PdfReaderContentParser {
     /** the reader this parser will process */
     private final PdfReader reader;
+    /** the fonts parsed so far, shared by all the pages this parser processes */
+    private final DocumentFontCache fontCache;
+    /** the form XObjects parsed so far, shared by all the pages this parser processes */
+    private final FormXObjectCache formCache;
     
     public PdfReaderContentParser(PdfReader reader) {
+        this(reader, new DocumentFontCache());
+    }
+
+    /**
+     * Creates a parser that looks up fonts in an existing cache, for instance
+     * to share the fonts of a document between parsers on different threads.
+     * @param reader the reader
+     * @param fontCache a cache for the fonts of the same document
+     * @since 5.5.11
+     */
+    public PdfReaderContentParser(PdfReader reader, DocumentFontCache fontCache) {
+        this(reader, fontCache, new FormXObjectCache());
+    }
+
+    /**
+     * Creates a parser that looks up fonts and form XObjects in existing caches.
+     * @param reader the reader
+     * @param fontCache a cache for the fonts of the same document
+     * @param formCache a cache for the form XObjects of the same document
+     * @since 5.5.11
+     */
+    public PdfReaderContentParser(PdfReader reader, DocumentFontCache fontCache, FormXObjectCache formCache) {
         this.reader = reader;
+        this.fontCache = fontCache;
+        this.formCache = formCache;
+    }
+
+    /**
+     * Gets the cache with the fonts parsed by this parser, and its counters.
+     * @return the font cache
+     * @since 5.5.11
+     */
+    public DocumentFontCache getFontCache() {
+        return fontCache;
+    }
+
+    /**
+     * Gets the cache with the form XObjects parsed by this parser, and its counters.
+     * @return the form XObject cache
+     * @since 5.5.11
+     */
+    public FormXObjectCache getFormXObjectCache() {
+        return formCache;
     }
     
     /**
@@ -80,7 +126,7 @@ public class PdfReaderContentParser {
         PdfDictionary pageDic = reader.getPageN(pageNumber);
         PdfDictionary resourcesDic = pageDic.getAsDict(PdfName.RESOURCES);
         
-        PdfContentStreamProcessor processor = new PdfContentStreamProcessor(renderListener);
+        PdfContentStreamProcessor processor = new PdfContentStreamProcessor(renderListener, fontCache, formCache);
         for(Map.Entry<String, ContentOperator> entry : additionalContentOperators.entrySet()) {
             processor.registerContentOperator(entry.getKey(), entry.getValue());
         }
@@ -89,6 +135,20 @@ public class PdfReaderContentParser {
 
     }
     
+    /**
+     * Opens a cursor over the content of a page, as a pull-based alternative to
+     * processing the page with a listener. Form XObjects are not entered.
+     * @param pageNumber the page number to read
+     * @return a cursor positioned before the first operator of the page
+     * @throws IOException if operations on the reader fail
+     * @since 5.5.11
+     */
+    public PdfContentStreamCursor openCursor(int pageNumber) throws IOException {
+        PdfDictionary pageDic = reader.getPageN(pageNumber);
+        return new PdfContentStreamCursor(ContentByteUtils.getContentBytesForPage(reader, pageNumber),
+                pageDic.getAsDict(PdfName.RESOURCES), fontCache);
+    }
+
     /**
      * Processes content from the specified page number using the specified listener
      * @param <E> the type of the renderListener - this makes it easy to chain calls
@@ -77,6 +77,22 @@ public final class PdfTextExtractor {
         return parser.processContent(pageNumber, strategy, additionalContentOperators).getResultantText();
     }
 	
+    /**
+     * Extract text from a specified page using an extraction strategy and an existing parser.
+     * The fonts and form XObjects that the parser parsed for other pages are
+     * reused, so extracting a document page by page with the same parser
+     * parses every font only once.
+     * @param parser the parser of the reader to extract text from
+     * @param pageNumber the page to extract text from
+     * @param strategy the strategy to use for extracting text
+     * @return the extracted text
+     * @throws IOException if any operation fails while reading from the provided PdfReader
+     * @since 5.5.11
+     */
+    public static String getTextFromPage(PdfReaderContentParser parser, int pageNumber, TextExtractionStrategy strategy) throws IOException{
+        return parser.processContent(pageNumber, strategy).getResultantText();
+    }
+
     /**
      * Extract text from a specified page using an extraction strategy.
      * @param reader the reader to extract text from
@@ -51,6 +51,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -64,6 +67,34 @@ public class TaggedPdfReaderTool {
 	protected PdfReader reader;
 	/** The writer object to which the XML will be written */
 	protected PrintWriter out;
+	/** If true, every page is parsed only once and its text is grouped by MCID. */
+	private boolean parsePagesOnce = false;
+	/** The text of the marked content sequences of every page that has been parsed once. */
+	private Map<PdfDictionary, Map<Integer, String>> pageTexts = new IdentityHashMap<PdfDictionary, Map<Integer, String>>();
+	/** The fonts shared by all the content stream processors of a document. */
+	private DocumentFontCache fontCache = new DocumentFontCache();
+
+	/**
+	 * Parses every page only once instead of once per marked content sequence.
+	 * The text of the page is grouped by MCID while the page is parsed, and the
+	 * tags of the structure tree are filled from those groups. The resulting
+	 * XML is the same, but the time needed no longer grows with the number of
+	 * tags times the size of the page.
+	 * @param parsePagesOnce true to parse each page only once
+	 * @since 5.5.11
+	 */
+	public void setParsePagesOnce(boolean parsePagesOnce) {
+		this.parsePagesOnce = parsePagesOnce;
+	}
+
+	/**
+	 * Checks if every page is parsed only once.
+	 * @return true if the text of a page is grouped by MCID in a single pass
+	 * @since 5.5.11
+	 */
+	public boolean isParsePagesOnce() {
+		return parsePagesOnce;
+	}
 
 	/**
 	 * Parses a string with structured content.
@@ -79,6 +110,8 @@ public class TaggedPdfReaderTool {
 	public void convertToXml(PdfReader reader, OutputStream os, String charset)
 			throws IOException {
 		this.reader = reader;
+		pageTexts.clear();
+		fontCache = new DocumentFontCache();
         OutputStreamWriter outs = new OutputStreamWriter(os, charset);
 		out = new PrintWriter(outs);
 		// get the StructTreeRoot from the root object
@@ -87,7 +120,12 @@ public class TaggedPdfReaderTool {
 		if (struct == null)
 			throw new IOException(MessageLocalization.getComposedMessage("no.structtreeroot.found"));
 		// Inspect the child or children of the StructTreeRoot
-		inspectChild(struct.getDirectObject(PdfName.K));
+		try {
+			inspectChild(struct.getDirectObject(PdfName.K));
+		}
+		finally {
+			pageTexts.clear();
+		}
 		out.flush();
 		out.close();
 	}
@@ -263,12 +301,17 @@ public class TaggedPdfReaderTool {
 		// if the identifier is a number, we can extract the content right away
 		if (object instanceof PdfNumber) {
 			PdfNumber mcid = (PdfNumber) object;
+			if (parsePagesOnce) {
+				String text = getPageTexts(page).get(Integer.valueOf(mcid.intValue()));
+				out.print(XMLUtil.escapeXML(text == null ? "" : text, true));
+				return;
+			}
 			RenderFilter filter = new MarkedContentRenderFilter(mcid.intValue());
 			TextExtractionStrategy strategy = new SimpleTextExtractionStrategy();
 			FilteredTextRenderListener listener = new FilteredTextRenderListener(
 					strategy, filter);
 			PdfContentStreamProcessor processor = new PdfContentStreamProcessor(
-					listener);
+					listener, fontCache);
 			processor.processContent(PdfReader.getPageContent(page), page
 					.getAsDict(PdfName.RESOURCES));
 			out.print(XMLUtil.escapeXML(listener.getResultantText(), true));
@@ -293,4 +336,68 @@ public class TaggedPdfReaderTool {
 		}
 	}
 
+	/**
+	 * Returns the text of every marked content sequence of a page, parsing
+	 * the page if this wasn't done before.
+	 * @param page a page dictionary
+	 * @return a map with the text of the page per MCID
+	 * @throws IOException
+	 */
+	private Map<Integer, String> getPageTexts(PdfDictionary page) throws IOException {
+		Map<Integer, String> texts = pageTexts.get(page);
+		if (texts == null) {
+			McidTextRenderListener listener = new McidTextRenderListener();
+			PdfContentStreamProcessor processor = new PdfContentStreamProcessor(
+					listener, fontCache);
+			processor.processContent(PdfReader.getPageContent(page), page
+					.getAsDict(PdfName.RESOURCES));
+			texts = listener.getResultantTexts();
+			pageTexts.put(page, texts);
+		}
+		return texts;
+	}
+
+	/**
+	 * Sends the text of a page to one {@link SimpleTextExtractionStrategy} for
+	 * every MCID the text is marked with, so that each strategy sees exactly the
+	 * text a {@link MarkedContentRenderFilter} for that MCID would let through.
+	 */
+	private static class McidTextRenderListener implements RenderListener {
+		/** The strategies per MCID. */
+		private final Map<Integer, SimpleTextExtractionStrategy> strategies = new HashMap<Integer, SimpleTextExtractionStrategy>();
+
+		public void beginTextBlock() {
+		}
+
+		public void renderText(TextRenderInfo renderInfo) {
+			for (MarkedContentInfo info : renderInfo.getMarkedContentInfos()) {
+				if (!info.hasMcid())
+					continue;
+				Integer mcid = Integer.valueOf(info.getMcid());
+				SimpleTextExtractionStrategy strategy = strategies.get(mcid);
+				if (strategy == null) {
+					strategy = new SimpleTextExtractionStrategy();
+					strategies.put(mcid, strategy);
+				}
+				strategy.renderText(renderInfo);
+			}
+		}
+
+		public void endTextBlock() {
+		}
+
+		public void renderImage(ImageRenderInfo renderInfo) {
+		}
+
+		/**
+		 * @return the text that was found per MCID
+		 */
+		public Map<Integer, String> getResultantTexts() {
+			Map<Integer, String> texts = new HashMap<Integer, String>();
+			for (Map.Entry<Integer, SimpleTextExtractionStrategy> entry : strategies.entrySet())
+				texts.put(entry.getKey(), entry.getValue().getResultantText());
+			return texts;
+		}
+	}
+
 }
@@ -69,6 +69,11 @@ public class TextRenderInfo {
     private final GraphicsState gs;
     private Float unscaledWidth = null;
     private double[] fontMatrix = null;
+    /**
+     * The glyphs of the string, once they are decoded.
+     * @since 5.5.11
+     */
+    private GlyphRun glyphRun = null;
     /**
      * Array containing marked content info for the text.
      * @since 5.0.2
@@ -95,14 +100,18 @@ public class TextRenderInfo {
      * @param parent the parent TextRenderInfo
      * @param string the content of a TextRenderInfo
      * @param horizontalOffset the unscaled horizontal offset of the character that this TextRenderInfo represents
+     * @param text the decoded character
+     * @param unscaledWidth the unscaled width of the character
      * @since 5.3.3
      */
-    private TextRenderInfo(TextRenderInfo parent, PdfString string, float horizontalOffset){
+    TextRenderInfo(TextRenderInfo parent, PdfString string, float horizontalOffset, String text, float unscaledWidth){
         this.string = string;
     	this.textToUserSpaceTransformMatrix = new Matrix(horizontalOffset, 0).multiply(parent.textToUserSpaceTransformMatrix);
     	this.gs = parent.gs;
     	this.markedContentInfos = parent.markedContentInfos;
-        this.fontMatrix = gs.font.getFontMatrix();
+        this.fontMatrix = parent.fontMatrix;
+        this.text = text;
+        this.unscaledWidth = Float.valueOf(unscaledWidth);
     }
 
     /**
@@ -166,15 +175,67 @@ public class TextRenderInfo {
         return null;
     }
 
+    /**
+     * @return the marked content sequences the text belongs to, outermost first
+     */
+    Collection<MarkedContentInfo> getMarkedContentInfos() {
+        return markedContentInfos;
+    }
+
 	/**
      * @return the unscaled (i.e. in Text space) width of the text
      */
     float getUnscaledWidth(){
         if (unscaledWidth == null)
-            unscaledWidth = Float.valueOf(getPdfStringWidth(string, false));
+            unscaledWidth = Float.valueOf(getGlyphRun().getWidth());
         return unscaledWidth;
     }
 
+    /**
+     * Gets the glyphs of the text, decoded once: their codes, Unicode text,
+     * advances and offsets. The geometry of a single glyph is only computed
+     * when it is asked for.
+     * @return the glyph run of the text
+     * @since 5.5.11
+     */
+    public GlyphRun getGlyphRun() {
+        if (glyphRun == null) {
+            String stringValue = string.toString();
+            int n = stringValue.length();
+            PdfString[] glyphs = new PdfString[n];
+            String[] texts = new String[n];
+            int[] codes = new int[n];
+            float[] offsets = new float[n];
+            float[] advances = new float[n];
+            int count = 0;
+            float totalWidth = 0;
+            for (int i = 0; i < n; i++) {
+                PdfString glyph = new PdfString(stringValue.substring(i, i + 1), string.getEncoding());
+                String decoded = decode(glyph);
+                if (decoded.length() == 0 && i < n - 1) {
+                    glyph = new PdfString(stringValue.substring(i, i + 2), string.getEncoding());
+                    decoded = decode(glyph);
+                    i++;
+                }
+                float width = (float)(gs.font.getWidth(getCharCode(decoded)) * fontMatrix[0]);
+                float wordSpacing = decoded.equals(" ") ? gs.wordSpacing : 0;
+                byte[] bytes = glyph.getBytes();
+                int code = 0;
+                for (byte b : bytes)
+                    code = (code << 8) | (b & 0xff);
+                glyphs[count] = glyph;
+                texts[count] = decoded;
+                codes[count] = code;
+                offsets[count] = totalWidth;
+                advances[count] = (width * gs.fontSize + gs.characterSpacing + wordSpacing) * gs.horizontalScaling;
+                totalWidth += advances[count];
+                count++;
+            }
+            glyphRun = new GlyphRun(this, count, glyphs, texts, codes, offsets, advances, totalWidth);
+        }
+        return glyphRun;
+    }
+
     /**
      * Gets the baseline for the text (i.e. the line that the text 'sits' on)
      * This value includes the Rise of the draw operation - see {@link #getRise()} for the amount added by Rise
@@ -355,60 +416,19 @@ public class TextRenderInfo {
         return totalWidth;
     }
 
-    /**
-     * Gets the width of a PDF string in text space units
-     * @param string        the string that needs measuring
-     * @return  the width of a String in text space units
-     */
-    private float getPdfStringWidth(PdfString string, boolean singleCharString){
-        if (singleCharString) {
-            float[] widthAndWordSpacing = getWidthAndWordSpacing(string, singleCharString);
-            return (widthAndWordSpacing[0] * gs.fontSize + gs.characterSpacing + widthAndWordSpacing[1]) * gs.horizontalScaling;
-        } else {
-            float totalWidth = 0;
-            for (PdfString str : splitString(string)) {
-                totalWidth += getPdfStringWidth(str, true);
-            }
-            return totalWidth;
-        }
-    }
-
     /**
      * Provides detail useful if a listener needs access to the position of each individual glyph in the text render operation
      * @return  A list of {@link TextRenderInfo} objects that represent each glyph used in the draw operation. The next effect is if there was a separate Tj opertion for each character in the rendered string
      * @since   5.3.3
      */
     public List<TextRenderInfo> getCharacterRenderInfos(){
-        List<TextRenderInfo> rslt = new ArrayList<TextRenderInfo>(string.length());
-        PdfString[] strings = splitString(string);
-        float totalWidth = 0;
-        for (int i = 0; i < strings.length; i++) {
-            float[] widthAndWordSpacing = getWidthAndWordSpacing(strings[i], true);
-            TextRenderInfo subInfo = new TextRenderInfo(this, strings[i], totalWidth);
-            rslt.add(subInfo);
-            totalWidth += (widthAndWordSpacing[0] * gs.fontSize + gs.characterSpacing + widthAndWordSpacing[1]) * gs.horizontalScaling;
-        }
-        for (TextRenderInfo tri : rslt)
-            tri.getUnscaledWidth();
+        GlyphRun run = getGlyphRun();
+        List<TextRenderInfo> rslt = new ArrayList<TextRenderInfo>(run.size());
+        for (int i = 0; i < run.size(); i++)
+            rslt.add(run.getGlyphRenderInfo(i));
         return rslt;
     }
 
-    /**
-     * Calculates width and word spacing of a single character PDF string.
-     * @param string            a character to calculate width.
-     * @param singleCharString  true if PDF string represents single character, false otherwise.
-     * @return                  array of 2 items: first item is a character width, second item is a calculated word spacing.
-     */
-    private float[] getWidthAndWordSpacing(PdfString string, boolean singleCharString) {
-        if (singleCharString == false)
-            throw new UnsupportedOperationException();
-        float[] result = new float[2];
-        String decoded = decode(string);
-        result[0] = (float)((gs.font.getWidth(getCharCode(decoded)) * fontMatrix[0]));
-        result[1] = decoded.equals(" ") ? gs.wordSpacing : 0;
-        return result;
-    }
-
     /**
      * Decodes a PdfString (which will contain glyph ids encoded in the font's encoding)
      * based on the active font, and determine the unicode equivalent
@@ -443,24 +463,4 @@ public class TextRenderInfo {
         return 0;
     }
 
-    /**
-     * Split PDF string into array of single character PDF strings.
-     * @param string    PDF string to be splitted.
-     * @return          splitted PDF string.
-     */
-    private PdfString[] splitString(PdfString string) {
-        List<PdfString> strings = new ArrayList<PdfString>();
-        String stringValue = string.toString();
-        for (int i = 0; i < stringValue.length(); i++) {
-            PdfString newString = new PdfString(stringValue.substring(i, i + 1), string.getEncoding());
-            String text = decode(newString);
-            if (text.length() == 0 && i < stringValue.length() - 1) {
-                newString = new PdfString(stringValue.substring(i, i + 2), string.getEncoding());
-                i++;
-            }
-            strings.add(newString);
-        }
-        return strings.toArray(new PdfString[strings.size()]);
-    }
-
 }
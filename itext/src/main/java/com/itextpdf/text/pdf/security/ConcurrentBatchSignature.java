@@ -0,0 +1,133 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.security;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Turns an {@link ExternalSignature} into an {@link ExternalBatchSignature} by
+ * signing the messages with concurrent calls, so that the latency of a signing
+ * service is paid about once per <CODE>threads</CODE> messages instead of once per message.
+ */
+public class ConcurrentBatchSignature implements ExternalBatchSignature {
+
+    /** The signature used for every message. */
+    private final ExternalSignature externalSignature;
+    /** The number of calls in flight. */
+    private final int threads;
+
+    /**
+     * Creates an ExternalBatchSignature instance.
+     * @param externalSignature	the signature used for every message; it must allow concurrent calls
+     * @param threads	the maximum number of concurrent calls
+     */
+    public ConcurrentBatchSignature(ExternalSignature externalSignature, int threads) {
+        this.externalSignature = externalSignature;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Returns the hash algorithm.
+     * @return	the hash algorithm (e.g. "SHA-1", "SHA-256,...")
+     * @see com.itextpdf.text.pdf.security.ExternalBatchSignature#getHashAlgorithm()
+     */
+    public String getHashAlgorithm() {
+        return externalSignature.getHashAlgorithm();
+    }
+
+    /**
+     * Returns the encryption algorithm used for signing.
+     * @return the encryption algorithm ("RSA" or "DSA")
+     * @see com.itextpdf.text.pdf.security.ExternalBatchSignature#getEncryptionAlgorithm()
+     */
+    public String getEncryptionAlgorithm() {
+        return externalSignature.getEncryptionAlgorithm();
+    }
+
+    /**
+     * Signs the messages with concurrent calls to the wrapped signature.
+     * @param messages	the messages you want to be hashed and signed
+     * @return	the signed message digests, in the same order as the messages
+     * @throws GeneralSecurityException
+     */
+    public byte[][] sign(byte[][] messages) throws GeneralSecurityException {
+        byte[][] signed = new byte[messages.length][];
+        if (messages.length == 0)
+            return signed;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, messages.length));
+        try {
+            List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(messages.length);
+            for (final byte[] message : messages) {
+                futures.add(executor.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        return externalSignature.sign(message);
+                    }
+                }));
+            }
+            for (int k = 0; k < messages.length; ++k)
+                signed[k] = futures.get(k).get();
+            return signed;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeneralSecurityException(e.getMessage());
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GeneralSecurityException) throw (GeneralSecurityException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            throw new GeneralSecurityException(cause);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
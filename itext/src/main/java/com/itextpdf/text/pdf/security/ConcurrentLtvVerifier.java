@@ -0,0 +1,417 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.io.WindowRandomAccessSource;
+import com.itextpdf.text.log.Level;
+import com.itextpdf.text.log.Logger;
+import com.itextpdf.text.log.LoggerFactory;
+import com.itextpdf.text.pdf.AcroFields;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import com.itextpdf.text.pdf.security.LtvVerification.CertificateOption;
+
+/**
+ * Verifies all the signatures of a document, the way {@link LtvVerifier}
+ * does, but without walking the revisions one by one. The revision
+ * boundaries and the validation data of every revision are read once,
+ * up front; the signatures are then checked independently of each other
+ * on a pool of threads. Certificates that were verified for one signature
+ * aren't verified again for the next. The result is a report per signature
+ * instead of an exception at the first failure.
+ */
+public class ConcurrentLtvVerifier extends RootStoreVerifier {
+	/** The Logger instance */
+	protected final static Logger LOGGER = LoggerFactory.getLogger(ConcurrentLtvVerifier.class);
+
+	/** Option to specify level of verification; signing certificate only or the entire chain. */
+	protected CertificateOption option = CertificateOption.SIGNING_CERTIFICATE;
+	/** Verify root. */
+	protected boolean verifyRootCertificate = true;
+	/** The number of signatures that are verified at the same time. */
+	protected int threads = 1;
+
+	/** A reader object for the document. */
+	protected PdfReader reader;
+	/** The fields in the document. */
+	protected AcroFields fields;
+
+	/** Pairs of certificates of which the signature was verified already. */
+	private final ConcurrentHashMap<CertificatePair, Boolean> verifiedCertificates = new ConcurrentHashMap<CertificatePair, Boolean>();
+
+	/**
+	 * Creates a ConcurrentLtvVerifier.
+	 * @param reader	a reader for the document we want to verify.
+	 */
+	public ConcurrentLtvVerifier(PdfReader reader) {
+		super(null);
+		this.reader = reader;
+		this.fields = reader.getAcroFields();
+	}
+
+	/**
+	 * Sets an extra verifier.
+	 * It's called from all the workers, so it has to be thread-safe.
+	 * @param verifier the verifier to set
+	 */
+	public void setVerifier(CertificateVerifier verifier) {
+		this.verifier = verifier;
+	}
+
+	/**
+	 * Sets the certificate option.
+	 * @param	option	Either CertificateOption.SIGNING_CERTIFICATE (default) or CertificateOption.WHOLE_CHAIN
+	 */
+	public void setCertificateOption(CertificateOption option) {
+		this.option = option;
+	}
+
+	/**
+	 * Set the verifyRootCertificate to false if you can't verify the root certificate.
+	 */
+	public void setVerifyRootCertificate(boolean verifyRootCertificate) {
+		this.verifyRootCertificate = verifyRootCertificate;
+	}
+
+	/**
+	 * Sets the number of signatures that are verified at the same time.
+	 * Mostly worth it when the certificates are checked online.
+	 * @param threads	the number of worker threads, 1 by default
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Verifies all the signatures in the document, starting with the latest one.
+	 * A signature that can't be read or verified doesn't stop the others:
+	 * the exception is stored in its report.
+	 * @return a report for every signature, latest first
+	 * @throws IOException
+	 * @throws GeneralSecurityException if the latest signature doesn't cover the whole document
+	 */
+	public List<SignatureVerificationReport> verify() throws IOException, GeneralSecurityException {
+		List<String> names = fields.getSignatureNames();
+		List<SignatureTask> tasks = new ArrayList<SignatureTask>();
+		if (names.isEmpty())
+			return new ArrayList<SignatureVerificationReport>();
+		if (!fields.signatureCoversWholeDocument(names.get(names.size() - 1)))
+			throw new VerificationException(null, "Signature doesn't cover whole document.");
+		// the certificates of a signature are checked on the date of the next signature,
+		// against the validation data that was added in the revision of that next signature;
+		// the latest signature is checked on the current date, against the DSS of the document
+		Date signDate = new Date();
+		for (int k = names.size() - 1; k >= 0; --k) {
+			String name = names.get(k);
+			SignatureTask task = new SignatureTask(new SignatureVerificationReport(name, fields.getRevision(name)));
+			task.latestRevision = k == names.size() - 1;
+			task.report.verificationDate = signDate;
+			try {
+				long start = System.nanoTime();
+				// the latest signature covers the whole document, so it gets the DSS of the document
+				readDss(names.get(task.latestRevision ? k : k + 1), task);
+				task.report.setTime(SignatureVerificationReport.Step.REVISION, start);
+				start = System.nanoTime();
+				task.pkcs7 = fields.verifySignature(name);
+				task.report.setTime(SignatureVerificationReport.Step.PKCS7, start);
+				task.report.timestamp = task.pkcs7.isTsp();
+				Calendar cal = task.pkcs7.getTimeStampDate();
+				if (cal == null)
+					cal = task.pkcs7.getSignDate();
+				signDate = cal.getTime();
+			}
+			catch (Exception e) {
+				// a damaged signature doesn't stop the verification of the others;
+				// the signature before it is checked on the last date that could be read
+				task.report.error = e;
+			}
+			tasks.add(task);
+		}
+		List<SignatureVerificationReport> reports = new ArrayList<SignatureVerificationReport>();
+		if (threads <= 1 || tasks.size() == 1) {
+			for (SignatureTask task : tasks)
+				reports.add(task.call());
+			return reports;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+		try {
+			List<Future<SignatureVerificationReport>> futures = new ArrayList<Future<SignatureVerificationReport>>();
+			for (SignatureTask task : tasks)
+				futures.add(executor.submit(task));
+			for (Future<SignatureVerificationReport> future : futures)
+				reports.add(future.get());
+			return reports;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if (cause instanceof Error)
+				throw (Error)cause;
+			throw new ExceptionConverter((Exception)cause);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads the CRLs and OCSP responses in the DSS of the revision
+	 * that ends with a signature. Only the catalog and the DSS are read.
+	 * @param name	the signature that ends the revision
+	 * @param task	the task that receives the validation data
+	 */
+	private void readDss(String name, SignatureTask task) throws IOException, GeneralSecurityException {
+		PdfArray range = fields.getSignatureDictionary(name).getAsArray(PdfName.BYTERANGE);
+		long length = range.getAsNumber(range.size() - 1).longValue() + range.getAsNumber(range.size() - 2).longValue();
+		PdfReader revision = reader;
+		if (length != reader.getFileLength())
+			revision = new PdfReader(new RandomAccessFileOrArray(
+					new WindowRandomAccessSource(reader.getSafeFile().createSourceView(), 0, length)), null);
+		try {
+			PdfDictionary dss = revision.getCatalog().getAsDict(PdfName.DSS);
+			if (dss == null)
+				return;
+			PdfArray crlarray = dss.getAsArray(PdfName.CRLS);
+			if (crlarray != null) {
+				CertificateFactory cf = CertificateFactory.getInstance("X.509");
+				for (int i = 0; i < crlarray.size(); i++) {
+					PRStream stream = (PRStream) crlarray.getAsStream(i);
+					task.crls.add((X509CRL)cf.generateCRL(new ByteArrayInputStream(PdfReader.getStreamBytes(stream))));
+				}
+			}
+			PdfArray ocsparray = dss.getAsArray(PdfName.OCSPS);
+			if (ocsparray != null) {
+				for (int i = 0; i < ocsparray.size(); i++) {
+					PRStream stream = (PRStream) ocsparray.getAsStream(i);
+					OCSPResp ocspResponse = new OCSPResp(PdfReader.getStreamBytes(stream));
+					if (ocspResponse.getStatus() == 0)
+						try {
+							task.ocsps.add((BasicOCSPResp) ocspResponse.getResponseObject());
+						} catch (OCSPException e) {
+							throw new GeneralSecurityException(e);
+						}
+				}
+			}
+		}
+		finally {
+			if (revision != reader)
+				revision.close();
+		}
+	}
+
+	/**
+	 * Checks the validity of the certificates in a chain on a specific date,
+	 * and whether every certificate was issued by the next one.
+	 * @param chain		the certificate chain
+	 * @param signDate	the date the certificates need to be valid
+	 * @throws GeneralSecurityException
+	 */
+	protected void verifyChain(Certificate[] chain, Date signDate) throws GeneralSecurityException {
+		for (int i = 0; i < chain.length; i++) {
+			X509Certificate cert = (X509Certificate) chain[i];
+			cert.checkValidity(signDate);
+			if (i > 0) {
+				CertificatePair pair = new CertificatePair(chain[i - 1], chain[i]);
+				if (!verifiedCertificates.containsKey(pair)) {
+					chain[i - 1].verify(chain[i].getPublicKey());
+					verifiedCertificates.put(pair, Boolean.TRUE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Verifies certificates against the root store and the validation data of a revision.
+	 * @param signCert		the certificate that needs to be checked
+	 * @param issuerCert	its issuer
+	 * @param signDate		the date the certificate needs to be valid
+	 * @param task			the signature that is checked
+	 * @return a list of <code>VerificationOK</code> objects
+	 */
+	protected List<VerificationOK> verify(X509Certificate signCert, X509Certificate issuerCert, Date signDate, SignatureTask task) throws GeneralSecurityException, IOException {
+		RootStoreVerifier rootStoreVerifier = new RootStoreVerifier(verifier);
+		rootStoreVerifier.setRootStore(rootStore);
+		CRLVerifier crlVerifier = new CRLVerifier(rootStoreVerifier, task.crls);
+		crlVerifier.setRootStore(rootStore);
+		crlVerifier.setOnlineCheckingAllowed(task.latestRevision || onlineCheckingAllowed);
+		OCSPVerifier ocspVerifier = new OCSPVerifier(crlVerifier, task.ocsps);
+		ocspVerifier.setRootStore(rootStore);
+		ocspVerifier.setOnlineCheckingAllowed(task.latestRevision || onlineCheckingAllowed);
+		return ocspVerifier.verify(signCert, issuerCert, signDate);
+	}
+
+	/**
+	 * The verification of a single signature. Everything it needs
+	 * from the document is read before it's handed to a worker.
+	 */
+	protected class SignatureTask implements Callable<SignatureVerificationReport> {
+		/** The report that is filled in. */
+		protected final SignatureVerificationReport report;
+		/** The signature, with the signed bytes digested already. */
+		protected PdfPKCS7 pkcs7;
+		/** True for the latest signature. */
+		protected boolean latestRevision;
+		/** The CRLs of the revision that holds the validation data. */
+		protected final List<X509CRL> crls = new ArrayList<X509CRL>();
+		/** The OCSP responses of the revision that holds the validation data. */
+		protected final List<BasicOCSPResp> ocsps = new ArrayList<BasicOCSPResp>();
+
+		SignatureTask(SignatureVerificationReport report) {
+			this.report = report;
+		}
+
+		public SignatureVerificationReport call() {
+			if (report.error == null) {
+				try {
+					verifySignature();
+				}
+				catch (Exception e) {
+					report.error = e;
+				}
+			}
+			if (LOGGER.isLogging(Level.INFO))
+				LOGGER.info(report.toString());
+			return report;
+		}
+
+		private void verifySignature() throws GeneralSecurityException, IOException {
+			long start = System.nanoTime();
+			boolean intact = pkcs7.verify();
+			report.setTime(SignatureVerificationReport.Step.INTEGRITY, start);
+			if (!intact)
+				throw new VerificationException(null, "The document was altered after the signature was applied.");
+			Certificate[] chain = pkcs7.getSignCertificateChain();
+			Date signDate = report.verificationDate;
+			start = System.nanoTime();
+			verifyChain(chain, signDate);
+			report.setTime(SignatureVerificationReport.Step.CHAIN, start);
+			start = System.nanoTime();
+			try {
+				int total = 1;
+				if (CertificateOption.WHOLE_CHAIN.equals(option))
+					total = chain.length;
+				for (int i = 0; i < total; ) {
+					X509Certificate signCert = (X509Certificate) chain[i++];
+					X509Certificate issuerCert = null;
+					if (i < chain.length)
+						issuerCert = (X509Certificate) chain[i];
+					List<VerificationOK> list = verify(signCert, issuerCert, signDate, this);
+					if (list.size() == 0) {
+						try {
+							signCert.verify(signCert.getPublicKey());
+							if (latestRevision && chain.length > 1)
+								list.add(new VerificationOK(signCert, ConcurrentLtvVerifier.class, "Root certificate in final revision"));
+							if (list.size() == 0 && verifyRootCertificate)
+								throw new GeneralSecurityException();
+							else if (chain.length > 1)
+								list.add(new VerificationOK(signCert, ConcurrentLtvVerifier.class, "Root certificate passed without checking"));
+						}
+						catch (GeneralSecurityException e) {
+							throw new VerificationException(signCert, "Couldn't verify with CRL or OCSP or trusted anchor");
+						}
+					}
+					report.verifications.addAll(list);
+				}
+			}
+			finally {
+				report.setTime(SignatureVerificationReport.Step.REVOCATION, start);
+			}
+		}
+	}
+
+	/** A certificate and the certificate that issued it. */
+	private static final class CertificatePair {
+		private final Certificate cert;
+		private final Certificate issuer;
+
+		CertificatePair(Certificate cert, Certificate issuer) {
+			this.cert = cert;
+			this.issuer = issuer;
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CertificatePair))
+				return false;
+			CertificatePair other = (CertificatePair)obj;
+			return cert.equals(other.cert) && issuer.equals(other.issuer);
+		}
+
+		public int hashCode() {
+			return cert.hashCode() * 31 + issuer.hashCode();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.security;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Date;
+
+import com.itextpdf.text.log.Logger;
+import com.itextpdf.text.log.LoggerFactory;
+
+/**
+ * A CrlClient that caches the CRLs of another CrlClient until their next update,
+ * so that adding validation data for many certificates of the same issuer downloads
+ * each CRL once. CRLs are cached by URL: the given one, or the distribution point of
+ * the certificate. When neither is known they are cached by issuer.
+ * The cache is thread-safe; concurrent requests for the same CRL share a single download.
+ */
+public class CrlClientCached implements CrlClient {
+
+	/** The Logger instance. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrlClientCached.class);
+
+    /** The client fetching the CRLs that aren't cached. */
+    private final CrlClient crlClient;
+    /** The cached CRLs. */
+    private final ValidationCache<Collection<byte[]>> cache;
+
+    /**
+     * Creates a cache that keeps CRLs until their next update.
+     * @param crlClient the client fetching the CRLs
+     */
+    public CrlClientCached(CrlClient crlClient) {
+        this(crlClient, 0);
+    }
+
+    /**
+     * Creates a cache that keeps CRLs until their next update.
+     * @param crlClient the client fetching the CRLs
+     * @param defaultLifetime how long CRLs without next update are kept, in milliseconds
+     */
+    public CrlClientCached(CrlClient crlClient, long defaultLifetime) {
+        this.crlClient = crlClient;
+        cache = new ValidationCache<Collection<byte[]>>(defaultLifetime);
+    }
+
+    /**
+     * Gets the CRLs from the cache, or from the wrapped client if they are missing or expired.
+     * @see com.itextpdf.text.pdf.security.CrlClient#getEncoded(java.security.cert.X509Certificate, java.lang.String)
+     */
+    public Collection<byte[]> getEncoded(final X509Certificate checkCert, final String url) {
+        if (checkCert == null)
+            return null;
+        String key = url;
+        if (key == null) {
+            try {
+                key = CertificateUtil.getCRLURL(checkCert);
+            }
+            catch (Exception e) {
+                LOGGER.info("Skipped CRL url: " + e.getMessage());
+            }
+        }
+        if (key == null)
+            key = "issuer:" + checkCert.getIssuerX500Principal().getName();
+        return cache.get(key, new ValidationCache.Fetcher<Collection<byte[]>>() {
+            public Collection<byte[]> fetch() {
+                return crlClient.getEncoded(checkCert, url);
+            }
+
+            public Date getNextUpdate(Collection<byte[]> crls) {
+                if (crls.isEmpty())
+                    return null;
+                Date next = null;
+                try {
+                    CertificateFactory cf = CertificateFactory.getInstance("X.509");
+                    for (byte[] crl : crls) {
+                        Date d = ((X509CRL)cf.generateCRL(new ByteArrayInputStream(crl))).getNextUpdate();
+                        if (d == null)
+                            return null;
+                        if (next == null || d.before(next))
+                            next = d;
+                    }
+                }
+                catch (Exception e) {
+                    return null;
+                }
+                return next;
+            }
+        });
+    }
+
+    /**
+     * Removes all the cached CRLs.
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -56,6 +56,11 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1Enumerated;
@@ -98,6 +103,8 @@ public class LtvVerification {
     private AcroFields acroFields;
     private Map<PdfName,ValidationData> validated = new HashMap<PdfName,ValidationData>();
     private boolean used = false;
+    /** The number of certificates whose OCSP responses and CRLs are fetched concurrently. */
+    private int threads = 1;
     /**
      * What type of verification to include 
      */
@@ -179,40 +186,39 @@ public class LtvVerification {
         PdfPKCS7 pk = acroFields.verifySignature(signatureName);
         LOGGER.info("Adding verification for " + signatureName);
         Certificate[] xc = pk.getCertificates();
-        X509Certificate cert;
         X509Certificate signingCert = pk.getSigningCertificate();
-        ValidationData vd = new ValidationData();
+        List<X509Certificate> certs = new ArrayList<X509Certificate>();
         for (int k = 0; k < xc.length; ++k) {
-        	cert = (X509Certificate)xc[k];
-        	LOGGER.info("Certificate: " + cert.getSubjectDN());
+            X509Certificate cert = (X509Certificate)xc[k];
             if (certOption == CertificateOption.SIGNING_CERTIFICATE
             	&& !cert.equals(signingCert)) {
                 continue;
             }
-            byte[] ocspEnc = null;
-            if (ocsp != null && level != Level.CRL) {
-                ocspEnc = ocsp.getEncoded(cert, getParent(cert, xc), null);
-                if (ocspEnc != null) {
-                    vd.ocsps.add(buildOCSPResponse(ocspEnc));
-                    LOGGER.info("OCSP added");
-                }
+            certs.add(cert);
+        }
+        List<RevocationData> fetched = fetchRevocationData(certs, xc, ocsp, crl, level);
+        ValidationData vd = new ValidationData();
+        for (int k = 0; k < certs.size(); ++k) {
+            X509Certificate cert = certs.get(k);
+        	LOGGER.info("Certificate: " + cert.getSubjectDN());
+            RevocationData data = fetched.get(k);
+            if (data.ocspEnc != null) {
+                vd.ocsps.add(buildOCSPResponse(data.ocspEnc));
+                LOGGER.info("OCSP added");
             }
-            if (crl != null && (level == Level.CRL || level == Level.OCSP_CRL || (level == Level.OCSP_OPTIONAL_CRL && ocspEnc == null))) {
-                Collection<byte[]> cims = crl.getEncoded(cert, null);
-                if (cims != null) {
-                    for (byte[] cim : cims) {
-                        boolean dup = false;
-                        for (byte[] b : vd.crls) {
-                            if (Arrays.equals(b, cim)) {
-                                dup = true;
-                                break;
-                            }
-                        }
-                        if (!dup) {
-                            vd.crls.add(cim);
-                            LOGGER.info("CRL added");
+            if (data.crls != null) {
+                for (byte[] cim : data.crls) {
+                    boolean dup = false;
+                    for (byte[] b : vd.crls) {
+                        if (Arrays.equals(b, cim)) {
+                            dup = true;
+                            break;
                         }
                     }
+                    if (!dup) {
+                        vd.crls.add(cim);
+                        LOGGER.info("CRL added");
+                    }
                 }
             }
             if (certInclude == CertificateInclusion.YES) {
@@ -225,6 +231,77 @@ public class LtvVerification {
         return true;
     }
     
+    /**
+     * Sets the number of certificates whose OCSP responses and CRLs are fetched concurrently
+     * by {@link #addVerification(String, OcspClient, CrlClient, CertificateOption, Level, CertificateInclusion)}.
+     * The clients must then allow concurrent calls. Combine it with {@link CrlClientCached} and
+     * {@link OcspClientCached} to avoid fetching the same data for every signature.
+     * @param threads the number of concurrent fetches; 1 (the default) fetches sequentially
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * The OCSP response and CRLs fetched for a certificate.
+     */
+    private static class RevocationData {
+        byte[] ocspEnc;
+        Collection<byte[]> crls;
+    }
+
+    /**
+     * Fetches the OCSP response and the CRLs of every certificate, concurrently if allowed.
+     * @return the data of every certificate, in the same order
+     */
+    private List<RevocationData> fetchRevocationData(List<X509Certificate> certs, final Certificate[] xc, final OcspClient ocsp, final CrlClient crl, final Level level) throws IOException, GeneralSecurityException {
+        List<RevocationData> fetched = new ArrayList<RevocationData>(certs.size());
+        if (threads <= 1 || certs.size() <= 1) {
+            for (X509Certificate cert : certs)
+                fetched.add(fetchRevocationData(cert, xc, ocsp, crl, level));
+            return fetched;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, certs.size()));
+        try {
+            List<Future<RevocationData>> futures = new ArrayList<Future<RevocationData>>(certs.size());
+            for (final X509Certificate cert : certs) {
+                futures.add(executor.submit(new Callable<RevocationData>() {
+                    public RevocationData call() throws Exception {
+                        return fetchRevocationData(cert, xc, ocsp, crl, level);
+                    }
+                }));
+            }
+            for (Future<RevocationData> future : futures)
+                fetched.add(future.get());
+            return fetched;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e.getMessage());
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException)cause;
+            if (cause instanceof GeneralSecurityException) throw (GeneralSecurityException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            throw new GeneralSecurityException(cause);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RevocationData fetchRevocationData(X509Certificate cert, Certificate[] xc, OcspClient ocsp, CrlClient crl, Level level) {
+        RevocationData data = new RevocationData();
+        if (ocsp != null && level != Level.CRL) {
+            data.ocspEnc = ocsp.getEncoded(cert, getParent(cert, xc), null);
+        }
+        if (crl != null && (level == Level.CRL || level == Level.OCSP_CRL || (level == Level.OCSP_OPTIONAL_CRL && data.ocspEnc == null))) {
+            data.crls = crl.getEncoded(cert, null);
+        }
+        return data;
+    }
+
     /**
      * Returns the issuing certificate for a child certificate.
      * @param cert	the certificate for which we search the parent
@@ -150,10 +150,112 @@ public class MakeSignature {
      */
     public static void signDetached(PdfSignatureAppearance sap, ExternalDigest externalDigest, ExternalSignature externalSignature, Certificate[] chain, Collection<CrlClient> crlList, OcspClient ocspClient,
                                     TSAClient tsaClient, int estimatedSize, CryptoStandard sigtype, SignaturePolicyIdentifier signaturePolicy) throws IOException, DocumentException, GeneralSecurityException {
+        Collection<byte[]> crlBytes = processCrl(chain, crlList);
+        estimatedSize = estimateSize(estimatedSize, crlBytes, ocspClient, tsaClient);
+        preClose(sap, chain, estimatedSize, sigtype);
+
+        String hashAlgorithm = externalSignature.getHashAlgorithm();
+        PdfPKCS7 sgn = new PdfPKCS7(null, chain, hashAlgorithm, null, externalDigest, false);
+        if (signaturePolicy != null) {
+            sgn.setSignaturePolicy(signaturePolicy);
+        }
+        byte hash[] = getRangeDigest(sap, externalDigest, hashAlgorithm);
+        byte[] ocsp = null;
+        if (chain.length >= 2 && ocspClient != null) {
+            ocsp = ocspClient.getEncoded((X509Certificate) chain[0], (X509Certificate) chain[1], null);
+        }
+        byte[] sh = sgn.getAuthenticatedAttributeBytes(hash, ocsp, crlBytes, sigtype);
+        byte[] extSignature = externalSignature.sign(sh);
+        sgn.setExternalDigest(extSignature, null, externalSignature.getEncryptionAlgorithm());
+
+        byte[] encodedSig = sgn.getEncodedPKCS7(hash, tsaClient, ocsp, crlBytes, sigtype);
+        close(sap, encodedSig, estimatedSize);
+    }
+
+    /**
+     * Signs several documents using the detached mode, CMS or CAdES equivalent, with a single
+     * call to the external signature. Every document is pre-closed and its authenticated
+     * attributes are computed first; all of them are then signed at once and the signatures
+     * are written in the space reserved in each document.
+     * <p>
+     * The documents stay pre-closed until the batch is signed, so for large batches create the
+     * signature appearances with a temporary file or a <CODE>FileChannel</CODE> rather than in memory.
+     * The CRLs and the OCSP response are fetched once for the whole batch.
+     * If the batch fails, the documents that weren't signed yet are given up with
+     * {@link PdfSignatureAppearance#abort()}, which releases their files and streams.
+     * @param saps the PdfSignatureAppearance of every document
+     * @param externalDigest an implementation that provides the digest
+     * @param externalSignature the interface providing the actual signing of the whole batch
+     * @param chain the certificate chain
+     * @param crlList the CRL list
+     * @param ocspClient the OCSP client
+     * @param tsaClient the Timestamp client
+     * @param estimatedSize the reserved size for the signature. It will be estimated if 0
+     * @param sigtype Either Signature.CMS or Signature.CADES
+     * @throws DocumentException
+     * @throws IOException
+     * @throws GeneralSecurityException
+     * @see ConcurrentBatchSignature
+     */
+    public static void signDetached(List<PdfSignatureAppearance> saps, ExternalDigest externalDigest, ExternalBatchSignature externalSignature, Certificate[] chain, Collection<CrlClient> crlList, OcspClient ocspClient,
+                                    TSAClient tsaClient, int estimatedSize, CryptoStandard sigtype) throws IOException, DocumentException, GeneralSecurityException {
+        Collection<byte[]> crlBytes = processCrl(chain, crlList);
+        estimatedSize = estimateSize(estimatedSize, crlBytes, ocspClient, tsaClient);
+        byte[] ocsp = null;
+        if (chain.length >= 2 && ocspClient != null) {
+            ocsp = ocspClient.getEncoded((X509Certificate) chain[0], (X509Certificate) chain[1], null);
+        }
+        String hashAlgorithm = externalSignature.getHashAlgorithm();
+        int n = saps.size();
+        PdfPKCS7 sgn[] = new PdfPKCS7[n];
+        byte hash[][] = new byte[n][];
+        byte sh[][] = new byte[n][];
+        // the appearances that weren't closed are aborted if the batch fails
+        int closed = 0;
+        try {
+            for (int k = 0; k < n; ++k) {
+                PdfSignatureAppearance sap = saps.get(k);
+                preClose(sap, chain, estimatedSize, sigtype);
+                sgn[k] = new PdfPKCS7(null, chain, hashAlgorithm, null, externalDigest, false);
+                hash[k] = getRangeDigest(sap, externalDigest, hashAlgorithm);
+                sh[k] = sgn[k].getAuthenticatedAttributeBytes(hash[k], ocsp, crlBytes, sigtype);
+            }
+            LOGGER.info("Signing " + n + " documents in one batch");
+            byte[][] extSignatures = externalSignature.sign(sh);
+            if (extSignatures == null || extSignatures.length != n)
+                throw new GeneralSecurityException("The batch signature returned " + (extSignatures == null ? 0 : extSignatures.length) + " signatures for " + n + " documents");
+            byte[][] encodedSigs = new byte[n][];
+            for (int k = 0; k < n; ++k) {
+                sgn[k].setExternalDigest(extSignatures[k], null, externalSignature.getEncryptionAlgorithm());
+                encodedSigs[k] = sgn[k].getEncodedPKCS7(hash[k], tsaClient, ocsp, crlBytes, sigtype);
+            }
+            for (int k = 0; k < n; ++k) {
+                // close() releases the appearance even when it fails
+                closed = k + 1;
+                close(saps.get(k), encodedSigs[k], estimatedSize);
+            }
+        }
+        finally {
+            for (int k = closed; k < n; ++k)
+                saps.get(k).abort();
+        }
+    }
+
+    /**
+     * Gets the CRL bytes of the first certificate in the chain that has some.
+     */
+    private static Collection<byte[]> processCrl(Certificate[] chain, Collection<CrlClient> crlList) {
         Collection<byte[]> crlBytes = null;
         int i = 0;
         while (crlBytes == null && i < chain.length)
         	crlBytes = processCrl(chain[i++], crlList);
+        return crlBytes;
+    }
+
+    /**
+     * Estimates the size of the signature if <CODE>estimatedSize</CODE> is 0.
+     */
+    private static int estimateSize(int estimatedSize, Collection<byte[]> crlBytes, OcspClient ocspClient, TSAClient tsaClient) {
     	if (estimatedSize == 0) {
             estimatedSize = 8192;
             if (crlBytes != null) {
@@ -166,6 +268,13 @@ public class MakeSignature {
             if (tsaClient != null)
                 estimatedSize += 4192;
         }
+        return estimatedSize;
+    }
+
+    /**
+     * Sets the signature dictionary and reserves the space for the signature.
+     */
+    private static void preClose(PdfSignatureAppearance sap, Certificate[] chain, int estimatedSize, CryptoStandard sigtype) throws IOException, DocumentException {
         sap.setCertificate(chain[0]);
         if (sigtype == CryptoStandard.CADES) {
         	sap.addDeveloperExtension(PdfDeveloperExtension.ESIC_1_7_EXTENSIONLEVEL2);
@@ -181,24 +290,24 @@ public class MakeSignature {
         HashMap<PdfName, Integer> exc = new HashMap<PdfName, Integer>();
         exc.put(PdfName.CONTENTS, new Integer(estimatedSize * 2 + 2));
         sap.preClose(exc);
+    }
 
-        String hashAlgorithm = externalSignature.getHashAlgorithm();
-        PdfPKCS7 sgn = new PdfPKCS7(null, chain, hashAlgorithm, null, externalDigest, false);
-        if (signaturePolicy != null) {
-            sgn.setSignaturePolicy(signaturePolicy);
-        }
-        InputStream data = sap.getRangeStream();
-        byte hash[] = DigestAlgorithms.digest(data, externalDigest.getMessageDigest(hashAlgorithm));
-        byte[] ocsp = null;
-        if (chain.length >= 2 && ocspClient != null) {
-            ocsp = ocspClient.getEncoded((X509Certificate) chain[0], (X509Certificate) chain[1], null);
+    /**
+     * Gets the digest of the byte range, computed while writing if possible.
+     */
+    private static byte[] getRangeDigest(PdfSignatureAppearance sap, ExternalDigest externalDigest, String hashAlgorithm) throws IOException, GeneralSecurityException {
+        byte hash[] = sap.getRangeDigest(hashAlgorithm);
+        if (hash == null) {
+            InputStream data = sap.getRangeStream();
+            hash = DigestAlgorithms.digest(data, externalDigest.getMessageDigest(hashAlgorithm));
         }
-        byte[] sh = sgn.getAuthenticatedAttributeBytes(hash, ocsp, crlBytes, sigtype);
-        byte[] extSignature = externalSignature.sign(sh);
-        sgn.setExternalDigest(extSignature, null, externalSignature.getEncryptionAlgorithm());
-
-        byte[] encodedSig = sgn.getEncodedPKCS7(hash, tsaClient, ocsp, crlBytes, sigtype);
+        return hash;
+    }
 
+    /**
+     * Writes the signature in the space reserved by preClose.
+     */
+    private static void close(PdfSignatureAppearance sap, byte[] encodedSig, int estimatedSize) throws IOException, DocumentException {
         if (estimatedSize < encodedSig.length)
             throw new IOException("Not enough space");
 
@@ -0,0 +1,124 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.security;
+
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ocsp.BasicOCSPResponse;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+
+/**
+ * An OcspClient that caches the responses of another OcspClient until their next update,
+ * by issuer and serial number of the certificate checked and by responder URL.
+ * Responses without next update are only kept for the default lifetime, if any.
+ * The cache is thread-safe; concurrent requests for the same certificate share a single request.
+ */
+public class OcspClientCached implements OcspClient {
+
+    /** The client requesting the responses that aren't cached. */
+    private final OcspClient ocspClient;
+    /** The cached responses. */
+    private final ValidationCache<byte[]> cache;
+
+    /**
+     * Creates a cache that keeps OCSP responses until their next update.
+     * @param ocspClient the client requesting the responses
+     */
+    public OcspClientCached(OcspClient ocspClient) {
+        this(ocspClient, 0);
+    }
+
+    /**
+     * Creates a cache that keeps OCSP responses until their next update.
+     * @param ocspClient the client requesting the responses
+     * @param defaultLifetime how long responses without next update are kept, in milliseconds
+     */
+    public OcspClientCached(OcspClient ocspClient, long defaultLifetime) {
+        this.ocspClient = ocspClient;
+        cache = new ValidationCache<byte[]>(defaultLifetime);
+    }
+
+    /**
+     * Gets the response from the cache, or from the wrapped client if it is missing or expired.
+     * @see com.itextpdf.text.pdf.security.OcspClient#getEncoded(java.security.cert.X509Certificate, java.security.cert.X509Certificate, java.lang.String)
+     */
+    public byte[] getEncoded(final X509Certificate checkCert, final X509Certificate rootCert, final String url) {
+        if (checkCert == null)
+            return null;
+        String key = checkCert.getIssuerX500Principal().getName() + '/' + checkCert.getSerialNumber().toString(16) + '@' + url;
+        return cache.get(key, new ValidationCache.Fetcher<byte[]>() {
+            public byte[] fetch() {
+                return ocspClient.getEncoded(checkCert, rootCert, url);
+            }
+
+            public Date getNextUpdate(byte[] response) {
+                try {
+                    SingleResp[] responses = new BasicOCSPResp(BasicOCSPResponse.getInstance(ASN1Primitive.fromByteArray(response))).getResponses();
+                    Date next = null;
+                    for (SingleResp resp : responses) {
+                        Date d = resp.getNextUpdate();
+                        if (d == null)
+                            return null;
+                        if (next == null || d.before(next))
+                            next = d;
+                    }
+                    return next;
+                }
+                catch (Exception e) {
+                    return null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes all the cached responses.
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.security;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of verifying one signature of a document with
+ * {@link ConcurrentLtvVerifier}: the checks that succeeded, the
+ * reason the verification failed (if it did) and the time spent
+ * in every step.
+ */
+public class SignatureVerificationReport {
+
+	/** The steps that are timed for every signature. */
+	public enum Step {
+		/** Reading the DSS of the revision that holds the validation data. */
+		REVISION,
+		/** Parsing the PKCS#7 container and digesting the signed byte ranges. */
+		PKCS7,
+		/** Checking that the digest matches the signed attributes. */
+		INTEGRITY,
+		/** Checking the validity and the issuer of every certificate in the chain. */
+		CHAIN,
+		/** Checking the certificates against OCSP responses, CRLs and the root store. */
+		REVOCATION
+	}
+
+	/** The name of the signature field. */
+	protected String signatureName;
+	/** The revision that was signed. */
+	protected int revision;
+	/** Whether the signature is a document-level timestamp. */
+	protected boolean timestamp;
+	/** The date on which the certificates had to be valid. */
+	protected Date verificationDate;
+	/** The checks that succeeded. */
+	protected List<VerificationOK> verifications = new ArrayList<VerificationOK>();
+	/** The reason the verification failed, or <code>null</code>. */
+	protected Exception error;
+	/** The time spent in every step, in nanoseconds. */
+	protected Map<Step, Long> times = new EnumMap<Step, Long>(Step.class);
+
+	/**
+	 * Creates an empty report.
+	 * @param signatureName	the name of the signature field
+	 * @param revision		the revision that was signed
+	 */
+	public SignatureVerificationReport(String signatureName, int revision) {
+		this.signatureName = signatureName;
+		this.revision = revision;
+	}
+
+	/**
+	 * Gets the name of the signature field.
+	 * @return the signature field name
+	 */
+	public String getSignatureName() {
+		return signatureName;
+	}
+
+	/**
+	 * Gets the revision that was signed.
+	 * @return the revision number, starting at 1
+	 */
+	public int getRevision() {
+		return revision;
+	}
+
+	/**
+	 * Checks if the signature is a document-level timestamp.
+	 * @return true for a document-level timestamp
+	 */
+	public boolean isTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Gets the date on which the certificates had to be valid: the
+	 * current date for the latest signature, otherwise the date of
+	 * the signature that follows it.
+	 * @return the verification date
+	 */
+	public Date getVerificationDate() {
+		return verificationDate;
+	}
+
+	/**
+	 * Gets the checks that succeeded.
+	 * @return a list of <code>VerificationOK</code> objects
+	 */
+	public List<VerificationOK> getVerifications() {
+		return verifications;
+	}
+
+	/**
+	 * Gets the reason the verification failed.
+	 * @return the exception that stopped the verification or <code>null</code>
+	 */
+	public Exception getError() {
+		return error;
+	}
+
+	/**
+	 * Checks if every step of the verification succeeded.
+	 * @return true if the signature was verified
+	 */
+	public boolean isValid() {
+		return error == null;
+	}
+
+	/**
+	 * Gets the time spent in a step.
+	 * @param step	the step
+	 * @return the time in nanoseconds, 0 if the step wasn't reached
+	 */
+	public long getTime(Step step) {
+		Long time = times.get(step);
+		return time == null ? 0 : time.longValue();
+	}
+
+	void setTime(Step step, long start) {
+		times.put(step, Long.valueOf(System.nanoTime() - start));
+	}
+
+	/**
+	 * A summary of the report.
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(signatureName).append(" (revision ").append(revision).append("): ");
+		sb.append(error == null ? "valid" : error.getMessage());
+		for (Map.Entry<Step, Long> entry : times.entrySet())
+			sb.append(String.format(" %s=%.3fms", entry.getKey(), entry.getValue().longValue() / 1e6));
+		return sb.toString();
+	}
+}
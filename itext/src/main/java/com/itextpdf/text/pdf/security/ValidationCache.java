@@ -0,0 +1,157 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.security;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A thread-safe cache of validation data, such as CRLs or OCSP responses, that keeps
+ * every entry until its next update. Concurrent requests for the same key share a
+ * single fetch. Nothing is cached when the fetch returns <CODE>null</CODE>.
+ */
+class ValidationCache<T> {
+
+    /**
+     * Fetches a value that isn't in the cache.
+     */
+    interface Fetcher<T> {
+        /**
+         * @return the value, or <CODE>null</CODE> if it couldn't be fetched
+         */
+        T fetch();
+
+        /**
+         * @param value a fetched value
+         * @return the date after which the value must be fetched again, or <CODE>null</CODE> if unknown
+         */
+        Date getNextUpdate(T value);
+    }
+
+    private static final class Entry<T> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile T value;
+        private volatile long expires;
+
+        void set(T value, long expires) {
+            this.value = value;
+            this.expires = expires;
+            done.countDown();
+        }
+
+        T get() {
+            try {
+                done.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return value;
+        }
+
+        boolean isExpired(long now) {
+            return done.getCount() == 0 && expires <= now;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry<T>> entries = new ConcurrentHashMap<String, Entry<T>>();
+    /** How long a value without next update is kept, in milliseconds. */
+    private final long defaultLifetime;
+
+    /**
+     * @param defaultLifetime how long a value without next update is kept, in milliseconds; 0 not to keep it
+     */
+    ValidationCache(long defaultLifetime) {
+        this.defaultLifetime = defaultLifetime;
+    }
+
+    /**
+     * Gets a value from the cache, fetching it if it is missing or expired.
+     * @param key the key of the value
+     * @param fetcher fetches the value if needed
+     * @return the value, or <CODE>null</CODE> if it couldn't be fetched
+     */
+    T get(String key, Fetcher<T> fetcher) {
+        long now = System.currentTimeMillis();
+        Entry<T> entry = entries.get(key);
+        if (entry != null && entry.isExpired(now)) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            Entry<T> created = new Entry<T>();
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                T value = null;
+                long expires = now;
+                try {
+                    value = fetcher.fetch();
+                    if (value != null) {
+                        Date nextUpdate = fetcher.getNextUpdate(value);
+                        if (nextUpdate != null)
+                            expires = nextUpdate.getTime();
+                        else if (defaultLifetime > 0)
+                            expires = now + defaultLifetime;
+                    }
+                }
+                finally {
+                    created.set(value, expires);
+                    if (expires <= System.currentTimeMillis())
+                        entries.remove(key, created);
+                }
+                return value;
+            }
+        }
+        return entry.get();
+    }
+
+    /**
+     * Removes all the values.
+     */
+    void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package com.itextpdf.text.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfBoolean;
+import com.itextpdf.text.pdf.PdfDestination;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfIndirectReference;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNull;
+import com.itextpdf.text.pdf.PdfNumber;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfStream;
+import com.itextpdf.text.pdf.PdfString;
+import com.itextpdf.text.pdf.PdfWriter;
+
+public class TempFileCacheTest {
+	File f;
+	TempFileCache cache;
+	PdfWriter writer;
+
+	@Before
+	public void setUp() throws Exception {
+		f = File.createTempFile("tempfilecache", ".bin");
+		cache = new TempFileCache(f.getAbsolutePath());
+		Document document = new Document();
+		writer = PdfWriter.getInstance(document, new ByteArrayOutputStream());
+		document.open();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (cache != null)
+			cache.close();
+		Assert.assertFalse(f.exists());
+	}
+
+	private PdfDictionary createDictionary(int i) {
+		PdfDictionary dict = new PdfDictionary(PdfName.FONT);
+		dict.put(PdfName.BASEFONT, new PdfName("Font" + i));
+		dict.put(PdfName.FIRSTCHAR, new PdfNumber(-i));
+		dict.put(PdfName.CAPHEIGHT, new PdfNumber(i + 0.25f));
+		dict.put(PdfName.TITLE, new PdfString("title " + i + " €", PdfObject.TEXT_UNICODE));
+		dict.put(PdfName.ID, new PdfString(new byte[] {0, 1, (byte) i}).setHexWriting(true));
+		PdfArray array = new PdfArray();
+		array.add(PdfBoolean.PDFTRUE);
+		array.add(PdfNull.PDFNULL);
+		array.add(new PdfNumber(Long.MAX_VALUE));
+		dict.put(PdfName.WIDTHS, array);
+		PdfDictionary nested = new PdfDictionary();
+		nested.put(PdfName.FONTFILE2, writer.getPdfIndirectReference());
+		dict.put(PdfName.FONTDESCRIPTOR, nested);
+		return dict;
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		List<TempFileCache.ObjectPosition> positions = new ArrayList<TempFileCache.ObjectPosition>();
+		List<PdfDictionary> objects = new ArrayList<PdfDictionary>();
+		int firstNumber = writer.getPdfIndirectReference().getNumber() + 1;
+		for (int i = 0; i < 50000; i++) {
+			PdfDictionary dict = createDictionary(i);
+			objects.add(dict);
+			positions.add(cache.put(dict));
+		}
+		for (int i = objects.size() - 1; i >= 0; i -= 7) {
+			Assert.assertEquals(objects.get(i).toString(), cache.get(positions.get(i)).toString());
+			PdfDictionary read = (PdfDictionary) cache.get(positions.get(i));
+			Assert.assertTrue(read.isFont());
+			Assert.assertEquals(-i, read.getAsNumber(PdfName.FIRSTCHAR).intValue());
+			Assert.assertEquals(i + 0.25f, read.getAsNumber(PdfName.CAPHEIGHT).floatValue(), 0.0001f);
+			Assert.assertEquals("title " + i + " €", read.getAsString(PdfName.TITLE).toUnicodeString());
+			Assert.assertTrue(read.getAsString(PdfName.ID).isHexWriting());
+			PdfArray array = read.getAsArray(PdfName.WIDTHS);
+			Assert.assertEquals(Long.MAX_VALUE, (long) array.getAsNumber(2).doubleValue());
+			PdfIndirectReference ref = (PdfIndirectReference) read.getAsDict(PdfName.FONTDESCRIPTOR).get(PdfName.FONTFILE2);
+			Assert.assertEquals(PdfIndirectReference.class, ref.getClass());
+			Assert.assertEquals(firstNumber + i, ref.getNumber());
+			Assert.assertEquals(0, ref.getGeneration());
+		}
+	}
+
+	@Test
+	public void testStreamsAcrossSegments() throws Exception {
+		List<TempFileCache.ObjectPosition> positions = new ArrayList<TempFileCache.ObjectPosition>();
+		for (int i = 0; i < 12; i++) {
+			byte[] bytes = new byte[1024 * 1024 - i];
+			bytes[bytes.length - 1] = (byte) i;
+			PdfStream stream = new PdfStream(bytes);
+			stream.put(PdfName.SUBTYPE, PdfName.IMAGE);
+			positions.add(cache.put(stream));
+		}
+		for (int i = 0; i < positions.size(); i++) {
+			PdfStream stream = (PdfStream) cache.get(positions.get(i));
+			Assert.assertEquals(PdfName.IMAGE, stream.getAsName(PdfName.SUBTYPE));
+			Assert.assertEquals(1024 * 1024 - i, stream.getAsNumber(PdfName.LENGTH).intValue());
+			byte[] bytes = stream.getBytes();
+			Assert.assertEquals(1024 * 1024 - i, bytes.length);
+			Assert.assertEquals((byte) i, bytes[bytes.length - 1]);
+		}
+	}
+
+	@Test
+	public void testSubclassesKeepTheirClass() throws Exception {
+		PdfDestination dest = new PdfDestination(PdfDestination.XYZ, 10, 20, 1);
+		PdfObject read = cache.get(cache.put(dest));
+		Assert.assertEquals(PdfDestination.class, read.getClass());
+		Assert.assertEquals(dest.toString(), read.toString());
+		Assert.assertNull(cache.get(cache.put(null)));
+	}
+
+	@Test
+	public void testSelfReferencingDictionary() throws Exception {
+		PdfDictionary dict = new PdfDictionary();
+		dict.put(PdfName.PARENT, dict);
+		dict.put(PdfName.TYPE, PdfName.PAGES);
+		PdfDictionary read = (PdfDictionary) cache.get(cache.put(dict));
+		Assert.assertSame(read, read.getAsDict(PdfName.PARENT));
+		Assert.assertEquals(PdfName.PAGES, read.getAsName(PdfName.TYPE));
+	}
+
+	@Test
+	public void testStringWithoutEncoding() throws Exception {
+		PdfString string = new PdfString("value", null);
+		PdfString read = (PdfString) cache.get(cache.put(string));
+		Assert.assertNull(read.getEncoding());
+		Assert.assertEquals("value", read.toUnicodeString());
+		Assert.assertArrayEquals(string.getBytes(), read.getBytes());
+	}
+}
@@ -63,6 +63,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -636,6 +638,47 @@ public class PdfCopyTest {
 
     }
 
+    @Test
+    public void copyUnchangedStreamsTest() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        byte[] pixels = new byte[256 * 256 * 3];
+        new Random(42).nextBytes(pixels);
+        document.add(com.itextpdf.text.Image.getInstance(256, 256, 3, 8, pixels));
+        document.close();
+        PdfReader source = new PdfReader(baos.toByteArray());
+        PRStream image = (PRStream)getFirstXObject(source);
+        byte[] raw = PdfReader.getStreamBytesRaw(image);
+        Assert.assertTrue(raw.length > 64 * 1024);
+
+        for (int encrypted = 0; encrypted < 2; ++encrypted) {
+            document = new Document();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            PdfCopy copy = new PdfCopy(document, out);
+            if (encrypted == 1)
+                copy.setEncryption(null, "owner".getBytes(), 0, PdfWriter.STANDARD_ENCRYPTION_128);
+            document.open();
+            copy.addPage(copy.getImportedPage(source, 1));
+            document.close();
+
+            PdfReader target = new PdfReader(out.toByteArray(), "owner".getBytes());
+            PRStream copied = (PRStream)getFirstXObject(target);
+            Assert.assertEquals(raw.length, copied.getAsNumber(PdfName.LENGTH).intValue());
+            if (encrypted == 0)
+                Assert.assertTrue(Arrays.equals(raw, PdfReader.getStreamBytesRaw(copied)));
+            Assert.assertTrue(Arrays.equals(pixels, PdfReader.getStreamBytes(copied)));
+            target.close();
+        }
+        source.close();
+    }
+
+    private static PdfObject getFirstXObject(PdfReader reader) {
+        PdfDictionary xobjects = reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+        return PdfReader.getPdfObject(xobjects.get(xobjects.getKeys().iterator().next()));
+    }
+
     private static byte[] createImagePdf() throws Exception {
 
         final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
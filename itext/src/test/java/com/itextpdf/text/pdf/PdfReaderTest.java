@@ -48,7 +48,9 @@ import com.itextpdf.testutils.TestResourceUtils;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.ExceptionConverter;
 import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
 import com.itextpdf.text.exceptions.InvalidPdfException;
+import com.itextpdf.text.io.RandomAccessSource;
 import com.itextpdf.text.io.RandomAccessSourceFactory;
 import org.junit.*;
 
@@ -155,6 +157,205 @@ public class PdfReaderTest {
         assertTrue(String.format("There is 130 pages in document, but iText counted %d", pagesNum), pagesNum == 130);
     }
 
+    @Test
+    public void partialReadObjectStreamsTest() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        writer.setFullCompression();
+        document.open();
+        for (int i = 1; i <= 20; ++i) {
+            document.add(new Paragraph("Page " + i));
+            document.newPage();
+        }
+        document.close();
+        byte[] pdf = baos.toByteArray();
+
+        PdfReader full = new PdfReader(pdf);
+        for (int cacheSize : new int[] {0, 1, 16}) {
+            PdfReader partial = new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(pdf)), null, true);
+            partial.setObjStmCacheSize(cacheSize);
+            assertEquals(full.getXrefSize(), partial.getXrefSize());
+            // read backwards so consecutive objects alternate between object streams less predictably
+            for (int k = full.getXrefSize() - 1; k > 0; --k) {
+                PdfObject expected = full.getPdfObject(k);
+                PdfObject actual = partial.getPdfObjectRelease(k);
+                if (expected == null) {
+                    assertNull(actual);
+                    continue;
+                }
+                assertNotNull("Object " + k, actual);
+                assertEquals("Object " + k, expected.type(), actual.type());
+                if (expected.isDictionary())
+                    assertEquals("Object " + k, ((PdfDictionary)expected).getKeys(), ((PdfDictionary)actual).getKeys());
+                else if (expected.isArray())
+                    assertEquals("Object " + k, ((PdfArray)expected).size(), ((PdfArray)actual).size());
+                else
+                    assertEquals("Object " + k, expected.toString(), actual.toString());
+            }
+            assertEquals(20, partial.getNumberOfPages());
+            partial.close();
+        }
+        full.close();
+    }
+
+    @Test
+    public void rebuildXrefParallelTest() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        for (int i = 1; i <= 30; ++i) {
+            document.add(new Paragraph("Page " + i));
+            document.newPage();
+        }
+        document.close();
+        byte[] pdf = baos.toByteArray();
+        // point startxref past the end of the file so that the xref has to be rebuilt
+        String tail = new String(pdf, pdf.length - 40, 40, "ISO-8859-1");
+        int digits = pdf.length - 40 + tail.indexOf("startxref") + "startxref".length() + 1;
+        while (pdf[digits] >= '0' && pdf[digits] <= '9')
+            pdf[digits++] = '9';
+
+        int threads = PdfReader.rebuildXrefThreads;
+        int chunkSize = PdfReader.rebuildXrefChunkSize;
+        try {
+            PdfReader.rebuildXrefThreads = 1;
+            PdfReader sequential = new PdfReader(pdf);
+            PdfReader.rebuildXrefThreads = 3;
+            // small chunks so that many object headers straddle chunk boundaries
+            PdfReader.rebuildXrefChunkSize = 97;
+            PdfReader parallel = new PdfReader(pdf);
+            assertTrue(sequential.isRebuilt());
+            assertTrue(parallel.isRebuilt());
+            assertEquals(sequential.getXrefSize(), parallel.getXrefSize());
+            assertEquals(sequential.getTrailer().getKeys(), parallel.getTrailer().getKeys());
+            assertEquals(30, parallel.getNumberOfPages());
+            for (int k = 1; k < sequential.getXrefSize(); ++k) {
+                PdfObject expected = sequential.getPdfObject(k);
+                PdfObject actual = parallel.getPdfObject(k);
+                if (expected == null) {
+                    assertNull("Object " + k, actual);
+                    continue;
+                }
+                assertNotNull("Object " + k, actual);
+                assertEquals("Object " + k, expected.type(), actual.type());
+                if (expected.isDictionary() || expected.isStream())
+                    assertEquals("Object " + k, ((PdfDictionary)expected).getKeys(), ((PdfDictionary)actual).getKeys());
+                else if (!expected.isArray())
+                    assertEquals("Object " + k, expected.toString(), actual.toString());
+            }
+            sequential.close();
+            parallel.close();
+        }
+        finally {
+            PdfReader.rebuildXrefThreads = threads;
+            PdfReader.rebuildXrefChunkSize = chunkSize;
+        }
+    }
+
+    /** Builds a document whose page tree is a single node with all the pages as kids. */
+    private static byte[] createFlatPageTree(int pages) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long[] offsets = new long[pages + 3];
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pages; ++i)
+            kids.append(i + 3).append(" 0 R ");
+        out.write("%PDF-1.4\n".getBytes("ISO-8859-1"));
+        offsets[1] = out.size();
+        out.write("1 0 obj\n<</Type/Catalog/Pages 2 0 R>>\nendobj\n".getBytes("ISO-8859-1"));
+        offsets[2] = out.size();
+        out.write(("2 0 obj\n<</Type/Pages/Count " + pages + "/MediaBox[0 0 595 842]/Kids[" + kids + "]>>\nendobj\n").getBytes("ISO-8859-1"));
+        for (int i = 0; i < pages; ++i) {
+            offsets[i + 3] = out.size();
+            out.write(((i + 3) + " 0 obj\n<</Type/Page/Parent 2 0 R/Rotate " + (i % 4) * 90 + ">>\nendobj\n").getBytes("ISO-8859-1"));
+        }
+        long xref = out.size();
+        StringBuilder sb = new StringBuilder("xref\n0 " + (pages + 3) + "\n0000000000 65535 f \n");
+        for (int i = 1; i < pages + 3; ++i)
+            sb.append(String.format("%010d 00000 n \n", offsets[i]));
+        sb.append("trailer\n<</Size " + (pages + 3) + "/Root 1 0 R>>\nstartxref\n" + xref + "\n%%EOF\n");
+        out.write(sb.toString().getBytes("ISO-8859-1"));
+        return out.toByteArray();
+    }
+
+    /** Counts the bytes read from a source. */
+    private static class CountingSource implements RandomAccessSource {
+        private final RandomAccessSource source;
+        long read = 0;
+
+        CountingSource(RandomAccessSource source) {
+            this.source = source;
+        }
+
+        public int get(long position) throws IOException {
+            ++read;
+            return source.get(position);
+        }
+
+        public int get(long position, byte[] bytes, int off, int len) throws IOException {
+            int n = source.get(position, bytes, off, len);
+            if (n > 0)
+                read += n;
+            return n;
+        }
+
+        public long length() {
+            return source.length();
+        }
+
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+
+    private static long bytesReadForPage(byte[] pdf, int page) throws IOException {
+        CountingSource source = new CountingSource(new RandomAccessSourceFactory().createSource(pdf));
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(source), null, true);
+        long opened = source.read;
+        assertEquals((page - 1) % 4 * 90, reader.getPageRotation(page));
+        long read = source.read - opened;
+        reader.close();
+        return read;
+    }
+
+    @Test
+    public void partialReadFlatPageTreeTest() throws IOException {
+        byte[] pdf = createFlatPageTree(2000);
+        // only the kids up to the page are read
+        long first = bytesReadForPage(pdf, 1);
+        long last = bytesReadForPage(pdf, 2000);
+        assertTrue(first + " bytes read for the first page, " + last + " for the last", first * 100 < last);
+
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(pdf)), null, true);
+        for (int page : new int[] {1000, 3, 2000, 999, 1001, 1})
+            assertEquals((page - 1) % 4 * 90, reader.getPageRotation(page));
+        assertNull(reader.getPageN(2001));
+        reader.close();
+    }
+
+    @Test
+    public void partialReadPageTreeTest() throws IOException {
+        byte[] pdfFile = TestResourceUtils.getResourceAsByteArray(this, "iphone_user_guide.pdf");
+        PdfReader full = new PdfReader(pdfFile);
+        PdfReader partial = new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(pdfFile)), null, true);
+        int pages = full.getNumberOfPages();
+        assertEquals(pages, partial.getNumberOfPages());
+        // descend from the end, the middle and the start in turn
+        for (int i = 0; i < pages; ++i) {
+            int page = i % 3 == 0 ? pages - i / 3 : i % 3 == 1 ? (pages + i) / 2 : i / 3 + 1;
+            PdfDictionary expected = full.getPageN(page);
+            PdfDictionary actual = partial.getPageNRelease(page);
+            assertEquals("Page " + page, full.getPageOrigRef(page).getNumber(), partial.getPageOrigRef(page).getNumber());
+            partial.releasePage(page);
+            assertEquals("Page " + page, expected.getKeys(), actual.getKeys());
+            assertEquals("Page " + page, full.getPageSizeWithRotation(page).toString(), partial.getPageSizeWithRotation(page).toString());
+        }
+        assertNull(partial.getPageN(pages + 1));
+        full.close();
+        partial.close();
+    }
+
     @Test(expected = ExceptionConverter.class)
     public void circularReferencesInResources() throws IOException {
         File testFile = TestResourceUtils.getResourceAsTempFile(this, "circularReferencesInResources.pdf");
@@ -0,0 +1,130 @@
+package com.itextpdf.text.pdf;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.security.DigestAlgorithms;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.HashMap;
+
+public class PdfSignatureAppearanceTest {
+
+    private static byte[] createDocument() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        for (int i = 1; i <= 5; ++i) {
+            document.add(new Paragraph("Page " + i));
+            document.newPage();
+        }
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private void signToChannel(boolean append) throws Exception {
+        File file = File.createTempFile("signed", ".pdf");
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            // stale content must be cut off
+            raf.write(new byte[200000]);
+            FileChannel channel = raf.getChannel();
+            PdfReader reader = new PdfReader(createDocument());
+            PdfStamper stamper = PdfStamper.createSignature(reader, channel, '\0', append, MessageDigest.getInstance("SHA-256"));
+            PdfSignatureAppearance sap = stamper.getSignatureAppearance();
+            sap.setCryptoDictionary(new PdfSignature(PdfName.ADOBE_PPKLITE, PdfName.ADBE_PKCS7_DETACHED));
+            HashMap<PdfName, Integer> exc = new HashMap<PdfName, Integer>();
+            exc.put(PdfName.CONTENTS, new Integer(64 * 2 + 2));
+            sap.preClose(exc);
+
+            byte[] expected = DigestAlgorithms.digest(sap.getRangeStream(), MessageDigest.getInstance("SHA-256"));
+            Assert.assertArrayEquals(expected, sap.getRangeDigest("SHA256"));
+            Assert.assertNull(sap.getRangeDigest("SHA1"));
+
+            byte[] contents = new byte[64];
+            System.arraycopy(expected, 0, contents, 0, expected.length);
+            PdfDictionary update = new PdfDictionary();
+            update.put(PdfName.CONTENTS, new PdfString(contents).setHexWriting(true));
+            sap.close(update);
+            Assert.assertFalse(channel.isOpen());
+
+            PdfReader signed = new PdfReader(file.getAbsolutePath());
+            AcroFields fields = signed.getAcroFields();
+            String name = fields.getSignatureNames().get(0);
+            Assert.assertTrue(fields.signatureCoversWholeDocument(name));
+            PdfDictionary sig = fields.getSignatureDictionary(name);
+            Assert.assertArrayEquals(contents, sig.getAsString(PdfName.CONTENTS).getOriginalBytes());
+            PdfArray byteRange = sig.getAsArray(PdfName.BYTERANGE);
+            Assert.assertEquals(file.length(), byteRange.getAsNumber(2).longValue() + byteRange.getAsNumber(3).longValue());
+            Assert.assertEquals(5, signed.getNumberOfPages());
+            signed.close();
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void signToChannelTest() throws Exception {
+        signToChannel(false);
+    }
+
+    @Test
+    public void signToChannelAppendTest() throws Exception {
+        signToChannel(true);
+    }
+
+    @Test
+    public void appearanceTemplateTest() throws Exception {
+        PdfSignatureAppearanceTemplate template = null;
+        for (int i = 0; i < 3; ++i) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            PdfStamper stamper = PdfStamper.createSignature(new PdfReader(createDocument()), baos, '\0');
+            PdfSignatureAppearance sap = stamper.getSignatureAppearance();
+            sap.setVisibleSignature(new Rectangle(36, 700, 236, 750), 1, "sig");
+            if (template == null) {
+                sap.setLayer2Text("Signed by the batch");
+                template = sap.createAppearanceTemplate();
+                Assert.assertEquals(200, template.getSize().getWidth(), 0.01f);
+            }
+            sap.setAppearanceTemplate(template);
+            sap.setCryptoDictionary(new PdfSignature(PdfName.ADOBE_PPKLITE, PdfName.ADBE_PKCS7_DETACHED));
+            HashMap<PdfName, Integer> exc = new HashMap<PdfName, Integer>();
+            exc.put(PdfName.CONTENTS, new Integer(64 * 2 + 2));
+            sap.preClose(exc);
+            PdfDictionary update = new PdfDictionary();
+            update.put(PdfName.CONTENTS, new PdfString(new byte[64]).setHexWriting(true));
+            sap.close(update);
+
+            PdfReader signed = new PdfReader(baos.toByteArray());
+            AcroFields fields = signed.getAcroFields();
+            Assert.assertTrue(fields.signatureCoversWholeDocument("sig"));
+            PdfDictionary ap = fields.getFieldItem("sig").getWidget(0).getAsDict(PdfName.AP);
+            PdfDictionary frm = ap.getAsStream(PdfName.N).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT).getAsStream(new PdfName("FRM"));
+            PdfDictionary n2 = frm.getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT).getAsStream(new PdfName("n2"));
+            PdfDictionary xobjects = n2.getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            Assert.assertEquals(1, xobjects.size());
+            PRStream copied = (PRStream)xobjects.getAsStream(xobjects.getKeys().iterator().next());
+            Assert.assertNotNull(copied.getAsDict(PdfName.RESOURCES).getAsDict(PdfName.FONT));
+            Assert.assertTrue(new String(PdfReader.getStreamBytes(copied), "ISO-8859-1").contains("Signed by the batch"));
+            signed.close();
+        }
+        template.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void appearanceTemplateWithoutTextTest() throws Exception {
+        PdfStamper stamper = PdfStamper.createSignature(new PdfReader(createDocument()), new ByteArrayOutputStream(), '\0');
+        PdfSignatureAppearance sap = stamper.getSignatureAppearance();
+        sap.setVisibleSignature(new Rectangle(36, 700, 236, 750), 1, "sig");
+        // the default text would fix the date of this signature in the template
+        sap.createAppearanceTemplate();
+    }
+}
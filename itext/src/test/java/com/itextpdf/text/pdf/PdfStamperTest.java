@@ -1,9 +1,13 @@
 package com.itextpdf.text.pdf;
 
 import com.itextpdf.testutils.CompareTool;
+import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Image;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -92,4 +96,56 @@ public class PdfStamperTest {
 
     }
 
+    @Test
+    public void partialStamperCopiesUnloadedObjectsTest() throws IOException, DocumentException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        for (int i = 1; i <= 20; ++i) {
+            document.add(new Paragraph("Page " + i));
+            document.newPage();
+        }
+        document.close();
+        byte[] pdf = baos.toByteArray();
+
+        PdfReader original = new PdfReader(new RandomAccessFileOrArray(pdf), null);
+        int pageRef = original.getPageOrigRef(10).getNumber();
+        int contentRef = ((PRIndirectReference)original.getPageN(10).get(PdfName.CONTENTS)).getNumber();
+        original.releasePage(10);
+        byte[] contentBytes = original.getUnloadedObjectBytes(contentRef);
+        Assert.assertNotNull(contentBytes);
+        original.close();
+
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(pdf), null);
+        Assert.assertTrue(reader.canCopyUnloadedObjects());
+        baos = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, baos);
+        PdfContentByte over = stamper.getOverContent(1);
+        over.beginText();
+        over.setFontAndSize(BaseFont.createFont(), 12);
+        over.showTextAligned(PdfContentByte.ALIGN_LEFT, "Stamped", 36, 36, 0);
+        over.endText();
+        stamper.close();
+        byte[] stamped = baos.toByteArray();
+
+        Assert.assertTrue(indexOf(stamped, contentBytes) > 0);
+        PdfReader result = new PdfReader(stamped);
+        Assert.assertEquals(20, result.getNumberOfPages());
+        Assert.assertEquals(pageRef, result.getPageOrigRef(10).getNumber());
+        Assert.assertTrue(PdfTextExtractor.getTextFromPage(result, 1).contains("Stamped"));
+        Assert.assertEquals("Page 10", PdfTextExtractor.getTextFromPage(result, 10));
+        result.close();
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i <= data.length - pattern.length; ++i) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j])
+                ++j;
+            if (j == pattern.length)
+                return i;
+        }
+        return -1;
+    }
 }
@@ -1098,6 +1098,36 @@ public class TaggedPdfTest {
         compareResults("27");
     }
 
+    @Test
+    public void parsePagesOnceTest() throws DocumentException, IOException {
+        initializeDocument("./target/com/itextpdf/test/pdf/TaggedPdfTest/parsePagesOnce.pdf");
+        document.add(h1);
+        for (int i = 0; i < 60; i++) {
+            Paragraph paragraph = new Paragraph(i + ". " + text.substring(0, 300 + 7 * i));
+            paragraph.setFont(new Font(Font.FontFamily.HELVETICA, 8 + i % 3, Font.NORMAL, BaseColor.BLACK));
+            document.add(paragraph);
+            List list = new List(true);
+            list.add(new ListItem("Item " + i));
+            list.add(new ListItem(new Chunk("Nested <" + i + "> & more", new Font(Font.FontFamily.COURIER, 9))));
+            document.add(list);
+        }
+        document.close();
+
+        PdfReader reader = new PdfReader("./target/com/itextpdf/test/pdf/TaggedPdfTest/parsePagesOnce.pdf");
+        Assert.assertTrue(reader.getNumberOfPages() > 1);
+        ByteArrayOutputStream perTag = new ByteArrayOutputStream();
+        new TaggedPdfReaderTool().convertToXml(reader, perTag);
+        ByteArrayOutputStream perPage = new ByteArrayOutputStream();
+        TaggedPdfReaderTool tool = new TaggedPdfReaderTool();
+        tool.setParsePagesOnce(true);
+        tool.convertToXml(reader, perPage);
+        reader.close();
+
+        String expected = new String(perTag.toByteArray(), "UTF-8");
+        Assert.assertTrue(expected.contains("Nested &lt;59&gt; &amp; more"));
+        Assert.assertEquals(expected, new String(perPage.toByteArray(), "UTF-8"));
+    }
+
     private boolean compareXmls(String xml1, String xml2) throws ParserConfigurationException, SAXException, IOException {
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         dbf.setNamespaceAware(true);
@@ -0,0 +1,72 @@
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+
+/**
+ * Runs all the tests of {@link LocationTextExtractionStrategyTest} with
+ * {@link BucketedLocationTextExtractionStrategy}, and compares the output of
+ * both strategies on real documents.
+ */
+public class BucketedLocationTextExtractionStrategyTest extends LocationTextExtractionStrategyTest {
+
+    @Override
+    public TextExtractionStrategy createRenderListenerForTest() {
+        return new BucketedLocationTextExtractionStrategy();
+    }
+
+    private static void assertSameText(PdfReader reader) throws Exception {
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        for (int page = 1; page <= reader.getNumberOfPages(); ++page) {
+            String expected = parser.processContent(page, new LocationTextExtractionStrategy()).getResultantText();
+            String actual = parser.processContent(page, new BucketedLocationTextExtractionStrategy()).getResultantText();
+            Assert.assertEquals("Page " + page, expected, actual);
+        }
+    }
+
+    @Test
+    public void sameTextAsLocationStrategyTest() throws Exception {
+        String[] files = {
+            "./src/test/resources/com/itextpdf/text/pdf/parser/SimpleTextExtractionStrategyTest/page229.pdf",
+            "./src/test/resources/com/itextpdf/text/pdf/parser/SimpleTextExtractionStrategyTest/ISO-TC171-SC2_N0896_SC2WG5_Edinburgh_Agenda.pdf",
+            "./src/test/resources/com/itextpdf/text/pdf/parser/HighlightItemsTest/HeaderFooter.pdf",
+            "./src/test/resources/com/itextpdf/text/pdf/parser/TextRenderInfoTest/japanese_text.pdf",
+            "./src/test/resources/com/itextpdf/text/pdf/parser/GlyphTextRenderListenerTest/Sample.pdf"
+        };
+        for (String file : files) {
+            PdfReader reader = new PdfReader(file);
+            assertSameText(reader);
+            reader.close();
+        }
+    }
+
+    @Test
+    public void sameTextForSpreadsheetTest() throws Exception {
+        // cells drawn column by column, so that most chunks arrive out of order within their line
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        PdfContentByte canvas = writer.getDirectContent();
+        BaseFont bf = BaseFont.createFont();
+        canvas.beginText();
+        canvas.setFontAndSize(bf, 6);
+        for (int col = 11; col >= 0; --col) {
+            for (int row = 0; row < 100; ++row) {
+                canvas.setTextMatrix(30 + col * 45 + (row % 3) * 0.1f, 800 - row * 7.7f);
+                canvas.showText(row % 7 == 0 ? " " : "R" + row + "C" + col);
+            }
+        }
+        canvas.endText();
+        document.close();
+        assertSameText(new PdfReader(baos.toByteArray()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+
+public class DocumentFontCacheTest {
+
+    private static byte[] createPdf(int pages) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        for (int i = 1; i <= pages; ++i) {
+            document.add(new Paragraph("Statement page " + i));
+            document.newPage();
+        }
+        document.close();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void fontsAreParsedOncePerDocumentTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf(10));
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        for (int i = 1; i <= 10; ++i) {
+            String text = parser.processContent(i, new SimpleTextExtractionStrategy()).getResultantText();
+            Assert.assertEquals("Statement page " + i, text);
+        }
+        DocumentFontCache cache = parser.getFontCache();
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(9, cache.getHits());
+        Assert.assertTrue(cache.getParseTime() > 0);
+
+        // a second parser can share the fonts
+        PdfReaderContentParser second = new PdfReaderContentParser(reader, cache);
+        second.processContent(1, new SimpleTextExtractionStrategy());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(10, cache.getHits());
+        reader.close();
+    }
+
+    @Test
+    public void textExtractorReusesParserTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf(10));
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        for (int i = 1; i <= 10; ++i)
+            Assert.assertEquals("Statement page " + i, PdfTextExtractor.getTextFromPage(parser, i, new SimpleTextExtractionStrategy()));
+        DocumentFontCache cache = parser.getFontCache();
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(9, cache.getHits());
+        reader.close();
+    }
+
+    @Test
+    public void fontsOfDifferentDocumentsAreKeptApartTest() throws Exception {
+        byte[] pdf = createPdf(1);
+        PdfReader first = new PdfReader(pdf);
+        PdfReader second = new PdfReader(pdf);
+        // both documents have the same font object numbers
+        DocumentFontCache cache = new DocumentFontCache();
+        new PdfReaderContentParser(first, cache).processContent(1, new SimpleTextExtractionStrategy());
+        new PdfReaderContentParser(second, cache).processContent(1, new SimpleTextExtractionStrategy());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(2, cache.getMisses());
+        first.close();
+        second.close();
+    }
+}
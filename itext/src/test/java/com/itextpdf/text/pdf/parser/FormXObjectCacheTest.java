@@ -0,0 +1,133 @@
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+
+public class FormXObjectCacheTest {
+
+    private static byte[] createPdf(int pages, int placements, int symbols) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        PdfContentByte canvas = writer.getDirectContent();
+        BaseFont bf = BaseFont.createFont();
+        PdfTemplate[] templates = new PdfTemplate[symbols];
+        for (int s = 0; s < symbols; ++s) {
+            templates[s] = canvas.createTemplate(20, 20);
+            templates[s].rectangle(1, 1, 18, 18);
+            templates[s].stroke();
+            templates[s].beginText();
+            templates[s].setFontAndSize(bf, 8);
+            templates[s].setTextMatrix(4, 6);
+            templates[s].showText("S" + s);
+            templates[s].endText();
+        }
+        for (int p = 0; p < pages; ++p) {
+            for (int i = 0; i < placements; ++i)
+                canvas.addTemplate(templates[i % symbols], 36 + (i % 25) * 21, 36 + (i / 25) * 21);
+            document.newPage();
+        }
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private static List<String> parse(PdfReader reader, PdfReaderContentParser parser) throws Exception {
+        final List<String> events = new ArrayList<String>();
+        RenderListener listener = new RenderListener() {
+            public void beginTextBlock() {
+                events.add("BT");
+            }
+            public void renderText(TextRenderInfo renderInfo) {
+                events.add(renderInfo.getText() + " " + renderInfo.getBaseline().getStartPoint());
+            }
+            public void endTextBlock() {
+                events.add("ET");
+            }
+            public void renderImage(ImageRenderInfo renderInfo) {
+            }
+        };
+        for (int i = 1; i <= reader.getNumberOfPages(); ++i)
+            parser.processContent(i, listener);
+        return events;
+    }
+
+    @Test
+    public void formsAreParsedOncePerDocumentTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf(2, 500, 1));
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        List<String> cached = parse(reader, parser);
+        FormXObjectCache cache = parser.getFormXObjectCache();
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(999, cache.getHits());
+
+        FormXObjectCache disabled = new FormXObjectCache(0);
+        List<String> uncached = parse(reader, new PdfReaderContentParser(reader, new DocumentFontCache(), disabled));
+        Assert.assertEquals(0, disabled.getMisses());
+        Assert.assertEquals(0, disabled.getHits());
+        Assert.assertTrue(uncached.size() >= 3000);
+        Assert.assertEquals(uncached, cached);
+        reader.close();
+    }
+
+    @Test
+    public void cacheIsBoundedTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf(1, 40, 4));
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        List<String> expected = parse(reader, parser);
+        int formSize = parser.getFormXObjectCache().getSize() / 4;
+
+        // room for two forms only: every placement evicts the least recently used form
+        FormXObjectCache cache = new FormXObjectCache(2 * formSize + 1);
+        List<String> events = parse(reader, new PdfReaderContentParser(reader, new DocumentFontCache(), cache));
+        Assert.assertEquals(expected, events);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertTrue(cache.getSize() <= 2 * formSize + 1);
+        Assert.assertEquals(40, cache.getMisses());
+        Assert.assertEquals(0, cache.getHits());
+        reader.close();
+    }
+
+    @Test
+    public void changedFormIsParsedAgainTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf(1, 1, 1));
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        Assert.assertTrue(parse(reader, parser).contains("S0 40.0,42.0,1.0"));
+        // rewrite the form in place, as a redaction does
+        PdfDictionary xobjects = reader.getPageResources(1).getAsDict(PdfName.XOBJECT);
+        PRStream form = (PRStream)xobjects.getAsStream(xobjects.getKeys().iterator().next());
+        String content = new String(PdfReader.getStreamBytes(form), "ISO-8859-1");
+        form.setData(content.replace("(S0)", "(XX)").getBytes("ISO-8859-1"));
+        Assert.assertTrue(parse(reader, parser).contains("XX 40.0,42.0,1.0"));
+        Assert.assertEquals(2, parser.getFormXObjectCache().getMisses());
+        reader.close();
+    }
+
+    @Test
+    public void formsOfDifferentDocumentsAreKeptApartTest() throws Exception {
+        byte[] pdf = createPdf(1, 1, 1);
+        PdfReader first = new PdfReader(pdf);
+        PdfReader second = new PdfReader(pdf);
+        FormXObjectCache cache = new FormXObjectCache();
+        parse(first, new PdfReaderContentParser(first, new DocumentFontCache(), cache));
+        parse(second, new PdfReaderContentParser(second, new DocumentFontCache(), cache));
+        Assert.assertEquals(2, cache.size());
+        first.close();
+        second.close();
+    }
+}
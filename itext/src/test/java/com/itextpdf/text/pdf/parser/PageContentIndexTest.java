@@ -0,0 +1,87 @@
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itextpdf.awt.geom.Rectangle2D;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+
+public class PageContentIndexTest {
+
+    private static byte[] createPdf() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        for (int i = 1; i <= 30; ++i)
+            document.add(new Paragraph("Line " + i + " of the index test, with some words to split"));
+        PdfContentByte canvas = writer.getDirectContent();
+        canvas.rectangle(400, 100, 50, 20);
+        canvas.stroke();
+        canvas.moveTo(100, 50);
+        canvas.lineTo(150, 80);
+        canvas.newPath();
+        Image image = Image.getInstance(2, 2, 1, 8, new byte[] {0, (byte)0xff, (byte)0xff, 0});
+        image.setAbsolutePosition(300, 40);
+        image.scaleAbsolute(60, 30);
+        canvas.addImage(image);
+        document.close();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void textIsTheSameAsRegionFilterTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf());
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+        PageContentIndex index = parser.processContent(1, new PageContentIndex());
+        Rectangle page = reader.getPageSize(1);
+        for (float y = 0; y < page.getHeight(); y += 37) {
+            for (float x = 0; x < page.getWidth(); x += 53) {
+                Rectangle region = new Rectangle(x, y, x + 120, y + 45);
+                FilteredTextRenderListener listener = new FilteredTextRenderListener(new LocationTextExtractionStrategy(), new RegionTextRenderFilter(region));
+                String expected = parser.processContent(1, listener).getResultantText();
+                Assert.assertEquals(expected, index.getText(region));
+            }
+        }
+        Assert.assertEquals(PdfTextExtractor.getTextFromPage(reader, 1), index.getText(page));
+        reader.close();
+    }
+
+    @Test
+    public void imagesAndPathsTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf());
+        PageContentIndex index = new PdfReaderContentParser(reader).processContent(1, new PageContentIndex());
+
+        List<PageContentIndex.Item> images = index.query(new Rectangle2D.Float(0, 0, 350, 50), PageContentIndex.Item.IMAGE);
+        Assert.assertEquals(1, images.size());
+        Rectangle2D bounds = images.get(0).getBounds();
+        Assert.assertEquals(300, bounds.getX(), 1e-3);
+        Assert.assertEquals(40, bounds.getY(), 1e-3);
+        Assert.assertEquals(60, bounds.getWidth(), 1e-3);
+        Assert.assertEquals(30, bounds.getHeight(), 1e-3);
+        Assert.assertNotNull(images.get(0).getImageRenderInfo());
+
+        // the path that is not painted is left out
+        List<PageContentIndex.Item> paths = index.query(new Rectangle2D.Float(0, 0, 600, 150), PageContentIndex.Item.PATH);
+        Assert.assertEquals(1, paths.size());
+        Assert.assertEquals(PathPaintingRenderInfo.STROKE, paths.get(0).getPathOperation());
+        Assert.assertEquals(new Rectangle2D.Float(400, 100, 50, 20), paths.get(0).getBounds());
+
+        Assert.assertTrue(index.query(new Rectangle2D.Float(460, 20, 50, 20)).isEmpty());
+        Assert.assertEquals("", index.getText(new Rectangle2D.Float(0, 0, 600, 150)));
+
+        Rectangle2D text = index.getTextBounds();
+        Assert.assertTrue(text.getMinY() > 150);
+        Assert.assertEquals(index.getItems().size() - 2, index.query(text, PageContentIndex.Item.TEXT).size());
+        reader.close();
+    }
+}
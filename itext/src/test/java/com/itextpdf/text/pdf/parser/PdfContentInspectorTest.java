@@ -0,0 +1,101 @@
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+
+public class PdfContentInspectorTest {
+
+    static final private String outputPath = "./target/com/itextpdf/text/pdf/parser/PdfContentInspectorTest/";
+
+    @BeforeClass
+    public static void setUp() {
+        new File(outputPath).mkdirs();
+    }
+
+    private static byte[] createPdf(int pages) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        Image inline = Image.getInstance(2, 2, 1, 8, new byte[] {0, 1, 2, 3});
+        for (int i = 1; i <= pages; ++i) {
+            document.add(new Paragraph("Inspected page " + i));
+            writer.getDirectContent().addImage(inline, 20, 0, 0, 20, 100, 100, true);
+            document.newPage();
+        }
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private static String inspect(PdfContentInspector inspector, PdfReader reader, int first, int last) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        inspector.inspect(reader, first, last, out);
+        return new String(out.toByteArray(), "ISO-8859-1");
+    }
+
+    @Test
+    public void listingTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf(3));
+        PdfContentInspector inspector = new PdfContentInspector();
+        String listing = inspect(inspector, reader, 2, 3);
+        Assert.assertFalse(listing.contains("Page 1="));
+        Assert.assertTrue(listing.contains("==============Page 2===================="));
+        Assert.assertTrue(listing.contains("==============Page 3===================="));
+        Assert.assertTrue(listing.contains("(Inspected page 2) Tj\n"));
+        Assert.assertTrue(listing.contains("/Type /Page\n"));
+        Assert.assertTrue(listing.contains("BI <</Width 2/Height 2/ColorSpace/DeviceGray/BitsPerComponent 8"));
+        Assert.assertTrue(listing.contains(" bytes) EI\n"));
+        // the font of the resources is at depth 3
+        Assert.assertTrue(listing.contains("\t\t/F1 1 0 R\n"));
+        Assert.assertFalse(listing.contains("/BaseFont"));
+
+        inspector.setMaxDepth(4);
+        listing = inspect(inspector, reader, 2, 2);
+        Assert.assertTrue(listing.contains("\t\t\t/BaseFont /Helvetica\n"));
+
+        inspector.setMaxDepth(1);
+        listing = inspect(inspector, reader, 2, 2);
+        Assert.assertFalse(listing.contains("/Font"));
+        Assert.assertTrue(listing.contains("/Resources << "));
+        reader.close();
+    }
+
+    @Test
+    public void parallelTest() throws Exception {
+        String filename = outputPath + "parallel.pdf";
+        FileOutputStream fos = new FileOutputStream(filename);
+        fos.write(createPdf(20));
+        fos.close();
+        PdfReader reader = new PdfReader(filename);
+        PdfContentInspector inspector = new PdfContentInspector();
+        final Map<Integer, ByteArrayOutputStream> outputs = new HashMap<Integer, ByteArrayOutputStream>();
+        inspector.inspect(filename, 5, 100, 4, new PdfContentInspector.OutputFactory() {
+            public OutputStream getOutputStream(int pageNum) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                synchronized (outputs) {
+                    Assert.assertNull(outputs.put(pageNum, out));
+                }
+                return out;
+            }
+        });
+        Assert.assertEquals(16, outputs.size());
+        for (int i = 5; i <= 20; ++i)
+            Assert.assertEquals(inspect(inspector, reader, i, i), new String(outputs.get(i).toByteArray(), "ISO-8859-1"));
+        reader.close();
+    }
+}
@@ -0,0 +1,161 @@
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNumber;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfString;
+import com.itextpdf.text.pdf.PdfTextArray;
+import com.itextpdf.text.pdf.PdfWriter;
+
+public class PdfContentStreamCursorTest {
+
+    private static byte[] createPdf() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        PdfContentByte canvas = writer.getDirectContent();
+        BaseFont helvetica = BaseFont.createFont();
+        BaseFont courier = BaseFont.createFont(BaseFont.COURIER_BOLD, BaseFont.WINANSI, false);
+
+        canvas.saveState();
+        canvas.concatCTM(1.5f, 0.2f, -0.2f, 1.5f, 20, 30);
+        canvas.beginText();
+        canvas.setFontAndSize(helvetica, 12);
+        canvas.setLeading(14);
+        canvas.setTextMatrix(50, 500);
+        canvas.showText("Hello world, how are you?");
+        canvas.setCharacterSpacing(1.5f);
+        canvas.setWordSpacing(3);
+        canvas.showText(" And now with spacing.");
+        canvas.newlineShowText("Next line");
+        canvas.setHorizontalScaling(80);
+        canvas.newlineShowText(2, 0.5f, "Quoted with new spacing");
+        PdfTextArray array = new PdfTextArray("Ker");
+        array.add(-120);
+        array.add("ned ");
+        array.add(250);
+        array.add("text");
+        canvas.showText(array);
+        canvas.endText();
+        canvas.restoreState();
+
+        PdfDictionary props = new PdfDictionary();
+        props.put(PdfName.MCID, new PdfNumber(7));
+        canvas.beginMarkedContentSequence(PdfName.P, props, true);
+        canvas.beginText();
+        canvas.setFontAndSize(courier, 9);
+        canvas.moveText(72, 300);
+        canvas.showText("Marked");
+        canvas.moveTextWithLeading(0, -20);
+        canvas.showText("content");
+        canvas.newlineText();
+        canvas.showText("three lines");
+        canvas.endText();
+        canvas.endMarkedContentSequence();
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private static String describe(String text, float x, float y) {
+        return String.format("%s (%.2f, %.2f)", text, x, y);
+    }
+
+    @Test
+    public void textPositionsMatchProcessorTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf());
+        PdfReaderContentParser parser = new PdfReaderContentParser(reader);
+
+        final List<String> expected = new ArrayList<String>();
+        parser.processContent(1, new RenderListener() {
+            public void beginTextBlock() {
+            }
+            public void renderText(TextRenderInfo renderInfo) {
+                Vector start = renderInfo.getBaseline().getStartPoint();
+                expected.add(describe(renderInfo.getText(), start.get(Vector.I1), start.get(Vector.I2)));
+            }
+            public void endTextBlock() {
+            }
+            public void renderImage(ImageRenderInfo renderInfo) {
+            }
+        });
+
+        List<String> actual = new ArrayList<String>();
+        List<Integer> mcids = new ArrayList<Integer>();
+        float[] m = new float[6];
+        PdfContentStreamCursor cursor = parser.openCursor(1);
+        while (cursor.next()) {
+            if (!cursor.isShowingText())
+                continue;
+            cursor.getTextRenderingMatrix(m);
+            mcids.add(cursor.getMcid());
+            if (cursor.getOperatorId() == PdfContentStreamCursor.SHOW_TEXT_ARRAY) {
+                PdfArray strings = (PdfArray)cursor.getOperand(0);
+                float tx = 0;
+                for (int k = 0; k < strings.size(); ++k) {
+                    PdfObject entry = strings.getPdfObject(k);
+                    if (entry instanceof PdfNumber) {
+                        tx -= ((PdfNumber)entry).floatValue() / 1000f * cursor.getFontSize() * cursor.getHorizontalScaling();
+                        continue;
+                    }
+                    PdfString string = (PdfString)entry;
+                    byte[] b = string.getBytes();
+                    actual.add(describe(cursor.getFont().decode(b, 0, b.length), tx * m[0] + m[4], tx * m[1] + m[5]));
+                    tx += cursor.getStringWidth(string);
+                }
+            }
+            else {
+                byte[] b = cursor.getOperand(cursor.getOperandCount() - 1).getBytes();
+                actual.add(describe(cursor.getFont().decode(b, 0, b.length), m[4], m[5]));
+            }
+        }
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(8, mcids.size());
+        Assert.assertEquals(Integer.valueOf(-1), mcids.get(4));
+        Assert.assertEquals(Integer.valueOf(7), mcids.get(5));
+        Assert.assertEquals(Integer.valueOf(7), mcids.get(7));
+        reader.close();
+    }
+
+    @Test
+    public void stateIsRestoredTest() throws Exception {
+        String content = "q 2 0 0 2 10 20 cm BT /F1 12 Tf 3 Tc 90 Tz ET Q BT 1 0 0 1 5 6 Tm ET";
+        PdfContentStreamCursor cursor = new PdfContentStreamCursor(content.getBytes("ISO-8859-1"), null, new DocumentFontCache());
+        float[] m = new float[6];
+        List<Integer> ops = new ArrayList<Integer>();
+        while (cursor.next()) {
+            ops.add(cursor.getOperatorId());
+            if (cursor.getOperatorId() == PdfContentStreamCursor.SET_HORIZONTAL_SCALING) {
+                cursor.getCtm(m);
+                Assert.assertEquals(2, m[0], 0);
+                Assert.assertEquals(20, m[5], 0);
+                Assert.assertEquals(3, cursor.getCharacterSpacing(), 0);
+                Assert.assertEquals(0.9f, cursor.getHorizontalScaling(), 1e-6);
+            }
+            else if (cursor.getOperatorId() == PdfContentStreamCursor.SET_TEXT_MATRIX) {
+                cursor.getTextRenderingMatrix(m);
+                Assert.assertEquals(5, m[4], 0);
+                Assert.assertEquals(6, m[5], 0);
+                Assert.assertEquals(0, cursor.getCharacterSpacing(), 0);
+                Assert.assertEquals(1, cursor.getHorizontalScaling(), 0);
+            }
+        }
+        Assert.assertEquals(11, ops.size());
+        Assert.assertEquals(Integer.valueOf(PdfContentStreamCursor.SAVE_STATE), ops.get(0));
+        Assert.assertEquals(Integer.valueOf(PdfContentStreamCursor.RESTORE_STATE), ops.get(7));
+        Assert.assertEquals(Integer.valueOf(PdfContentStreamCursor.END_TEXT), ops.get(10));
+    }
+}
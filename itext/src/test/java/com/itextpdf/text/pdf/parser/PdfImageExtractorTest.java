@@ -0,0 +1,101 @@
+package com.itextpdf.text.pdf.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfIndirectReference;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+
+public class PdfImageExtractorTest {
+
+    private static Image createImage(int seed) throws Exception {
+        byte[] data = new byte[40 * 30 * 3];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = (byte)(k * seed);
+        return Image.getInstance(40, 30, 3, 8, data);
+    }
+
+    private static byte[] createPdf() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        Image shared = createImage(3);
+        PdfTemplate form = writer.getDirectContent().createTemplate(100, 100);
+        form.addImage(createImage(5), 100, 0, 0, 100, 0, 0);
+        Image inline = createImage(7);
+        for (int i = 1; i <= 3; ++i) {
+            PdfContentByte canvas = writer.getDirectContent();
+            for (int k = 0; k < 3; ++k)
+                canvas.addImage(shared, 40, 0, 0, 30, 50 + 100 * k, 600);
+            canvas.addTemplate(form, 50, 300);
+            canvas.addImage(inline, 40, 0, 0, 30, 50, 100, true);
+            document.newPage();
+        }
+        document.close();
+        return baos.toByteArray();
+    }
+
+    private static Map<Integer, byte[]> extract(PdfReader reader, int threads) throws IOException {
+        final Map<Integer, byte[]> images = new HashMap<Integer, byte[]>();
+        int count = new PdfImageExtractor(reader, threads).extract(new PdfImageExtractor.ImageHandler() {
+            public void handleImage(PdfIndirectReference ref, PdfImageObject image) throws IOException {
+                synchronized (images) {
+                    Assert.assertNull(images.put(ref.getNumber(), image.getImageAsBytes()));
+                }
+            }
+            public void handleError(PdfIndirectReference ref, IOException e) throws IOException {
+                throw e;
+            }
+        });
+        Assert.assertEquals(images.size(), count);
+        return images;
+    }
+
+    @Test
+    public void imagesAreDecodedOnceTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf());
+        Map<Integer, byte[]> images = extract(reader, 1);
+        Assert.assertEquals(2, images.size());
+
+        Map<Integer, byte[]> parallel = extract(reader, 4);
+        Assert.assertEquals(images.keySet(), parallel.keySet());
+        for (Integer number : images.keySet())
+            Assert.assertTrue(Arrays.equals(images.get(number), parallel.get(number)));
+        reader.close();
+    }
+
+    @Test
+    public void placementsTest() throws Exception {
+        PdfReader reader = new PdfReader(createPdf());
+        PdfImageExtractor extractor = new PdfImageExtractor(reader);
+        Map<Integer, byte[]> images = extract(reader, 1);
+        for (int i = 1; i <= 3; ++i) {
+            List<PdfImageExtractor.ImagePlacement> placements = extractor.getPlacements(i);
+            Assert.assertEquals(5, placements.size());
+            for (int k = 0; k < 3; ++k) {
+                PdfImageExtractor.ImagePlacement placement = placements.get(k);
+                Assert.assertEquals(i, placement.getPageNumber());
+                Assert.assertTrue(images.containsKey(placement.getRef().getNumber()));
+                Assert.assertEquals(50 + 100 * k, placement.getImageCTM().get(Matrix.I31), 1e-3);
+            }
+            Assert.assertTrue(images.containsKey(placements.get(3).getRef().getNumber()));
+            Assert.assertEquals(300, placements.get(3).getImageCTM().get(Matrix.I32), 1e-3);
+            Assert.assertNull(placements.get(4).getRef());
+            Assert.assertNotNull(placements.get(4).getRenderInfo().getImage().getImageAsBytes());
+        }
+        reader.close();
+    }
+}
@@ -5,6 +5,10 @@
  */
 package com.itextpdf.text.pdf.parser;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+
 import junit.framework.Assert;
 
 import org.junit.After;
@@ -12,10 +16,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.itextpdf.testutils.TestResourceUtils;
+import com.itextpdf.text.exceptions.UnsupportedPdfException;
 import com.itextpdf.text.pdf.PRStream;
 import com.itextpdf.text.pdf.PdfDictionary;
 import com.itextpdf.text.pdf.PdfIndirectReference;
 import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfNumber;
 import com.itextpdf.text.pdf.PdfReader;
 
 /**
@@ -31,17 +37,21 @@ public class PdfImageObjectTest {
     public void tearDown() throws Exception {
     }
 
+    private PdfImageObject getImage(PdfReader pdfReader, int page, String objectid) throws Exception{
+        PdfDictionary resources = pdfReader.getPageResources(page);
+        PdfDictionary xobjects = resources.getAsDict(PdfName.XOBJECT);
+        PdfIndirectReference objRef = xobjects.getAsIndirectObject(new PdfName(objectid));
+        if (objRef == null)
+            throw new NullPointerException("Reference " + objectid + " not found - Available keys are " + xobjects.getKeys());
+        PRStream stream = (PRStream)PdfReader.getPdfObject(objRef);
+        PdfDictionary colorSpaceDic = resources != null ? resources.getAsDict(PdfName.COLORSPACE) : null;
+        return new PdfImageObject(stream, colorSpaceDic);
+    }
+
     private void testFile(String filename, int page, String objectid) throws Exception{
         final PdfReader pdfReader = TestResourceUtils.getResourceAsPdfReader(this, filename);
         try{
-            PdfDictionary resources = pdfReader.getPageResources(page);
-            PdfDictionary xobjects = resources.getAsDict(PdfName.XOBJECT);
-            PdfIndirectReference objRef = xobjects.getAsIndirectObject(new PdfName(objectid));
-            if (objRef == null)
-                throw new NullPointerException("Reference " + objectid + " not found - Available keys are " + xobjects.getKeys());
-            PRStream stream = (PRStream)PdfReader.getPdfObject(objRef);
-            PdfDictionary colorSpaceDic = resources != null ? resources.getAsDict(PdfName.COLORSPACE) : null;
-            PdfImageObject img = new PdfImageObject(stream, colorSpaceDic);
+            PdfImageObject img = getImage(pdfReader, page, objectid);
             byte[] result = img.getImageAsBytes();
             Assert.assertNotNull(result);
             int zeroCount = 0;
@@ -83,5 +93,126 @@ public class PdfImageObjectTest {
     public void testjbig2Filters() throws Exception{
         testFile("jbig2decode.pdf", 1, "2");
     }
-    
+
+    @Test
+    public void testRawBytesWithoutDecoding() throws Exception{
+        final PdfReader pdfReader = TestResourceUtils.getResourceAsPdfReader(this, "dctdecode.pdf");
+        try{
+            PdfImageObject img = getImage(pdfReader, 1, "im1");
+            Assert.assertEquals(PdfImageObject.ImageBytesType.JPG, img.getImageBytesType());
+            Assert.assertTrue(img.getWidth() > 0);
+            Assert.assertTrue(img.getHeight() > 0);
+            Assert.assertTrue(Arrays.equals(img.getRawBytes(), img.getImageAsBytes()));
+            try {
+                img.openRowReader();
+                Assert.fail("a jpeg can't be read row by row");
+            }
+            catch (UnsupportedPdfException e) {
+            }
+        } finally {
+            pdfReader.close();
+        }
+    }
+
+    private void testRows(PdfImageObject img, byte[] expected) throws Exception{
+        ImageRowReader rows = img.openRowReader();
+        byte[] row = new byte[rows.getRowLength()];
+        int n = 0;
+        while (rows.readRow(row)) {
+            for (int k = 0; k < row.length; ++k)
+                Assert.assertEquals(expected[n * row.length + k], row[k]);
+            ++n;
+        }
+        rows.close();
+        Assert.assertEquals(img.getHeight(), n);
+        Assert.assertEquals(expected.length, n * row.length);
+    }
+
+    @Test
+    public void testRowReaderWithFilters() throws Exception{
+        final PdfReader pdfReader = TestResourceUtils.getResourceAsPdfReader(this, "flatedecode_runlengthdecode.pdf");
+        try{
+            PdfImageObject img = getImage(pdfReader, 1, "Im9");
+            testRows(img, PdfReader.decodeBytes(img.getRawBytes(), img.getDictionary()));
+        } finally {
+            pdfReader.close();
+        }
+    }
+
+    @Test
+    public void testRowReaderWithPredictor() throws Exception{
+        int width = 37;
+        int height = 20;
+        byte[] samples = new byte[width * 3 * height];
+        for (int k = 0; k < samples.length; ++k)
+            samples[k] = (byte)(k * 7 + k / 11);
+        // apply every PNG filter type in turn
+        int stride = width * 3;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DeflaterOutputStream zip = new DeflaterOutputStream(baos);
+        for (int r = 0; r < height; ++r) {
+            int filter = r % 5;
+            zip.write(filter);
+            for (int i = 0; i < stride; ++i) {
+                int x = samples[r * stride + i] & 0xff;
+                int a = i >= 3 ? samples[r * stride + i - 3] & 0xff : 0;
+                int b = r > 0 ? samples[(r - 1) * stride + i] & 0xff : 0;
+                int c = i >= 3 && r > 0 ? samples[(r - 1) * stride + i - 3] & 0xff : 0;
+                int p;
+                if (filter == 1)
+                    p = a;
+                else if (filter == 2)
+                    p = b;
+                else if (filter == 3)
+                    p = (a + b) / 2;
+                else if (filter == 4) {
+                    int pa = Math.abs(b - c), pb = Math.abs(a - c), pc = Math.abs(a + b - 2 * c);
+                    p = pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+                }
+                else
+                    p = 0;
+                zip.write(x - p);
+            }
+        }
+        zip.close();
+
+        PdfDictionary dic = new PdfDictionary(PdfName.XOBJECT);
+        dic.put(PdfName.SUBTYPE, PdfName.IMAGE);
+        dic.put(PdfName.WIDTH, new PdfNumber(width));
+        dic.put(PdfName.HEIGHT, new PdfNumber(height));
+        dic.put(PdfName.BITSPERCOMPONENT, new PdfNumber(8));
+        dic.put(PdfName.COLORSPACE, PdfName.DEVICERGB);
+        dic.put(PdfName.FILTER, PdfName.FLATEDECODE);
+        PdfDictionary decodeParms = new PdfDictionary();
+        decodeParms.put(PdfName.PREDICTOR, new PdfNumber(15));
+        decodeParms.put(PdfName.COLORS, new PdfNumber(3));
+        decodeParms.put(PdfName.COLUMNS, new PdfNumber(width));
+        dic.put(PdfName.DECODEPARMS, decodeParms);
+        PdfImageObject img = new PdfImageObject(dic, baos.toByteArray(), null, true);
+        Assert.assertEquals(PdfImageObject.ImageBytesType.PNG, img.getImageBytesType());
+        Assert.assertTrue(Arrays.equals(samples, PdfReader.decodeBytes(img.getRawBytes(), dic)));
+        testRows(img, samples);
+        Assert.assertNotNull(img.getBufferedImage());
+    }
+
+
+    @Test
+    public void testLazyDecoding() throws Exception{
+        final PdfReader pdfReader = TestResourceUtils.getResourceAsPdfReader(this, "flatedecode_runlengthdecode.pdf");
+        PdfImageObject eager = getImage(pdfReader, 1, "Im9");
+        PdfDictionary resources = pdfReader.getPageResources(1);
+        PRStream stream = (PRStream)resources.getAsDict(PdfName.XOBJECT).getAsStream(new PdfName("Im9"));
+        PdfImageObject lazy = new PdfImageObject(stream, resources.getAsDict(PdfName.COLORSPACE), true);
+        Assert.assertEquals(eager.getWidth(), lazy.getWidth());
+        // a lazy image reads the stream when it's decoded, so the reader has to be open
+        pdfReader.close();
+        Assert.assertNotNull(eager.getBufferedImage());
+        try {
+            lazy.getImageAsBytes();
+            Assert.fail("the reader is closed");
+        }
+        catch (IllegalStateException e) {
+            // thrown by the closed byte array source of the reader
+        }
+    }
 }
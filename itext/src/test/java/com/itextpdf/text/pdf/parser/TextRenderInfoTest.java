@@ -83,6 +83,49 @@ public class TextRenderInfoTest {
     }
 
 
+    @Test
+    public void testGlyphRun() throws Exception {
+        byte[] bytes = createSimplePdf(PageSize.LETTER, "Hello glyph runs");
+        PdfReader r = new PdfReader(bytes);
+        final List<TextRenderInfo> infos = new ArrayList<TextRenderInfo>();
+        PdfTextExtractor.getTextFromPage(r, FIRST_PAGE, new SimpleTextExtractionStrategy() {
+            @Override
+            public void renderText(TextRenderInfo renderInfo) {
+                renderInfo.getGlyphRun();
+                infos.add(renderInfo);
+                super.renderText(renderInfo);
+            }
+        });
+        Assert.assertEquals(1, infos.size());
+        TextRenderInfo info = infos.get(0);
+        GlyphRun run = info.getGlyphRun();
+        Assert.assertSame(run, info.getGlyphRun());
+        Assert.assertEquals(info.getText().length(), run.size());
+
+        StringBuilder text = new StringBuilder();
+        float offset = 0;
+        for (int i = 0; i < run.size(); i++) {
+            text.append(run.getText(i));
+            Assert.assertEquals(info.getText().charAt(i), run.getCode(i));
+            Assert.assertEquals(offset, run.getOffset(i), 0);
+            offset += run.getAdvance(i);
+        }
+        Assert.assertEquals(info.getText(), text.toString());
+        Assert.assertEquals(offset, run.getWidth(), 0);
+
+        List<TextRenderInfo> glyphs = info.getCharacterRenderInfos();
+        Assert.assertEquals(run.size(), glyphs.size());
+        Assert.assertEquals(info.getBaseline().getStartPoint(), run.getBaseline(0).getStartPoint());
+        for (int i = 0; i < run.size(); i++) {
+            Assert.assertEquals(run.getText(i), glyphs.get(i).getText());
+            Assert.assertEquals(run.getBaseline(i).getStartPoint(), glyphs.get(i).getBaseline().getStartPoint());
+        }
+        Vector end = info.getBaseline().getEndPoint();
+        Vector lastEnd = run.getBaseline(run.size() - 1).getEndPoint();
+        Assert.assertEquals(end.get(Vector.I1), lastEnd.get(Vector.I1), 1e-3);
+        Assert.assertEquals(end.get(Vector.I2), lastEnd.get(Vector.I2), 1e-3);
+    }
+
     private static class TextPositionRenderListener implements RenderListener {
 
         List<LineSegment> lineSegments = new ArrayList<LineSegment>();
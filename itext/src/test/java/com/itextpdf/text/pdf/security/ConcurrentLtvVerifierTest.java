@@ -0,0 +1,215 @@
+package com.itextpdf.text.pdf.security;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSignatureAppearance;
+import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.PdfStream;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CRLConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+
+public class ConcurrentLtvVerifierTest {
+
+    private static KeyPair keyPair;
+    private static Certificate[] chain;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        keyPair = generator.generateKeyPair();
+        X500Name name = new X500Name("CN=Verifier Test");
+        Date now = new Date();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE,
+                new Date(now.getTime() - 3600000), new Date(now.getTime() + 3600000), name, keyPair.getPublic());
+        chain = new Certificate[] {new JcaX509CertificateConverter().setProvider("BC")
+                .getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())))};
+    }
+
+    private static byte[] sign(byte[] pdf, String field, float y) throws Exception {
+        return sign(pdf, field, y, keyPair.getPrivate(), chain);
+    }
+
+    private static byte[] sign(byte[] pdf, String field, float y, PrivateKey key, Certificate[] chain) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = PdfStamper.createSignature(new PdfReader(pdf), out, '\0', null, true);
+        PdfSignatureAppearance sap = stamper.getSignatureAppearance();
+        sap.setVisibleSignature(new Rectangle(36, y, 236, y + 50), 1, field);
+        MakeSignature.signDetached(sap, new BouncyCastleDigest(), new PrivateKeySignature(key, "SHA-256", "BC"),
+                chain, null, null, null, 0, MakeSignature.CryptoStandard.CMS);
+        return out.toByteArray();
+    }
+
+    private static byte[] createSignedDocument() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        document.add(new Paragraph("Signed twice"));
+        document.close();
+        return sign(sign(baos.toByteArray(), "first", 700), "second", 600);
+    }
+
+    @Test
+    public void verifyReportTest() throws Exception {
+        byte[] pdf = createSignedDocument();
+        KeyStore rootStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        rootStore.load(null, null);
+        rootStore.setCertificateEntry("root", chain[0]);
+
+        for (int threads = 1; threads <= 2; ++threads) {
+            PdfReader reader = new PdfReader(pdf);
+            ConcurrentLtvVerifier verifier = new ConcurrentLtvVerifier(reader);
+            verifier.setRootStore(rootStore);
+            verifier.setOnlineCheckingAllowed(false);
+            verifier.setThreads(threads);
+            List<SignatureVerificationReport> reports = verifier.verify();
+            reader.close();
+
+            Assert.assertEquals(2, reports.size());
+            Assert.assertEquals("second", reports.get(0).getSignatureName());
+            Assert.assertEquals(2, reports.get(0).getRevision());
+            Assert.assertEquals("first", reports.get(1).getSignatureName());
+            Assert.assertEquals(1, reports.get(1).getRevision());
+            for (SignatureVerificationReport report : reports) {
+                Assert.assertTrue(report.toString(), report.isValid());
+                Assert.assertFalse(report.isTimestamp());
+                Assert.assertEquals(1, report.getVerifications().size());
+                Assert.assertTrue(report.getTime(SignatureVerificationReport.Step.PKCS7) > 0);
+                Assert.assertTrue(report.getTime(SignatureVerificationReport.Step.REVOCATION) > 0);
+            }
+            // the older signature is checked on the date of the one that follows it
+            Assert.assertFalse(reports.get(1).getVerificationDate().after(reports.get(0).getVerificationDate()));
+        }
+    }
+
+    @Test
+    public void verifyWithoutTrustAnchorTest() throws Exception {
+        PdfReader reader = new PdfReader(createSignedDocument());
+        ConcurrentLtvVerifier verifier = new ConcurrentLtvVerifier(reader);
+        verifier.setOnlineCheckingAllowed(false);
+        verifier.setThreads(2);
+        List<SignatureVerificationReport> reports = verifier.verify();
+        reader.close();
+
+        Assert.assertEquals(2, reports.size());
+        for (SignatureVerificationReport report : reports) {
+            Assert.assertFalse(report.isValid());
+            Assert.assertTrue(report.getError() instanceof VerificationException);
+            Assert.assertTrue(report.getTime(SignatureVerificationReport.Step.INTEGRITY) > 0);
+        }
+    }
+
+    @Test
+    public void verifyDamagedSignatureTest() throws Exception {
+        byte[] pdf = createSignedDocument();
+        // damage the latest signature, the signature dictionary that comes last in the file
+        byte[] contents = "/Contents <".getBytes("ISO-8859-1");
+        int offset = lastIndexOf(pdf, contents) + contents.length;
+        for (int i = 0; i < 32; ++i)
+            pdf[offset + i] = '0';
+        KeyStore rootStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        rootStore.load(null, null);
+        rootStore.setCertificateEntry("root", chain[0]);
+
+        for (int threads = 1; threads <= 2; ++threads) {
+            PdfReader reader = new PdfReader(pdf);
+            ConcurrentLtvVerifier verifier = new ConcurrentLtvVerifier(reader);
+            verifier.setRootStore(rootStore);
+            verifier.setOnlineCheckingAllowed(false);
+            verifier.setThreads(threads);
+            List<SignatureVerificationReport> reports = verifier.verify();
+            reader.close();
+
+            Assert.assertEquals(2, reports.size());
+            Assert.assertEquals("second", reports.get(0).getSignatureName());
+            Assert.assertNotNull(reports.get(0).getError());
+            Assert.assertTrue(reports.get(1).toString(), reports.get(1).isValid());
+        }
+    }
+
+    private static int lastIndexOf(byte[] data, byte[] pattern) {
+        for (int i = data.length - pattern.length; i >= 0; --i) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j])
+                ++j;
+            if (j == pattern.length)
+                return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void verifyWithCrlInDssTest() throws Exception {
+        // a certificate issued by a CA that isn't trusted, and a CRL of that CA
+        Date now = new Date();
+        X500Name caName = new X500Name("CN=Verifier Test CA");
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        KeyPair caKeys = generator.generateKeyPair();
+        KeyPair signerKeys = generator.generateKeyPair();
+        JcaContentSignerBuilder signerBuilder = new JcaContentSignerBuilder("SHA256withRSA");
+        JcaX509CertificateConverter converter = new JcaX509CertificateConverter().setProvider("BC");
+        X509Certificate ca = converter.getCertificate(new JcaX509v3CertificateBuilder(caName, BigInteger.ONE,
+                new Date(now.getTime() - 3600000), new Date(now.getTime() + 3600000), caName, caKeys.getPublic())
+                .build(signerBuilder.build(caKeys.getPrivate())));
+        X509Certificate signer = converter.getCertificate(new JcaX509v3CertificateBuilder(caName, BigInteger.valueOf(2),
+                new Date(now.getTime() - 3600000), new Date(now.getTime() + 3600000), new X500Name("CN=Verifier Test Signer"), signerKeys.getPublic())
+                .build(signerBuilder.build(caKeys.getPrivate())));
+        X509v2CRLBuilder crlBuilder = new X509v2CRLBuilder(caName, new Date(now.getTime() - 3600000));
+        crlBuilder.setNextUpdate(new Date(now.getTime() + 3600000));
+        X509CRL crl = new JcaX509CRLConverter().setProvider("BC").getCRL(crlBuilder.build(signerBuilder.build(caKeys.getPrivate())));
+
+        // the DSS is part of the revision that the signature covers
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        document.add(new Paragraph("Signed with a CRL"));
+        PdfArray crls = new PdfArray();
+        crls.add(writer.addToBody(new PdfStream(crl.getEncoded())).getIndirectReference());
+        PdfDictionary dss = new PdfDictionary();
+        dss.put(PdfName.CRLS, crls);
+        writer.getExtraCatalog().put(PdfName.DSS, dss);
+        document.close();
+        byte[] pdf = sign(baos.toByteArray(), "sig", 700, signerKeys.getPrivate(), new Certificate[] {signer, ca});
+
+        PdfReader reader = new PdfReader(pdf);
+        ConcurrentLtvVerifier verifier = new ConcurrentLtvVerifier(reader);
+        verifier.setOnlineCheckingAllowed(false);
+        List<SignatureVerificationReport> reports = verifier.verify();
+        reader.close();
+
+        Assert.assertEquals(1, reports.size());
+        Assert.assertTrue(reports.get(0).toString(), reports.get(0).isValid());
+        Assert.assertTrue(reports.get(0).getVerifications().get(0).toString().contains("Valid CRLs found: 1"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.itextpdf.text.pdf.security;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CrlClientCachedTest {
+
+    private static KeyPair keyPair;
+    private static X509Certificate cert;
+    private HttpServer server;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        keyPair = generator.generateKeyPair();
+        X500Name name = new X500Name("CN=Test CA");
+        Date now = new Date();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.TEN,
+                new Date(now.getTime() - 60000), new Date(now.getTime() + 3600000), name, keyPair.getPublic());
+        cert = new JcaX509CertificateConverter().setProvider("BC").getCertificate(builder.build(signer()));
+    }
+
+    private static ContentSigner signer() throws Exception {
+        return new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate());
+    }
+
+    private static byte[] createCrl(long nextUpdateOffset) throws Exception {
+        Date now = new Date();
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(new X500Name("CN=Test CA"), now);
+        builder.setNextUpdate(new Date(now.getTime() + nextUpdateOffset));
+        return builder.build(signer()).getEncoded();
+    }
+
+    /**
+     * Starts a local responder serving a CRL and counting the requests.
+     */
+    private String serve(final byte[] crl, final AtomicInteger requests) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ca.crl", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Type", "application/pkix-crl");
+                exchange.sendResponseHeaders(200, crl.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(crl);
+                os.close();
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/ca.crl";
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null)
+            server.stop(0);
+    }
+
+    @Test
+    public void crlIsDownloadedOnceUntilNextUpdate() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        final String url = serve(createCrl(3600000), requests);
+        final CrlClient client = new CrlClientCached(new CrlClientOnline());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Collection<byte[]>>> futures = new ArrayList<Future<Collection<byte[]>>>();
+        for (int i = 0; i < 16; ++i) {
+            futures.add(executor.submit(new Callable<Collection<byte[]>>() {
+                public Collection<byte[]> call() {
+                    return client.getEncoded(cert, url);
+                }
+            }));
+        }
+        for (Future<Collection<byte[]>> future : futures)
+            Assert.assertEquals(1, future.get().size());
+        executor.shutdown();
+        Assert.assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void expiredCrlIsDownloadedAgain() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        String url = serve(createCrl(-1000), requests);
+        CrlClient client = new CrlClientCached(new CrlClientOnline());
+        Assert.assertEquals(1, client.getEncoded(cert, url).size());
+        Assert.assertEquals(1, client.getEncoded(cert, url).size());
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void ocspResponseIsCachedUntilNextUpdate() throws Exception {
+        Date now = new Date();
+        CertificateID id = new CertificateID(new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                new JcaX509CertificateHolder(cert), cert.getSerialNumber());
+        BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(new X500Name("CN=Test CA")));
+        builder.addResponse(id, CertificateStatus.GOOD, now, new Date(now.getTime() + 3600000), null);
+        final byte[] response = builder.build(signer(), null, now).getEncoded();
+        final AtomicInteger requests = new AtomicInteger();
+        OcspClient client = new OcspClientCached(new OcspClient() {
+            public byte[] getEncoded(X509Certificate checkCert, X509Certificate rootCert, String url) {
+                requests.incrementAndGet();
+                return response;
+            }
+        });
+        Assert.assertArrayEquals(response, client.getEncoded(cert, cert, null));
+        Assert.assertArrayEquals(response, client.getEncoded(cert, cert, null));
+        Assert.assertEquals(1, requests.get());
+    }
+}
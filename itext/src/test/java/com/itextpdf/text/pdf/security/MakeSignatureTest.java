@@ -0,0 +1,151 @@
+package com.itextpdf.text.pdf.security;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.AcroFields;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSignatureAppearance;
+import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class MakeSignatureTest {
+
+    private static KeyPair keyPair;
+    private static Certificate[] chain;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        keyPair = generator.generateKeyPair();
+        X500Name name = new X500Name("CN=Batch Test");
+        Date now = new Date();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE,
+                new Date(now.getTime() - 60000), new Date(now.getTime() + 3600000), name, keyPair.getPublic());
+        chain = new Certificate[] {new JcaX509CertificateConverter().setProvider("BC")
+                .getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())))};
+    }
+
+    private static byte[] createDocument(int index) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        document.add(new Paragraph("Statement " + index));
+        document.close();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void signDetachedBatchTest() throws Exception {
+        final int[] calls = new int[1];
+        final ExternalSignature single = new PrivateKeySignature(keyPair.getPrivate(), "SHA-256", "BC");
+        ExternalBatchSignature batch = new ExternalBatchSignature() {
+            public String getHashAlgorithm() {
+                return single.getHashAlgorithm();
+            }
+
+            public String getEncryptionAlgorithm() {
+                return single.getEncryptionAlgorithm();
+            }
+
+            public byte[][] sign(byte[][] messages) throws GeneralSecurityException {
+                ++calls[0];
+                return new ConcurrentBatchSignature(single, 3).sign(messages);
+            }
+        };
+
+        List<PdfSignatureAppearance> saps = new ArrayList<PdfSignatureAppearance>();
+        List<ByteArrayOutputStream> outputs = new ArrayList<ByteArrayOutputStream>();
+        for (int i = 0; i < 5; ++i) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            PdfStamper stamper = PdfStamper.createSignature(new PdfReader(createDocument(i)), out, '\0');
+            PdfSignatureAppearance sap = stamper.getSignatureAppearance();
+            sap.setReason("Statement " + i);
+            saps.add(sap);
+            outputs.add(out);
+        }
+        MakeSignature.signDetached(saps, new BouncyCastleDigest(), batch, chain, null, null, null, 0, MakeSignature.CryptoStandard.CMS);
+
+        Assert.assertEquals(1, calls[0]);
+        for (int i = 0; i < outputs.size(); ++i) {
+            PdfReader reader = new PdfReader(outputs.get(i).toByteArray());
+            AcroFields fields = reader.getAcroFields();
+            String name = fields.getSignatureNames().get(0);
+            Assert.assertTrue(fields.signatureCoversWholeDocument(name));
+            PdfPKCS7 pkcs7 = fields.verifySignature(name);
+            Assert.assertTrue("Document " + i, pkcs7.verify());
+            Assert.assertEquals("Statement " + i, pkcs7.getReason());
+            reader.close();
+        }
+    }
+
+    @Test
+    public void failedBatchIsAbortedTest() throws Exception {
+        final ExternalSignature single = new PrivateKeySignature(keyPair.getPrivate(), "SHA-256", "BC");
+        ExternalBatchSignature batch = new ExternalBatchSignature() {
+            public String getHashAlgorithm() {
+                return single.getHashAlgorithm();
+            }
+
+            public String getEncryptionAlgorithm() {
+                return single.getEncryptionAlgorithm();
+            }
+
+            public byte[][] sign(byte[][] messages) throws GeneralSecurityException {
+                // one signature short
+                byte[][] signatures = new byte[messages.length - 1][];
+                for (int k = 0; k < signatures.length; ++k)
+                    signatures[k] = single.sign(messages[k]);
+                return signatures;
+            }
+        };
+
+        File tempDir = new File("./target/com/itextpdf/text/pdf/security/MakeSignatureTest/failedBatch");
+        tempDir.mkdirs();
+        for (File f : tempDir.listFiles())
+            f.delete();
+        final int[] closed = new int[1];
+        List<PdfSignatureAppearance> saps = new ArrayList<PdfSignatureAppearance>();
+        for (int i = 0; i < 3; ++i) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    ++closed[0];
+                }
+            };
+            PdfStamper stamper = PdfStamper.createSignature(new PdfReader(createDocument(i)), out, '\0', tempDir);
+            saps.add(stamper.getSignatureAppearance());
+        }
+        try {
+            MakeSignature.signDetached(saps, new BouncyCastleDigest(), batch, chain, null, null, null, 0, MakeSignature.CryptoStandard.CMS);
+            Assert.fail("the batch returned too few signatures");
+        }
+        catch (GeneralSecurityException e) {
+        }
+        // every appearance released its temporary file and its output
+        Assert.assertEquals(3, closed[0]);
+        Assert.assertEquals(0, tempDir.listFiles().length);
+    }
+}
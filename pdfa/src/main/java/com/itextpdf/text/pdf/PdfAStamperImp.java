@@ -212,6 +212,14 @@ public class PdfAStamperImp extends PdfStamperImp {
         }
     }
 
+    /**
+     * Objects copied byte for byte wouldn't pass through the PDF/A checker.
+     */
+    @Override
+    protected boolean canCopyUnloadedObjects() {
+        return false;
+    }
+
     @Override
     protected void cacheObject(PdfIndirectObject iobj) {
         getPdfAChecker().cacheObject(iobj.getIndirectReference(), iobj.object);
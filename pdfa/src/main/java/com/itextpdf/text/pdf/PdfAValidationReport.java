@@ -0,0 +1,201 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Alexander Chingarev, Bruno Lowagie, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The outcome of a {@link PdfAValidator} run: every conformance problem that was found,
+ * instead of only the first one.
+ */
+public class PdfAValidationReport {
+
+    /**
+     * A single conformance problem.
+     */
+    public static class Issue {
+        private final int objectNumber;
+        private final int generation;
+        private final int pageNumber;
+        private final int checkKey;
+        private final String message;
+        private final RuntimeException cause;
+
+        Issue(int objectNumber, int generation, int pageNumber, int checkKey, String message, RuntimeException cause) {
+            this.objectNumber = objectNumber;
+            this.generation = generation;
+            this.pageNumber = pageNumber;
+            this.checkKey = checkKey;
+            this.message = message;
+            this.cause = cause;
+        }
+
+        /**
+         * @return the number of the indirect object the problem was found in, or 0 for the trailer
+         */
+        public int getObjectNumber() {
+            return objectNumber;
+        }
+
+        /**
+         * @return the generation of the indirect object the problem was found in
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * @return the page whose content stream caused the problem, or 0 if it was found in an object
+         */
+        public int getPageNumber() {
+            return pageNumber;
+        }
+
+        /**
+         * @return the {@link com.itextpdf.text.pdf.internal.PdfIsoKeys} key of the check that failed
+         */
+        public int getCheckKey() {
+            return checkKey;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return the exception thrown by the check; a {@link PdfAConformanceException} for
+         * conformance problems, any other exception if the check itself could not be performed
+         */
+        public RuntimeException getCause() {
+            return cause;
+        }
+
+        /**
+         * @return true if the check could not be performed, rather than finding a problem
+         */
+        public boolean isCheckFailure() {
+            return !(cause instanceof PdfAConformanceException);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder();
+            if (pageNumber > 0)
+                buf.append("page ").append(pageNumber).append(": ");
+            else if (objectNumber > 0)
+                buf.append(objectNumber).append(' ').append(generation).append(" R: ");
+            else
+                buf.append("trailer: ");
+            return buf.append(message).toString();
+        }
+    }
+
+    private final PdfAConformanceLevel conformanceLevel;
+    private final List<Issue> issues;
+    private final int checkedObjects;
+    private final int checkedPages;
+    private final long elapsedMillis;
+
+    PdfAValidationReport(PdfAConformanceLevel conformanceLevel, List<Issue> issues, int checkedObjects, int checkedPages, long elapsedMillis) {
+        ArrayList<Issue> sorted = new ArrayList<Issue>(issues);
+        Collections.sort(sorted, new Comparator<Issue>() {
+            public int compare(Issue i1, Issue i2) {
+                if (i1.pageNumber != i2.pageNumber)
+                    return i1.pageNumber < i2.pageNumber ? -1 : 1;
+                if (i1.objectNumber != i2.objectNumber)
+                    return i1.objectNumber < i2.objectNumber ? -1 : 1;
+                return 0;
+            }
+        });
+        this.conformanceLevel = conformanceLevel;
+        this.issues = Collections.unmodifiableList(sorted);
+        this.checkedObjects = checkedObjects;
+        this.checkedPages = checkedPages;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public PdfAConformanceLevel getConformanceLevel() {
+        return conformanceLevel;
+    }
+
+    /**
+     * @return true if no problem was found
+     */
+    public boolean isCompliant() {
+        return issues.isEmpty();
+    }
+
+    /**
+     * @return all problems, object issues first (by object number), then content issues by page
+     */
+    public List<Issue> getIssues() {
+        return issues;
+    }
+
+    public int getCheckedObjects() {
+        return checkedObjects;
+    }
+
+    public int getCheckedPages() {
+        return checkedPages;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append(conformanceLevel).append(": ").append(issues.size()).append(" issue(s) in ")
+                .append(checkedObjects).append(" objects and ").append(checkedPages).append(" pages, ")
+                .append(elapsedMillis).append(" ms");
+        for (Issue issue : issues)
+            buf.append('\n').append(issue);
+        return buf.toString();
+    }
+}
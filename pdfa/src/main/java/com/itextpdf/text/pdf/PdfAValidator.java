@@ -0,0 +1,430 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Alexander Chingarev, Bruno Lowagie, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.internal.PdfIsoKeys;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates an existing document against a PDF/A conformance level in a single pass,
+ * collecting every problem in a {@link PdfAValidationReport} instead of stopping at the
+ * first {@link PdfAConformanceException}.
+ * <p>
+ * All objects are read once on the calling thread; the checks themselves then run on a
+ * pool of worker threads. Each indirect object is checked exactly once, so resources
+ * shared by many pages (fonts, images, graphics states) are not checked again per page.
+ * The PDF/A checkers keep state, so every worker thread uses its own checker instance.
+ * <p>
+ * The checks are the ones {@link PdfAWriter} applies while writing: object limits,
+ * streams, images, fonts, graphics states, annotations, actions, file specifications,
+ * the interactive form, optional content, output intents, the trailer and the
+ * graphics state nesting of the page content streams. Checks that depend on how the
+ * content is drawn (device colour usage, transparency on a page) and the structure
+ * element checks are not performed.
+ */
+public class PdfAValidator {
+
+    /** The number of consecutive objects checked by one task. */
+    private static final int OBJECTS_PER_TASK = 64;
+
+    private static final HashSet<PdfName> actionTypes = new HashSet<PdfName>(Arrays.asList(
+            PdfName.GOTO, PdfName.GOTOR, PdfName.GOTOE, PdfName.LAUNCH, PdfName.URI,
+            PdfName.SOUND, PdfName.MOVIE, PdfName.HIDE, PdfName.NAMED, PdfName.SUBMITFORM, PdfName.RESETFORM,
+            PdfName.IMPORTDATA, PdfName.JAVASCRIPT, PdfName.SETOCGSTATE, PdfName.RENDITION, PdfName.TRANS,
+            PdfName.GOTO3DVIEW));
+
+    private final PdfAConformanceLevel conformanceLevel;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a validator for a conformance level.
+     * @param conformanceLevel the level to validate against
+     */
+    public PdfAValidator(PdfAConformanceLevel conformanceLevel) {
+        this.conformanceLevel = conformanceLevel;
+    }
+
+    public PdfAConformanceLevel getConformanceLevel() {
+        return conformanceLevel;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of worker threads; defaults to the number of available processors.
+     * @param threads the number of worker threads
+     * @return this validator
+     */
+    public PdfAValidator setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Validates a document. The reader may be opened in partial mode; it must not be
+     * used by other threads while it is validated.
+     * @param reader the document to validate
+     * @return the report listing all problems found
+     * @throws IOException on error reading the document
+     */
+    public PdfAValidationReport validate(final PdfReader reader) throws IOException {
+        long start = System.currentTimeMillis();
+        final int size = reader.getXrefSize();
+        // read everything up front, so the worker threads never touch the file
+        for (int k = 1; k < size; ++k)
+            reader.getPdfObject(k);
+
+        PdfDictionary catalog = reader.getCatalog();
+        final ConcurrentLinkedQueue<PdfAValidationReport.Issue> issues = new ConcurrentLinkedQueue<PdfAValidationReport.Issue>();
+        final AtomicInteger checkedObjects = new AtomicInteger();
+        final ThreadLocal<PdfWriter> contexts = createContexts(getColorProfile(catalog));
+
+        checkCatalogEntries(contexts.get(), reader, catalog, issues);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int first = 1; first < size; first += OBJECTS_PER_TASK) {
+                final int from = first;
+                final int to = Math.min(size, first + OBJECTS_PER_TASK);
+                futures.add(pool.submit(new Runnable() {
+                    public void run() {
+                        PdfWriter context = contexts.get();
+                        for (int k = from; k < to; ++k) {
+                            PdfObject obj = reader.getPdfObject(k);
+                            if (obj == null)
+                                continue;
+                            int generation = obj.getIndRef() == null ? 0 : obj.getIndRef().getGeneration();
+                            checkObject(context, obj, k, generation, issues);
+                            checkedObjects.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            // page contents are read here, the tokenizing happens on the pool
+            final Semaphore pending = new Semaphore(threads * 2);
+            int pages = reader.getNumberOfPages();
+            for (int p = 1; p <= pages; ++p) {
+                final int page = p;
+                final PdfIndirectReference pageRef = reader.getPageOrigRef(p);
+                final byte[] content = reader.getPageContent(p);
+                pending.acquire();
+                futures.add(pool.submit(new Runnable() {
+                    public void run() {
+                        try {
+                            checkContent(contexts.get(), content, pageRef, page, issues);
+                        }
+                        finally {
+                            pending.release();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+            return new PdfAValidationReport(conformanceLevel, new ArrayList<PdfAValidationReport.Issue>(issues),
+                    checkedObjects.get(), pages, System.currentTimeMillis() - start);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (ExecutionException e) {
+            throw new ExceptionConverter(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates one non-opened writer per thread to run the checks with.
+     */
+    private ThreadLocal<PdfWriter> createContexts(final ICC_Profile colorProfile) {
+        return new ThreadLocal<PdfWriter>() {
+            @Override
+            protected PdfWriter initialValue() {
+                try {
+                    PdfAWriter writer = PdfAWriter.getInstance(new Document(), new ByteArrayOutputStream(), conformanceLevel);
+                    writer.colorProfile = colorProfile;
+                    return writer;
+                }
+                catch (DocumentException e) {
+                    throw new ExceptionConverter(e);
+                }
+            }
+        };
+    }
+
+    private static ICC_Profile getColorProfile(PdfDictionary catalog) throws IOException {
+        PdfArray outputIntents = catalog.getAsArray(PdfName.OUTPUTINTENTS);
+        if (outputIntents == null)
+            return null;
+        for (int k = 0; k < outputIntents.size(); ++k) {
+            PdfDictionary outputIntent = outputIntents.getAsDict(k);
+            if (outputIntent == null)
+                continue;
+            PdfObject profile = PdfReader.getPdfObject(outputIntent.get(PdfName.DESTOUTPUTPROFILE));
+            if (profile instanceof PRStream) {
+                try {
+                    return ICC_Profile.getInstance(PdfReader.getStreamBytes((PRStream) profile));
+                }
+                catch (RuntimeException e) {
+                    // reported by the output intent check
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the entries whose checks depend on each other or on the document as a whole.
+     */
+    private void checkCatalogEntries(PdfWriter context, PdfReader reader, PdfDictionary catalog, ConcurrentLinkedQueue<PdfAValidationReport.Issue> issues) {
+        PdfWriter.PdfTrailer trailer = new PdfWriter.PdfTrailer(0, 0, null, null, null, null, 0);
+        trailer.putAll(reader.getTrailer());
+        check(context, PdfIsoKeys.PDFISOKEY_TRAILER, trailer, 0, 0, 0, issues);
+
+        PdfArray outputIntents = catalog.getAsArray(PdfName.OUTPUTINTENTS);
+        if (outputIntents != null) {
+            for (int k = 0; k < outputIntents.size(); ++k) {
+                PdfDictionary outputIntent = outputIntents.getAsDict(k);
+                if (outputIntent != null)
+                    check(context, PdfIsoKeys.PDFISOKEY_OBJECT, outputIntent, refNumber(outputIntents.getPdfObject(k)), 0, 0, issues);
+            }
+        }
+        PdfDictionary ocProperties = catalog.getAsDict(PdfName.OCPROPERTIES);
+        if (ocProperties != null) {
+            PdfOCProperties properties = new PdfOCProperties();
+            properties.putAll(ocProperties);
+            check(context, PdfIsoKeys.PDFISOKEY_LAYER, properties, refNumber(catalog.get(PdfName.OCPROPERTIES)), 0, 0, issues);
+        }
+        PdfDictionary acroForm = catalog.getAsDict(PdfName.ACROFORM);
+        if (acroForm != null) {
+            PdfAcroForm form = new PdfAcroForm(context);
+            form.putAll(acroForm);
+            check(context, PdfIsoKeys.PDFISOKEY_FORM, form, refNumber(catalog.get(PdfName.ACROFORM)), 0, 0, issues);
+        }
+    }
+
+    private static int refNumber(PdfObject obj) {
+        return obj instanceof PdfIndirectReference ? ((PdfIndirectReference) obj).getNumber() : 0;
+    }
+
+    /**
+     * Checks an object and the direct objects it contains. Indirect objects it refers to
+     * are checked on their own.
+     */
+    private void checkObject(PdfWriter context, PdfObject obj, int number, int generation, ConcurrentLinkedQueue<PdfAValidationReport.Issue> issues) {
+        switch (obj.type()) {
+            case PdfObject.STREAM:
+            case PdfObject.DICTIONARY:
+                PdfDictionary dict = (PdfDictionary) obj;
+                PdfName type = dict.getAsName(PdfName.TYPE);
+                // output intents were checked in order by checkCatalogEntries
+                if (PdfName.OUTPUTINTENT.equals(type))
+                    return;
+                check(context, PdfIsoKeys.PDFISOKEY_OBJECT, dict, number, generation, 0, issues);
+                checkDictionary(context, dict, type, number, generation, issues);
+                for (PdfName key : dict.getKeys()) {
+                    PdfObject value = dict.get(key);
+                    if (value != null && !value.isIndirect())
+                        checkObject(context, value, number, generation, issues);
+                }
+                break;
+            case PdfObject.ARRAY:
+                PdfArray array = (PdfArray) obj;
+                check(context, PdfIsoKeys.PDFISOKEY_OBJECT, array, number, generation, 0, issues);
+                for (int k = 0; k < array.size(); ++k) {
+                    PdfObject value = array.getPdfObject(k);
+                    if (value != null && !value.isIndirect())
+                        checkObject(context, value, number, generation, issues);
+                }
+                break;
+            case PdfObject.STRING:
+            case PdfObject.NUMBER:
+                check(context, PdfIsoKeys.PDFISOKEY_OBJECT, obj, number, generation, 0, issues);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Runs the checks the writer applies to specific kinds of dictionaries, wrapping the
+     * dictionary in the class the checker expects where needed.
+     */
+    private void checkDictionary(PdfWriter context, PdfDictionary dict, PdfName type, int number, int generation, ConcurrentLinkedQueue<PdfAValidationReport.Issue> issues) {
+        PdfName subtype = dict.getAsName(PdfName.SUBTYPE);
+        if (dict.isStream()) {
+            check(context, PdfIsoKeys.PDFISOKEY_STREAM, dict, number, generation, 0, issues);
+            if (PdfName.IMAGE.equals(subtype))
+                check(context, PdfIsoKeys.PDFISOKEY_IMAGE, dict, number, generation, 0, issues);
+        }
+        else if (PdfName.FONT.equals(type)) {
+            // descendant fonts are checked through their Type0 parent
+            if (!PdfName.CIDFONTTYPE0.equals(subtype) && !PdfName.CIDFONTTYPE2.equals(subtype))
+                check(context, PdfIsoKeys.PDFISOKEY_FONT, dict, number, generation, 0, issues);
+        }
+        else if (PdfName.EXTGSTATE.equals(type)) {
+            check(context, PdfIsoKeys.PDFISOKEY_GSTATE, dict, number, generation, 0, issues);
+        }
+        else if (PdfName.ANNOT.equals(type) || type == null && subtype != null && dict.contains(PdfName.RECT)) {
+            PdfAnnotation annotation;
+            if (PdfName.WIDGET.equals(subtype) || dict.contains(PdfName.FT))
+                annotation = new PdfFormField(context);
+            else
+                annotation = new PdfAnnotation(context, null);
+            annotation.putAll(dict);
+            check(context, PdfIsoKeys.PDFISOKEY_ANNOTATION, annotation, number, generation, 0, issues);
+        }
+        else if (PdfName.ACTION.equals(type) || type == null && actionTypes.contains(dict.getAsName(PdfName.S))) {
+            PdfAction action = new PdfAction();
+            action.putAll(dict);
+            check(context, PdfIsoKeys.PDFISOKEY_ACTION, action, number, generation, 0, issues);
+        }
+        else if (PdfName.FILESPEC.equals(type)) {
+            PdfFileSpecification fs = new PdfFileSpecification();
+            fs.putAll(dict);
+            check(context, PdfIsoKeys.PDFISOKEY_FILESPEC, fs, number, generation, 0, issues);
+        }
+    }
+
+    /**
+     * Checks the graphics state nesting of a page content stream.
+     */
+    private void checkContent(PdfWriter context, byte[] content, PdfIndirectReference pageRef, int page, ConcurrentLinkedQueue<PdfAValidationReport.Issue> issues) {
+        int number = pageRef == null ? 0 : pageRef.getNumber();
+        int generation = pageRef == null ? 0 : pageRef.getGeneration();
+        int depth = 0;
+        boolean reported = false;
+        try {
+            PRTokeniser tokeniser = new PRTokeniser(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(content)));
+            while (tokeniser.nextToken()) {
+                if (tokeniser.getTokenType() != PRTokeniser.TokenType.OTHER)
+                    continue;
+                String operator = tokeniser.getStringValue();
+                if ("q".equals(operator)) {
+                    ++depth;
+                    if (!check(context, PdfIsoKeys.PDFISOKEY_CANVAS, operator, number, generation, reported ? -1 : page, issues))
+                        reported = true;
+                }
+                else if ("Q".equals(operator)) {
+                    --depth;
+                    check(context, PdfIsoKeys.PDFISOKEY_CANVAS, operator, number, generation, page, issues);
+                }
+                else if ("ID".equals(operator)) {
+                    tokeniser.seek(skipInlineImageData(content, (int) tokeniser.getFilePointer()));
+                }
+            }
+        }
+        catch (IOException e) {
+            issues.add(new PdfAValidationReport.Issue(number, generation, page, PdfIsoKeys.PDFISOKEY_CANVAS, e.getMessage(), new ExceptionConverter(e)));
+        }
+        finally {
+            // leave the checker of this thread balanced for the next page
+            for (; depth > 0; --depth)
+                check(context, PdfIsoKeys.PDFISOKEY_CANVAS, "Q", number, generation, -1, issues);
+            for (; depth < 0; ++depth)
+                check(context, PdfIsoKeys.PDFISOKEY_CANVAS, "q", number, generation, -1, issues);
+        }
+    }
+
+    /**
+     * Returns the position right after the EI operator ending inline image data.
+     */
+    private static int skipInlineImageData(byte[] content, int position) {
+        // the ID operator is followed by a single white space
+        for (int k = position + 1; k + 1 < content.length; ++k) {
+            if (content[k] == 'E' && content[k + 1] == 'I' && PRTokeniser.isWhitespace(content[k - 1] & 0xff)
+                    && (k + 2 == content.length || PRTokeniser.isWhitespace(content[k + 2] & 0xff)))
+                return k + 2;
+        }
+        return content.length;
+    }
+
+    /**
+     * Runs a single check and records the problem, if any.
+     * @param page the page to report, or -1 to not record the problem at all
+     * @return false if the check failed
+     */
+    private static boolean check(PdfWriter context, int key, Object obj, int number, int generation, int page, ConcurrentLinkedQueue<PdfAValidationReport.Issue> issues) {
+        try {
+            PdfWriter.checkPdfIsoConformance(context, key, obj);
+            return true;
+        }
+        catch (PdfAConformanceException e) {
+            if (page >= 0)
+                issues.add(new PdfAValidationReport.Issue(number, generation, page, key, e.getMessage(), e));
+        }
+        catch (RuntimeException e) {
+            if (page >= 0)
+                issues.add(new PdfAValidationReport.Issue(number, generation, page, key, "check failed: " + e, e));
+        }
+        return false;
+    }
+}
@@ -96,20 +96,13 @@ public class PdfA1Checker extends PdfAChecker {
 
     @Override
     protected void checkFont(PdfWriter writer, int key, Object obj1) {
+        if (obj1 instanceof PdfDictionary) {
+            checkFontDictionary((PdfDictionary) obj1);
+            return;
+        }
         BaseFont bf = (BaseFont) obj1;
         if (bf.getFontType() == BaseFont.FONT_TYPE_DOCUMENT) {
-            PdfStream prs = null;
-            PdfDictionary fontDictionary = ((DocumentFont) bf).getFontDictionary();
-            PdfDictionary fontDescriptor = getDirectDictionary(fontDictionary.get(PdfName.FONTDESCRIPTOR));
-            if (fontDescriptor != null) {
-                prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE));
-                if (prs == null) {
-                    prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE2));
-                }
-                if (prs == null) {
-                    prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE3));
-                }
-            }
+            PdfStream prs = getFontProgram(((DocumentFont) bf).getFontDictionary());
             if (prs == null) {
                 throw new PdfAConformanceException(obj1, MessageLocalization.getComposedMessage("all.the.fonts.must.be.embedded.this.one.isn.t.1", ((BaseFont) obj1).getPostscriptFontName()));
             }
@@ -121,7 +114,7 @@ public class PdfA1Checker extends PdfAChecker {
 
     @Override
     protected void checkImage(PdfWriter writer, int key, Object obj1) {
-        PdfImage image = (PdfImage) obj1;
+        PdfStream image = (PdfStream) obj1;
         if (image.get(PdfName.SMASK) != null && !PdfName.NONE.equals(image.getAsName(PdfName.SMASK)))
             throw new PdfAConformanceException(obj1, MessageLocalization.getComposedMessage("the.smask.key.is.not.allowed.in.images"));
         if (image.contains(PdfName.ALTERNATES)) {
@@ -106,20 +106,13 @@ public class PdfA2Checker extends PdfAChecker {
 
     @Override
     protected void checkFont(PdfWriter writer, int key, Object obj1) {
+        if (obj1 instanceof PdfDictionary) {
+            checkFontDictionary((PdfDictionary) obj1);
+            return;
+        }
         BaseFont bf = (BaseFont) obj1;
         if (bf.getFontType() == BaseFont.FONT_TYPE_DOCUMENT) {
-            PdfStream prs = null;
-            PdfDictionary fontDictionary = ((DocumentFont) bf).getFontDictionary();
-            PdfDictionary fontDescriptor = getDirectDictionary(fontDictionary.get(PdfName.FONTDESCRIPTOR));
-            if (fontDescriptor != null) {
-                prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE));
-                if (prs == null) {
-                    prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE2));
-                }
-                if (prs == null) {
-                    prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE3));
-                }
-            }
+            PdfStream prs = getFontProgram(((DocumentFont) bf).getFontDictionary());
             if (prs == null) {
                 throw new PdfAConformanceException(obj1, MessageLocalization.getComposedMessage("all.the.fonts.must.be.embedded.this.one.isn.t.1", ((BaseFont) obj1).getPostscriptFontName()));
             }
@@ -187,7 +180,7 @@ public class PdfA2Checker extends PdfAChecker {
 
     @Override
     protected void checkImage(PdfWriter writer, int key, Object obj1) {
-        PdfImage pdfImage = (PdfImage) obj1;
+        PdfStream pdfImage = (PdfStream) obj1;
         if (getDirectStream(pdfImage.get(PdfName.SMASK)) != null) {
             transparencyDetectedOnThePage = true;
         }
@@ -202,8 +195,8 @@ public class PdfA2Checker extends PdfAChecker {
         if (interpolate != null && interpolate.booleanValue()) {
             throw new PdfAConformanceException(obj1, MessageLocalization.getComposedMessage("the.value.of.interpolate.key.shall.not.be.true"));
         }
-        if (pdfImage != null && (pdfImage.getImage() instanceof Jpeg2000)) {
-            Jpeg2000 jpeg2000 = (Jpeg2000) pdfImage.getImage();
+        if (pdfImage instanceof PdfImage && (((PdfImage) pdfImage).getImage() instanceof Jpeg2000)) {
+            Jpeg2000 jpeg2000 = (Jpeg2000) ((PdfImage) pdfImage).getImage();
             if (!jpeg2000.isJp2()) {
                 throw new PdfAConformanceException(MessageLocalization.getComposedMessage("only.jpx.baseline.set.of.features.shall.be.used"));
             }
@@ -179,6 +179,50 @@ abstract public class PdfAChecker {
         return null;
     }
 
+    /**
+     * Returns the embedded font program of a font dictionary, resolving the descendant
+     * font of composite fonts, or null if the font is not embedded.
+     * @param fontDictionary a font dictionary
+     * @return the FontFile, FontFile2 or FontFile3 stream, or null
+     */
+    protected PdfStream getFontProgram(PdfDictionary fontDictionary) {
+        if (fontDictionary == null)
+            return null;
+        PdfArray descendants = getDirectArray(fontDictionary.get(PdfName.DESCENDANTFONTS));
+        if (descendants != null && descendants.size() > 0) {
+            PdfDictionary descendant = getDirectDictionary(descendants.getPdfObject(0));
+            if (descendant != null)
+                fontDictionary = descendant;
+        }
+        PdfStream prs = null;
+        PdfDictionary fontDescriptor = getDirectDictionary(fontDictionary.get(PdfName.FONTDESCRIPTOR));
+        if (fontDescriptor != null) {
+            prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE));
+            if (prs == null) {
+                prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE2));
+            }
+            if (prs == null) {
+                prs = getDirectStream(fontDescriptor.get(PdfName.FONTFILE3));
+            }
+        }
+        return prs;
+    }
+
+    /**
+     * Checks a font dictionary read from an existing document. Type 3 fonts
+     * carry their glyphs in the document and need no font program.
+     * @param fontDictionary a font dictionary
+     */
+    protected void checkFontDictionary(PdfDictionary fontDictionary) {
+        if (PdfName.TYPE3.equals(fontDictionary.getAsName(PdfName.SUBTYPE)))
+            return;
+        if (getFontProgram(fontDictionary) == null) {
+            PdfName baseFont = fontDictionary.getAsName(PdfName.BASEFONT);
+            throw new PdfAConformanceException(fontDictionary, MessageLocalization.getComposedMessage("all.the.fonts.must.be.embedded.this.one.isn.t.1",
+                    baseFont == null ? "" : PdfName.decodeName(baseFont.toString())));
+        }
+    }
+
     abstract protected void checkFont(PdfWriter writer, int key, Object obj1);
 
     abstract protected void checkImage(PdfWriter writer, int key, Object obj1);
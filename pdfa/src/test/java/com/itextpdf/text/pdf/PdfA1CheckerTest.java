@@ -1506,4 +1506,32 @@ public class PdfA1CheckerTest {
         stamper.close();
         reader.close();
     }
+
+    @Test
+    public void stamperType0DocumentFontTest() throws IOException, DocumentException {
+        Document document = new Document();
+        PdfAWriter writer = PdfAWriter.getInstance(document, new FileOutputStream(outputDir + "stamperType0DocumentFontTest_source.pdf"), PdfAConformanceLevel.PDF_A_1B);
+        writer.createXmpMetadata();
+        document.open();
+        ICC_Profile icc = ICC_Profile.getInstance(new FileInputStream("./src/test/resources/com/itextpdf/text/pdf/sRGB Color Space Profile.icm"));
+        writer.setOutputIntents("Custom", "", "http://www.color.org", "sRGB IEC61966-2.1", icc);
+        Font font = FontFactory.getFont("./src/test/resources/com/itextpdf/text/pdf/FreeSans.ttf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED, 12);
+        document.add(new Paragraph("Hello World", font));
+        document.close();
+
+        PdfReader reader = new PdfReader(outputDir + "stamperType0DocumentFontTest_source.pdf");
+        PdfDictionary fonts = reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.FONT);
+        PRIndirectReference fontRef = (PRIndirectReference) fonts.get(fonts.getKeys().iterator().next());
+        DocumentFont documentFont = new DocumentFont(fontRef);
+        Assert.assertEquals(PdfName.TYPE0, documentFont.getFontDictionary().getAsName(PdfName.SUBTYPE));
+
+        PdfAStamper stamper = new PdfAStamper(reader, new FileOutputStream(outputDir + "stamperType0DocumentFontTest.pdf"), PdfAConformanceLevel.PDF_A_1B);
+        PdfContentByte canvas = stamper.getOverContent(1);
+        canvas.beginText();
+        canvas.setFontAndSize(documentFont, 12);
+        canvas.showTextAligned(Element.ALIGN_LEFT, "Hello", 36, 700, 0);
+        canvas.endText();
+        stamper.close();
+        reader.close();
+    }
 }
@@ -0,0 +1,77 @@
+package com.itextpdf.text.pdf;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.error_messages.MessageLocalization;
+import com.itextpdf.text.pdf.internal.PdfIsoKeys;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.*;
+
+public class PdfAValidatorTest {
+
+    static {
+        try {
+            MessageLocalization.setLanguage("en", "US");
+        } catch (IOException e) {
+        }
+    }
+
+    @Test
+    public void compliantDocumentTest() throws DocumentException, IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfAWriter writer = PdfAWriter.getInstance(document, baos, PdfAConformanceLevel.PDF_A_1B);
+        writer.createXmpMetadata();
+        document.open();
+        Font font = FontFactory.getFont("./src/test/resources/com/itextpdf/text/pdf/FreeMonoBold.ttf", BaseFont.WINANSI, BaseFont.EMBEDDED, 12);
+        for (int i = 0; i < 5; i++) {
+            document.add(new Paragraph("Hello World " + i, font));
+            document.newPage();
+        }
+        ICC_Profile icc = ICC_Profile.getInstance(new FileInputStream("./src/test/resources/com/itextpdf/text/pdf/sRGB Color Space Profile.icm"));
+        writer.setOutputIntents("Custom", "", "http://www.color.org", "sRGB IEC61966-2.1", icc);
+        document.close();
+
+        PdfReader reader = new PdfReader(baos.toByteArray());
+        PdfAValidationReport report = new PdfAValidator(PdfAConformanceLevel.PDF_A_1B).setThreads(4).validate(reader);
+        reader.close();
+        Assert.assertTrue(report.toString(), report.isCompliant());
+        Assert.assertEquals(5, report.getCheckedPages());
+        Assert.assertTrue(report.getCheckedObjects() > 0);
+    }
+
+    @Test
+    public void allIssuesReportedTest() throws DocumentException, IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+        document.add(new Paragraph("Hello World", new Font(Font.FontFamily.HELVETICA)));
+        PdfContentByte canvas = writer.getDirectContent();
+        for (int i = 0; i < 30; i++)
+            canvas.saveState();
+        for (int i = 0; i < 30; i++)
+            canvas.restoreState();
+        document.close();
+
+        for (boolean partial : new boolean[] {false, true}) {
+            PdfReader reader = new PdfReader(new RandomAccessFileOrArray(baos.toByteArray()), null, partial);
+            PdfAValidationReport report = new PdfAValidator(PdfAConformanceLevel.PDF_A_1B).setThreads(2).validate(reader);
+            reader.close();
+
+            Assert.assertFalse(report.isCompliant());
+            boolean metadata = false, font = false, canvasDepth = false;
+            for (PdfAValidationReport.Issue issue : report.getIssues()) {
+                Assert.assertFalse(issue.toString(), issue.isCheckFailure());
+                if (issue.getCheckKey() == PdfIsoKeys.PDFISOKEY_OBJECT && issue.getMessage().contains("Metadata"))
+                    metadata = true;
+                else if (issue.getCheckKey() == PdfIsoKeys.PDFISOKEY_FONT)
+                    font = true;
+                else if (issue.getCheckKey() == PdfIsoKeys.PDFISOKEY_CANVAS && issue.getPageNumber() == 1)
+                    canvasDepth = true;
+            }
+            Assert.assertTrue(report.toString(), metadata && font && canvasDepth);
+        }
+    }
+}
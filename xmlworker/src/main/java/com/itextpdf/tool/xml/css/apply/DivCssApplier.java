@@ -139,7 +139,7 @@ public class DivCssApplier implements CssApplier<PdfDiv> {
             } else if (key.equalsIgnoreCase(CSS.Property.BACKGROUND_IMAGE)) {
                 String url = utils.extractUrl(value);
                 try {
-                    Image img = new ImageRetrieve(context.getResourcesRootPath(), context.getImageProvider()).retrieveImage(url);
+                    Image img = new ImageRetrieve(context.getResourcesRootPath(), context.getImageProvider(), context.getImageCache()).retrieveImage(url);
                     div.setBackgroundImage(img);
                 } catch (NoImageException e) {
                     if (LOG.isLogging(Level.ERROR)) {
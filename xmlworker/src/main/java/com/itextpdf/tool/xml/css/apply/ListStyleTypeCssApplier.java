@@ -185,7 +185,7 @@ public class ListStyleTypeCssApplier implements CssApplier<List> {
 			lst = new List();
 			String url = utils.extractUrl(css.get(CSS.Property.LIST_STYLE_IMAGE));
 			try {
-				Image img = new ImageRetrieve(context.getResourcesRootPath(), context.getImageProvider()).retrieveImage(url);
+				Image img = new ImageRetrieve(context.getResourcesRootPath(), context.getImageProvider(), context.getImageCache()).retrieveImage(url);
 				lst.setListSymbol(new Chunk(img, 0, 0, false));
 				lst.setSymbolIndent(img.getWidth());
 				if (LOG.isLogging(Level.TRACE)) {
@@ -97,7 +97,7 @@ public class Image extends AbstractTagProcessor {
 					logger.trace(String.format(LocaleMessages.getInstance().getMessage(LocaleMessages.HTML_IMG_USE), src));
 				}
 				HtmlPipelineContext context = getHtmlPipelineContext(ctx);
-				img = new ImageRetrieve(context.getResourcesRootPath(), context.getImageProvider()).retrieveImage(src);
+				img = new ImageRetrieve(context.getResourcesRootPath(), context.getImageProvider(), context.getImageCache()).retrieveImage(src);
 			} catch (NoImageException e) {
 				if (logger.isLogging(Level.ERROR)) {
 					logger.error(String.format(LocaleMessages.getInstance().getMessage(LocaleMessages.HTML_IMG_RETRIEVE_FAIL), src), e);
@@ -0,0 +1,322 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Balder Van Camp, Emiel Ackermann, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.tool.xml.net;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.io.StreamUtil;
+import com.itextpdf.text.pdf.codec.Base64;
+
+/**
+ * A bounded, content-addressed cache of decoded images.<br />
+ * Images are looked up by their location first (an URL, a local file or a
+ * <code>data:</code> URI). When the location is unknown, the bytes are read
+ * and the image is looked up by the digest of its content, so two locations
+ * pointing to the same bytes share one decoded image.<br />
+ * Every call returns a new {@link Image} instance (see
+ * {@link Image#getInstance(Image)}) that shares the decoded data and the
+ * serial id of the cached image. Callers can scale or position the returned
+ * image freely, while a <code>PdfWriter</code> still writes the image only
+ * once per document.<br />
+ * A cache can be shared between documents and threads.
+ *
+ * @author itextpdf.com
+ *
+ */
+public class ImageCache {
+
+	/**
+	 * The default maximum number of decoded images kept in the cache.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+
+	private static final String DATA_URI_PREFIX = "data:";
+
+	private static final ImageCache SHARED = new ImageCache(DEFAULT_MAX_ENTRIES);
+
+	private final int maxEntries;
+	private final Map<String, String> locations;
+	private final Map<String, Image> images;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructs an ImageCache that keeps at most
+	 * {@link #DEFAULT_MAX_ENTRIES} images.
+	 */
+	public ImageCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Constructs an ImageCache.
+	 * @param maxEntries the maximum number of decoded images to keep, the
+	 *            least recently used image is dropped first
+	 */
+	public ImageCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+		}
+		this.maxEntries = maxEntries;
+		this.locations = new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+				return size() > ImageCache.this.maxEntries * 4;
+			}
+		};
+		this.images = new LinkedHashMap<String, Image>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Image> eldest) {
+				if (size() > ImageCache.this.maxEntries) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return an ImageCache shared by everyone who asks for it
+	 */
+	public static ImageCache getSharedInstance() {
+		return SHARED;
+	}
+
+	/**
+	 * @param src a src attribute
+	 * @return true if src is a <code>data:</code> URI
+	 */
+	public static boolean isDataUri(final String src) {
+		return src != null && src.regionMatches(true, 0, DATA_URI_PREFIX, 0, DATA_URI_PREFIX.length());
+	}
+
+	/**
+	 * Decodes the content of a <code>data:</code> URI. Both base64 and URL
+	 * encoded data is supported.
+	 * @param src the <code>data:</code> URI
+	 * @return the bytes in the URI
+	 * @throws IOException if src is not a valid <code>data:</code> URI
+	 */
+	public static byte[] decodeDataUri(final String src) throws IOException {
+		int comma = src.indexOf(',');
+		if (!isDataUri(src) || comma < 0) {
+			throw new IOException("Not a data URI: " + src);
+		}
+		String header = src.substring(DATA_URI_PREFIX.length(), comma);
+		String data = src.substring(comma + 1);
+		if (header.toLowerCase().endsWith(";base64")) {
+			byte[] b = data.getBytes("ISO-8859-1");
+			byte[] decoded = Base64.decode(b, 0, b.length, Base64.NO_OPTIONS);
+			if (decoded == null) {
+				throw new IOException("Invalid base64 data in data URI.");
+			}
+			return decoded;
+		}
+		return URLDecoder.decode(data, "ISO-8859-1").getBytes("ISO-8859-1");
+	}
+
+	/**
+	 * Retrieves an image from an URL. Local files are looked up again when
+	 * their size or modification time changes.
+	 * @param url the location of the image
+	 * @return a new Image instance sharing the cached, decoded image
+	 * @throws IOException if the image could not be read
+	 * @throws BadElementException if the image could not be decoded
+	 */
+	public Image getImage(final URL url) throws IOException, BadElementException {
+		String location = url.toExternalForm();
+		if ("file".equalsIgnoreCase(url.getProtocol())) {
+			File file = new File(URLDecoder.decode(url.getFile(), "UTF-8"));
+			location = location + '#' + file.length() + '#' + file.lastModified();
+		}
+		Image img = lookup(location);
+		if (img == null) {
+			InputStream in = url.openStream();
+			byte[] bytes;
+			try {
+				bytes = StreamUtil.inputStreamToArray(in);
+			} finally {
+				in.close();
+			}
+			img = store(location, bytes, url);
+		}
+		return Image.getInstance(img);
+	}
+
+	/**
+	 * Retrieves an image from a <code>data:</code> URI.
+	 * @param src the <code>data:</code> URI
+	 * @return a new Image instance sharing the cached, decoded image
+	 * @throws IOException if the URI is invalid
+	 * @throws BadElementException if the image could not be decoded
+	 */
+	public Image getImage(final String src) throws IOException, BadElementException {
+		String location = digest(src.getBytes("UTF-8"));
+		Image img = lookup(location);
+		if (img == null) {
+			img = store(location, decodeDataUri(src), null);
+		}
+		return Image.getInstance(img);
+	}
+
+	private synchronized Image lookup(final String location) {
+		String key = locations.get(location);
+		if (key != null) {
+			Image img = images.get(key);
+			if (img != null) {
+				hits++;
+				return img;
+			}
+			locations.remove(location);
+		}
+		return null;
+	}
+
+	private Image store(final String location, final byte[] bytes, final URL url) throws IOException,
+			BadElementException {
+		String key = digest(bytes);
+		synchronized (this) {
+			Image img = images.get(key);
+			if (img != null) {
+				hits++;
+				locations.put(location, key);
+				return img;
+			}
+		}
+		// decode outside the lock, another thread may be decoding the same bytes
+		Image img = Image.getInstance(bytes);
+		if (url != null) {
+			img.setUrl(url);
+		}
+		synchronized (this) {
+			Image other = images.get(key);
+			if (other != null) {
+				img = other;
+			} else {
+				images.put(key, img);
+			}
+			misses++;
+			locations.put(location, key);
+		}
+		return img;
+	}
+
+	private static String digest(final byte[] bytes) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			byte[] d = md.digest(bytes);
+			StringBuilder buf = new StringBuilder(d.length * 2 + 12);
+			for (byte b : d) {
+				buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return buf.append(':').append(bytes.length).toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new ExceptionConverter(e);
+		}
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that had to decode an image
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of images dropped because the cache was full
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the ratio of hits to lookups, 0 if there was no lookup yet
+	 */
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * @return the number of decoded images in the cache
+	 */
+	public synchronized int size() {
+		return images.size();
+	}
+
+	/**
+	 * Removes all images from the cache and resets the counters.
+	 */
+	public synchronized void clear() {
+		locations.clear();
+		images.clear();
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+}
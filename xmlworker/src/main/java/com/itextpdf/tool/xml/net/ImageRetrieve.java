@@ -58,25 +58,34 @@ import com.itextpdf.tool.xml.pipeline.html.UrlLinkResolver;
 public class ImageRetrieve {
 	private final ImageProvider imageProvider;
 	private String resourcesRootPath;
+	private final ImageCache imageCache;
 
-	public ImageRetrieve(String resourcesRootPath, final ImageProvider imageProvider) {
+	/**
+	 * @param resourcesRootPath the root path to resolve relative sources against
+	 * @param imageProvider the {@link ImageProvider} to ask first, may be null
+	 * @param imageCache the {@link ImageCache} to fetch and decode images
+	 *            through, may be null
+	 */
+	public ImageRetrieve(String resourcesRootPath, final ImageProvider imageProvider, final ImageCache imageCache) {
 		this.imageProvider = imageProvider;
 		this.resourcesRootPath = resourcesRootPath;
+		this.imageCache = imageCache;
+	}
+
+	public ImageRetrieve(String resourcesRootPath, final ImageProvider imageProvider) {
+		this(resourcesRootPath, imageProvider, null);
 	}
 
 	public ImageRetrieve(String resourcesRootPath) {
-		this.resourcesRootPath = resourcesRootPath;
-		this.imageProvider = null;
+		this(resourcesRootPath, null, null);
 	}
 
 	public ImageRetrieve(final ImageProvider imageProvider) {
-		this.imageProvider = imageProvider;
-		this.resourcesRootPath = null;
+		this(null, imageProvider, null);
 	}
 
 	public ImageRetrieve() {
-		this.imageProvider = null;
-		this.resourcesRootPath = null;
+		this(null, null, null);
 	}
 
 	public com.itextpdf.text.Image retrieveImage(final String src) throws NoImageException {
@@ -85,8 +94,12 @@ public class ImageRetrieve {
 
 		if (img == null) {
 			try {
-				URL url = getImageUrl(src);
-				img = Image.getInstance(url);
+				if (ImageCache.isDataUri(src)) {
+					img = imageCache != null ? imageCache.getImage(src) : Image.getInstance(ImageCache.decodeDataUri(src));
+				} else {
+					URL url = getImageUrl(src);
+					img = imageCache != null ? imageCache.getImage(url) : Image.getInstance(url);
+				}
 			} catch (Exception e) {
 				throw new NoImageException(src, e);
 			}
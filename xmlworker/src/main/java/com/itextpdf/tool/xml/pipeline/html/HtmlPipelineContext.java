@@ -68,6 +68,7 @@ import com.itextpdf.tool.xml.html.Image;
 import com.itextpdf.tool.xml.html.TagProcessor;
 import com.itextpdf.tool.xml.html.TagProcessorFactory;
 import com.itextpdf.tool.xml.html.Tags;
+import com.itextpdf.tool.xml.net.ImageCache;
 
 /**
  * The CustomContext object for the HtmlPipeline.<br />
@@ -91,6 +92,7 @@ public class HtmlPipelineContext implements CustomContext, Cloneable, MarginMemo
 	private TagProcessorFactory tagFactory;
 	private final List<Element> ctn = new ArrayList<Element>();
 	private ImageProvider imageProvider;
+	private ImageCache imageCache;
 	private String resourcesRootPath;
 	private Rectangle pageSize = PageSize.A4;
 	private Charset charset;
@@ -196,6 +198,14 @@ public class HtmlPipelineContext implements CustomContext, Cloneable, MarginMemo
 		return this.imageProvider;
 	}
 
+	/**
+	 * @return the image cache or null if images are fetched and decoded for
+	 *         every occurrence.
+	 */
+	public ImageCache getImageCache() {
+		return this.imageCache;
+	}
+
 	/**
 	 * Set a {@link Charset} to use.
 	 * @param cSet the charset.
@@ -265,6 +275,9 @@ public class HtmlPipelineContext implements CustomContext, Cloneable, MarginMemo
 		if (this.imageProvider != null) {
                     newCtx.setImageProvider(imageProvider);
 		}
+		if (this.imageCache != null) {
+			newCtx.setImageCache(imageCache);
+		}
 		if (this.resourcesRootPath != null) {
 			newCtx.setResourcesRootPath(resourcesRootPath);
 		}
@@ -335,6 +348,20 @@ public class HtmlPipelineContext implements CustomContext, Cloneable, MarginMemo
 		return this;
 	}
 
+	/**
+	 * An ImageCache can be provided to fetch and decode each distinct image
+	 * only once, also across documents when the same cache (e.g.
+	 * {@link ImageCache#getSharedInstance()}) is given to several contexts.
+	 * An {@link ImageProvider}, if any, is still asked first.
+	 *
+	 * @param imageCache the {@link ImageCache} to use.
+	 * @return this <code>HtmlPipelineContext</code>
+	 */
+	public HtmlPipelineContext setImageCache(final ImageCache imageCache) {
+		this.imageCache = imageCache;
+		return this;
+	}
+
 	/**
 	 * Set the LinkProvider to use if any.
 	 *
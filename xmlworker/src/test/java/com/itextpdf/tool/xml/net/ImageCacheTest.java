@@ -0,0 +1,127 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Balder Van Camp, Emiel Ackermann, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.tool.xml.net;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.net.URL;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.itextpdf.text.Image;
+import com.itextpdf.text.io.StreamUtil;
+import com.itextpdf.text.pdf.codec.Base64;
+
+public class ImageCacheTest {
+
+	private static final String IMAGE = "./src/test/resources/images.jpg";
+
+	private ImageCache cache;
+	private URL url;
+
+	@Before
+	public void setup() throws Exception {
+		cache = new ImageCache(2);
+		url = new File(IMAGE).toURI().toURL();
+	}
+
+	@Test
+	public void sameUrlIsDecodedOnce() throws Exception {
+		Image first = cache.getImage(url);
+		Image second = cache.getImage(url);
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(first.getMySerialId(), second.getMySerialId());
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(0.5, cache.getHitRate(), 0.0001);
+	}
+
+	@Test
+	public void dataUriSharesImageWithSameContent() throws Exception {
+		FileInputStream in = new FileInputStream(IMAGE);
+		byte[] bytes = StreamUtil.inputStreamToArray(in);
+		in.close();
+		String src = "data:image/jpeg;base64," + Base64.encodeBytes(bytes, Base64.DONT_BREAK_LINES);
+		Image fromUri = cache.getImage(src);
+		Image fromUrl = cache.getImage(url);
+		Assert.assertEquals(fromUri.getMySerialId(), fromUrl.getMySerialId());
+		Assert.assertEquals(1, cache.size());
+		Assert.assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void retrieveThroughCache() throws Exception {
+		ImageRetrieve retrieve = new ImageRetrieve("./src/test/resources", null, cache);
+		Image first = retrieve.retrieveImage("images.jpg");
+		Image second = retrieve.retrieveImage("images.jpg");
+		Assert.assertEquals(first.getMySerialId(), second.getMySerialId());
+		Assert.assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() throws Exception {
+		cache.getImage(dataUri(1));
+		cache.getImage(dataUri(2));
+		cache.getImage(dataUri(3));
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.getEvictions());
+	}
+
+	@Test(expected = java.io.IOException.class)
+	public void invalidDataUri() throws Exception {
+		ImageCache.decodeDataUri("data:image/png;base64");
+	}
+
+	private static String dataUri(final int shade) throws Exception {
+		// a 1x1 24 bit BMP
+		byte[] bmp = new byte[] {
+				'B', 'M', 58, 0, 0, 0, 0, 0, 0, 0, 54, 0, 0, 0,
+				40, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 24, 0, 0, 0, 0, 0, 4, 0, 0, 0,
+				0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+				(byte) shade, (byte) shade, (byte) shade, 0 };
+		return "data:image/bmp;base64," + Base64.encodeBytes(bmp, Base64.DONT_BREAK_LINES);
+	}
+}
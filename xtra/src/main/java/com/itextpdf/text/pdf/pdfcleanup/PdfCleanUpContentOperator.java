@@ -94,6 +94,9 @@ class PdfCleanUpContentOperator implements ContentOperator {
 
     private static final Set<String> strokeColorOperators = new HashSet<String>(Arrays.asList("CS", "SC", "SCN", "G", "RG", "K"));
 
+    // Operators which read streams or fonts from the document, or change its xobjects
+    private static final Set<String> documentAccessOperators = new HashSet<String>(Arrays.asList("Do", "Tf", "gs"));
+
     protected PdfCleanUpRenderListener cleanUpStrategy;
     protected ContentOperator originalContentOperator;
 
@@ -110,6 +113,16 @@ class PdfCleanUpContentOperator implements ContentOperator {
     }
 
     public void invoke(PdfContentStreamProcessor pdfContentStreamProcessor, PdfLiteral operator, ArrayList<PdfObject> operands) throws Exception {
+        if (documentAccessOperators.contains(operator.toString())) {
+            synchronized (cleanUpStrategy.getDocumentLock()) {
+                processOperator(pdfContentStreamProcessor, operator, operands);
+            }
+        } else {
+            processOperator(pdfContentStreamProcessor, operator, operands);
+        }
+    }
+
+    private void processOperator(PdfContentStreamProcessor pdfContentStreamProcessor, PdfLiteral operator, ArrayList<PdfObject> operands) throws Exception {
         String operatorStr = operator.toString();
         PdfContentByte canvas = cleanUpStrategy.getContext().getCanvas();
         PRStream xFormStream = null;
@@ -47,11 +47,19 @@ import com.itextpdf.text.*;
 import com.itextpdf.text.io.RandomAccessSourceFactory;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.parser.ContentByteUtils;
+import com.itextpdf.text.pdf.parser.DocumentFontCache;
+import com.itextpdf.text.pdf.parser.FormXObjectCache;
 import com.itextpdf.text.pdf.parser.PdfContentStreamProcessor;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Represents the main mechanism for cleaning a PDF document.
@@ -83,6 +91,8 @@ public class PdfCleanUpProcessor {
 
     private int currentXObjNum = 0;
 
+    private int threadCount = 1;
+
     private PdfStamper pdfStamper;
 
     // key - page number, value - list of locations related to the page
@@ -130,41 +140,213 @@ public class PdfCleanUpProcessor {
      * @throws DocumentException
      */
     public void cleanUp() throws IOException, DocumentException {
-        for (Map.Entry<Integer, List<PdfCleanUpLocation>> entry : pdfCleanUpLocations.entrySet()) {
-            cleanUpPage(entry.getKey(), entry.getValue());
+        // the workers resolve page resources, which a partial reader reads from the file
+        if (threadCount > 1 && pdfCleanUpLocations.size() > 1 && !pdfStamper.getReader().isPartial()) {
+            cleanUpPagesConcurrently();
+        } else {
+            for (Map.Entry<Integer, List<PdfCleanUpLocation>> entry : pdfCleanUpLocations.entrySet()) {
+                cleanUpPage(entry.getKey(), entry.getValue());
+            }
         }
 
         pdfStamper.getReader().removeUnusedObjects();
     }
 
+    /**
+     * Sets the number of threads used to clean up the pages. Pages sharing xobjects are
+     * cleaned one after another on the same thread, in page order, so the result does not
+     * depend on this setting. The workers read page resources from the document, so
+     * when the reader was opened in partial mode all the pages are cleaned on the
+     * calling thread, whatever this setting.
+     *
+     * @param threadCount number of threads; 1, the default, cleans all the pages on the calling thread.
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be positive: " + threadCount);
+        }
+
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
     private void cleanUpPage(int pageNum, List<PdfCleanUpLocation> cleanUpLocations) throws IOException, DocumentException {
         if (cleanUpLocations.size() == 0) {
             return;
         }
 
+        PageCleanUp pageCleanUp = preparePage(pageNum, cleanUpLocations);
+        processPage(pageCleanUp, new Object());
+        finishPage(pageCleanUp);
+    }
+
+    /**
+     * Cleans the pages on several threads. Everything touching the stamper is done on the calling
+     * thread; the workers only process the content streams.
+     */
+    private void cleanUpPagesConcurrently() throws IOException, DocumentException {
+        List<PageCleanUp> pages = new ArrayList<PageCleanUp>();
+
+        for (Map.Entry<Integer, List<PdfCleanUpLocation>> entry : pdfCleanUpLocations.entrySet()) {
+            if (entry.getValue().size() != 0) {
+                pages.add(preparePage(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        List<List<PageCleanUp>> groups = groupPagesSharingXObjects(pages);
+        final Object documentLock = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, groups.size()));
+
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(groups.size());
+
+            for (final List<PageCleanUp> group : groups) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        for (PageCleanUp pageCleanUp : group) {
+                            processPage(pageCleanUp, documentLock);
+                        }
+
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof DocumentException) {
+                throw (DocumentException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new ExceptionConverter(e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (PageCleanUp pageCleanUp : pages) {
+            finishPage(pageCleanUp);
+        }
+    }
+
+    /**
+     * Pages whose contents use the same xobject end up in the same group, because cleaning
+     * a page rewrites the xobjects it uses.
+     */
+    private List<List<PageCleanUp>> groupPagesSharingXObjects(List<PageCleanUp> pages) {
         PdfReader pdfReader = pdfStamper.getReader();
-        PdfDictionary page = pdfReader.getPageN(pageNum);
-        PdfContentByte canvas = pdfStamper.getUnderContent(pageNum);
-        byte[] pageContentInput = ContentByteUtils.getContentBytesForPage(pdfReader, pageNum);
-        page.remove(PdfName.CONTENTS);
+        int[] groupOf = new int[pages.size()];
+        Map<Integer, Integer> xObjUsers = new HashMap<Integer, Integer>();
 
-        canvas.saveState();
+        for (int i = 0; i < pages.size(); ++i) {
+            groupOf[i] = i;
+            Set<Integer> xObjNumbers = new HashSet<Integer>();
+            collectXObjects(pdfReader.getPageResources(pages.get(i).page), xObjNumbers);
 
-        PdfCleanUpRegionFilter filter = createFilter(cleanUpLocations);
-        PdfCleanUpRenderListener pdfCleanUpRenderListener = new PdfCleanUpRenderListener(pdfStamper, filter);
-        pdfCleanUpRenderListener.registerNewContext(pdfReader.getPageResources(page), canvas);
+            for (Integer xObjNumber : xObjNumbers) {
+                Integer user = xObjUsers.get(xObjNumber);
 
-        PdfContentStreamProcessor contentProcessor = new PdfContentStreamProcessor(pdfCleanUpRenderListener);
+                if (user == null) {
+                    xObjUsers.put(xObjNumber, i);
+                } else {
+                    groupOf[findGroup(groupOf, i)] = findGroup(groupOf, user);
+                }
+            }
+        }
+
+        Map<Integer, List<PageCleanUp>> groups = new LinkedHashMap<Integer, List<PageCleanUp>>();
+
+        for (int i = 0; i < pages.size(); ++i) {
+            Integer group = findGroup(groupOf, i);
+
+            if (!groups.containsKey(group)) {
+                groups.put(group, new ArrayList<PageCleanUp>());
+            }
+
+            groups.get(group).add(pages.get(i));
+        }
+
+        return new ArrayList<List<PageCleanUp>>(groups.values());
+    }
+
+    private static int findGroup(int[] groupOf, int i) {
+        while (groupOf[i] != i) {
+            groupOf[i] = groupOf[groupOf[i]];
+            i = groupOf[i];
+        }
+
+        return i;
+    }
+
+    private static void collectXObjects(PdfDictionary resources, Set<Integer> xObjNumbers) {
+        PdfDictionary xObjResources = resources == null ? null : resources.getAsDict(PdfName.XOBJECT);
+
+        if (xObjResources == null) {
+            return;
+        }
+
+        for (PdfName name : xObjResources.getKeys()) {
+            PdfObject ref = xObjResources.get(name);
+
+            if (ref instanceof PdfIndirectReference && xObjNumbers.add(((PdfIndirectReference) ref).getNumber())) {
+                PdfStream xObj = xObjResources.getAsStream(name);
+
+                if (xObj != null && PdfName.FORM.equals(xObj.getAsName(PdfName.SUBTYPE))) {
+                    collectXObjects(xObj.getAsDict(PdfName.RESOURCES), xObjNumbers);
+                }
+            }
+        }
+    }
+
+    private PageCleanUp preparePage(int pageNum, List<PdfCleanUpLocation> cleanUpLocations) throws IOException {
+        PdfReader pdfReader = pdfStamper.getReader();
+        PageCleanUp pageCleanUp = new PageCleanUp();
+        pageCleanUp.pageNum = pageNum;
+        pageCleanUp.cleanUpLocations = cleanUpLocations;
+        pageCleanUp.page = pdfReader.getPageN(pageNum);
+        pageCleanUp.canvas = pdfStamper.getUnderContent(pageNum);
+        pageCleanUp.content = ContentByteUtils.getContentBytesForPage(pdfReader, pageNum);
+        pageCleanUp.page.remove(PdfName.CONTENTS);
+
+        pageCleanUp.canvas.saveState();
+
+        return pageCleanUp;
+    }
+
+    private void processPage(PageCleanUp pageCleanUp, Object documentLock) {
+        PdfDictionary page = pageCleanUp.page;
+        PdfCleanUpRegionFilter filter = createFilter(pageCleanUp.cleanUpLocations);
+        PdfCleanUpRenderListener pdfCleanUpRenderListener = new PdfCleanUpRenderListener(pdfStamper, filter, documentLock);
+        pdfCleanUpRenderListener.registerNewContext(pdfStamper.getReader().getPageResources(page), pageCleanUp.canvas);
+
+        // form XObjects are rewritten while they are cleaned up, so their parsed content can't be reused
+        PdfContentStreamProcessor contentProcessor = new PdfContentStreamProcessor(pdfCleanUpRenderListener,
+                new DocumentFontCache(), new FormXObjectCache(0));
         PdfCleanUpContentOperator.populateOperators(contentProcessor, pdfCleanUpRenderListener);
-        contentProcessor.processContent(pageContentInput, page.getAsDict(PdfName.RESOURCES));
+        contentProcessor.processContent(pageCleanUp.content, page.getAsDict(PdfName.RESOURCES));
         pdfCleanUpRenderListener.popContext();
+    }
 
-        canvas.restoreState();
+    private void finishPage(PageCleanUp pageCleanUp) throws IOException, DocumentException {
+        pageCleanUp.canvas.restoreState();
 
-        colorCleanedLocations(canvas, cleanUpLocations);
+        colorCleanedLocations(pageCleanUp.canvas, pageCleanUp.cleanUpLocations);
 
         if (redactAnnotIndirRefs != null) { // if it isn't null, then we are in "extract locations from redact annots" mode
-            deleteRedactAnnots(pageNum);
+            deleteRedactAnnots(pageCleanUp.pageNum);
         }
     }
 
@@ -571,4 +753,15 @@ public class PdfCleanUpProcessor {
 
         }
     }
+
+    /**
+     * The state of a page between the steps of its clean up.
+     */
+    private static class PageCleanUp {
+        int pageNum;
+        List<PdfCleanUpLocation> cleanUpLocations;
+        PdfDictionary page;
+        PdfContentByte canvas;
+        byte[] content;
+    }
 }
@@ -59,12 +59,12 @@ import java.util.*;
 
 class PdfCleanUpRegionFilter extends RenderFilter {
 
-    private List<Rectangle> rectangles;
+    private PdfCleanUpRegionIndex regionIndex;
 
     private static final double circleApproximationConst = 0.55191502449;
 
     public PdfCleanUpRegionFilter(List<Rectangle> rectangles) {
-        this.rectangles = rectangles;
+        this.regionIndex = new PdfCleanUpRegionIndex(rectangles);
     }
 
     /**
@@ -82,7 +82,7 @@ class PdfCleanUpRegionFilter extends RenderFilter {
                 new Point2D.Float(descent.getStartPoint().get(0), descent.getStartPoint().get(1)),
         };
 
-        for (Rectangle rectangle : rectangles) {
+        for (Rectangle rectangle : queryRegions(glyphRect)) {
             Point2D[] redactRect = getVertices(rectangle);
 
             if (intersect(glyphRect, redactRect)) {
@@ -112,7 +112,9 @@ class PdfCleanUpRegionFilter extends RenderFilter {
             return null;
         }
 
-        for (Rectangle rectangle : rectangles) {
+        List<Rectangle> regions = regionIndex.query(imageRect.getLeft(), imageRect.getBottom(), imageRect.getRight(), imageRect.getTop());
+
+        for (Rectangle rectangle : regions) {
             Rectangle intersectionRect = intersection(imageRect, rectangle);
 
             if (intersectionRect != null) {
@@ -169,9 +171,19 @@ class PdfCleanUpRegionFilter extends RenderFilter {
         path.closeAllSubpaths();
 
         Clipper clipper = new DefaultClipper();
-        addPath(clipper, path);
+        double[] pathBBox = addPath(clipper, path);
+
+        // Only the regions near the path can change it
+        List<Rectangle> regions = Collections.emptyList();
 
-        for (Rectangle rectangle : rectangles) {
+        if (pathBBox != null) {
+            Point2D[] pathBBoxVertices = transformPoints(ctm, false,
+                    new Point2D.Double(pathBBox[0], pathBBox[1]), new Point2D.Double(pathBBox[2], pathBBox[1]),
+                    new Point2D.Double(pathBBox[2], pathBBox[3]), new Point2D.Double(pathBBox[0], pathBBox[3]));
+            regions = queryRegions(pathBBoxVertices);
+        }
+
+        for (Rectangle rectangle : regions) {
             Point2D[] transfRectVertices = transformPoints(ctm, true, getVertices(rectangle));
             addRect(clipper, transfRectVertices, PolyType.CLIP);
         }
@@ -410,13 +422,47 @@ class PdfCleanUpRegionFilter extends RenderFilter {
     }
 
 
-    private static void addPath(Clipper clipper, Path path) {
+    /**
+     * @return the bounding box (llx, lly, urx, ury) of the added points or <code>null</code> if nothing was added.
+     */
+    private static double[] addPath(Clipper clipper, Path path) {
+        double[] bbox = null;
+
         for (Subpath subpath : path.getSubpaths()) {
             if (!subpath.isSinglePointClosed() && !subpath.isSinglePointOpen()) {
                 List<Point2D> linearApproxPoints = subpath.getPiecewiseLinearApproximation();
                 clipper.addPath(convertToIntPoints(linearApproxPoints), PolyType.SUBJECT, subpath.isClosed());
+
+                for (Point2D point : linearApproxPoints) {
+                    if (bbox == null) {
+                        bbox = new double[] {point.getX(), point.getY(), point.getX(), point.getY()};
+                    } else {
+                        bbox[0] = Math.min(bbox[0], point.getX());
+                        bbox[1] = Math.min(bbox[1], point.getY());
+                        bbox[2] = Math.max(bbox[2], point.getX());
+                        bbox[3] = Math.max(bbox[3], point.getY());
+                    }
+                }
             }
         }
+
+        return bbox;
+    }
+
+    /**
+     * @return the regions whose bounding box intersects the bounding box of the given points.
+     */
+    private List<Rectangle> queryRegions(Point2D[] points) {
+        double llx = Double.MAX_VALUE, lly = Double.MAX_VALUE, urx = -Double.MAX_VALUE, ury = -Double.MAX_VALUE;
+
+        for (Point2D point : points) {
+            llx = Math.min(llx, point.getX());
+            lly = Math.min(lly, point.getY());
+            urx = Math.max(urx, point.getX());
+            ury = Math.max(ury, point.getY());
+        }
+
+        return regionIndex.query(llx, lly, urx, ury);
     }
 
     private static void addRect(Clipper clipper, Point2D[] rectVertices, PolyType polyType) {
@@ -0,0 +1,184 @@
+/*
+ *
+ * This file is part of the iText (R) project.
+ * Copyright (c) 1998-2016 iText Group NV
+ * Authors: Bruno Lowagie, Paulo Soares, et al.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * ITEXT GROUP. ITEXT GROUP DISCLAIMS THE WARRANTY OF NON INFRINGEMENT
+ * OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * http://itextpdf.com/terms-of-use/
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * In accordance with Section 7(b) of the GNU Affero General Public License,
+ * a covered work must retain the producer line in every PDF that is created
+ * or manipulated using iText.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the iText software without
+ * disclosing the source code of your own applications.
+ * These activities include: offering paid services to customers as an ASP,
+ * serving PDFs on the fly in a web application, shipping iText with a closed
+ * source product.
+ *
+ * For more information, please contact iText Software Corp. at this
+ * address: sales@itextpdf.com
+ */
+package com.itextpdf.text.pdf.pdfcleanup;
+
+import com.itextpdf.text.Rectangle;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uniform grid over the cleanup regions of a page, so that a piece of content
+ * is only tested against the regions near it instead of against all of them.
+ */
+class PdfCleanUpRegionIndex {
+
+    /**
+     * Bounding boxes are compared with this tolerance (in points), so that rounding
+     * in the transformations never drops a region which touches the content.
+     */
+    private static final float TOLERANCE = 1f;
+
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    private final List<Rectangle> regions;
+    private final float[] bounds; // llx, lly, urx, ury of each region
+
+    private float left;
+    private float bottom;
+    private float cellWidth;
+    private float cellHeight;
+    private int columns;
+    private int rows;
+    private int[][] cells;
+
+    public PdfCleanUpRegionIndex(List<Rectangle> regions) {
+        this.regions = regions;
+        this.bounds = new float[regions.size() * 4];
+
+        if (regions.isEmpty()) {
+            return;
+        }
+
+        float right = -Float.MAX_VALUE, top = -Float.MAX_VALUE;
+        left = Float.MAX_VALUE;
+        bottom = Float.MAX_VALUE;
+
+        for (int i = 0; i < regions.size(); ++i) {
+            Rectangle region = regions.get(i);
+            bounds[4 * i] = Math.min(region.getLeft(), region.getRight());
+            bounds[4 * i + 1] = Math.min(region.getBottom(), region.getTop());
+            bounds[4 * i + 2] = Math.max(region.getLeft(), region.getRight());
+            bounds[4 * i + 3] = Math.max(region.getBottom(), region.getTop());
+
+            left = Math.min(left, bounds[4 * i]);
+            bottom = Math.min(bottom, bounds[4 * i + 1]);
+            right = Math.max(right, bounds[4 * i + 2]);
+            top = Math.max(top, bounds[4 * i + 3]);
+        }
+
+        int side = Math.min(MAX_CELLS_PER_SIDE, (int) Math.ceil(Math.sqrt(regions.size())));
+        columns = right > left ? side : 1;
+        rows = top > bottom ? side : 1;
+        cellWidth = columns > 1 ? (right - left) / columns : 1;
+        cellHeight = rows > 1 ? (top - bottom) / rows : 1;
+
+        int[] counts = new int[columns * rows];
+        for (int i = 0; i < regions.size(); ++i) {
+            for (int row = row(bounds[4 * i + 1]); row <= row(bounds[4 * i + 3]); ++row) {
+                for (int col = column(bounds[4 * i]); col <= column(bounds[4 * i + 2]); ++col) {
+                    ++counts[row * columns + col];
+                }
+            }
+        }
+
+        cells = new int[columns * rows][];
+        for (int cell = 0; cell < cells.length; ++cell) {
+            cells[cell] = new int[counts[cell]];
+            counts[cell] = 0;
+        }
+
+        for (int i = 0; i < regions.size(); ++i) {
+            for (int row = row(bounds[4 * i + 1]); row <= row(bounds[4 * i + 3]); ++row) {
+                for (int col = column(bounds[4 * i]); col <= column(bounds[4 * i + 2]); ++col) {
+                    int cell = row * columns + col;
+                    cells[cell][counts[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all the regions, in their original order
+     */
+    public List<Rectangle> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Returns the regions whose bounding box intersects the given box, in their original order.
+     * The result may contain regions which only come close to the box.
+     */
+    public List<Rectangle> query(double llx, double lly, double urx, double ury) {
+        if (regions.isEmpty() || Double.isNaN(llx) || Double.isNaN(lly) || Double.isNaN(urx) || Double.isNaN(ury)) {
+            return regions.isEmpty() ? Collections.<Rectangle>emptyList() : regions;
+        }
+
+        BitSet found = new BitSet(regions.size());
+        int firstCol = column(llx - TOLERANCE), lastCol = column(urx + TOLERANCE);
+        int firstRow = row(lly - TOLERANCE), lastRow = row(ury + TOLERANCE);
+
+        for (int row = firstRow; row <= lastRow; ++row) {
+            for (int col = firstCol; col <= lastCol; ++col) {
+                for (int i : cells[row * columns + col]) {
+                    if (!found.get(i) && bounds[4 * i] <= urx + TOLERANCE && bounds[4 * i + 2] >= llx - TOLERANCE &&
+                            bounds[4 * i + 1] <= ury + TOLERANCE && bounds[4 * i + 3] >= lly - TOLERANCE) {
+                        found.set(i);
+                    }
+                }
+            }
+        }
+
+        List<Rectangle> result = new ArrayList<Rectangle>(found.cardinality());
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            result.add(regions.get(i));
+        }
+
+        return result;
+    }
+
+    private int column(double x) {
+        return clamp((int) Math.floor((x - left) / cellWidth), columns);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor((y - bottom) / cellHeight), rows);
+    }
+
+    private static int clamp(int cell, int count) {
+        return cell < 0 ? 0 : cell >= count ? count - 1 : cell;
+    }
+}
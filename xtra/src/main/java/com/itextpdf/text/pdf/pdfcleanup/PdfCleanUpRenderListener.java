@@ -91,9 +91,17 @@ class PdfCleanUpRenderListener implements ExtRenderListener {
     private boolean clipPath;
     private int clippingRule;
 
+    // Guards reading from the document and changing the objects of it when pages are cleaned concurrently
+    private Object documentLock;
+
     public PdfCleanUpRenderListener(PdfStamper pdfStamper, PdfCleanUpRegionFilter filter) {
+        this(pdfStamper, filter, new Object());
+    }
+
+    public PdfCleanUpRenderListener(PdfStamper pdfStamper, PdfCleanUpRegionFilter filter, Object documentLock) {
         this.pdfStamper = pdfStamper;
         this.filter = filter;
+        this.documentLock = documentLock;
     }
 
     public void renderText(TextRenderInfo renderInfo) {
@@ -136,7 +144,10 @@ class PdfCleanUpRenderListener implements ExtRenderListener {
                     }
 
                     PdfContentByte canvas = getContext().getCanvas();
-                    canvas.addImage(image, 1, 0, 0, 1, 0, 0, true);
+
+                    synchronized (documentLock) {
+                        canvas.addImage(image, 1, 0, 0, 1, 0, 0, true);
+                    }
                 } else if (pdfImage != null && imageBytes != pdfImage.getImageAsBytes()) {
                     chunks.add(new PdfCleanUpContentChunk.Image(true, imageBytes));
                 }
@@ -249,6 +260,10 @@ class PdfCleanUpRenderListener implements ExtRenderListener {
         return newClippingPath;
     }
 
+    public Object getDocumentLock() {
+        return documentLock;
+    }
+
     public List<PdfCleanUpContentChunk> getChunks() {
         return chunks;
     }
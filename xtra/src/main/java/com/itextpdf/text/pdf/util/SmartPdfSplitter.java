@@ -45,15 +45,31 @@ package com.itextpdf.text.pdf.util;
 
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.ExceptionConverter;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
 import com.itextpdf.text.log.Logger;
 import com.itextpdf.text.log.LoggerFactory;
 import com.itextpdf.text.pdf.PdfCopy;
 import com.itextpdf.text.pdf.PdfObject;
 import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfSmartCopy;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Splits a PDF based on a given file size.
@@ -121,7 +137,225 @@ public class SmartPdfSplitter {
         return true;
     }
     
+    /**
+     * Plans how the whole document is split into parts of at most the given size.
+     * The size of a part is estimated as the serialized size of the objects its pages
+     * use, plus the trailer and the cross-reference table; the size of every object is
+     * computed only once, however many pages share it. Unlike {@link #split(OutputStream, long)},
+     * which measures the output of {@link PdfSmartCopy} after every page, nothing is
+     * written, so the parts can end on other pages than those of {@link #split(OutputStream, long)},
+     * and a written part can be somewhat larger or smaller than its estimated length.
+     * The plan doesn't depend on, nor change, the state used by {@link #split(OutputStream, long)}.
+     * @param sizeInBytes   the maximum size of a part
+     * @return  the parts, in page order
+     * @throws IOException
+     */
+    public List<Part> plan(long sizeInBytes) throws IOException {
+        List<Part> parts = new ArrayList<Part>();
+        Map<Integer, Long> objectLengths = new HashMap<Integer, Long>();
+        Map<Integer, PdfObject> trailerResources = new PdfResourceCounter(reader.getTrailer()).getResources();
+        long trailer = getLength(trailerResources, Collections.<Integer>emptySet(), objectLengths);
+
+        Set<Integer> partResources = new HashSet<Integer>(trailerResources.keySet());
+        long length = trailer;
+        int firstPage = 1;
+        for (int page = 1; page <= numberOfPages; page++) {
+            Map<Integer, PdfObject> pageResources = new PdfResourceCounter(reader.getPageN(page)).getResources();
+            long pageLength = getLength(pageResources, partResources, objectLengths);
+            int newResources = 0;
+            for (Integer ref : pageResources.keySet()) {
+                if (!partResources.contains(ref)) newResources++;
+            }
+            if (page > firstPage && length + pageLength + xrefLength(partResources.size() + newResources) > sizeInBytes) {
+                parts.add(new Part(firstPage, page - 1, length + xrefLength(partResources.size()), sizeInBytes));
+                partResources = new HashSet<Integer>(trailerResources.keySet());
+                length = trailer;
+                firstPage = page;
+                pageLength = getLength(pageResources, partResources, objectLengths);
+            }
+            partResources.addAll(pageResources.keySet());
+            length += pageLength;
+        }
+        if (firstPage <= numberOfPages) {
+            parts.add(new Part(firstPage, numberOfPages, length + xrefLength(partResources.size()), sizeInBytes));
+        }
+        LOGGER.info(String.format("Planned %s parts for %s pages", parts.size(), numberOfPages));
+        return parts;
+    }
+
+    /**
+     * Writes the parts of a plan concurrently. Every thread copies the pages from
+     * its own reader, so the document is read from the file by each thread independently.
+     * @param parts     the parts, as returned by {@link #plan(long)}
+     * @param filename  the file the reader of this splitter was created from
+     * @param provider  provides the stream of each part; the stream is closed once the part is written
+     * @param threads   the number of threads to use
+     * @throws IOException
+     * @throws DocumentException
+     */
+    public void writeParts(List<Part> parts, final String filename, OutputStreamProvider provider, int threads) throws IOException, DocumentException {
+        writeParts(parts, new ReaderSource() {
+            public PdfReader createReader() throws IOException {
+                return new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createBestSource(filename)), null);
+            }
+        }, provider, threads);
+    }
+
+    /**
+     * Writes the parts of a plan concurrently. Every thread copies the pages from
+     * its own reader on the given bytes.
+     * @param parts     the parts, as returned by {@link #plan(long)}
+     * @param pdf       the bytes the reader of this splitter was created from
+     * @param provider  provides the stream of each part; the stream is closed once the part is written
+     * @param threads   the number of threads to use
+     * @throws IOException
+     * @throws DocumentException
+     */
+    public void writeParts(List<Part> parts, final byte[] pdf, OutputStreamProvider provider, int threads) throws IOException, DocumentException {
+        writeParts(parts, new ReaderSource() {
+            public PdfReader createReader() throws IOException {
+                return new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(pdf)), null);
+            }
+        }, provider, threads);
+    }
+
+    private void writeParts(List<Part> parts, final ReaderSource source, final OutputStreamProvider provider, int threads) throws IOException, DocumentException {
+        final List<PdfReader> readers = Collections.synchronizedList(new ArrayList<PdfReader>());
+        final ThreadLocal<PdfReader> threadReader = new ThreadLocal<PdfReader>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, parts.size())));
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(parts.size());
+            for (int i = 0; i < parts.size(); i++) {
+                final int index = i;
+                final Part part = parts.get(i);
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        PdfReader partReader = threadReader.get();
+                        if (partReader == null) {
+                            partReader = source.createReader();
+                            readers.add(partReader);
+                            threadReader.set(partReader);
+                        }
+                        writePart(partReader, part, provider.getOutputStream(index, part));
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof DocumentException) throw (DocumentException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new ExceptionConverter(e);
+        }
+        finally {
+            executor.shutdownNow();
+            for (PdfReader partReader : readers) {
+                partReader.close();
+            }
+        }
+    }
+
+    private void writePart(PdfReader partReader, Part part, OutputStream os) throws IOException, DocumentException {
+        Document document = new Document();
+        PdfCopy copy = new PdfSmartCopy(document, os);
+        document.open();
+        for (int page = part.getFirstPage(); page <= part.getLastPage(); page++) {
+            copy.addPage(copy.getImportedPage(partReader, page));
+        }
+        document.close();
+        LOGGER.info(String.format("Pages %s-%s written", part.getFirstPage(), part.getLastPage()));
+    }
+
+    /**
+     * Returns the length of the objects that aren't part of the excluded ones,
+     * caching the length of every object.
+     */
+    private long getLength(Map<Integer, PdfObject> resources, Set<Integer> excluded, Map<Integer, Long> objectLengths) throws IOException {
+        long length = 0;
+        for (Map.Entry<Integer, PdfObject> entry : resources.entrySet()) {
+            if (excluded.contains(entry.getKey())) {
+                continue;
+            }
+            Long objectLength = objectLengths.get(entry.getKey());
+            if (objectLength == null) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                entry.getValue().toPdf(null, baos);
+                objectLength = Long.valueOf(baos.size());
+                objectLengths.put(entry.getKey(), objectLength);
+            }
+            length += objectLength.longValue();
+        }
+        return length;
+    }
+
     private long xrefLength(int size) {
         return 20l * (size + 1);
     }
+
+    /**
+     * A range of pages that is written to the same output.
+     */
+    public static class Part {
+        private final int firstPage;
+        private final int lastPage;
+        private final long estimatedLength;
+        private final boolean overSized;
+
+        Part(int firstPage, int lastPage, long estimatedLength, long sizeInBytes) {
+            this.firstPage = firstPage;
+            this.lastPage = lastPage;
+            this.estimatedLength = estimatedLength;
+            this.overSized = estimatedLength > sizeInBytes;
+        }
+
+        public int getFirstPage() {
+            return firstPage;
+        }
+
+        public int getLastPage() {
+            return lastPage;
+        }
+
+        public long getEstimatedLength() {
+            return estimatedLength;
+        }
+
+        /**
+         * @return true if the part consists of a single page that is larger than the maximum size
+         */
+        public boolean isOverSized() {
+            return overSized;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pages %s-%s (%s bytes)", firstPage, lastPage, estimatedLength);
+        }
+    }
+
+    /**
+     * Provides the streams the parts are written to.
+     */
+    public interface OutputStreamProvider {
+        /**
+         * @param index the index of the part in the plan
+         * @param part  the part
+         * @return  the stream to write the part to
+         * @throws IOException
+         */
+        OutputStream getOutputStream(int index, Part part) throws IOException;
+    }
+
+    private interface ReaderSource {
+        PdfReader createReader() throws IOException;
+    }
 }
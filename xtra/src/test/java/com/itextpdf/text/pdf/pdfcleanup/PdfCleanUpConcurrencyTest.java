@@ -0,0 +1,136 @@
+package com.itextpdf.text.pdf.pdfcleanup;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PdfCleanUpConcurrencyTest {
+
+    private static final int PAGES = 8;
+
+    @Test
+    public void concurrentCleanUpMatchesSequential() throws IOException, DocumentException {
+        byte[] source = createDrawing();
+        List<PdfCleanUpLocation> locations = new ArrayList<PdfCleanUpLocation>();
+
+        for (int page = 1; page <= PAGES; ++page) {
+            for (int i = 0; i < 40; ++i) {
+                float x = 30 + (i % 8) * 65, y = 60 + (i / 8) * 150 + page;
+                locations.add(new PdfCleanUpLocation(page, new Rectangle(x, y, x + 25, y + 18), BaseColor.BLACK));
+            }
+        }
+
+        byte[] sequential = cleanUp(source, locations, 1, false);
+        byte[] concurrent = cleanUp(source, locations, 4, false);
+        assertSameCleanUp(sequential, concurrent);
+    }
+
+    @Test
+    public void partialReaderIsCleanedSequentially() throws IOException, DocumentException {
+        byte[] source = createDrawing();
+        List<PdfCleanUpLocation> locations = new ArrayList<PdfCleanUpLocation>();
+
+        for (int page = 1; page <= PAGES; ++page) {
+            locations.add(new PdfCleanUpLocation(page, new Rectangle(30, 60, 300, 400), BaseColor.BLACK));
+        }
+
+        byte[] sequential = cleanUp(source, locations, 1, false);
+        byte[] partial = cleanUp(source, locations, 4, true);
+        assertSameCleanUp(sequential, partial);
+    }
+
+    private static void assertSameCleanUp(byte[] sequential, byte[] concurrent) throws IOException {
+        PdfReader expected = new PdfReader(sequential);
+        PdfReader actual = new PdfReader(concurrent);
+
+        for (int page = 1; page <= PAGES; ++page) {
+            Assert.assertArrayEquals("page " + page, expected.getPageContent(page), actual.getPageContent(page));
+        }
+
+        // the form shared by the first two pages was cleaned by both
+        Assert.assertArrayEquals(getLegend(expected), getLegend(actual));
+
+        expected.close();
+        actual.close();
+    }
+
+    private static byte[] getLegend(PdfReader reader) throws IOException {
+        PRStream legend = (PRStream) reader.getPageResources(1).getAsDict(PdfName.XOBJECT).getAsStream(new PdfName("Xf1"));
+        return PdfReader.getStreamBytes(legend);
+    }
+
+    private static byte[] cleanUp(byte[] source, List<PdfCleanUpLocation> locations, int threads, boolean partial) throws IOException, DocumentException {
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createSource(source)), null, partial);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, baos);
+
+        PdfCleanUpProcessor cleaner = new PdfCleanUpProcessor(locations, stamper);
+        cleaner.setThreadCount(threads);
+        cleaner.cleanUp();
+
+        stamper.close();
+        reader.close();
+
+        return baos.toByteArray();
+    }
+
+    private static byte[] createDrawing() throws IOException, DocumentException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, baos);
+        document.open();
+
+        BaseFont font = BaseFont.createFont();
+        PdfTemplate legend = writer.getDirectContent().createTemplate(200, 40);
+        legend.beginText();
+        legend.setFontAndSize(font, 10);
+        legend.showTextAligned(PdfContentByte.ALIGN_LEFT, "Shared legend", 5, 15, 0);
+        legend.endText();
+
+        for (int page = 1; page <= PAGES; ++page) {
+            PdfContentByte canvas = writer.getDirectContent();
+            canvas.setLineWidth(0.5f);
+
+            for (int i = 0; i < 30; ++i) {
+                canvas.moveTo(20 + i * 18, 40);
+                canvas.lineTo(20 + i * 18 + page, 800);
+                canvas.rectangle(200 + i, 300 + i, 150, 100);
+            }
+            canvas.stroke();
+
+            canvas.beginText();
+            canvas.setFontAndSize(font, 8);
+            for (int i = 0; i < 80; ++i) {
+                canvas.showTextAligned(PdfContentByte.ALIGN_LEFT, "Part " + page + "-" + i + " tolerance 0.05", 30 + (i % 4) * 130, 60 + (i / 4) * 37, 0);
+            }
+            canvas.endText();
+
+            // only the first two pages share an xobject, so they have to be cleaned together
+            if (page <= 2) {
+                canvas.addTemplate(legend, 30, 20);
+            }
+            document.newPage();
+        }
+
+        document.close();
+        return baos.toByteArray();
+    }
+}
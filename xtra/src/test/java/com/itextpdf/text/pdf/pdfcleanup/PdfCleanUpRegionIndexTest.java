@@ -0,0 +1,58 @@
+package com.itextpdf.text.pdf.pdfcleanup;
+
+import com.itextpdf.text.Rectangle;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PdfCleanUpRegionIndexTest {
+
+    @Test
+    public void queryMatchesLinearScan() {
+        Random random = new Random(42);
+        List<Rectangle> regions = new ArrayList<Rectangle>();
+
+        for (int i = 0; i < 500; ++i) {
+            float x = random.nextFloat() * 600, y = random.nextFloat() * 800;
+            // some regions are given with swapped corners
+            regions.add(i % 7 == 0 ? new Rectangle(x + 20, y + 10, x, y) : new Rectangle(x, y, x + random.nextFloat() * 40, y + random.nextFloat() * 40));
+        }
+
+        PdfCleanUpRegionIndex index = new PdfCleanUpRegionIndex(regions);
+
+        for (int i = 0; i < 2000; ++i) {
+            float llx = random.nextFloat() * 700 - 50, lly = random.nextFloat() * 900 - 50;
+            float urx = llx + random.nextFloat() * 60, ury = lly + random.nextFloat() * 60;
+            List<Rectangle> found = index.query(llx, lly, urx, ury);
+
+            int previous = -1;
+            for (Rectangle region : found) {
+                int position = regions.indexOf(region);
+                Assert.assertTrue("regions should keep their order", position > previous);
+                previous = position;
+            }
+
+            for (Rectangle region : regions) {
+                boolean intersects = Math.min(region.getLeft(), region.getRight()) <= urx && Math.max(region.getLeft(), region.getRight()) >= llx
+                        && Math.min(region.getBottom(), region.getTop()) <= ury && Math.max(region.getBottom(), region.getTop()) >= lly;
+                if (intersects) {
+                    Assert.assertTrue(found.contains(region));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyAndDegenerateRegions() {
+        Assert.assertTrue(new PdfCleanUpRegionIndex(new ArrayList<Rectangle>()).query(0, 0, 100, 100).isEmpty());
+
+        List<Rectangle> regions = new ArrayList<Rectangle>();
+        regions.add(new Rectangle(10, 10, 10, 50));
+        PdfCleanUpRegionIndex index = new PdfCleanUpRegionIndex(regions);
+        Assert.assertEquals(1, index.query(0, 0, 20, 20).size());
+        Assert.assertEquals(0, index.query(100, 100, 200, 200).size());
+    }
+}
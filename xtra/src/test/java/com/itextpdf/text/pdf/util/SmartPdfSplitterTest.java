@@ -0,0 +1,85 @@
+package com.itextpdf.text.pdf.util;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+
+public class SmartPdfSplitterTest {
+
+    private static final int PAGES = 40;
+
+    @Test
+    public void planAndWritePartsConcurrently() throws IOException, DocumentException {
+        byte[] pdf = createDocument();
+        SmartPdfSplitter splitter = new SmartPdfSplitter(new PdfReader(pdf));
+        List<SmartPdfSplitter.Part> parts = splitter.plan(20000);
+
+        Assert.assertTrue(parts.size() > 1);
+        int expectedFirstPage = 1;
+        for (SmartPdfSplitter.Part part : parts) {
+            Assert.assertEquals(expectedFirstPage, part.getFirstPage());
+            Assert.assertTrue(part.getLastPage() >= part.getFirstPage());
+            Assert.assertTrue(part.toString(), part.isOverSized() || part.getEstimatedLength() <= 20000);
+            expectedFirstPage = part.getLastPage() + 1;
+        }
+        Assert.assertEquals(PAGES + 1, expectedFirstPage);
+
+        final ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[parts.size()];
+        splitter.writeParts(parts, pdf, new SmartPdfSplitter.OutputStreamProvider() {
+            public OutputStream getOutputStream(int index, SmartPdfSplitter.Part part) {
+                return outputs[index] = new ByteArrayOutputStream();
+            }
+        }, 3);
+
+        for (int i = 0; i < parts.size(); i++) {
+            PdfReader reader = new PdfReader(outputs[i].toByteArray());
+            SmartPdfSplitter.Part part = parts.get(i);
+            Assert.assertEquals(part.getLastPage() - part.getFirstPage() + 1, reader.getNumberOfPages());
+            reader.close();
+        }
+    }
+
+    @Test
+    public void oversizedPageGetsItsOwnPart() throws IOException, DocumentException {
+        SmartPdfSplitter splitter = new SmartPdfSplitter(new PdfReader(createDocument()));
+        List<SmartPdfSplitter.Part> parts = splitter.plan(1);
+
+        Assert.assertEquals(PAGES, parts.size());
+        for (SmartPdfSplitter.Part part : parts) {
+            Assert.assertEquals(part.getFirstPage(), part.getLastPage());
+            Assert.assertTrue(part.isOverSized());
+        }
+    }
+
+    private static byte[] createDocument() throws IOException, DocumentException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, baos);
+        document.open();
+        // the image is shared by all the pages, the text is not
+        byte[] pixels = new byte[40 * 40 * 3];
+        new Random(7).nextBytes(pixels);
+        Image image = Image.getInstance(40, 40, 3, 8, pixels);
+        Random random = new Random(11);
+        for (int i = 1; i <= PAGES; i++) {
+            document.add(image);
+            for (int line = 0; line < 20; line++) {
+                document.add(new Paragraph("Page " + i + " line " + line + " " + Long.toString(random.nextLong(), 36)));
+            }
+            document.newPage();
+        }
+        document.close();
+        return baos.toByteArray();
+    }
+}